@@ -0,0 +1,5 @@
+-- Unread notifications are counted and polled by owner, this index lets MySQL
+-- answer those queries from the index alone, without reading the rows
+-- (InnoDB adds the primary key idNotification to every secondary index)
+ALTER TABLE notification
+    ADD INDEX idx_notification_owner_read (ownerNotification, readNotification);
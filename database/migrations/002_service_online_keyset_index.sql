@@ -0,0 +1,5 @@
+-- The online services are listed page by page, from the most recent to the oldest,
+-- each page starting after the (dateCreationService, idService) of the previous one.
+-- This index lets MySQL jump to the start of a page and read only the rows of the page
+ALTER TABLE service
+    ADD INDEX idx_service_state_date_id (stateService, dateCreationService, idService);
@@ -0,0 +1,7 @@
+-- The online services are searched by the words of their title and description
+ALTER TABLE service
+    ADD FULLTEXT INDEX ftx_service_title_description (titleService, descriptionService);
+
+-- The online services can be listed by cost, page by page
+ALTER TABLE service
+    ADD INDEX idx_service_state_cost_id (stateService, costService, idService);
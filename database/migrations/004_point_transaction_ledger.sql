@@ -0,0 +1,35 @@
+-- Every move of points is appended to this ledger, in the same transaction as the
+-- update of user.points. A transfer has one line per user involved, sharing the same
+-- transferKey; the unique key makes a retry of the same transfer fail instead of
+-- paying twice. Lines are never updated nor deleted.
+CREATE TABLE point_transaction (
+    idTransaction INT NOT NULL AUTO_INCREMENT,
+    transferKey VARCHAR(64) NOT NULL,
+    fkUser INT NOT NULL,
+    amount INT NOT NULL,
+    reason VARCHAR(64) NOT NULL,
+    createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (idTransaction),
+    UNIQUE KEY uk_point_transaction_transfer_user (transferKey, fkUser),
+    KEY idx_point_transaction_user (fkUser, idTransaction),
+    CONSTRAINT fk_point_transaction_user FOREIGN KEY (fkUser) REFERENCES user (idUser) ON DELETE CASCADE
+);
+
+-- The points held before the ledger existed
+INSERT INTO point_transaction (transferKey, fkUser, amount, reason)
+SELECT CONCAT('opening:', idUser), idUser, points, 'Opening balance'
+FROM user
+WHERE points <> 0;
+
+-- The older code could leave a balance below zero, it is brought back to zero
+-- and the correction is recorded, so the ledger still adds up to user.points
+INSERT INTO point_transaction (transferKey, fkUser, amount, reason)
+SELECT CONCAT('opening:', idUser, ':correction'), idUser, -points, 'Negative balance cleared'
+FROM user
+WHERE points < 0;
+
+UPDATE user SET points = 0 WHERE points < 0;
+
+-- A balance can never go below zero (enforced from MySQL 8.0.16)
+ALTER TABLE user
+    ADD CONSTRAINT chk_user_points_positive CHECK (points >= 0);
@@ -0,0 +1,17 @@
+-- Mails waiting to be sent by the background workers
+-- state: 0 pending, 1 sent, 2 given up after too many failures
+CREATE TABLE mail_outbox (
+    idMail INT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    state TINYINT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    nextAttemptAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    lastError VARCHAR(255) NULL,
+    createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sentAt TIMESTAMP NULL,
+    PRIMARY KEY (idMail),
+    -- The workers look for the pending mails due, in order
+    KEY idx_mail_outbox_due (state, nextAttemptAt, idMail)
+);
@@ -0,0 +1,26 @@
+-- A coupon bought is held for the buyer until the mail with its code is sent.
+-- The purchase inserts the reservation, debits the points, decrements the stock
+-- and queues the mail in one transaction. A reservation whose mail was not sent
+-- before expiresAt is released: the coupon goes back in stock and the points are refunded.
+-- state: 0 pending, 1 confirmed (mail sent), 2 released
+CREATE TABLE coupon_reservation (
+    idReservation INT NOT NULL AUTO_INCREMENT,
+    -- No foreign key on the coupon, the reservations outlive a deleted coupon
+    fkCoupon INT NOT NULL,
+    fkUser INT NOT NULL,
+    valueReservation INT NOT NULL,
+    fkMail INT NOT NULL,
+    state TINYINT NOT NULL DEFAULT 0,
+    expiresAt TIMESTAMP NOT NULL,
+    createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (idReservation),
+    -- The settlement looks for the pending reservations, expired first
+    KEY idx_coupon_reservation_pending (state, expiresAt, idReservation),
+    KEY idx_coupon_reservation_mail (fkMail),
+    CONSTRAINT fk_coupon_reservation_user FOREIGN KEY (fkUser) REFERENCES user (idUser) ON DELETE CASCADE,
+    CONSTRAINT fk_coupon_reservation_mail FOREIGN KEY (fkMail) REFERENCES mail_outbox (idMail)
+);
+
+-- The stock can never go below zero (enforced from MySQL 8.0.16)
+ALTER TABLE coupon
+    ADD CONSTRAINT chk_coupon_quantity_positive CHECK (quantityCoupon >= 0);
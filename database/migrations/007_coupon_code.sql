@@ -0,0 +1,23 @@
+-- The codes of the coupons, generated by batches before being sold.
+-- An application takes a block of available codes (state 1) and gives them to the
+-- buyers from memory; a code is issued (2) with the reservation of its buyer, in the
+-- same transaction as the purchase, then redeemed (3) by the partner, or made void (4)
+-- if the reservation is released. Allocated codes not issued when an application
+-- stops are simply never sold.
+CREATE TABLE coupon_code (
+    idCode INT NOT NULL AUTO_INCREMENT,
+    fkCoupon INT NOT NULL,
+    code CHAR(10) NOT NULL,
+    state TINYINT NOT NULL DEFAULT 0,
+    fkReservation INT NULL,
+    createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    issuedAt TIMESTAMP NULL,
+    redeemedAt TIMESTAMP NULL,
+    PRIMARY KEY (idCode),
+    -- Rejects the collisions and finds a code typed by a partner
+    UNIQUE KEY uk_coupon_code_code (code),
+    -- The applications take the available codes of a coupon, in order
+    KEY idx_coupon_code_allocate (fkCoupon, state, idCode),
+    KEY idx_coupon_code_reservation (fkReservation),
+    CONSTRAINT fk_coupon_code_reservation FOREIGN KEY (fkReservation) REFERENCES coupon_reservation (idReservation)
+);
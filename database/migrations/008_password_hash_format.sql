@@ -0,0 +1,4 @@
+-- The hashes are now stored as algorithm$iterations$hash (about 70 characters),
+-- the older hashes keep working and are replaced at the next login of their user
+ALTER TABLE user
+    MODIFY password VARCHAR(255) NOT NULL;
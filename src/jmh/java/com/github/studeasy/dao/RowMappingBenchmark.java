@@ -0,0 +1,189 @@
+package com.github.studeasy.dao;
+
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.serviceDAO.ServiceRowMapper;
+import com.github.studeasy.logic.common.CategoryTag;
+import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reading of the online services:
+ * SELECT service.*, user.* read with positional getters, building an owner for each row (as the DAO did),
+ * and the projected columns read by name with the ServiceRowMapper, the owners being resolved once.
+ * The rows are kept in memory, so only the mapping is timed; the bytes sent by the database for
+ * each result are computed once from the values and printed at the start
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final String[] SERVICE_COLUMNS = {"idService", "fkCategory", "titleService", "descriptionService",
+            "costService", "dateCreationService", "typeService", "stateService", "ownerService"};
+    private static final String[] USER_COLUMNS = {"idUser", "firstName", "lastName", "role", "password",
+            "emailAddress", "pseudo", "company", "points", "salt"};
+    private static final int[] SERVICE_TYPES = {Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.VARCHAR,
+            Types.INTEGER, Types.TIMESTAMP, Types.INTEGER, Types.INTEGER, Types.INTEGER};
+    private static final int[] USER_TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR};
+
+    @Param({"50", "1000"})
+    private int rows;
+
+    /**
+     * Number of services of each owner
+     */
+    @Param({"5"})
+    private int servicesPerOwner;
+
+    private CachedRowSet joined;
+    private CachedRowSet projected;
+    private ServiceRowMapper mapper;
+    private Map<Integer, User> owners;
+
+    @Setup
+    public void setUp() throws SQLException {
+        CategoryTag category = new CategoryTag(1, "Other", "Default");
+        mapper = new ServiceRowMapper(new CategoryDAO() {
+            public ArrayList<CategoryTag> seeAllCategories() { return new ArrayList<>(List.of(category)); }
+            public void deleteCategory(CategoryTag categoryToDelete) { }
+            public void submitAddCategory(String nameCat, String descriptionCat) { }
+            public void submitUpdateCategory(String nameCat, String descriptionCat, CategoryTag categoryToUpdate) { }
+            public CategoryTag searchCategory(String nameCat) { return category; }
+            public CategoryTag getCategory(int idCategory) { return category; }
+            public ArrayList<Integer> searchCategoryIds(String namePart) { return new ArrayList<>(List.of(1)); }
+        });
+        joined = rowSet(true);
+        projected = rowSet(false);
+        owners = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            int owner = i / servicesPerOwner;
+            owners.put(owner, new User(owner, "Last" + owner, "First" + owner, "user" + owner + "@studeasy.com",
+                    null, 1, null, "pseudo" + owner, 10, null));
+        }
+        System.out.println("\nBytes for " + rows + " services: SELECT * " + bytes(joined)
+                + ", projected " + bytes(projected));
+    }
+
+    @Benchmark
+    public List<Service> positionalJoin() throws SQLException {
+        List<Service> services = new ArrayList<>();
+        CachedRowSet resultSet = joined;
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            User owner = new User(resultSet.getInt(10), resultSet.getString(12), resultSet.getString(11),
+                    resultSet.getString(15), resultSet.getString(14), resultSet.getInt(13), resultSet.getString(17),
+                    resultSet.getString(16), resultSet.getInt(18), resultSet.getString(19));
+            services.add(new Service(resultSet.getInt(1), resultSet.getString(3), resultSet.getString(4),
+                    resultSet.getInt(5), resultSet.getInt(7), owner, new CategoryTag(1, "Other", "Default"),
+                    resultSet.getInt(8), resultSet.getTimestamp(6)));
+        }
+        return services;
+    }
+
+    @Benchmark
+    public List<Service> projectedByName() throws SQLException {
+        List<Service> services = new ArrayList<>();
+        CachedRowSet resultSet = projected;
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            Service service = mapper.map(resultSet);
+            service.setOwner(owners.get(ServiceRowMapper.ownerId(resultSet)));
+            services.add(service);
+        }
+        return services;
+    }
+
+    /**
+     * Create the rows of the services in memory
+     * @param withUser true to add all the columns of the owner, as SELECT service.*, user.*
+     * @return the rows
+     */
+    private CachedRowSet rowSet(boolean withUser) throws SQLException {
+        int count = SERVICE_COLUMNS.length + (withUser ? USER_COLUMNS.length : 0);
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(count);
+        for (int i = 0; i < count; i++) {
+            boolean service = i < SERVICE_COLUMNS.length;
+            String name = service ? SERVICE_COLUMNS[i] : USER_COLUMNS[i - SERVICE_COLUMNS.length];
+            meta.setColumnName(i + 1, name);
+            meta.setColumnLabel(i + 1, name);
+            meta.setColumnType(i + 1, service ? SERVICE_TYPES[i] : USER_TYPES[i - SERVICE_COLUMNS.length]);
+        }
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(meta);
+        for (int i = 0; i < rows; i++) {
+            int owner = i / servicesPerOwner;
+            Object[] values = {i, 1, "Service " + i, "Maths lessons for the first year, twice a week " + i, 20,
+                    new Timestamp(1600000000000L + i * 60000L), 1, 1, owner};
+            rowSet.moveToInsertRow();
+            for (int c = 0; c < values.length; c++) {
+                rowSet.updateObject(c + 1, values[c]);
+            }
+            if (withUser) {
+                // A PBKDF2 hash and its salt, as stored
+                Object[] user = {owner, "First" + owner, "Last" + owner, 1,
+                        "310000$" + "x".repeat(88), "user" + owner + "@studeasy.com", "pseudo" + owner, null, 10,
+                        "y".repeat(44)};
+                for (int c = 0; c < user.length; c++) {
+                    rowSet.updateObject(values.length + c + 1, user[c]);
+                }
+            }
+            rowSet.insertRow();
+            rowSet.moveToCurrentRow();
+        }
+        rowSet.beforeFirst();
+        return rowSet;
+    }
+
+    /**
+     * Compute the bytes of the values of the rows, as sent by the database
+     * @param rowSet the rows
+     * @return the number of bytes
+     */
+    private static long bytes(CachedRowSet rowSet) throws SQLException {
+        long bytes = 0;
+        int count = rowSet.getMetaData().getColumnCount();
+        rowSet.beforeFirst();
+        while (rowSet.next()) {
+            for (int c = 1; c <= count; c++) {
+                Object value = rowSet.getObject(c);
+                if (value instanceof String) {
+                    bytes += ((String) value).getBytes(StandardCharsets.UTF_8).length;
+                }
+                else if (value != null) {
+                    bytes += value instanceof Timestamp ? 8 : 4;
+                }
+            }
+        }
+        rowSet.beforeFirst();
+        return bytes;
+    }
+}
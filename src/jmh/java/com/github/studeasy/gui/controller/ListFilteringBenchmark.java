@@ -0,0 +1,146 @@
+package com.github.studeasy.gui.controller;
+
+import com.github.studeasy.logic.common.CategoryTag;
+import com.github.studeasy.logic.common.Coupon;
+import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.common.role.RolePartner;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures the filters of the lists typed by the user, on 10k to 1M objects in memory:
+ * the predicates as the controllers write them (the text typed and each field put in lower
+ * case for every object), the same predicates with the text put in lower case once, and the
+ * FilteredList of the services table, which applies the predicate to the whole list each time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListFilteringBenchmark {
+
+    private static final String[] WORDS = {"Maths", "Physics", "Moving", "Cooking", "Guitar", "Coding", "Garden", "English"};
+    private static final String[] COMPANIES = {"Decathlon", "Fnac", "Carrefour", "Cora", "Apple", "Auchan"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    /**
+     * The text typed by the user, in mixed case as they type it
+     */
+    @Param({"Co"})
+    private String typed;
+
+    private List<Service> services;
+    private List<User> users;
+    private List<Coupon> coupons;
+    private FilteredList<Service> filteredServices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        CategoryTag[] categories = new CategoryTag[WORDS.length];
+        for (int i = 0; i < WORDS.length; i++) {
+            categories[i] = new CategoryTag(i + 1, WORDS[i], "Category " + i);
+        }
+        User[] partners = new User[COMPANIES.length];
+        for (int i = 0; i < COMPANIES.length; i++) {
+            partners[i] = new User(i + 1, "Partner", "Account", "contact@" + COMPANIES[i].toLowerCase() + ".com",
+                    null, 2, COMPANIES[i], null, 0, null);
+        }
+        services = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        coupons = new ArrayList<>(size);
+        Date now = new Date();
+        for (int i = 0; i < size; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            User student = new User(i, "Last" + i, "First" + i, "student" + i + "@" + word.toLowerCase() + ".fr",
+                    null, 1, null, "pseudo" + i, random.nextInt(500), null);
+            users.add(student);
+            services.add(new Service(i, word + " lessons " + i, "Description of the service " + i, random.nextInt(100),
+                    random.nextInt(2), student, categories[random.nextInt(categories.length)], 1, now));
+            coupons.add(new Coupon(i, "Coupon " + i, "Description of the coupon " + i, random.nextInt(100) + 1,
+                    random.nextInt(50), partners[random.nextInt(partners.length)]));
+        }
+        ObservableList<Service> observable = FXCollections.observableArrayList(services);
+        filteredServices = new FilteredList<>(observable, service -> true);
+    }
+
+    @Benchmark
+    public int servicesLowerCaseEachService() {
+        return count(services, service -> service.getTitle().toLowerCase().contains(typed.toLowerCase())
+                || service.getCategory().getName().toLowerCase().contains(typed.toLowerCase()));
+    }
+
+    @Benchmark
+    public int servicesLowerCaseOnce() {
+        String filter = typed.toLowerCase();
+        return count(services, service -> service.getTitle().toLowerCase().contains(filter)
+                || service.getCategory().getName().toLowerCase().contains(filter));
+    }
+
+    @Benchmark
+    public int servicesFilteredList() {
+        String filter = typed.toLowerCase();
+        // A new predicate each time, as when the user types a letter
+        filteredServices.setPredicate(service -> service.getTitle().toLowerCase().contains(filter)
+                || service.getCategory().getName().toLowerCase().contains(filter));
+        return filteredServices.size();
+    }
+
+    @Benchmark
+    public int usersLowerCaseEachUser() {
+        return count(users, user -> user.getEmailAddress().toLowerCase().contains(typed.toLowerCase()));
+    }
+
+    @Benchmark
+    public int usersLowerCaseOnce() {
+        String filter = typed.toLowerCase();
+        return count(users, user -> user.getEmailAddress().toLowerCase().contains(filter));
+    }
+
+    @Benchmark
+    public int couponsLowerCaseEachCoupon() {
+        return count(coupons, coupon -> ((RolePartner) coupon.getOwner().getRole()).getCompany()
+                .toLowerCase().contains(typed.toLowerCase()));
+    }
+
+    @Benchmark
+    public int couponsLowerCaseOnce() {
+        String filter = typed.toLowerCase();
+        return count(coupons, coupon -> ((RolePartner) coupon.getOwner().getRole()).getCompany()
+                .toLowerCase().contains(filter));
+    }
+
+    private static <T> int count(List<T> rows, Predicate<T> predicate) {
+        int count = 0;
+        for (T row : rows) {
+            if (predicate.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.studeasy.logic.notifications;
+
+import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.logic.common.Notification;
+import com.github.studeasy.logic.common.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of counting the unread notifications of a user, with the notifications in memory:
+ * reading all the notifications of the user to count the unread ones, counting them without building
+ * the notifications (the COUNT(*) of the resync), and the poll of the NotificationDeliveryEngine
+ * which only asks for the notifications arrived since the previous one.
+ * The database is replaced by a map sorted by id, like the index of the table, so only the work
+ * done by the application is timed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationCountBenchmark {
+
+    @Param({"100", "10000"})
+    private int notifications;
+
+    private InMemoryNotificationDAO dao;
+    private User user;
+    private NotificationDeliveryEngine engine;
+
+    @Setup
+    public void setUp() throws Exception {
+        user = new User(1, "Last", "First", "student@studeasy.com", null, 1, null, "pseudo", 0, null);
+        dao = new InMemoryNotificationDAO();
+        for (int i = 1; i <= notifications; i++) {
+            // One notification out of four is still unread
+            dao.add(new Notification(i, "Title " + i, "Description of the notification " + i, i % 4 != 0, user));
+        }
+        engine = new NotificationDeliveryEngine(dao, Runnable::run, 2000, 30000, 1.5);
+        // We set the user without starting the polling thread, the benchmark runs the polls itself
+        Field field = NotificationDeliveryEngine.class.getDeclaredField("user");
+        field.setAccessible(true);
+        field.set(engine, user);
+        // The first poll counts everything, the next ones only look at the new notifications
+        engine.poll();
+    }
+
+    @Benchmark
+    public int readAllAndCount() throws Exception {
+        int unread = 0;
+        for (Notification notification : dao.getNotification(user)) {
+            if (!notification.isRead()) {
+                unread++;
+            }
+        }
+        return unread;
+    }
+
+    @Benchmark
+    public int countOnly() throws Exception {
+        return dao.getNbNotif(user);
+    }
+
+    @Benchmark
+    public boolean incrementalPoll() {
+        return engine.poll();
+    }
+
+    /**
+     * The notifications of one user, sorted by id
+     */
+    private static class InMemoryNotificationDAO extends NotificationDAO {
+
+        private final TreeMap<Integer, Notification> rows = new TreeMap<>();
+
+        private void add(Notification notification) {
+            rows.put(notification.getId(), notification);
+        }
+
+        public int getNbNotif(Object user) {
+            int unread = 0;
+            for (Notification notification : rows.values()) {
+                if (!notification.isRead()) {
+                    unread++;
+                }
+            }
+            return unread;
+        }
+
+        public int getLastNotificationId(Object user) {
+            return rows.isEmpty() ? 0 : rows.lastKey();
+        }
+
+        public int[] getNotificationState(Object user) {
+            return new int[]{getLastNotificationId(user), getNbNotif(user)};
+        }
+
+        public ArrayList<Integer> getNewNotificationIds(Object user, int lastId) {
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (Notification notification : rows.tailMap(lastId, false).values()) {
+                if (!notification.isRead()) {
+                    ids.add(notification.getId());
+                }
+            }
+            return ids;
+        }
+
+        public ArrayList<Notification> getNotification(Object currentUser) {
+            // The DAO builds a notification for each row read
+            ArrayList<Notification> read = new ArrayList<>(rows.size());
+            for (Notification row : rows.descendingMap().values()) {
+                read.add(new Notification(row.getId(), row.getTitle(), row.getDescription(), row.isRead(), row.getUser()));
+            }
+            return read;
+        }
+
+        public void deleteNotification(int idNotif) {
+            rows.remove(idNotif);
+        }
+
+        public void markAsRead(int idNotif) {
+            rows.get(idNotif).setRead(true);
+        }
+
+        public void createNotification(int idOwner, String title, String description) {
+            int id = getLastNotificationId(null) + 1;
+            rows.put(id, new Notification(id, title, description, false, null));
+        }
+
+        public void createNotifications(List<Notification> notifications) {
+            for (Notification notification : notifications) {
+                createNotification(notification.getUser().getIdUser(), notification.getTitle(), notification.getDescription());
+            }
+        }
+    }
+}
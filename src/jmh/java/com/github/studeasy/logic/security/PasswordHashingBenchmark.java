@@ -0,0 +1,55 @@
+package com.github.studeasy.logic.security;
+
+import com.github.studeasy.logic.utils.PasswordUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many passwords one core hashes per second, for each algorithm and cost
+ * Run with -t N to see how the throughput scales with N cores
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(1)
+public class PasswordHashingBenchmark {
+
+    /**
+     * The algorithm of the stored hashes, SHA1 is the one used before the hashes carried their settings
+     */
+    @Param({"PBKDF2WithHmacSHA1", "PBKDF2WithHmacSHA256"})
+    public String algorithm;
+
+    /**
+     * The cost of a hash
+     */
+    @Param({"10000", "310000"})
+    public int iterations;
+
+    private byte[] salt;
+
+    @Setup
+    public void setUp() {
+        salt = PasswordUtils.getSalt(30).getBytes();
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return PasswordUtils.hash("correct horse battery staple".toCharArray(), salt, algorithm, iterations);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.studeasy.logic.validation;
+
+import com.github.studeasy.logic.utils.regexUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the validation of a partner form:
+ * the patterns compiled at each call (as regexUtils did), the patterns compiled once,
+ * and the FormValidator checking the whole form
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final String EMAIL_REGEX = "[a-z0-9!#$%&'*+/=?^_`{|}~-]+(?:.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*@(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?";
+    private static final String PASSWORD_REGEX = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=*])(?=\\S+$).{8,}$";
+
+    private final String email = "firstname.lastname@studeasy.com";
+    private final String password = "Secret1@Secret";
+    private final Map<String, String> form = Forms.account(email, email, password, password);
+
+    @Benchmark
+    public boolean compiledEachCall() {
+        return Pattern.compile(EMAIL_REGEX).matcher(email).find()
+                && Pattern.compile(PASSWORD_REGEX).matcher(password).find();
+    }
+
+    @Benchmark
+    public boolean precompiled() {
+        return regexUtils.matches_mail(email) && regexUtils.matches_password(password);
+    }
+
+    @Benchmark
+    public ValidationResult formValidator() {
+        return Forms.PARTNER.validate(form);
+    }
+}
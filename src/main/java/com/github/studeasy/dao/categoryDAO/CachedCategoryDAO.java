@@ -0,0 +1,195 @@
+package com.github.studeasy.dao.categoryDAO;
+
+import com.github.studeasy.logic.common.CategoryTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Category DAO keeping the categories in memory
+ * The categories change rarely, so they are all read at once and kept, with an index
+ * by id and by name. Every change made through this DAO forgets them, and they are
+ * read again after a while in case another instance of the application changed them.
+ * The calls not answered by the memory are given to the DAO it wraps
+ */
+public class CachedCategoryDAO extends CategoryDAO {
+
+    /**
+     * The categories read at once, with their indexes
+     */
+    private static class Snapshot {
+        private final List<CategoryTag> categories;
+        private final Map<Integer, CategoryTag> byId;
+        private final Map<String, CategoryTag> byName;
+        private final long loadedAt;
+
+        private Snapshot(List<CategoryTag> categories, long loadedAt) {
+            this.categories = Collections.unmodifiableList(categories);
+            this.byId = new HashMap<>();
+            this.byName = new HashMap<>();
+            for (CategoryTag category : categories) {
+                byId.put(category.getIdCat(), category);
+                byName.put(key(category.getName()), category);
+            }
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * The DAO reading the database
+     */
+    private final CategoryDAO DELEGATE;
+
+    /**
+     * Delay after which the categories are read again (in ms)
+     */
+    private final long ttlMs;
+
+    /**
+     * The categories kept, null when they must be read again
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Counts the changes, a reading started before a change is not kept
+     */
+    private final AtomicLong VERSION;
+
+    /**
+     * Create the DAO
+     * @param delegate the DAO reading the database
+     * @param ttlMs delay after which the categories are read again (in ms)
+     */
+    public CachedCategoryDAO(CategoryDAO delegate, long ttlMs) {
+        this.DELEGATE = delegate;
+        this.ttlMs = ttlMs;
+        this.VERSION = new AtomicLong();
+    }
+
+    /**
+     * Retrieve all the categories
+     * @return a copy of the categories kept
+     */
+    public ArrayList<CategoryTag> seeAllCategories() {
+        return new ArrayList<>(this.snapshot().categories);
+    }
+
+    /**
+     * Delete a category, the categories kept are forgotten
+     * @param categoryToDelete the category to delete
+     */
+    public void deleteCategory(CategoryTag categoryToDelete) {
+        DELEGATE.deleteCategory(categoryToDelete);
+        this.invalidate();
+    }
+
+    /**
+     * Add a category, the categories kept are forgotten
+     * @param nameCat the name of the category
+     * @param descriptionCat the description of the category
+     */
+    public void submitAddCategory(String nameCat, String descriptionCat) {
+        DELEGATE.submitAddCategory(nameCat, descriptionCat);
+        this.invalidate();
+    }
+
+    /**
+     * Update a category, the categories kept are forgotten
+     * @param nameCat the name of the category
+     * @param descriptionCat the description of the category
+     * @param categoryToUpdate the category to update
+     */
+    public void submitUpdateCategory(String nameCat, String descriptionCat, CategoryTag categoryToUpdate) {
+        DELEGATE.submitUpdateCategory(nameCat, descriptionCat, categoryToUpdate);
+        this.invalidate();
+    }
+
+    /**
+     * Retrieve a category with its name, whatever the case as in the database
+     * @param nameCat the name of the category
+     * @return the category, or null if there isn't
+     */
+    public CategoryTag searchCategory(String nameCat) {
+        return nameCat == null ? null : this.snapshot().byName.get(key(nameCat));
+    }
+
+    /**
+     * Retrieve a category with its id
+     * A category unknown may have been added by another instance, it is read from the database
+     * @param idCategory the id of the category
+     * @return the category, or null if there isn't
+     */
+    public CategoryTag getCategory(int idCategory) {
+        CategoryTag category = this.snapshot().byId.get(idCategory);
+        if (category == null) {
+            category = DELEGATE.getCategory(idCategory);
+            if (category != null) {
+                // The others may have changed too
+                this.invalidate();
+            }
+        }
+        return category;
+    }
+
+    /**
+     * Retrieve the categories whose name contains a text
+     * @param namePart the text searched, whatever the case
+     * @return the ids of the categories matching
+     */
+    public ArrayList<Integer> searchCategoryIds(String namePart) {
+        String part = key(namePart);
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (CategoryTag category : this.snapshot().categories) {
+            if (key(category.getName()).contains(part)) {
+                ids.add(category.getIdCat());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Forget the categories kept, they are read again at the next call
+     */
+    public void invalidate() {
+        VERSION.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * Retrieve the categories kept, reading them if needed
+     * @return the categories
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < ttlMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.currentTimeMillis() - current.loadedAt >= ttlMs) {
+                long version = VERSION.get();
+                ArrayList<CategoryTag> categories = DELEGATE.seeAllCategories();
+                current = new Snapshot(categories, System.currentTimeMillis());
+                // No category at all is most likely an error of the database, we will try again
+                if (!categories.isEmpty() && VERSION.get() == version) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * The key of a name in the index, the names are compared whatever the case
+     * @param name the name
+     * @return the key
+     */
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -61,4 +61,18 @@ public abstract class CategoryDAO {
      * @return the categoryTag corresponding, or null if there isn't
      */
     public abstract CategoryTag searchCategory(String nameCat);
+
+    /**
+     * Function used to retrieve a category with its id
+     * @param idCategory the id of the category
+     * @return the category, or null if there isn't
+     */
+    public abstract CategoryTag getCategory(int idCategory);
+
+    /**
+     * Function used to retrieve the categories whose name contains a text
+     * @param namePart the text searched, whatever the case
+     * @return the ids of the categories matching
+     */
+    public abstract ArrayList<Integer> searchCategoryIds(String namePart);
 }
@@ -1,12 +1,11 @@
 package com.github.studeasy.dao.categoryDAO;
 
+import com.github.studeasy.dao.db.QueryTemplate;
 import com.github.studeasy.dao.serviceDAO.ServiceDAO;
 import com.github.studeasy.logic.common.CategoryTag;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
@@ -14,19 +13,25 @@ import java.util.ArrayList;
  * The Category DAO using a MySQL database
  * Contains all the methods accessing category related data
  */
+@SuppressWarnings("try")
 public class MySQLCategoryDAO extends CategoryDAO{
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLCategoryDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -34,29 +39,28 @@ public class MySQLCategoryDAO extends CategoryDAO{
      * @return the categories
      */
     public ArrayList<CategoryTag> seeAllCategories(){
-        ArrayList<CategoryTag> categories = new ArrayList<>();
-        try {
-            // We prepare the SQL request to retrieve a category
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.seeAllCategories")) {
+            ArrayList<CategoryTag> categories = new ArrayList<>();
             String request = "SELECT * FROM categorytag";
-            preparedStatement = DB.prepareStatement(request);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all the existing categories
-            while (resultSet.next()) {
-                // We create the category
-                CategoryTag category = new CategoryTag(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3));
-                // And put it with the others
-                categories.add(category);
+            try {
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all the existing categories
+                    while (resultSet.next()) {
+                        // We create the category
+                        CategoryTag category = new CategoryTag(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3));
+                        // And put it with the others
+                        categories.add(category);
+                    }
+                    return categories;
+                });
             }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return categories;
         }
-        // Error with the database
-        catch(SQLException err){
-            err.printStackTrace();
-        }
-        return categories;
     }
 
     /**
@@ -64,21 +68,19 @@ public class MySQLCategoryDAO extends CategoryDAO{
      * @param categoryToDelete the category to delete
      */
     public void deleteCategory(CategoryTag categoryToDelete){
-        // We prepare the SQL request to delete a category tag
-        PreparedStatement preparedStatement;
-        String request = "DELETE FROM categorytag WHERE idCategory = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, categoryToDelete.getIdCat());
-            // We execute the query
-            preparedStatement.executeUpdate();
-            // Now we need to set back the category of the service to a default value
-            ServiceDAO dao = ServiceDAO.getInstance();
-            dao.setDefaultCategory();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.deleteCategory")) {
+            String request = "DELETE FROM categorytag WHERE idCategory = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, categoryToDelete.getIdCat());
+                // Now we need to set back the category of the service to a default value
+                ServiceDAO dao = ServiceDAO.getInstance();
+                dao.setDefaultCategory();
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -88,19 +90,16 @@ public class MySQLCategoryDAO extends CategoryDAO{
      * @param descriptionCat the description of the category
      */
     public void submitAddCategory(String nameCat, String descriptionCat) {
-        // We prepare the SQL request to insert a category tag
-        PreparedStatement preparedStatement;
-        String request = "INSERT INTO categorytag (nameCategory,descriptionCategory) VALUES  (?,?)";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, nameCat);
-            preparedStatement.setString(2, descriptionCat);
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.submitAddCategory")) {
+            String request = "INSERT INTO categorytag (nameCategory,descriptionCategory) VALUES  (?,?)";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, nameCat, descriptionCat);
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -111,21 +110,16 @@ public class MySQLCategoryDAO extends CategoryDAO{
      * @param categoryToUpdate the category to update
      */
     public void submitUpdateCategory(String nameCat, String descriptionCat, CategoryTag categoryToUpdate){
-        // We prepare the SQL request to insert a category tag
-        PreparedStatement preparedStatement;
-        String request = "UPDATE categorytag SET nameCategory = ?, descriptionCategory = ? WHERE idCategory = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, nameCat);
-            preparedStatement.setString(2, descriptionCat);
-            preparedStatement.setInt(3, categoryToUpdate.getIdCat());
-
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.submitUpdateCategory")) {
+            String request = "UPDATE categorytag SET nameCategory = ?, descriptionCategory = ? WHERE idCategory = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, nameCat, descriptionCat, categoryToUpdate.getIdCat());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -135,27 +129,79 @@ public class MySQLCategoryDAO extends CategoryDAO{
      * @return the categoryTag corresponding, or null if there isn't
      */
     public CategoryTag searchCategory(String nameCat){
-        CategoryTag existingCat = null;
-        try {
-            // We prepare the SQL request to retrieve a category
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.searchCategory")) {
+            CategoryTag existingCat = null;
             String request = "SELECT * FROM categorytag WHERE nameCategory = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, nameCat);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We check if the query retrieved a category
-            if (resultSet.next()) {
-                // We create the corresponding category
-                existingCat = new CategoryTag(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3));
+            try {
+                // We execute the query
+                existingCat = TEMPLATE.query(request, resultSet -> {
+                    // We check if the query retrieved a category
+                    if (resultSet.next()) {
+                        // We create the corresponding category
+                        return new CategoryTag(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3));
+                    }
+                    return null;
+                }, nameCat);
             }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return existingCat;
+        }
+    }
+
+    /**
+     * Function used to retrieve a category with its id
+     * @param idCategory the id of the category
+     * @return the category, or null if there isn't
+     */
+    public CategoryTag getCategory(int idCategory){
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.getCategory")) {
+            CategoryTag category = null;
+            String request = "SELECT * FROM categorytag WHERE idCategory = ?";
+            try {
+                // We execute the query
+                category = TEMPLATE.query(request, resultSet -> {
+                    if (resultSet.next()) {
+                        return new CategoryTag(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3));
+                    }
+                    return null;
+                }, idCategory);
+            }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return category;
         }
-        // Error with the database
-        catch(SQLException err){
-            err.printStackTrace();
+    }
+
+    /**
+     * Function used to retrieve the categories whose name contains a text
+     * @param namePart the text searched, whatever the case
+     * @return the ids of the categories matching
+     */
+    public ArrayList<Integer> searchCategoryIds(String namePart){
+        try (TimedCall call = METRICS.time("dao.MySQLCategoryDAO.searchCategoryIds")) {
+            ArrayList<Integer> ids = new ArrayList<>();
+            String request = "SELECT idCategory FROM categorytag WHERE nameCategory LIKE ?";
+            // The wildcards typed are searched as they are
+            String escaped = namePart.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            try {
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getInt(1));
+                    }
+                    return ids;
+                }, "%" + escaped + "%");
+            }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return ids;
         }
-        return existingCat;
     }
-}
\ No newline at end of file
+}
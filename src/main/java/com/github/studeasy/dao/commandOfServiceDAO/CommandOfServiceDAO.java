@@ -33,26 +33,32 @@ public abstract class CommandOfServiceDAO {
     /**
      * Static method which allows to accept the transaction of a command
      * command will save to the database
+     * Only a pending command can be accepted
      * @param c
+     * @return true if the command was accepted, false if it was not pending anymore
      * @throws Exception
      */
-    public abstract void acceptTransaction(CommandOfService c) throws Exception;
+    public abstract boolean acceptTransaction(CommandOfService c) throws Exception;
 
     /**
      * Static method which allows to decline the transaction of a command
+     * Only a pending command can be declined
      * @param c
+     * @return true if the command was declined, false if it was not pending anymore
      * @throws Exception
      */
-    public abstract void declineTransaction(CommandOfService c) throws Exception;
+    public abstract boolean declineTransaction(CommandOfService c) throws Exception;
 
     /**
      * Static method which allows user apply for a service
      * Record will be saved to the database if it's approved
+     * The command is not created if the user already has a pending command for the service
      * @param s
      * @param currentUser
+     * @return the id of the new command, -1 if a command was already pending
      * @throws Exception
      */
-    public abstract void applyorbuyForService(Service s,Object currentUser) throws Exception;
+    public abstract int applyorbuyForService(Service s,Object currentUser) throws Exception;
 
     /**
      * Static method which allows user to add a feedback to a service
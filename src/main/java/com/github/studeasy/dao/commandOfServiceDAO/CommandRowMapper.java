@@ -0,0 +1,76 @@
+package com.github.studeasy.dao.commandOfServiceDAO;
+
+import com.github.studeasy.dao.db.RowMapper;
+import com.github.studeasy.dao.serviceDAO.ServiceRowMapper;
+import com.github.studeasy.logic.common.CommandOfService;
+import com.github.studeasy.logic.common.Feedback;
+import com.github.studeasy.logic.common.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds a command, with its feedback and its service, from the columns of the command table
+ * The buyer is left empty, the caller gives it once all the rows are read
+ */
+public class CommandRowMapper implements RowMapper<CommandOfService> {
+
+    /**
+     * The columns of a command
+     */
+    public static final String COLUMNS = "command.idCommand, command.fkUser, command.fkService, " +
+            "command.titleFeedback, command.rateFeedback, command.commentFeedback, command.date, command.state";
+
+    /**
+     * The columns of a command and of its service
+     */
+    public static final String WITH_SERVICE_COLUMNS = COLUMNS + ", " + ServiceRowMapper.COLUMNS;
+
+    /**
+     * Builds the services of the commands
+     */
+    private final ServiceRowMapper SERVICES;
+
+    /**
+     * Create the mapper
+     * @param services builds the services of the commands
+     */
+    public CommandRowMapper(ServiceRowMapper services) {
+        this.SERVICES = services;
+    }
+
+    /**
+     * Build the command of the current row, with its service, projected with WITH_SERVICE_COLUMNS
+     * @param resultSet the result, positioned on the row to read
+     * @return the command, or null if the category of its service was deleted meanwhile
+     * @throws SQLException if the row can't be read
+     */
+    public CommandOfService map(ResultSet resultSet) throws SQLException {
+        Service service = SERVICES.map(resultSet);
+        return service == null ? null : this.map(resultSet, service);
+    }
+
+    /**
+     * Build the command of the current row, for a service already known
+     * @param resultSet the result, positioned on the row to read
+     * @param service the service of the command
+     * @return the command
+     * @throws SQLException if the row can't be read
+     */
+    public CommandOfService map(ResultSet resultSet, Service service) throws SQLException {
+        Feedback feedback = new Feedback(resultSet.getInt("idCommand"), resultSet.getString("titleFeedback"),
+                resultSet.getString("commentFeedback"), resultSet.getDate("date"), resultSet.getInt("rateFeedback"));
+        return new CommandOfService(resultSet.getInt("idCommand"), feedback, null, service,
+                resultSet.getInt("state"), resultSet.getTimestamp("date"));
+    }
+
+    /**
+     * Retrieve the id of the buyer of the command of the current row
+     * @param resultSet the result, positioned on the row to read
+     * @return the id of the buyer
+     * @throws SQLException if the row can't be read
+     */
+    public static int buyerId(ResultSet resultSet) throws SQLException {
+        return resultSet.getInt("fkUser");
+    }
+}
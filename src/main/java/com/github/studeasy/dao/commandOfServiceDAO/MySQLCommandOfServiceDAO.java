@@ -1,92 +1,113 @@
 package com.github.studeasy.dao.commandOfServiceDAO;
 
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.dao.serviceDAO.ServiceRowMapper;
+import com.github.studeasy.dao.userDAO.UserCache;
 import com.github.studeasy.logic.common.*;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Command of Service DAO using a MySQL database
  * Contains all the methods accessing Command of Service related data
  */
+@SuppressWarnings("try")
 public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * Builds the commands and their services from the rows
+     */
+    private final CommandRowMapper COMMANDS;
+
+    /**
+     * The users owning or buying the services, kept for a while
+     */
+    private final UserCache USERS;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLCommandOfServiceDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.COMMANDS = new CommandRowMapper(new ServiceRowMapper(CategoryDAO.getInstance()));
+        this.USERS = UserCache.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /***
      * Function that allows to accept a transaction and update the state of the command
+     * Only a pending command can be accepted
      * @param c The command of the service
+     * @return true if the command was accepted, false if it was not pending anymore
      * @throws Exception
      */
     @Override
-    public void acceptTransaction(CommandOfService c) throws Exception {
-        try {
-            // We prepare the SQL request
-            PreparedStatement preparedStatement;
-
-            String request = "UPDATE command SET state = 1 where fkUser = ? AND fkService = ? AND idCommand = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, c.getOwner().getIdUser());
-            preparedStatement.setInt(2, c.getService().getIdService());
-            preparedStatement.setInt(3, c.getIdCommand());
-            preparedStatement.executeUpdate();
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+    public boolean acceptTransaction(CommandOfService c) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.acceptTransaction")) {
+            String request = "UPDATE command SET state = 1 where fkUser = ? AND fkService = ? AND idCommand = ? AND state = 0";
+            // We execute the query
+            return TEMPLATE.update(request, c.getOwner().getIdUser(), c.getService().getIdService(), c.getIdCommand()) == 1;
         }
     }
 
     /***
      * Function that allows the user decline a transaction and delete the command from the database
+     * Only a pending command can be declined
      * @param c the command to delete
+     * @return true if the command was declined, false if it was not pending anymore
      * @throws Exception
      */
     @Override
-    public void declineTransaction(CommandOfService c) throws Exception {
-        try {
-            // We prepare the SQL request
-            PreparedStatement preparedStatement;
-            String request = "DELETE from command where fkUser = ? AND fkService = ? AND idCommand = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, c.getOwner().getIdUser());
-            preparedStatement.setInt(2, c.getService().getIdService());
-            preparedStatement.setInt(3, c.getIdCommand());
+    public boolean declineTransaction(CommandOfService c) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.declineTransaction")) {
+            String request = "DELETE from command where fkUser = ? AND fkService = ? AND idCommand = ? AND state = 0";
             // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+            return TEMPLATE.update(request, c.getOwner().getIdUser(), c.getService().getIdService(), c.getIdCommand()) == 1;
         }
     }
 
     /***
      * Function that allows a user to apply or buy a service and insert to the database
+     * The command is not created if the user already has a pending command for the service
      * @param s the service that the user want to apply or buy
      * @param currentUser get the current user of this demand
+     * @return the id of the new command, -1 if a command was already pending
      * @throws Exception
      */
     @Override
-    public void applyorbuyForService(Service s,Object currentUser) throws Exception {
-            // We prepare the SQL request
-            PreparedStatement preparedStatement;
-            String request = "INSERT INTO command(fkUser, fkService, state)"+"VALUES (?,?,0)";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1,((User)currentUser).getIdUser() );
-            preparedStatement.setInt(2, s.getIdService());
-            // We execute the query
-            preparedStatement.executeUpdate();
+    public int applyorbuyForService(Service s,Object currentUser) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.applyorbuyForService")) {
+            int idUser = ((User)currentUser).getIdUser();
+            String request = "INSERT INTO command(fkUser, fkService, state) " +
+                    "SELECT ?, ?, 0 FROM DUAL WHERE NOT EXISTS " +
+                    "(SELECT 1 FROM command WHERE fkUser = ? AND fkService = ? AND state = 0)";
+            // The id of the command is read on the connection which created it
+            return TEMPLATE.inTransaction(() -> {
+                // We execute the query
+                if (TEMPLATE.update(request, idUser, s.getIdService(), idUser, s.getIdService()) == 0) {
+                    return -1;
+                }
+                return TEMPLATE.query("SELECT LAST_INSERT_ID()", resultSet -> {
+                    resultSet.next();
+                    return resultSet.getInt(1);
+                });
+            });
+        }
     }
 
     /**
@@ -95,39 +116,33 @@ public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
      * @return all the pending commands of the service
      */
     public ArrayList<CommandOfService> getPendingCommandsOfOneService(Service service){
-        ArrayList<CommandOfService> commandsOfService  =new ArrayList<>();
-        try{
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM command,user WHERE command.fkService = ? " +
-                    "AND state = 0 " +
-                    "AND user.idUser = command.fkUser";
-            // We prepare the SQL request to retrieve the services of the user
-            PreparedStatement preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1,service.getIdService());
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all command
-            while(resultSet.next()){
-                Timestamp dateCreation = resultSet.getTimestamp(7);
-
-                User buyer = new User(resultSet.getInt(9),resultSet.getString(11),resultSet.getString(10),
-                        resultSet.getString(14),resultSet.getString(13),resultSet.getInt(12),resultSet.getString(16),
-                        resultSet.getString(15),resultSet.getInt(17),resultSet.getString(18));
-
-                Feedback feedback = new Feedback(resultSet.getInt(5),resultSet.getString(4),
-                        resultSet.getString(6),resultSet.getDate(7),resultSet.getInt(3));
-
-                CommandOfService command = new CommandOfService(resultSet.getInt(1),feedback,buyer,service,
-                        resultSet.getInt(8),resultSet.getTimestamp(7));
-
-                commandsOfService.add(command);
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.getPendingCommandsOfOneService")) {
+            ArrayList<CommandOfService> commandsOfService  =new ArrayList<>();
+            // The ids of the buyers, in the order of the commands
+            List<Integer> buyerIds = new ArrayList<>();
+            try {
+                // The users are only joined to skip the commands without buyer
+                String request = "SELECT " + CommandRowMapper.COLUMNS + " FROM command,user WHERE command.fkService = ? " +
+                        "AND state = 0 " +
+                        "AND user.idUser = command.fkUser";
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all command
+                    while(resultSet.next()){
+                        // The buyer is resolved once all the commands are read
+                        commandsOfService.add(COMMANDS.map(resultSet, service));
+                        buyerIds.add(CommandRowMapper.buyerId(resultSet));
+                    }
+                    return commandsOfService;
+                }, service.getIdService());
+                // We retrieve the buyers, each one once whatever the number of its commands
+                USERS.attach(commandsOfService, buyerIds, CommandOfService::setOwner);
             }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return commandsOfService;
         }
-        catch(SQLException e){
-            e.printStackTrace();
-        }
-        return commandsOfService;
     }
 
     /**
@@ -137,48 +152,37 @@ public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
      * @return the command or null if it doesn't exist
      */
     public CommandOfService commandPending(Service s, User u){
-        CommandOfService retrievedCommand = null;
-        try{
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM command,service,categorytag,user WHERE fkUser = ? " +
-                    "AND command.fkService=service.idService " +
-                    "AND service.fkCategory=categorytag.idCategory " +
-                    "AND user.idUser=service.ownerService " +
-                    "AND service.idService = ? " +
-                    "AND state = 0";
-            // We prepare the SQL request to retrieve the services of the user
-            PreparedStatement preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1,u.getIdUser());
-            preparedStatement.setInt(2,s.getIdService());
-
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all command
-            if(resultSet.next()){
-                CategoryTag category=new CategoryTag(resultSet.getInt(18),resultSet.getString(19),resultSet.getString(20));
-                Timestamp dateCreation =resultSet.getTimestamp(7);
-
-                User owner = new User(resultSet.getInt(21),resultSet.getString(23),resultSet.getString(22),
-                        resultSet.getString(26),resultSet.getString(25),resultSet.getInt(24),resultSet.getString(28),
-                        resultSet.getString(27),resultSet.getInt(29),resultSet.getString(30));
-
-                Service service = new Service(resultSet.getInt(9), resultSet.getString(11),
-                        resultSet.getString(12), resultSet.getInt(13), resultSet.getInt(15),
-                        owner, category, resultSet.getInt(16), dateCreation);
-
-                Feedback feedback = new Feedback(resultSet.getInt(5),resultSet.getString(4),
-                        resultSet.getString(6),resultSet.getDate(7),resultSet.getInt(3));
-
-                retrievedCommand = new CommandOfService(resultSet.getInt(1),feedback,u,service,
-                        resultSet.getInt(8),resultSet.getTimestamp(7));
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.commandPending")) {
+            ArrayList<CommandOfService> retrievedCommands = new ArrayList<>();
+            List<Integer> ownerIds = new ArrayList<>();
+            try {
+                // The users are only joined to skip the services without owner
+                String request = "SELECT " + CommandRowMapper.WITH_SERVICE_COLUMNS + " FROM command,service,user WHERE fkUser = ? " +
+                        "AND command.fkService=service.idService " +
+                        "AND user.idUser=service.ownerService " +
+                        "AND service.idService = ? " +
+                        "AND state = 0";
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve the command
+                    if(resultSet.next()){
+                        CommandOfService command = COMMANDS.map(resultSet);
+                        if (command != null) {
+                            command.setOwner(u);
+                            retrievedCommands.add(command);
+                            ownerIds.add(ServiceRowMapper.ownerId(resultSet));
+                        }
+                    }
+                    return retrievedCommands;
+                }, u.getIdUser(), s.getIdService());
+                // We retrieve the owner of the service
+                USERS.attach(retrievedCommands, ownerIds, (command, owner) -> command.getService().setOwner(owner));
             }
-
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return retrievedCommands.isEmpty() ? null : retrievedCommands.get(0);
         }
-        return retrievedCommand;
     }
 
     /***
@@ -188,24 +192,17 @@ public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
      */
     @Override
     public void addFeedback(CommandOfService c) throws Exception {
-        try {
-            // We prepare the SQL request
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "INSERT INTO command(fkUser, fkService, titleFeedback, rateFeedback, commentFeedback, date)"+"VALUES (?,?,?,?,?,?)";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, c.getOwner().getIdUser());
-            preparedStatement.setInt(2, c.getService().getIdService());
-            preparedStatement.setString(3,c.getFeedback().getTitle());
-            preparedStatement.setInt(4,c.getFeedback().getRate());
-            preparedStatement.setString(5,c.getFeedback().getComment());
-            preparedStatement.setDate(6, (Date) c.getCreationDate());
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.addFeedback")) {
+            try {
+                String request = "INSERT INTO command(fkUser, fkService, titleFeedback, rateFeedback, commentFeedback, date)"+"VALUES (?,?,?,?,?,?)";
+                // We execute the query
+                TEMPLATE.update(request, c.getOwner().getIdUser(), c.getService().getIdService(),
+                        c.getFeedback().getTitle(), c.getFeedback().getRate(), c.getFeedback().getComment(),
+                        (Date) c.getCreationDate());
+            }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
         }
     }
 
@@ -215,47 +212,37 @@ public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
      * @return ArrayList of CommandOfService
      */
     public ArrayList<CommandOfService> getServiceBought(User currentUser){
-        ArrayList<CommandOfService> servicebought  =new ArrayList<>();
-        try{
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM command,service,categorytag,user WHERE fkUser = ? " +
-                    "AND command.fkService=service.idService " +
-                    "AND service.fkCategory=categorytag.idCategory " +
-                    "AND user.idUser=service.ownerService " +
-                    "ORDER BY date DESC";
-            // We prepare the SQL request to retrieve the services of the user
-            PreparedStatement preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1,currentUser.getIdUser());
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all command
-            while(resultSet.next()){
-                CategoryTag category=new CategoryTag(resultSet.getInt(18),resultSet.getString(19),resultSet.getString(20));
-                Timestamp dateCreation =resultSet.getTimestamp(7);
-
-                User owner = new User(resultSet.getInt(21),resultSet.getString(23),resultSet.getString(22),
-                        resultSet.getString(26),resultSet.getString(25),resultSet.getInt(24),resultSet.getString(28),
-                        resultSet.getString(27),resultSet.getInt(29),resultSet.getString(30));
-
-                Service service = new Service(resultSet.getInt(9), resultSet.getString(11),
-                        resultSet.getString(12), resultSet.getInt(13), resultSet.getInt(15),
-                        owner, category, resultSet.getInt(16), dateCreation);
-
-                Feedback feedback = new Feedback(resultSet.getInt(5),resultSet.getString(4),
-                        resultSet.getString(6),resultSet.getDate(7),resultSet.getInt(3));
-
-                CommandOfService command = new CommandOfService(resultSet.getInt(1),feedback,currentUser,service,
-                        resultSet.getInt(8),resultSet.getTimestamp(7));
-
-                servicebought.add(command);
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.getServiceBought")) {
+            ArrayList<CommandOfService> servicebought  =new ArrayList<>();
+            // The ids of the owners, in the order of the commands
+            List<Integer> ownerIds = new ArrayList<>();
+            try {
+                // The users are only joined to skip the services without owner
+                String request = "SELECT " + CommandRowMapper.WITH_SERVICE_COLUMNS + " FROM command,service,user WHERE fkUser = ? " +
+                        "AND command.fkService=service.idService " +
+                        "AND user.idUser=service.ownerService " +
+                        "ORDER BY date DESC";
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all command
+                    while(resultSet.next()){
+                        CommandOfService command = COMMANDS.map(resultSet);
+                        if (command != null) {
+                            command.setOwner(currentUser);
+                            servicebought.add(command);
+                            ownerIds.add(ServiceRowMapper.ownerId(resultSet));
+                        }
+                    }
+                    return servicebought;
+                }, currentUser.getIdUser());
+                // We retrieve the owners, each one once whatever the number of its services
+                USERS.attach(servicebought, ownerIds, (command, owner) -> command.getService().setOwner(owner));
             }
-
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return servicebought;
         }
-        return servicebought;
     }
 
 
@@ -265,47 +252,37 @@ public class MySQLCommandOfServiceDAO extends CommandOfServiceDAO{
      * @return
      */
     public ArrayList<CommandOfService> getMyServicePending(User currentUser){
-        ArrayList<CommandOfService> servicebought  =new ArrayList<>();
-        try{
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM command,service,categorytag,user WHERE command.fkService=service.idService " +
-                    "AND service.fkCategory=categorytag.idCategory " +
-                    "AND user.idUser=command.fkUser " +
-                    "AND ownerService = ? " +
-                    "AND state = 0 " +
-                    "ORDER BY dateCreationService DESC";
-            // We prepare the SQL request to retrieve the services of the user
-            PreparedStatement preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1,currentUser.getIdUser());
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all command
-            while(resultSet.next()){
-                CategoryTag category=new CategoryTag(resultSet.getInt(18),resultSet.getString(19),resultSet.getString(20));
-                Timestamp dateCreation =resultSet.getTimestamp(7);
-
-                User buyer = new User(resultSet.getInt(21),resultSet.getString(23),resultSet.getString(22),
-                        resultSet.getString(26),resultSet.getString(25),resultSet.getInt(24),resultSet.getString(28),
-                        resultSet.getString(27),resultSet.getInt(29),resultSet.getString(30));
-
-                Service service = new Service(resultSet.getInt(9), resultSet.getString(11),
-                        resultSet.getString(12), resultSet.getInt(13), resultSet.getInt(15),
-                        currentUser, category, resultSet.getInt(16), dateCreation);
-
-                Feedback feedback = new Feedback(resultSet.getInt(5),resultSet.getString(4),
-                        resultSet.getString(6),resultSet.getDate(7),resultSet.getInt(3));
-
-                CommandOfService command = new CommandOfService(resultSet.getInt(1),feedback,buyer,service,
-                        resultSet.getInt(8),resultSet.getTimestamp(7));
-
-                servicebought.add(command);
+        try (TimedCall call = METRICS.time("dao.MySQLCommandOfServiceDAO.getMyServicePending")) {
+            ArrayList<CommandOfService> servicebought  =new ArrayList<>();
+            // The ids of the buyers, in the order of the commands
+            List<Integer> buyerIds = new ArrayList<>();
+            try {
+                // The users are only joined to skip the commands without buyer
+                String request = "SELECT " + CommandRowMapper.WITH_SERVICE_COLUMNS + " FROM command,service,user WHERE command.fkService=service.idService " +
+                        "AND user.idUser=command.fkUser " +
+                        "AND ownerService = ? " +
+                        "AND state = 0 " +
+                        "ORDER BY dateCreationService DESC";
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all command
+                    while(resultSet.next()){
+                        CommandOfService command = COMMANDS.map(resultSet);
+                        if (command != null) {
+                            command.getService().setOwner(currentUser);
+                            servicebought.add(command);
+                            buyerIds.add(CommandRowMapper.buyerId(resultSet));
+                        }
+                    }
+                    return servicebought;
+                }, currentUser.getIdUser());
+                // We retrieve the buyers, each one once whatever the number of its commands
+                USERS.attach(servicebought, buyerIds, CommandOfService::setOwner);
             }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return servicebought;
         }
-        catch(SQLException e){
-            e.printStackTrace();
-        }
-        return servicebought;
     }
 }
-
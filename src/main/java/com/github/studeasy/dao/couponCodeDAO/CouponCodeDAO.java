@@ -0,0 +1,84 @@
+package com.github.studeasy.dao.couponCodeDAO;
+
+import com.github.studeasy.logic.common.CouponCode;
+import com.github.studeasy.logic.factory.Factory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Abstract class for the Coupon Code DAO
+ * Contains the methods needed to generate, give and check the codes of the coupons
+ */
+public abstract class CouponCodeDAO {
+
+    /**
+     * The singleton of the CouponCodeDAO
+     */
+    private static CouponCodeDAO couponCodeDAO = null;
+
+    /**
+     * Static method which returns the instance of the CouponCodeDAO,
+     * or ask the factory to create one
+     * @return the instance of MySQLCouponCodeDAO
+     */
+    public static CouponCodeDAO getInstance(){
+        if (couponCodeDAO == null){
+            Factory factory = Factory.getInstance();
+            couponCodeDAO = factory.createCouponCodeDAO();
+        }
+        return couponCodeDAO;
+    }
+
+    /**
+     * Save new codes for a coupon
+     * A code already existing is skipped
+     * @param idCoupon the id of the coupon
+     * @param codes the codes generated
+     * @return the number of codes saved
+     * @throws Exception if an error occurs
+     */
+    public abstract int insertCodes(int idCoupon, List<String> codes) throws Exception;
+
+    /**
+     * Take available codes of a coupon, they won't be given to anyone else
+     * @param idCoupon the id of the coupon
+     * @param limit the maximum number of codes taken
+     * @return the codes taken
+     * @throws Exception if an error occurs
+     */
+    public abstract ArrayList<CouponCode> allocateCodes(int idCoupon, int limit) throws Exception;
+
+    /**
+     * Record that a code was given to a buyer
+     * @param code the code given
+     * @param idReservation the id of the reservation of the buyer
+     * @return false if the code was not held by this application
+     * @throws Exception if an error occurs
+     */
+    public abstract boolean issueCode(CouponCode code, int idReservation) throws Exception;
+
+    /**
+     * Cancel the code given with a reservation
+     * @param idReservation the id of the reservation
+     * @return the number of codes cancelled
+     * @throws Exception if an error occurs
+     */
+    public abstract int voidCodes(int idReservation) throws Exception;
+
+    /**
+     * Retrieve a code
+     * @param code the code
+     * @return the code with its coupon and its state, null if it doesn't exist
+     * @throws Exception if an error occurs
+     */
+    public abstract CouponCode searchCode(String code) throws Exception;
+
+    /**
+     * Record that a code was used by its buyer
+     * @param code the code used
+     * @return false if the code was not issued, or already used
+     * @throws Exception if an error occurs
+     */
+    public abstract boolean redeemCode(CouponCode code) throws Exception;
+}
@@ -0,0 +1,170 @@
+package com.github.studeasy.dao.couponCodeDAO;
+
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.logic.common.CouponCode;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Coupon Code DAO using a MySQL database
+ * A code is available, then allocated to an application, issued to a buyer and finally redeemed
+ */
+@SuppressWarnings("try")
+public class MySQLCouponCodeDAO extends CouponCodeDAO {
+
+    /**
+     * The template running the queries on the database
+     */
+    private final QueryTemplate TEMPLATE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
+     */
+    public MySQLCouponCodeDAO() {
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
+    }
+
+    /**
+     * Save new codes for a coupon
+     * A code already existing is skipped
+     * @param idCoupon the id of the coupon
+     * @param codes the codes generated
+     * @return the number of codes saved
+     * @throws Exception if an error occurs
+     */
+    public int insertCodes(int idCoupon, List<String> codes) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.insertCodes")) {
+            if (codes.isEmpty()) {
+                return 0;
+            }
+            // We insert the whole batch at once, the unique index rejects the codes already existing
+            StringBuilder request = new StringBuilder("INSERT INTO coupon_code (fkCoupon, code, state) VALUES ");
+            List<Object> params = new ArrayList<>();
+            for (String code : codes) {
+                request.append(params.isEmpty() ? "(?,?,?)" : ",(?,?,?)");
+                params.add(idCoupon);
+                params.add(code);
+                params.add(CouponCode.AVAILABLE);
+            }
+            request.append(" ON DUPLICATE KEY UPDATE idCode = idCode");
+            // We execute the query
+            return TEMPLATE.update(request.toString(), params.toArray());
+        }
+    }
+
+    /**
+     * Take available codes of a coupon, they won't be given to anyone else
+     * @param idCoupon the id of the coupon
+     * @param limit the maximum number of codes taken
+     * @return the codes taken
+     * @throws Exception if an error occurs
+     */
+    public ArrayList<CouponCode> allocateCodes(int idCoupon, int limit) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.allocateCodes")) {
+            ArrayList<CouponCode> codes = new ArrayList<>();
+            String request = "SELECT idCode, code FROM coupon_code " +
+                    "WHERE fkCoupon = ? AND state = ? " +
+                    "ORDER BY idCode LIMIT ? " +
+                    "FOR UPDATE SKIP LOCKED";
+            return TEMPLATE.inTransaction(() -> {
+                // We lock the available codes, skipping those another application is taking
+                TEMPLATE.query(request, resultSet -> {
+                    while (resultSet.next()) {
+                        codes.add(new CouponCode(resultSet.getInt(1), idCoupon, resultSet.getString(2),
+                                CouponCode.ALLOCATED, 0));
+                    }
+                    return codes;
+                }, idCoupon, CouponCode.AVAILABLE, limit);
+                if (codes.isEmpty()) {
+                    return codes;
+                }
+                StringBuilder allocate = new StringBuilder("UPDATE coupon_code SET state = ? WHERE idCode IN (");
+                List<Object> params = new ArrayList<>();
+                params.add(CouponCode.ALLOCATED);
+                for (CouponCode code : codes) {
+                    allocate.append(params.size() == 1 ? "?" : ",?");
+                    params.add(code.getIdCode());
+                }
+                allocate.append(")");
+                TEMPLATE.update(allocate.toString(), params.toArray());
+                return codes;
+            });
+        }
+    }
+
+    /**
+     * Record that a code was given to a buyer
+     * @param code the code given
+     * @param idReservation the id of the reservation of the buyer
+     * @return false if the code was not held by this application
+     * @throws Exception if an error occurs
+     */
+    public boolean issueCode(CouponCode code, int idReservation) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.issueCode")) {
+            String request = "UPDATE coupon_code SET state = ?, fkReservation = ?, issuedAt = NOW() " +
+                    "WHERE idCode = ? AND state = ?";
+            // We execute the query
+            return TEMPLATE.update(request, CouponCode.ISSUED, idReservation, code.getIdCode(), CouponCode.ALLOCATED) == 1;
+        }
+    }
+
+    /**
+     * Cancel the code given with a reservation
+     * @param idReservation the id of the reservation
+     * @return the number of codes cancelled
+     * @throws Exception if an error occurs
+     */
+    public int voidCodes(int idReservation) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.voidCodes")) {
+            String request = "UPDATE coupon_code SET state = ? WHERE fkReservation = ? AND state = ?";
+            // We execute the query
+            return TEMPLATE.update(request, CouponCode.VOID, idReservation, CouponCode.ISSUED);
+        }
+    }
+
+    /**
+     * Retrieve a code
+     * @param code the code
+     * @return the code with its coupon and its state, null if it doesn't exist
+     * @throws Exception if an error occurs
+     */
+    public CouponCode searchCode(String code) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.searchCode")) {
+            // The unique index on the code finds it directly
+            String request = "SELECT coupon_code.idCode, coupon_code.fkCoupon, coupon_code.code, coupon_code.state, coupon.ownerCoupon " +
+                    "FROM coupon_code LEFT JOIN coupon ON coupon.idCoupon = coupon_code.fkCoupon " +
+                    "WHERE coupon_code.code = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new CouponCode(resultSet.getInt(1), resultSet.getInt(2), resultSet.getString(3),
+                        resultSet.getInt(4), resultSet.getInt(5));
+            }, code);
+        }
+    }
+
+    /**
+     * Record that a code was used by its buyer
+     * @param code the code used
+     * @return false if the code was not issued, or already used
+     * @throws Exception if an error occurs
+     */
+    public boolean redeemCode(CouponCode code) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponCodeDAO.redeemCode")) {
+            String request = "UPDATE coupon_code SET state = ?, redeemedAt = NOW() WHERE idCode = ? AND state = ?";
+            // We execute the query
+            return TEMPLATE.update(request, CouponCode.REDEEMED, code.getIdCode(), CouponCode.ISSUED) == 1;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.studeasy.dao.couponDAO;
 
 import com.github.studeasy.logic.common.Coupon;
+import com.github.studeasy.logic.common.CouponReservation;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.factory.Factory;
 
@@ -64,11 +65,12 @@ public abstract class CouponDAO {
     public abstract ArrayList<Coupon> getCoupons();
 
     /**
-     * Decrease the quantity of 1
+     * Decrease the quantity of 1, if a coupon is left
      * @param coupon the coupon to update
+     * @return false if no coupon is left
      * @throws Exception if an error occurs
      */
-    public abstract void decreaseQuantityCoupon(Coupon coupon) throws Exception;
+    public abstract boolean decreaseQuantityCoupon(Coupon coupon) throws Exception;
 
     /**
      * Increase the quantity of 1
@@ -76,4 +78,38 @@ public abstract class CouponDAO {
      * @throws Exception if an error occurs
      */
     public abstract void increaseQuantityCoupon(Coupon coupon) throws Exception;
+
+    /**
+     * Hold a coupon for the buyer until the mail with its code is sent
+     * @param coupon the coupon bought
+     * @param buyer the user buying the coupon
+     * @param idMail the id of the mail sending the code
+     * @param ttlSeconds how long we wait for the mail to be sent (in s)
+     * @return the id of the reservation
+     * @throws Exception if an error occurs
+     */
+    public abstract int createReservation(Coupon coupon, User buyer, int idMail, long ttlSeconds) throws Exception;
+
+    /**
+     * Confirm the reservations whose mail was sent
+     * @return the number of reservations confirmed
+     * @throws Exception if an error occurs
+     */
+    public abstract int confirmDeliveredReservations() throws Exception;
+
+    /**
+     * Retrieve the reservations whose mail was not sent in time
+     * @param limit the maximum number of reservations retrieved
+     * @return the expired reservations
+     * @throws Exception if an error occurs
+     */
+    public abstract ArrayList<CouponReservation> getExpiredReservations(int limit) throws Exception;
+
+    /**
+     * Release a reservation, the coupon goes back in stock
+     * @param reservation the reservation to release
+     * @return false if the reservation was not pending anymore
+     * @throws Exception if an error occurs
+     */
+    public abstract boolean releaseReservation(CouponReservation reservation) throws Exception;
 }
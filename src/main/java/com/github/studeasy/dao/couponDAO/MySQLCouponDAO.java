@@ -1,32 +1,55 @@
 package com.github.studeasy.dao.couponDAO;
 
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.dao.userDAO.UserCache;
 import com.github.studeasy.logic.common.Coupon;
+import com.github.studeasy.logic.common.CouponReservation;
 import com.github.studeasy.logic.common.User;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Coupon DAO using a MySQL database
  * Contains all the methods accessing coupon related data
  */
+@SuppressWarnings("try")
 public class MySQLCouponDAO extends CouponDAO{
 
     /**
-     * The connection to the database
+     * State of a reservation waiting for its mail to be sent
      */
-    private final Connection DB;
+    private static final int PENDING = 0;
 
     /**
-     * Instantiate the connection db
+     * State of a reservation whose mail was sent
+     */
+    private static final int CONFIRMED = 1;
+
+    /**
+     * State of a reservation whose coupon went back in stock
+     */
+    private static final int RELEASED = 2;
+
+    /**
+     * The template running the queries on the database
+     */
+    private final QueryTemplate TEMPLATE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLCouponDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -38,23 +61,18 @@ public class MySQLCouponDAO extends CouponDAO{
      * @param costCoupon the price in points of the coupon
      */
     public void addCoupon(String titleCoupon, String descriptionCoupon, User owner, int quantityCoupons, int costCoupon) {
-        // We prepare the SQL request to insert a coupon
-        PreparedStatement preparedStatement;
-        String request = "INSERT INTO coupon (titleCoupon,descriptionCoupon," +
-                "valueCoupon,quantityCoupon,ownerCoupon) VALUES  (?,?,?,?,?)";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, titleCoupon);
-            preparedStatement.setString(2, descriptionCoupon);
-            preparedStatement.setInt(3, costCoupon);
-            preparedStatement.setInt(4,quantityCoupons);
-            preparedStatement.setInt(5, owner.getIdUser());
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.addCoupon")) {
+            // We prepare the SQL request to insert a coupon
+            String request = "INSERT INTO coupon (titleCoupon,descriptionCoupon," +
+                    "valueCoupon,quantityCoupon,ownerCoupon) VALUES  (?,?,?,?,?)";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, titleCoupon, descriptionCoupon, costCoupon, quantityCoupons, owner.getIdUser());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -68,25 +86,19 @@ public class MySQLCouponDAO extends CouponDAO{
      * @param couponToUpdate the coupon to update
      */
     public void updateCoupon(String titleCoupon, String descriptionCoupon, User owner, int quantityCoupons, int costCoupon, Coupon couponToUpdate){
-        // We prepare the SQL request to update the coupon
-        PreparedStatement preparedStatement;
-        String request = "UPDATE coupon SET titleCoupon = ?,descriptionCoupon = ?, ownerCoupon = ?," +
-                "quantityCoupon = ?, valueCoupon = ? WHERE idCoupon = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, titleCoupon);
-            preparedStatement.setString(2, descriptionCoupon);
-            preparedStatement.setInt(3, owner.getIdUser());
-            preparedStatement.setInt(4, quantityCoupons);
-            preparedStatement.setInt(5, costCoupon);
-            preparedStatement.setInt(6, couponToUpdate.getId());
-
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.updateCoupon")) {
+            // We prepare the SQL request to update the coupon
+            String request = "UPDATE coupon SET titleCoupon = ?,descriptionCoupon = ?, ownerCoupon = ?," +
+                    "quantityCoupon = ?, valueCoupon = ? WHERE idCoupon = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, titleCoupon, descriptionCoupon, owner.getIdUser(), quantityCoupons,
+                        costCoupon, couponToUpdate.getId());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -95,18 +107,17 @@ public class MySQLCouponDAO extends CouponDAO{
      * @param couponToDelete the coupon to delete
      */
     public void deleteCoupon(Coupon couponToDelete){
-        // We prepare the SQL request to delete a coupon
-        PreparedStatement preparedStatement;
-        String request = "DELETE FROM coupon WHERE idCoupon = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, couponToDelete.getId());
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.deleteCoupon")) {
+            // We prepare the SQL request to delete a coupon
+            String request = "DELETE FROM coupon WHERE idCoupon = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, couponToDelete.getId());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -115,51 +126,52 @@ public class MySQLCouponDAO extends CouponDAO{
      * @return all the coupons
      */
     public ArrayList<Coupon> getCoupons() {
-        ArrayList<Coupon> couponsList = new ArrayList<>();
-        try {
-            // We prepare the SQL request to retrieve the pending services
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM coupon, user " +
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.getCoupons")) {
+            ArrayList<Coupon> couponsList = new ArrayList<>();
+            // The users are only joined to skip the coupons without partner
+            String request = "SELECT coupon.* FROM coupon, user " +
                     "WHERE coupon.ownerCoupon = user.idUser " +
                     "ORDER BY quantityCoupon DESC";
-            preparedStatement = DB.prepareStatement(request);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all the existing services
-            while (resultSet.next()) {
-                // We need the partner
-                User owner = new User(resultSet.getInt(7),resultSet.getString(9),resultSet.getString(8),
-                        resultSet.getString(12),resultSet.getString(11),resultSet.getInt(10),resultSet.getString(14),
-                        resultSet.getString(13),resultSet.getInt(15),resultSet.getString(16));
-                // We create the coupon
-                Coupon coupon = new Coupon(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getInt(5),resultSet.getInt(6),owner);
-                // And put it with the others
-                couponsList.add(coupon);
+            // The ids of the partners, in the order of the coupons
+            List<Integer> ownerIds = new ArrayList<>();
+            try {
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all the existing coupons
+                    while (resultSet.next()) {
+                        // We create the coupon, its partner is resolved once all the coupons are read
+                        Coupon coupon = new Coupon(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getInt(5),resultSet.getInt(6),null);
+                        // And put it with the others
+                        couponsList.add(coupon);
+                        ownerIds.add(resultSet.getInt("ownerCoupon"));
+                    }
+                    return couponsList;
+                });
+                // We retrieve the partners, each one once whatever the number of its coupons
+                UserCache.getInstance().attach(couponsList, ownerIds, Coupon::setOwner);
             }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return couponsList;
         }
-        // Error with the database
-        catch(SQLException err){
-            err.printStackTrace();
-        }
-        return couponsList;
     }
 
     /**
-     * Decrease the quantity of 1
+     * Decrease the quantity of 1, if a coupon is left
      * @param coupon the coupon to update
+     * @return false if no coupon is left
      * @throws Exception if an error occurs
      */
-    public void decreaseQuantityCoupon(Coupon coupon) throws Exception{
-        // We prepare the SQL request to update the coupon
-        PreparedStatement preparedStatement;
-        String request = "UPDATE coupon SET quantityCoupon = quantityCoupon - 1 WHERE idCoupon = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, coupon.getId());
-
-        // We execute the query
-        preparedStatement.executeUpdate();
+    public boolean decreaseQuantityCoupon(Coupon coupon) throws Exception{
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.decreaseQuantityCoupon")) {
+            // We prepare the SQL request to update the coupon
+            // The check and the decrease are done at once, two buyers can't take the last coupon
+            String request = "UPDATE coupon SET quantityCoupon = quantityCoupon - 1 WHERE idCoupon = ? AND quantityCoupon > 0";
+            // We execute the query
+            return TEMPLATE.update(request, coupon.getId()) == 1;
+        }
     }
 
     /**
@@ -168,13 +180,93 @@ public class MySQLCouponDAO extends CouponDAO{
      * @throws Exception if an error occurs
      */
     public void increaseQuantityCoupon(Coupon coupon) throws Exception{
-        // We prepare the SQL request to update the coupon
-        PreparedStatement preparedStatement;
-        String request = "UPDATE coupon SET quantityCoupon = quantityCoupon + 1 WHERE idCoupon = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, coupon.getId());
-
-        // We execute the query
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.increaseQuantityCoupon")) {
+            // We prepare the SQL request to update the coupon
+            String request = "UPDATE coupon SET quantityCoupon = quantityCoupon + 1 WHERE idCoupon = ?";
+            // We execute the query
+            TEMPLATE.update(request, coupon.getId());
+        }
+    }
+
+    /**
+     * Hold a coupon for the buyer until the mail with its code is sent
+     * @param coupon the coupon bought
+     * @param buyer the user buying the coupon
+     * @param idMail the id of the mail sending the code
+     * @param ttlSeconds how long we wait for the mail to be sent (in s)
+     * @return the id of the reservation
+     * @throws Exception if an error occurs
+     */
+    public int createReservation(Coupon coupon, User buyer, int idMail, long ttlSeconds) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.createReservation")) {
+            String request = "INSERT INTO coupon_reservation (fkCoupon, fkUser, valueReservation, fkMail, state, expiresAt) " +
+                    "VALUES (?,?,?,?,?,TIMESTAMPADD(SECOND, ?, NOW()))";
+            // The id of the reservation is read on the connection which created it
+            return TEMPLATE.inTransaction(() -> {
+                // We execute the query
+                TEMPLATE.update(request, coupon.getId(), buyer.getIdUser(), coupon.getValue(), idMail, PENDING, ttlSeconds);
+                return TEMPLATE.query("SELECT LAST_INSERT_ID()", resultSet -> {
+                    resultSet.next();
+                    return resultSet.getInt(1);
+                });
+            });
+        }
+    }
+
+    /**
+     * Confirm the reservations whose mail was sent
+     * @return the number of reservations confirmed
+     * @throws Exception if an error occurs
+     */
+    public int confirmDeliveredReservations() throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.confirmDeliveredReservations")) {
+            String request = "UPDATE coupon_reservation r JOIN mail_outbox m ON r.fkMail = m.idMail " +
+                    "SET r.state = ? WHERE r.state = ? AND m.state = 1";
+            // We execute the query
+            return TEMPLATE.update(request, CONFIRMED, PENDING);
+        }
+    }
+
+    /**
+     * Retrieve the reservations whose mail was not sent in time
+     * @param limit the maximum number of reservations retrieved
+     * @return the expired reservations
+     * @throws Exception if an error occurs
+     */
+    public ArrayList<CouponReservation> getExpiredReservations(int limit) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.getExpiredReservations")) {
+            String request = "SELECT idReservation, fkCoupon, fkUser, valueReservation, fkMail FROM coupon_reservation " +
+                    "WHERE state = ? AND expiresAt <= NOW() ORDER BY expiresAt, idReservation LIMIT ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                ArrayList<CouponReservation> reservations = new ArrayList<>();
+                while (resultSet.next()) {
+                    reservations.add(new CouponReservation(resultSet.getInt(1), resultSet.getInt(2),
+                            resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5)));
+                }
+                return reservations;
+            }, PENDING, limit);
+        }
+    }
+
+    /**
+     * Release a reservation, the coupon goes back in stock
+     * @param reservation the reservation to release
+     * @return false if the reservation was not pending anymore
+     * @throws Exception if an error occurs
+     */
+    public boolean releaseReservation(CouponReservation reservation) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLCouponDAO.releaseReservation")) {
+            String release = "UPDATE coupon_reservation SET state = ? WHERE idReservation = ? AND state = ?";
+            String restock = "UPDATE coupon SET quantityCoupon = quantityCoupon + 1 WHERE idCoupon = ?";
+            return TEMPLATE.inTransaction(() -> {
+                // Only one release can put the coupon back in stock
+                if (TEMPLATE.update(release, RELEASED, reservation.getIdReservation(), PENDING) == 0) {
+                    return false;
+                }
+                TEMPLATE.update(restock, reservation.getIdCoupon());
+                return true;
+            });
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.github.studeasy.dao.db;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Receives the rows of a query streamed by the QueryTemplate, a chunk at a time
+ * @param <T> the type of object built from a row
+ */
+@FunctionalInterface
+public interface ChunkHandler<T> {
+
+    /**
+     * Receive the next rows of the query
+     * @param rows the rows, the list belongs to the handler
+     * @throws SQLException if the rows can't be handled
+     */
+    void handle(List<T> rows) throws SQLException;
+}
@@ -0,0 +1,439 @@
+package com.github.studeasy.dao.db;
+
+import com.github.studeasy.logic.metrics.Counter;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.Timer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of connections to the MySQL database
+ * It keeps between a minimum and a maximum of physical connections open,
+ * validates them when they are borrowed, closes the ones idle for too long
+ * and reports the connections which are never given back
+ */
+public class MySQLConnectionPool {
+
+    /**
+     * Keys of the settings of the pool, read from the database properties
+     */
+    public static final String MIN_SIZE = "POOL_MIN_SIZE";
+    public static final String MAX_SIZE = "POOL_MAX_SIZE";
+    public static final String BORROW_TIMEOUT_MS = "POOL_BORROW_TIMEOUT_MS";
+    public static final String IDLE_TIMEOUT_MS = "POOL_IDLE_TIMEOUT_MS";
+    public static final String VALIDATION_TIMEOUT_S = "POOL_VALIDATION_TIMEOUT_S";
+    public static final String VALIDATION_INTERVAL_MS = "POOL_VALIDATION_INTERVAL_MS";
+    public static final String LEAK_THRESHOLD_MS = "POOL_LEAK_THRESHOLD_MS";
+    public static final String LEAK_STACK = "POOL_LEAK_STACK";
+    public static final String HOUSEKEEPING_INTERVAL_MS = "POOL_HOUSEKEEPING_INTERVAL_MS";
+    public static final String STATEMENT_CACHE_SIZE = "POOL_STATEMENT_CACHE_SIZE";
+
+    /**
+     * URL of the database
+     */
+    private final String URL;
+
+    /**
+     * User connecting to the database
+     */
+    private final String USER;
+
+    /**
+     * Password of the user
+     */
+    private final String PASSWORD;
+
+    /**
+     * Minimum number of physical connections kept open
+     */
+    private final int minSize;
+
+    /**
+     * Maximum number of physical connections
+     */
+    private final int maxSize;
+
+    /**
+     * Time a borrower can wait for a connection before failing (in ms)
+     */
+    private final long borrowTimeoutMs;
+
+    /**
+     * Time after which an idle connection above the minimum is closed (in ms)
+     */
+    private final long idleTimeoutMs;
+
+    /**
+     * Time given to the driver to validate a connection (in s)
+     */
+    private final int validationTimeoutS;
+
+    /**
+     * A connection used more recently than this is not validated again (in ms)
+     */
+    private final long validationIntervalMs;
+
+    /**
+     * A connection held longer than this is reported as leaked (in ms), 0 to disable
+     */
+    private final long leakThresholdMs;
+
+    /**
+     * True to keep the stack of each borrower, to report where a leaked connection was borrowed
+     * Costly on every borrow, only meant to look for a leak
+     */
+    private final boolean leakStack;
+
+    /**
+     * Maximum number of prepared statements kept on each connection
+     */
+    private final int statementCacheSize;
+
+    /**
+     * The idle connections, the most recently used first
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * The connections currently borrowed
+     */
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * One permit per connection that can still be borrowed
+     */
+    private final Semaphore permits;
+
+    /**
+     * Number of physical connections open
+     */
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    /**
+     * Thread closing the idle connections and reporting the leaks
+     */
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Statistics of the borrows
+     */
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder totalHoldNanos = new LongAdder();
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * The waits for a connection, with those of the other pools, for the admin panel
+     */
+    private final Timer waits = MetricsRegistry.getInstance().timer("pool.wait");
+    private final Counter timeouts = MetricsRegistry.getInstance().counter("pool.timeouts");
+
+    /**
+     * True once the pool has been shut down
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Create the pool and open the minimum number of connections
+     * @param url the url of the database
+     * @param user the user connecting to the database
+     * @param password the password of the user
+     * @param settings the settings of the pool, missing keys take default values
+     * @throws SQLException if the first connections can't be opened
+     */
+    public MySQLConnectionPool(String url, String user, String password, Properties settings) throws SQLException {
+        this.URL = url;
+        this.USER = user;
+        this.PASSWORD = password;
+        this.minSize = Math.max(0, intSetting(settings, MIN_SIZE, 2));
+        this.maxSize = Math.max(Math.max(1, minSize), intSetting(settings, MAX_SIZE, 8));
+        this.borrowTimeoutMs = intSetting(settings, BORROW_TIMEOUT_MS, 10_000);
+        this.idleTimeoutMs = intSetting(settings, IDLE_TIMEOUT_MS, 300_000);
+        this.validationTimeoutS = intSetting(settings, VALIDATION_TIMEOUT_S, 2);
+        this.validationIntervalMs = intSetting(settings, VALIDATION_INTERVAL_MS, 500);
+        this.leakThresholdMs = intSetting(settings, LEAK_THRESHOLD_MS, 60_000);
+        this.leakStack = intSetting(settings, LEAK_STACK, 0) != 0;
+        this.statementCacheSize = intSetting(settings, STATEMENT_CACHE_SIZE, 64);
+        this.permits = new Semaphore(maxSize, true);
+        // We open the minimum of connections right away
+        for (int i = 0; i < minSize; i++) {
+            idle.offerLast(createConnection());
+        }
+        // The housekeeper must not prevent the application from exiting
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "studeasy-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = intSetting(settings, HOUSEKEEPING_INTERVAL_MS, 30_000);
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read an integer setting
+     * @param settings the settings
+     * @param key the key of the setting
+     * @param defaultValue the value used if the setting is missing
+     * @return the value of the setting
+     */
+    private static int intSetting(Properties settings, String key, int defaultValue) {
+        String value = settings == null ? null : settings.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Borrow a connection from the pool
+     * The connection must be closed to be given back to the pool
+     * @return a valid connection
+     * @throws SQLException if no connection is available in time, or if it can't be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        if (!acquired) {
+            borrowTimeouts.increment();
+            timeouts.increment();
+            throw new SQLTransientConnectionException("No connection available after " + borrowTimeoutMs
+                    + " ms (" + borrowed.size() + " borrowed, max " + maxSize + ")");
+        }
+        try {
+            PooledConnection connection = takeValidConnection();
+            long waited = System.nanoTime() - start;
+            borrowCount.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+            waits.record(waited);
+            borrowed.add(connection);
+            return connection.borrow(leakThresholdMs > 0 && leakStack);
+        } catch (SQLException | RuntimeException e) {
+            // We couldn't give a connection, the permit is free again
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieve an idle connection still alive, or open a new one
+     * @return a valid connection
+     * @throws SQLException if a new connection can't be opened
+     */
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            // A connection used a moment ago doesn't need a round-trip to be validated
+            boolean recentlyUsed = System.currentTimeMillis() - connection.getLastUsedAt() < validationIntervalMs;
+            if (recentlyUsed || connection.validate(validationTimeoutS)) {
+                return connection;
+            }
+            // The connection is dead (timeout of the server, network...), we drop it
+            discard(connection);
+        }
+        return createConnection();
+    }
+
+    /**
+     * Open a new physical connection
+     * @return the new connection
+     * @throws SQLException if the connection can't be opened
+     */
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(URL, USER, PASSWORD);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(this, physical, statementCacheSize);
+    }
+
+    /**
+     * Close a physical connection and forget it
+     * @param connection the connection to close
+     */
+    private void discard(PooledConnection connection) {
+        totalConnections.decrementAndGet();
+        connection.destroy();
+    }
+
+    /**
+     * Called when a borrower closes its connection
+     * @param connection the connection given back
+     * @param current false if the handle closed is not the current one of the connection
+     */
+    void release(PooledConnection connection, boolean current) {
+        if (!current || !borrowed.remove(connection)) {
+            return;
+        }
+        try {
+            long held = connection.giveBack();
+            totalHoldNanos.add(held);
+            maxHoldNanos.accumulate(held);
+            if (closed) {
+                discard(connection);
+            } else {
+                idle.offerFirst(connection);
+            }
+        } catch (SQLException e) {
+            // The connection can't be reset, we don't give it to anyone else
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close the connections idle for too long, open the missing ones
+     * and report the connections borrowed for too long
+     */
+    private void housekeeping() {
+        try {
+            long now = System.currentTimeMillis();
+            // We close the connections above the minimum which are not used anymore
+            for (PooledConnection connection : idle) {
+                if (totalConnections.get() <= minSize) {
+                    break;
+                }
+                if (now - connection.getLastUsedAt() > idleTimeoutMs && idle.remove(connection)) {
+                    discard(connection);
+                }
+            }
+            // We make sure the minimum of connections is available
+            while (!closed && totalConnections.get() < minSize) {
+                idle.offerLast(createConnection());
+            }
+            // We report the connections which seem to never be given back
+            if (leakThresholdMs > 0) {
+                long nowNanos = System.nanoTime();
+                for (PooledConnection connection : borrowed) {
+                    long borrowedAt = connection.getBorrowedAt();
+                    if (borrowedAt != 0 && !connection.isLeakReported()
+                            && TimeUnit.NANOSECONDS.toMillis(nowNanos - borrowedAt) > leakThresholdMs) {
+                        connection.setLeakReported();
+                        System.err.println("Possible connection leak: a connection has been borrowed for more than "
+                                + leakThresholdMs + " ms");
+                        Throwable stack = connection.getBorrowStack();
+                        if (stack != null) {
+                            stack.printStackTrace();
+                        }
+                        else {
+                            System.err.println("Set " + LEAK_STACK + "=1 to see where it was borrowed");
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Close all the connections of the pool
+     * The borrowed connections are closed when they are given back
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * @return the number of physical connections open
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * @return the number of connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * @return the number of connections borrowed since the creation of the pool
+     */
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * @return the number of borrowers who gave up waiting for a connection
+     */
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.sum();
+    }
+
+    /**
+     * @return the average time spent waiting for a connection (in ms)
+     */
+    public double getAverageWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * @return the longest time spent waiting for a connection (in ms)
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * @return the average time a connection is held by a borrower (in ms)
+     */
+    public double getAverageHoldMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : totalHoldNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * @return the longest time a connection was held by a borrower (in ms)
+     */
+    public double getMaxHoldMillis() {
+        return maxHoldNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MySQLConnectionPool[total=%d, active=%d, idle=%d, borrows=%d, timeouts=%d, "
+                        + "avgWait=%.2fms, maxWait=%.2fms, avgHold=%.2fms, maxHold=%.2fms]",
+                getTotalConnections(), getActiveConnections(), getIdleConnections(), getBorrowCount(),
+                getBorrowTimeouts(), getAverageWaitMillis(), getMaxWaitMillis(), getAverageHoldMillis(),
+                getMaxHoldMillis());
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.studeasy.dao.db;
 
+import com.github.studeasy.logic.metrics.MetricsRegistry;
 import com.github.studeasy.logic.utils.PropertiesEnv;
 
 import java.sql.*;
@@ -7,7 +8,7 @@ import java.util.Properties;
 import javax.swing.*;
 
 /**
- * Class singleton, creating a connection to our MySQL database
+ * Class singleton, creating the pool of connections to our MySQL database
  */
 public class MySQLConnectionUtil{
 
@@ -17,12 +18,12 @@ public class MySQLConnectionUtil{
     private static MySQLConnectionUtil mySQLConnectionUtil = null;
 
     /**
-     * The connection to the database
+     * The pool of connections to the database
      */
-    private Connection db = null;
+    private MySQLConnectionPool pool = null;
 
     /**
-     * Constructor of the class, creates the connection to the database
+     * Constructor of the class, creates the pool of connections to the database
      */
     private MySQLConnectionUtil()
     {
@@ -35,8 +36,16 @@ public class MySQLConnectionUtil{
             String user = p.getProperty("USER");
             String passwd = p.getProperty("PWD");
             String dbName = "studeasy";
+            // The large results are read from a cursor, a chunk at a time (see QueryTemplate.stream)
+            String options = url.contains("useCursorFetch") ? "" : "?useCursorFetch=true";
             // We try to connect to the database using those information
-            this.db = DriverManager.getConnection(url+dbName, user, passwd);
+            this.pool = new MySQLConnectionPool(url+dbName+options, user, passwd, p);
+            // The state of the pool is shown in the admin panel
+            MySQLConnectionPool created = this.pool;
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            metrics.gauge("pool.active", created::getActiveConnections);
+            metrics.gauge("pool.idle", created::getIdleConnections);
+            metrics.gauge("pool.total", created::getTotalConnections);
         }
         catch(Exception e)
         {
@@ -50,7 +59,7 @@ public class MySQLConnectionUtil{
      * Retrieve the singleton of the class
      * @return the singleton of the class
      */
-    public static MySQLConnectionUtil getInstance(){
+    public static synchronized MySQLConnectionUtil getInstance(){
         if(mySQLConnectionUtil == null){
             mySQLConnectionUtil = new MySQLConnectionUtil();
         }
@@ -58,10 +67,32 @@ public class MySQLConnectionUtil{
     }
 
     /**
-     * Retrieve the connection to the database
-     * @return the connection to the database
+     * Borrow a connection to the database from the pool
+     * It must be closed once the work is done, to give it back to the pool
+     * @return a connection to the database
+     * @throws SQLException if no connection is available
      */
-    public Connection getDb(){
-        return db;
+    public Connection getDb() throws SQLException {
+        if(pool == null){
+            throw new SQLException("The connection to the database could not be established");
+        }
+        return pool.getConnection();
+    }
+
+    /**
+     * Retrieve the pool of connections, to look at its statistics
+     * @return the pool of connections
+     */
+    public MySQLConnectionPool getPool(){
+        return pool;
+    }
+
+    /**
+     * Close all the connections to the database
+     */
+    public void close(){
+        if(pool != null){
+            pool.shutdown();
+        }
     }
-}
\ No newline at end of file
+}
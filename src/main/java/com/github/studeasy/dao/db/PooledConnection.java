@@ -0,0 +1,247 @@
+package com.github.studeasy.dao.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A physical connection to the database managed by the MySQLConnectionPool
+ * Each time it is borrowed, the pool hands out a new logical handle, closing
+ * the handle gives the connection back to the pool instead of closing the socket
+ */
+public class PooledConnection {
+
+    /**
+     * The pool owning this connection
+     */
+    private final MySQLConnectionPool POOL;
+
+    /**
+     * The real connection to the database
+     */
+    private final Connection PHYSICAL;
+
+    /**
+     * The statements already prepared on this connection
+     */
+    private final StatementCache STATEMENTS;
+
+    /**
+     * When the physical connection was opened (in ms)
+     */
+    private final long createdAt;
+
+    /**
+     * Last time the connection was given back or validated (in ms)
+     */
+    private volatile long lastUsedAt;
+
+    /**
+     * When the connection was borrowed (System.nanoTime), 0 if idle
+     */
+    private volatile long borrowedAt;
+
+    /**
+     * Stack trace of the borrower, used to report leaks
+     */
+    private volatile Throwable borrowStack;
+
+    /**
+     * True once a leak has been reported for the current borrow
+     */
+    private volatile boolean leakReported;
+
+    /**
+     * The logical handle currently given to the borrower
+     */
+    private volatile Handle currentHandle;
+
+    /**
+     * Wrap a physical connection
+     * @param pool the pool owning the connection
+     * @param physical the real connection to the database
+     * @param statementCacheSize maximum number of prepared statements kept on the connection
+     */
+    PooledConnection(MySQLConnectionPool pool, Connection physical, int statementCacheSize) {
+        this.POOL = pool;
+        this.PHYSICAL = physical;
+        this.STATEMENTS = new StatementCache(physical, statementCacheSize);
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    /**
+     * Mark the connection as borrowed and create the handle given to the borrower
+     * @param trackStack true to keep the stack of the borrower for the leak detection
+     * @return the logical connection
+     */
+    Connection borrow(boolean trackStack) {
+        this.borrowedAt = System.nanoTime();
+        this.borrowStack = trackStack ? new Throwable("Connection borrowed here") : null;
+        this.leakReported = false;
+        this.currentHandle = new Handle();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, currentHandle);
+    }
+
+    /**
+     * Mark the connection as idle again, and put it back in a clean state
+     * @return how long the connection was held by the borrower (in ns)
+     * @throws SQLException if the connection can't be reset
+     */
+    long giveBack() throws SQLException {
+        long heldFor = System.nanoTime() - borrowedAt;
+        this.currentHandle = null;
+        this.borrowedAt = 0;
+        this.borrowStack = null;
+        // A borrower may have left a transaction open, we don't want it to leak to the next one
+        if (!PHYSICAL.getAutoCommit()) {
+            PHYSICAL.rollback();
+            PHYSICAL.setAutoCommit(true);
+        }
+        this.lastUsedAt = System.currentTimeMillis();
+        return heldFor;
+    }
+
+    /**
+     * Check if the connection is still usable
+     * @param timeoutSeconds the time allowed to the driver to answer
+     * @return true if the connection is alive
+     */
+    boolean validate(int timeoutSeconds) {
+        try {
+            boolean valid = PHYSICAL.isValid(timeoutSeconds);
+            if (valid) {
+                this.lastUsedAt = System.currentTimeMillis();
+            }
+            return valid;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close the physical connection
+     */
+    void destroy() {
+        STATEMENTS.clear();
+        try {
+            PHYSICAL.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the real connection to the database
+     */
+    Connection getPhysical() {
+        return PHYSICAL;
+    }
+
+    /**
+     * @return the statements already prepared on this connection
+     */
+    StatementCache getStatementCache() {
+        return STATEMENTS;
+    }
+
+    /**
+     * @return when the physical connection was opened (in ms)
+     */
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return last time the connection was used (in ms)
+     */
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    /**
+     * @return when the connection was borrowed (System.nanoTime), 0 if idle
+     */
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    /**
+     * @return the stack of the borrower, null if not tracked
+     */
+    Throwable getBorrowStack() {
+        return borrowStack;
+    }
+
+    /**
+     * @return true if a leak has already been reported for this borrow
+     */
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    /**
+     * Remember that the leak of this borrow has been reported
+     */
+    void setLeakReported() {
+        this.leakReported = true;
+    }
+
+    /**
+     * The logical connection given to a borrower
+     * Every call is forwarded to the physical connection until the handle is closed
+     */
+    private class Handle implements InvocationHandler {
+
+        /**
+         * True once the borrower closed the handle
+         */
+        private boolean closed = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    // We give the connection back only once
+                    if (!closed) {
+                        closed = true;
+                        POOL.release(PooledConnection.this, this == currentHandle);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || PHYSICAL.isClosed();
+                case "isWrapperFor":
+                    // The execution template looks for the pooled connection to reuse its statements
+                    if (args[0] == PooledConnection.class) {
+                        return true;
+                    }
+                    break;
+                case "unwrap":
+                    if (args[0] == PooledConnection.class) {
+                        return PooledConnection.this;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + PHYSICAL + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("The connection has already been given back to the pool");
+            }
+            try {
+                return method.invoke(PHYSICAL, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.studeasy.dao.db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of executions and latencies of each statement run by the QueryTemplate
+ */
+public class QueryStatistics {
+
+    /**
+     * The statistics of each statement, by SQL
+     */
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Record one execution of a statement
+     * @param sql the statement executed
+     * @param elapsedNanos how long the execution took (in ns)
+     * @param failed true if the execution threw an exception
+     */
+    void record(String sql, long elapsedNanos, boolean failed) {
+        Entry entry = entries.computeIfAbsent(sql, Entry::new);
+        entry.count.increment();
+        entry.totalNanos.add(elapsedNanos);
+        entry.maxNanos.accumulate(elapsedNanos);
+        if (failed) {
+            entry.errors.increment();
+        }
+    }
+
+    /**
+     * Retrieve the statistics of every statement, the most time consuming first
+     * @return the statistics of the statements
+     */
+    public List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Retrieve the statistics of one statement
+     * @param sql the statement
+     * @return its statistics, null if it never ran
+     */
+    public Entry getEntry(String sql) {
+        return entries.get(sql);
+    }
+
+    /**
+     * Forget all the statistics
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Statistics of one statement
+     */
+    public static class Entry {
+
+        /**
+         * The SQL of the statement
+         */
+        private final String SQL;
+
+        /**
+         * Number of executions, total and longest execution time, number of failures
+         */
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * Create the statistics of a statement
+         * @param sql the SQL of the statement
+         */
+        private Entry(String sql) {
+            this.SQL = sql;
+        }
+
+        /**
+         * @return the SQL of the statement
+         */
+        public String getSql() {
+            return SQL;
+        }
+
+        /**
+         * @return the number of executions
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the number of executions which failed
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return the time spent executing the statement (in ns)
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return the average execution time (in ms)
+         */
+        public double getAverageMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return the longest execution time (in ms)
+         */
+        public double getMaxMillis() {
+            return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d x %8.2f ms avg %8.2f ms max %4d err  %s",
+                    getCount(), getAverageMillis(), getMaxMillis(), getErrors(), SQL);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.github.studeasy.dao.db;
+
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Class singleton, running the queries of the DAOs
+ * It borrows a connection for each query, reuses the statements already
+ * prepared on that connection, always closes the result sets and gives the
+ * connection back, and records how often and how long each statement runs.
+ * A slow statement is logged with the DAO method and the facade entry point
+ * running it, which time their own calls
+ * The queries run inside a transaction all use the connection of the transaction
+ */
+public class QueryTemplate {
+
+    /**
+     * Singleton of the QueryTemplate
+     */
+    private static QueryTemplate queryTemplate = null;
+
+    /**
+     * Gives the factory giving access to the connections of the database
+     */
+    private final Supplier<Factory> FACTORY;
+
+    /**
+     * Number of executions and latencies of each statement
+     */
+    private final QueryStatistics STATISTICS = new QueryStatistics();
+
+    /**
+     * The calls running the statements, and the log of the slow statements
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * The connection of the transaction running on each thread, if any
+     */
+    private final ThreadLocal<Connection> TRANSACTION = new ThreadLocal<>();
+
+    /**
+     * The connection kept by the query streamed on each thread, if any
+     * The queries run by its handler use it too, instead of borrowing a second connection
+     */
+    private final ThreadLocal<Connection> STREAMED = new ThreadLocal<>();
+
+    /**
+     * The actions waiting for the commit of the transaction running on each thread, if any
+     */
+    private final ThreadLocal<List<Runnable>> AFTER_COMMIT = new ThreadLocal<>();
+
+    /**
+     * Number of rows fetched at once by the streamed queries, and given at once to their handler
+     */
+    private final int fetchSize;
+
+    /**
+     * Create the template
+     * @param factory the factory giving access to the connections of the database
+     */
+    public QueryTemplate(Factory factory) {
+        this(factory, 500);
+    }
+
+    /**
+     * Create the template
+     * @param factory the factory giving access to the connections of the database
+     * @param fetchSize number of rows fetched at once by the streamed queries
+     */
+    public QueryTemplate(Factory factory, int fetchSize) {
+        this(() -> factory, fetchSize);
+    }
+
+    /**
+     * Create the template
+     * @param factory gives the factory giving access to the connections, asked for each connection
+     * @param fetchSize number of rows fetched at once by the streamed queries
+     */
+    private QueryTemplate(Supplier<Factory> factory, int fetchSize) {
+        this.FACTORY = factory;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.METRICS = MetricsRegistry.getInstance();
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized QueryTemplate getInstance() {
+        if (queryTemplate == null) {
+            // The factory is asked for each connection, so the DAOs follow Factory.setInstance
+            queryTemplate = new QueryTemplate(Factory::getInstance, ConfigRegistry.getInstance()
+                    .get(ConfigRegistry.PERFORMANCE).getInt("STREAM_FETCH_SIZE", 500));
+        }
+        return queryTemplate;
+    }
+
+    /**
+     * Run a query and read its result
+     * @param sql the query, with a ? for each parameter
+     * @param handler reads the result of the query
+     * @param params the parameters of the query, in order
+     * @param <T> the type of object built from the result
+     * @param <E> the type of exception the handler can throw
+     * @return the object built by the handler
+     * @throws SQLException if the query fails
+     * @throws E if the handler fails
+     */
+    public <T, E extends Exception> T query(String sql, ResultSetHandler<T, E> handler, Object... params)
+            throws SQLException, E {
+        // We join the transaction or the stream running on this thread
+        Connection transaction = this.current();
+        if (transaction != null) {
+            return query(transaction, sql, handler, params);
+        }
+        try (Connection db = FACTORY.get().getDb()) {
+            return query(db, sql, handler, params);
+        }
+    }
+
+    /**
+     * Run a query and build an object from each row
+     * @param sql the query, with a ? for each parameter
+     * @param mapper builds an object from a row, the rows it skips are not added
+     * @param params the parameters of the query, in order
+     * @param <T> the type of object built from a row
+     * @return the objects built, in the order of the rows
+     * @throws SQLException if the query fails
+     */
+    public <T> ArrayList<T> queryList(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return this.query(sql, resultSet -> {
+            ArrayList<T> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                T row = mapper.map(resultSet);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }, params);
+    }
+
+    /**
+     * Run a query whose result can be large, and give its rows to the handler a chunk at a time
+     * The rows are fetched from a cursor of the database, fetchSize at a time, so only one
+     * chunk is in memory whatever the size of the result. The connection is kept until the
+     * last chunk is handled: the handler should not wait for the user. The queries run by the
+     * handler use the same connection, so a stream never holds two connections of the pool
+     * @param sql the query, with a ? for each parameter
+     * @param mapper builds an object from a row, the rows it skips are not added
+     * @param handler receives the rows, at most fetchSize at a time
+     * @param params the parameters of the query, in order
+     * @param <T> the type of object built from a row
+     * @return the number of rows given to the handler
+     * @throws SQLException if the query or the handler fails
+     */
+    public <T> int stream(String sql, RowMapper<T> mapper, ChunkHandler<T> handler, Object... params) throws SQLException {
+        // We join the transaction or the stream running on this thread
+        Connection transaction = this.current();
+        if (transaction != null) {
+            return stream(transaction, sql, mapper, handler, params);
+        }
+        try (Connection db = FACTORY.get().getDb()) {
+            STREAMED.set(db);
+            try {
+                return stream(db, sql, mapper, handler, params);
+            } finally {
+                STREAMED.remove();
+            }
+        }
+    }
+
+    /**
+     * Retrieve the connection already used by the current thread
+     * @return the connection of the transaction, else of the query being streamed, null if there isn't
+     */
+    private Connection current() {
+        Connection transaction = TRANSACTION.get();
+        return transaction != null ? transaction : STREAMED.get();
+    }
+
+    /**
+     * Run an INSERT, UPDATE or DELETE statement
+     * @param sql the statement, with a ? for each parameter
+     * @param params the parameters of the statement, in order
+     * @return the number of rows modified
+     * @throws SQLException if the statement fails
+     */
+    public int update(String sql, Object... params) throws SQLException {
+        // We join the transaction or the stream running on this thread
+        Connection transaction = this.current();
+        if (transaction != null) {
+            return update(transaction, sql, params);
+        }
+        try (Connection db = FACTORY.get().getDb()) {
+            return update(db, sql, params);
+        }
+    }
+
+    /**
+     * Run the same INSERT, UPDATE or DELETE statement for many rows, sent as one batch
+     * @param sql the statement, with a ? for each parameter
+     * @param rows the parameters of the statement for each row, in order
+     * @return the number of rows modified by each execution, in the order of the rows
+     * @throws SQLException if the batch fails
+     */
+    public int[] batchUpdate(String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        // We join the transaction or the stream running on this thread
+        Connection transaction = this.current();
+        if (transaction != null) {
+            return batchUpdate(transaction, sql, rows);
+        }
+        try (Connection db = FACTORY.get().getDb()) {
+            return batchUpdate(db, sql, rows);
+        }
+    }
+
+    /**
+     * Run some work in a single transaction
+     * All the queries run by the template on this thread during the work use the same
+     * connection, they are committed together if the work returns and rolled back if it throws
+     * If a transaction is already running on this thread, the work joins it
+     * The actions given to {@link #afterCommit(Runnable)} during the work run once it is committed
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @param <E> the type of exception the work can throw
+     * @return the result of the work
+     * @throws SQLException if a query or the commit fails
+     * @throws E if the work fails
+     */
+    public <T, E extends Exception> T inTransaction(TransactionCallback<T, E> work) throws SQLException, E {
+        if (TRANSACTION.get() != null) {
+            return work.run();
+        }
+        List<Runnable> actions = new ArrayList<>();
+        T result;
+        try (Connection db = FACTORY.get().getDb()) {
+            db.setAutoCommit(false);
+            TRANSACTION.set(db);
+            AFTER_COMMIT.set(actions);
+            boolean committed = false;
+            try {
+                result = work.run();
+                db.commit();
+                committed = true;
+            } finally {
+                TRANSACTION.remove();
+                AFTER_COMMIT.remove();
+                // We keep the error of the work if the connection can't be reset
+                try {
+                    if (!committed) {
+                        db.rollback();
+                    }
+                    db.setAutoCommit(true);
+                } catch (SQLException resetErr) {
+                    resetErr.printStackTrace();
+                }
+            }
+        }
+        // The connection is given back before the actions run, they may need one
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException err) {
+                // The transaction is committed, an action failing can't undo it
+                err.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run an action once the transaction running on this thread is committed, or now if there is none
+     * The action is dropped if the transaction is rolled back
+     * @param action the action, for example telling a worker the rows written can be read
+     */
+    public void afterCommit(Runnable action) {
+        List<Runnable> actions = AFTER_COMMIT.get();
+        if (actions == null) {
+            action.run();
+        }
+        else {
+            actions.add(action);
+        }
+    }
+
+    /**
+     * Retrieve the number of executions and latencies of each statement
+     * @return the statistics of the statements
+     */
+    public QueryStatistics getStatistics() {
+        return STATISTICS;
+    }
+
+    /**
+     * Run a query on a connection and read its result
+     * @param db the connection
+     * @param sql the query, with a ? for each parameter
+     * @param handler reads the result of the query
+     * @param params the parameters of the query, in order
+     * @param <T> the type of object built from the result
+     * @param <E> the type of exception the handler can throw
+     * @return the object built by the handler
+     * @throws SQLException if the query fails
+     * @throws E if the handler fails
+     */
+    private <T, E extends Exception> T query(Connection db, String sql, ResultSetHandler<T, E> handler, Object[] params)
+            throws SQLException, E {
+        long start = System.nanoTime();
+        boolean failed = true;
+        StatementCache cache = statementCache(db);
+        PreparedStatement statement = null;
+        try {
+            statement = cache == null ? db.prepareStatement(sql) : cache.take(sql);
+            bind(statement, params);
+            T result;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                result = handler.handle(resultSet);
+            }
+            failed = false;
+            return result;
+        } finally {
+            this.record(sql, System.nanoTime() - start, failed);
+            if (statement != null) {
+                release(cache, sql, statement);
+            }
+        }
+    }
+
+    /**
+     * Run a query on a connection and give its rows to the handler a chunk at a time
+     * @param db the connection
+     * @param sql the query, with a ? for each parameter
+     * @param mapper builds an object from a row
+     * @param handler receives the rows
+     * @param params the parameters of the query, in order
+     * @param <T> the type of object built from a row
+     * @return the number of rows given to the handler
+     * @throws SQLException if the query or the handler fails
+     */
+    private <T> int stream(Connection db, String sql, RowMapper<T> mapper, ChunkHandler<T> handler, Object[] params)
+            throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        StatementCache cache = statementCache(db);
+        PreparedStatement statement = null;
+        try {
+            statement = cache == null ? db.prepareStatement(sql) : cache.take(sql);
+            bind(statement, params);
+            // With useCursorFetch, the driver reads the rows from a cursor instead of the whole result
+            statement.setFetchSize(fetchSize);
+            int count = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<T> chunk = new ArrayList<>(fetchSize);
+                while (resultSet.next()) {
+                    T row = mapper.map(resultSet);
+                    if (row != null) {
+                        chunk.add(row);
+                    }
+                    if (chunk.size() == fetchSize) {
+                        count += chunk.size();
+                        handler.handle(chunk);
+                        chunk = new ArrayList<>(fetchSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    count += chunk.size();
+                    handler.handle(chunk);
+                }
+            }
+            failed = false;
+            return count;
+        } finally {
+            this.record(sql, System.nanoTime() - start, failed);
+            if (statement != null) {
+                try {
+                    // The statement may be cached, the other queries read their result at once
+                    if (cache != null) {
+                        statement.setFetchSize(0);
+                    }
+                } finally {
+                    release(cache, sql, statement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an INSERT, UPDATE or DELETE statement on a connection
+     * @param db the connection
+     * @param sql the statement, with a ? for each parameter
+     * @param params the parameters of the statement, in order
+     * @return the number of rows modified
+     * @throws SQLException if the statement fails
+     */
+    private int update(Connection db, String sql, Object[] params) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        StatementCache cache = statementCache(db);
+        PreparedStatement statement = null;
+        try {
+            statement = cache == null ? db.prepareStatement(sql) : cache.take(sql);
+            bind(statement, params);
+            int modified = statement.executeUpdate();
+            failed = false;
+            return modified;
+        } finally {
+            this.record(sql, System.nanoTime() - start, failed);
+            if (statement != null) {
+                release(cache, sql, statement);
+            }
+        }
+    }
+
+    /**
+     * Run the same statement for many rows on a connection, sent as one batch
+     * @param db the connection
+     * @param sql the statement, with a ? for each parameter
+     * @param rows the parameters of the statement for each row, in order
+     * @return the number of rows modified by each execution
+     * @throws SQLException if the batch fails
+     */
+    private int[] batchUpdate(Connection db, String sql, List<Object[]> rows) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        StatementCache cache = statementCache(db);
+        PreparedStatement statement = null;
+        try {
+            statement = cache == null ? db.prepareStatement(sql) : cache.take(sql);
+            for (Object[] params : rows) {
+                bind(statement, params);
+                statement.addBatch();
+            }
+            int[] modified = statement.executeBatch();
+            failed = false;
+            return modified;
+        } finally {
+            this.record(sql, System.nanoTime() - start, failed);
+            if (statement != null) {
+                try {
+                    // The statement may be cached, a failed batch must not be sent again with the next one
+                    if (failed && cache != null) {
+                        statement.clearBatch();
+                    }
+                } finally {
+                    release(cache, sql, statement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record an execution of a statement, in the statistics of the statement
+     * @param sql the statement executed
+     * @param nanos how long the execution took (in ns)
+     * @param failed true if the execution threw an exception
+     */
+    private void record(String sql, long nanos, boolean failed) {
+        STATISTICS.record(sql, nanos, failed);
+        if (MetricsRegistry.isFxThread()) {
+            // The views are frozen while the statement runs
+            METRICS.timer("fx.database").record(nanos, failed);
+        }
+        METRICS.getSlowQueries().record(sql, nanos, METRICS::getCaller, failed);
+    }
+
+    /**
+     * Retrieve the statement cache of a connection coming from the pool
+     * @param db the connection
+     * @return its statement cache, null if the connection is not pooled
+     * @throws SQLException if the connection can't be unwrapped
+     */
+    private static StatementCache statementCache(Connection db) throws SQLException {
+        if (db.isWrapperFor(PooledConnection.class)) {
+            return db.unwrap(PooledConnection.class).getStatementCache();
+        }
+        return null;
+    }
+
+    /**
+     * Set the parameters of a statement
+     * @param statement the statement
+     * @param params the parameters, in order
+     * @throws SQLException if a parameter can't be set
+     */
+    private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else {
+                statement.setObject(i + 1, params[i]);
+            }
+        }
+    }
+
+    /**
+     * Give a statement back to the cache, or close it if the connection has no cache
+     * @param cache the statement cache of the connection, null if none
+     * @param sql the SQL of the statement
+     * @param statement the statement
+     * @throws SQLException if the statement can't be closed
+     */
+    private static void release(StatementCache cache, String sql, PreparedStatement statement) throws SQLException {
+        if (cache == null) {
+            statement.close();
+        } else {
+            cache.giveBack(sql, statement);
+        }
+    }
+}
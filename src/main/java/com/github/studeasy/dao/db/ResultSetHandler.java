@@ -0,0 +1,23 @@
+package com.github.studeasy.dao.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the result of a query run by the QueryTemplate
+ * The result set is closed by the template once the handler returns
+ * @param <T> the type of object built from the result
+ * @param <E> the type of exception the handler can throw
+ */
+@FunctionalInterface
+public interface ResultSetHandler<T, E extends Exception> {
+
+    /**
+     * Read the result of the query
+     * @param resultSet the result of the query, positioned before the first row
+     * @return the object built from the result
+     * @throws SQLException if the result can't be read
+     * @throws E if the handler fails
+     */
+    T handle(ResultSet resultSet) throws SQLException, E;
+}
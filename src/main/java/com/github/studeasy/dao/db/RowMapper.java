@@ -0,0 +1,22 @@
+package com.github.studeasy.dao.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds an object from the current row of a result
+ * The mappers read the columns by name, so they only depend on the columns
+ * projected by the query, not on their order in the tables
+ * @param <T> the type of object built from a row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Build an object from the current row
+     * @param resultSet the result, positioned on the row to read
+     * @return the object built, or null if the row must be skipped
+     * @throws SQLException if the row can't be read
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
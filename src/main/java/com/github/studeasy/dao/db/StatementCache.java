@@ -0,0 +1,115 @@
+package com.github.studeasy.dao.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the prepared statements of one physical connection, keyed by their SQL
+ * A statement is removed from the cache while it is used, so a query running
+ * inside another one never shares its statement. The least recently used
+ * statements are closed when the cache is full
+ */
+public class StatementCache {
+
+    /**
+     * The connection preparing the statements
+     */
+    private final Connection PHYSICAL;
+
+    /**
+     * Maximum number of statements kept, 0 to disable the cache
+     */
+    private final int maxSize;
+
+    /**
+     * The idle statements, the least recently used first
+     */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * Create the cache of a connection
+     * @param physical the connection preparing the statements
+     * @param maxSize maximum number of statements kept, 0 to disable the cache
+     */
+    StatementCache(Connection physical, int maxSize) {
+        this.PHYSICAL = physical;
+        this.maxSize = Math.max(0, maxSize);
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Take the statement of a query out of the cache, or prepare it
+     * @param sql the query
+     * @return the statement, to give back with {@link #giveBack(String, PreparedStatement)}
+     * @throws SQLException if the statement can't be prepared
+     */
+    synchronized PreparedStatement take(String sql) throws SQLException {
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            return statement;
+        }
+        return PHYSICAL.prepareStatement(sql);
+    }
+
+    /**
+     * Put a statement back in the cache once its query is done
+     * @param sql the query
+     * @param statement the statement taken with {@link #take(String)}
+     */
+    synchronized void giveBack(String sql, PreparedStatement statement) {
+        if (maxSize == 0 || statements.containsKey(sql)) {
+            // The same query ran twice at the same time, we only keep one statement
+            close(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            // The statement is unusable, it won't be reused
+            close(statement);
+            return;
+        }
+        statements.put(sql, statement);
+        // We close the statements not used for the longest time
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            close(eldest);
+        }
+    }
+
+    /**
+     * Close a statement leaving the cache
+     * @param statement the statement
+     */
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The driver releases it with the connection
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Close every statement of the cache
+     */
+    synchronized void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            close(statement);
+        }
+        statements.clear();
+    }
+
+    /**
+     * @return the number of statements kept
+     */
+    synchronized int size() {
+        return statements.size();
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.studeasy.dao.db;
+
+import java.sql.SQLException;
+
+/**
+ * The work done inside a transaction run by the QueryTemplate
+ * Every query run by the template on the same thread joins the transaction
+ * @param <T> the type of object returned by the work
+ * @param <E> the type of exception the work can throw
+ */
+@FunctionalInterface
+public interface TransactionCallback<T, E extends Exception> {
+
+    /**
+     * Do the work of the transaction
+     * The transaction is committed if the work returns, rolled back if it throws
+     * @return the result of the work
+     * @throws SQLException if a query fails
+     * @throws E if the work fails
+     */
+    T run() throws SQLException, E;
+}
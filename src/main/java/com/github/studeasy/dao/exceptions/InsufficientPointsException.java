@@ -0,0 +1,15 @@
+package com.github.studeasy.dao.exceptions;
+
+/**
+ * Exception occuring when a user has to pay more points
+ * than he has, nothing is paid
+ */
+public class InsufficientPointsException extends Exception {
+    /**
+     * Create the exception with a message to display
+     * @param message the message to display
+     */
+    public InsufficientPointsException(String message) {
+        super(message);
+    }
+}
@@ -1,29 +1,37 @@
 package com.github.studeasy.dao.feedbackDAO;
 
+import com.github.studeasy.dao.db.QueryTemplate;
 import com.github.studeasy.logic.common.Feedback;
 import com.github.studeasy.logic.common.Session;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.ArrayList;
 
 /**
  * The Feedback DAO using a MySQL database
  * Contains all the methods accessing feedback related data
  */
+@SuppressWarnings("try")
 public class MySQLFeedbackDAO extends FeedbackDAO{
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLFeedbackDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -32,33 +40,28 @@ public class MySQLFeedbackDAO extends FeedbackDAO{
      * @return All the feedbacks in an ArrayList
      */
     public ArrayList<Feedback> seeAllFeedbacks(int idService){
-        Feedback currentFeedback;
-        ArrayList<Feedback> allFeedbacks = new ArrayList<>();
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
+        try (TimedCall call = METRICS.time("dao.MySQLFeedbackDAO.seeAllFeedbacks")) {
+            ArrayList<Feedback> allFeedbacks = new ArrayList<>();
             String request = "SELECT DISTINCT idCommand,titleFeedback,commentFeedback,date,rateFeedback FROM command WHERE fkService = ? AND titleFeedback IS NOT NULL";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, idService);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We check if the query retrieved a user
-            while(resultSet.next()) {
-                //verify if there is a feedback
-                if(resultSet.getString(2) != null){
-                    // We create a user according to his role
-                    currentFeedback = new Feedback(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3),resultSet.getDate(4),resultSet.getInt(5));
-                    allFeedbacks.add(currentFeedback);
-                }
-
+            try {
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve the feedbacks
+                    while(resultSet.next()) {
+                        //verify if there is a feedback
+                        if(resultSet.getString(2) != null){
+                            Feedback currentFeedback = new Feedback(resultSet.getInt(1),resultSet.getString(2),resultSet.getString(3),resultSet.getDate(4),resultSet.getInt(5));
+                            allFeedbacks.add(currentFeedback);
+                        }
+                    }
+                    return allFeedbacks;
+                }, idService);
             }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return allFeedbacks;
         }
-        catch(SQLException e){
-            e.printStackTrace();
-        }
-        return allFeedbacks;
     }
 
     /**
@@ -66,18 +69,14 @@ public class MySQLFeedbackDAO extends FeedbackDAO{
      * @param idFeedback the id of the feedback to delete
      */
     public void deleteFeedback(int idFeedback) throws SQLException {
-        // We prepare the SQL request to update a user
-        PreparedStatement preparedStatement;
-        String request = "UPDATE command SET titleFeedback = ?,"
-                +"commentFeedback = ?,"
-                +"rateFeedback = ? " +
-                "WHERE idCommand = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(4, idFeedback);
-        preparedStatement.setString(1, null);
-        preparedStatement.setString(2, null);
-        preparedStatement.setString(3, null);
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLFeedbackDAO.deleteFeedback")) {
+            // We prepare the SQL request to remove the feedback from the command
+            String request = "UPDATE command SET titleFeedback = ?,"
+                    +"commentFeedback = ?,"
+                    +"rateFeedback = ? " +
+                    "WHERE idCommand = ?";
+            TEMPLATE.update(request, null, null, null, idFeedback);
+        }
     }
 
     /**
@@ -86,27 +85,22 @@ public class MySQLFeedbackDAO extends FeedbackDAO{
      * @return true if the student has bought the service else false
      */
     public boolean hasCommand(int idService){
-        int idUser = Session.getInstance().getCurrentUser().getIdUser();
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
+        try (TimedCall call = METRICS.time("dao.MySQLFeedbackDAO.hasCommand")) {
+            int idUser = Session.getInstance().getCurrentUser().getIdUser();
             String request = "SELECT * FROM command WHERE fkService = ? AND fkUser = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, idService);
-            preparedStatement.setInt(2, idUser);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We check if the result is empty or if there is already a comment left by the current user
-            //if the result is empty, it means that the user has never purchased this service
-            //so he will not authorized to leave a comment
-            return (resultSet.next() && resultSet.getString(3) == null);
-        }
-        catch(SQLException e){
-            e.printStackTrace();
+            try {
+                // We execute the query
+                // We check if the result is empty or if there is already a comment left by the current user
+                //if the result is empty, it means that the user has never purchased this service
+                //so he will not authorized to leave a comment
+                return TEMPLATE.query(request, resultSet -> resultSet.next() && resultSet.getString(3) == null,
+                        idService, idUser);
+            }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return false;
         }
-        return false;
     }
 
     /**
@@ -118,24 +112,18 @@ public class MySQLFeedbackDAO extends FeedbackDAO{
      * @throws Exception if an error occur
      */
     public void leaveFeedback(String title, String comment, int rate, int idService) throws Exception{
-        // We prepare the SQL request to insert a feedback
-        PreparedStatement preparedStatement;
-
-        String request = "UPDATE command " +
-                "SET titleFeedback = ? ," +
-                "commentFeedback = ? ," +
-                "rateFeedback = ? " +
-                "WHERE fkUser = ? AND fkService  = ? " +
-                "ORDER BY idCommand " +
-                "LIMIT 1";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setString(1, title);
-        preparedStatement.setString(2, comment);
-        preparedStatement.setInt(3, rate);
-        preparedStatement.setInt(4, Session.getInstance().getCurrentUser().getIdUser());
-        preparedStatement.setInt(5, idService);
-        // We execute the query
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLFeedbackDAO.leaveFeedback")) {
+            // We prepare the SQL request to insert a feedback
+            String request = "UPDATE command " +
+                    "SET titleFeedback = ? ," +
+                    "commentFeedback = ? ," +
+                    "rateFeedback = ? " +
+                    "WHERE fkUser = ? AND fkService  = ? " +
+                    "ORDER BY idCommand " +
+                    "LIMIT 1";
+            // We execute the query
+            TEMPLATE.update(request, title, comment, rate, Session.getInstance().getCurrentUser().getIdUser(), idService);
+        }
     }
 
 
@@ -1,12 +1,16 @@
 package com.github.studeasy.dao.jobDAO;
 
+import com.github.studeasy.dao.db.TransactionCallback;
 import com.github.studeasy.dao.userDAO.UserDAO;
 import com.github.studeasy.logic.common.Job;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.factory.Factory;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for the Job DAO
@@ -53,6 +57,26 @@ public abstract class JobDAO {
      */
     public abstract void choiceForJob(Object job,int choice) throws Exception;
 
+    /**
+     * Submit the same admin choice for many pending jobs at once
+     * The jobs which are not pending anymore, reviewed by someone else meanwhile, are left as they are
+     * @param jobs the jobs to review
+     * @param choice 1 to reject the jobs, 2 to validate them
+     * @return the jobs which were pending and have been reviewed
+     * @throws SQLException if an error occurs, the caller's transaction must be rolled back
+     */
+    public abstract List<Job> choiceForJobs(List<Job> jobs, int choice) throws SQLException;
+
+    /**
+     * Run some work in a single transaction, the changes made by the DAOs
+     * during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public abstract <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception;
+
 
     /**
      * Get all jobs from the DB
@@ -61,6 +85,13 @@ public abstract class JobDAO {
      */
     public abstract ArrayList<Job> getAllJobs() throws Exception;
 
+    /**
+     * Read all the validated jobs a chunk at a time, so their number doesn't matter
+     * @param chunks receives the jobs, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public abstract void streamJobs(Consumer<List<Job>> chunks) throws SQLException;
+
     /**
      * Get all jobs from one user
      * @param user the user
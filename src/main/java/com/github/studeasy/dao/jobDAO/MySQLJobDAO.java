@@ -1,35 +1,43 @@
 package com.github.studeasy.dao.jobDAO;
 
-import com.github.studeasy.dao.userDAO.MySQLUserDAO;
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.dao.db.TransactionCallback;
+import com.github.studeasy.dao.userDAO.UserCache;
 import com.github.studeasy.logic.common.Job;
 import com.github.studeasy.logic.common.User;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The job DAO using a MySQL database
  * Contains all the methods accessing user related data
  */
+@SuppressWarnings("try")
 public class MySQLJobDAO extends JobDAO{
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLJobDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -47,128 +55,164 @@ public class MySQLJobDAO extends JobDAO{
      */
     @Override
     public void addJob(String title, String location, String role, String duration, String mail, String phone, LocalDate localDate, String description, Object currentUser) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.addJob")) {
 
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet;
-            String request = "INSERT INTO job(ownerJob,titleJob,localisationJob,roleJob,startJob,durationJob,descriptionJob,contactMailJob,contactPhoneJob) VALUES(?,?,?,?,?,?,?,?,?)";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, ((User)currentUser).getIdUser());
-            preparedStatement.setString(2, title);
-            preparedStatement.setString(3, location);
-            preparedStatement.setString(4, role);
-            preparedStatement.setString(5, localDate.toString());
-            preparedStatement.setString(6, duration);
-            preparedStatement.setString(7, description);
-            preparedStatement.setString(8, mail);
-            preparedStatement.setString(9, phone);
-            // We execute the query
-            resultSet = preparedStatement.executeUpdate();
-        }
-        catch(SQLException e){
-            throw e;
+            try {
+                String request = "INSERT INTO job(ownerJob,titleJob,localisationJob,roleJob,startJob,durationJob,descriptionJob,contactMailJob,contactPhoneJob) VALUES(?,?,?,?,?,?,?,?,?)";
+                // We execute the query
+                TEMPLATE.update(request, ((User)currentUser).getIdUser(), title, location, role, localDate.toString(),
+                        duration, description, mail, phone);
+            }
+            catch(SQLException e){
+                throw e;
+            }
         }
     }
 
     public ArrayList<Job> getPendingJob() throws Exception{
-        List<Job> jobs = new ArrayList<Job>();
-        MySQLUserDAO searchUser = new MySQLUserDAO();
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM job WHERE status= 'pending'";
-            preparedStatement = DB.prepareStatement(request);
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                jobs.add(new Job(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getString(5),resultSet.getString(6),resultSet.getString(7),resultSet.getString(8),resultSet.getString(9),resultSet.getString(10), searchUser.searchUserById(resultSet.getInt(2)),resultSet.getString(11)));
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.getPendingJob")) {
+            List<Job> jobs = new ArrayList<Job>();
+            try {
+                String request = "SELECT * FROM job WHERE status= 'pending'";
+                this.streamJobs(request, jobs::addAll);
+            } catch (Exception e) {
+                throw e;
             }
-        } catch (Exception e) {
-            throw e;
+            return ((ArrayList<Job>) jobs);
         }
-        return ((ArrayList<Job>) jobs);
     }
 
 
     public void choiceForJob(Object job,int choice) throws Exception{
-        try {
-            Job currentJob = (Job)job;
-            String status = "";
-            if(choice ==1){
-                status = "refused";
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.choiceForJob")) {
+            try {
+                Job currentJob = (Job)job;
+                String status = "";
+                if(choice ==1){
+                    status = "refused";
+                }
+                if(choice ==2){
+                    status = "validated";
+                }
+                String request = "UPDATE job SET status=? WHERE idJob = ?";
+                TEMPLATE.update(request, status, currentJob.getIdJob());
             }
-            if(choice ==2){
-                status = "validated";
+            catch (Exception e){
+                throw e;
             }
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet;
-            String request = "UPDATE job SET status=? WHERE idJob = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, status);
-            preparedStatement.setInt(2, currentJob.getIdJob());
-
-            resultSet = preparedStatement.executeUpdate();
         }
-        catch (Exception e){
-            throw e;
+    }
+
+    /**
+     * Submit the same admin choice for many pending jobs at once
+     * The updates are sent to the database as one batch, the jobs already reviewed are left as they are
+     * @param jobs the jobs to review
+     * @param choice 1 to reject the jobs, 2 to validate them
+     * @return the jobs which were pending and have been reviewed
+     * @throws SQLException if an error occurs, the caller's transaction must be rolled back
+     */
+    public List<Job> choiceForJobs(List<Job> jobs, int choice) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.choiceForJobs")) {
+            String status = choice == 2 ? "validated" : "refused";
+            // Only a pending job can be reviewed
+            String request = "UPDATE job SET status=? WHERE idJob = ? AND status = 'pending'";
+            List<Object[]> rows = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                rows.add(new Object[]{status, job.getIdJob()});
+            }
+            // We execute the batch, it tells which jobs were still pending
+            int[] modified = TEMPLATE.batchUpdate(request, rows);
+            List<Job> reviewed = new ArrayList<>();
+            for (int i = 0; i < modified.length; i++) {
+                if (modified[i] > 0 || modified[i] == Statement.SUCCESS_NO_INFO) {
+                    reviewed.add(jobs.get(i));
+                }
+            }
+            return reviewed;
         }
     }
 
+    /**
+     * Run some work in a single transaction, the changes made by the DAOs
+     * during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception {
+        return TEMPLATE.inTransaction(work);
+    }
+
 
     public ArrayList<Job> getAllJobs() throws Exception{
-        List<Job> jobs = new ArrayList<Job>();
-        MySQLUserDAO searchUser = new MySQLUserDAO();
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM job WHERE status= 'validated'";
-            preparedStatement = DB.prepareStatement(request);
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                jobs.add(new Job(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getString(5),resultSet.getString(6),resultSet.getString(7),resultSet.getString(8),resultSet.getString(9),resultSet.getString(10), searchUser.searchUserById(resultSet.getInt(2)),resultSet.getString(11)));
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.getAllJobs")) {
+            List<Job> jobs = new ArrayList<Job>();
+            try {
+                this.streamJobs(jobs::addAll);
+            } catch (Exception e) {
+                throw e;
             }
-        } catch (Exception e) {
-            throw e;
+            return ((ArrayList<Job>) jobs);
         }
-        return ((ArrayList<Job>) jobs);
     }
 
 
+    /**
+     * Read all the validated jobs a chunk at a time, so their number doesn't matter
+     * @param chunks receives the jobs, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public void streamJobs(Consumer<List<Job>> chunks) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.streamJobs")) {
+            String request = "SELECT * FROM job WHERE status= 'validated'";
+            this.streamJobs(request, chunks);
+        }
+    }
+
+    /**
+     * Read the jobs of a request a chunk at a time
+     * The owners of each chunk are resolved at once, instead of one query for each job
+     * @param request the request retrieving the jobs
+     * @param chunks receives the jobs, a chunk at a time
+     * @param params the parameters of the request, in order
+     * @throws SQLException if an error occurs
+     */
+    private void streamJobs(String request, Consumer<List<Job>> chunks, Object... params) throws SQLException {
+        // The ids of the owners, in the order of the jobs of the chunk
+        List<Integer> ownerIds = new ArrayList<>();
+        TEMPLATE.stream(request, resultSet -> {
+            ownerIds.add(resultSet.getInt("ownerJob"));
+            return new Job(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getString(5),resultSet.getString(6),resultSet.getString(7),resultSet.getString(8),resultSet.getString(9),resultSet.getString(10), null,resultSet.getString(11));
+        }, jobs -> {
+            UserCache.getInstance().attach(jobs, ownerIds, Job::setOwner);
+            ownerIds.clear();
+            chunks.accept(jobs);
+        }, params);
+    }
+
     public ArrayList<Job> getMyJobs(Object user) throws Exception{
-        List<Job> jobs = new ArrayList<Job>();
-        MySQLUserDAO searchUser = new MySQLUserDAO();
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM job WHERE ownerJob= ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, ((User)user).getIdUser());
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                jobs.add(new Job(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(4),resultSet.getString(5),resultSet.getString(6),resultSet.getString(7),resultSet.getString(8),resultSet.getString(9),resultSet.getString(10), searchUser.searchUserById(resultSet.getInt(2)),resultSet.getString(11)));
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.getMyJobs")) {
+            List<Job> jobs = new ArrayList<Job>();
+            try {
+                String request = "SELECT * FROM job WHERE ownerJob= ?";
+                this.streamJobs(request, jobs::addAll, ((User)user).getIdUser());
+            } catch (Exception e) {
+                throw e;
             }
-        } catch (Exception e) {
-            throw e;
+            return ((ArrayList<Job>) jobs);
         }
-        return ((ArrayList<Job>) jobs);
     }
 
     public void deleteJob(Object job) throws Exception {
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet;
-            String request = "DELETE  FROM job WHERE idJob=?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, ((Job) job).getIdJob());
-            resultSet = preparedStatement.executeUpdate();
-        }
-        catch (Exception e){
-            throw e;
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.deleteJob")) {
+            try {
+                String request = "DELETE  FROM job WHERE idJob=?";
+                TEMPLATE.update(request, ((Job) job).getIdJob());
+            }
+            catch (Exception e){
+                throw e;
+            }
         }
     }
 
@@ -187,28 +231,16 @@ public class MySQLJobDAO extends JobDAO{
      */
     @Override
     public void updateJob(String title, String location, String role, String duration, String mail, String phone, LocalDate localDate, String description, int idJob) throws Exception{
-        try {
-
-            PreparedStatement preparedStatement;
-            int resultSet;
-            String request = "UPDATE  job SET titleJob =?,localisationJob=?,roleJob=?,startJob=?,durationJob=?,descriptionJob=?,contactMailJob=?,contactPhoneJob=?,status=? WHERE idJob =?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, title);
-            preparedStatement.setString(2, location);
-            preparedStatement.setString(3, role);
-            preparedStatement.setString(4, localDate.toString());
-            preparedStatement.setString(5, duration);
-            preparedStatement.setString(6, description);
-            preparedStatement.setString(7, mail);
-            preparedStatement.setString(8, phone);
-            preparedStatement.setString(9, "pending");
-            preparedStatement.setInt(10,idJob);
-            // We execute the query
-            resultSet = preparedStatement.executeUpdate();
-
-        }
-        catch(SQLException e){
-            throw e;
+        try (TimedCall call = METRICS.time("dao.MySQLJobDAO.updateJob")) {
+            try {
+                String request = "UPDATE  job SET titleJob =?,localisationJob=?,roleJob=?,startJob=?,durationJob=?,descriptionJob=?,contactMailJob=?,contactPhoneJob=?,status=? WHERE idJob =?";
+                // We execute the query
+                TEMPLATE.update(request, title, location, role, localDate.toString(), duration, description, mail,
+                        phone, "pending", idJob);
+            }
+            catch(SQLException e){
+                throw e;
+            }
         }
     }
 
@@ -0,0 +1,92 @@
+package com.github.studeasy.dao.mailOutboxDAO;
+
+import com.github.studeasy.logic.common.OutgoingMail;
+import com.github.studeasy.logic.factory.Factory;
+
+import java.util.ArrayList;
+
+/**
+ * Abstract class for the Mail Outbox DAO
+ * Contains the methods needed to keep the mails waiting to be sent
+ */
+public abstract class MailOutboxDAO {
+
+    /**
+     * The singleton of the MailOutboxDAO
+     */
+    private static MailOutboxDAO mailOutboxDAO = null;
+
+    /**
+     * Static method which returns the instance of the MailOutboxDAO,
+     * or ask the factory to create one
+     * @return the instance of MySQLMailOutboxDAO
+     */
+    public static MailOutboxDAO getInstance(){
+        if (mailOutboxDAO == null){
+            Factory factory = Factory.getInstance();
+            mailOutboxDAO = factory.createMailOutboxDAO();
+        }
+        return mailOutboxDAO;
+    }
+
+    /**
+     * Put a mail in the outbox, it will be sent as soon as possible
+     * @param recipient the address of the receiver
+     * @param subject the subject of the mail
+     * @param text the text of the mail
+     * @return the id of the mail in the outbox
+     * @throws Exception if an error occurs
+     */
+    public abstract int enqueue(String recipient, String subject, String text) throws Exception;
+
+    /**
+     * Run an action once the mails put in the outbox can be read by the workers:
+     * after the commit of the transaction running, or now if there is none
+     * The action is dropped if the transaction is rolled back
+     * @param action the action
+     */
+    public abstract void afterCommit(Runnable action);
+
+    /**
+     * Take the mails due to be sent
+     * They won't be given to anyone else until the lease ends
+     * @param limit the maximum number of mails taken
+     * @param leaseSeconds how long the mails are kept for the caller (in s)
+     * @return the mails to send
+     * @throws Exception if an error occurs
+     */
+    public abstract ArrayList<OutgoingMail> claimDue(int limit, long leaseSeconds) throws Exception;
+
+    /**
+     * Record that a mail was sent
+     * @param mail the mail sent
+     * @throws Exception if an error occurs
+     */
+    public abstract void markSent(OutgoingMail mail) throws Exception;
+
+    /**
+     * Record that a mail could not be sent
+     * @param mail the mail not sent
+     * @param error why it could not be sent
+     * @param retryDelaySeconds when to try again (in s)
+     * @param giveUp true if we won't try to send it again
+     * @throws Exception if an error occurs
+     */
+    public abstract void markFailed(OutgoingMail mail, String error, long retryDelaySeconds, boolean giveUp) throws Exception;
+
+    /**
+     * Cancel a mail not sent yet
+     * A mail waiting for its next attempt is not cancelled, a worker might be sending it
+     * @param idMail the id of the mail
+     * @return false if the mail was sent, or might be being sent
+     * @throws Exception if an error occurs
+     */
+    public abstract boolean cancel(int idMail) throws Exception;
+
+    /**
+     * Count the mails waiting to be sent
+     * @return the number of mails in the outbox
+     * @throws Exception if an error occurs
+     */
+    public abstract int countPending() throws Exception;
+}
@@ -0,0 +1,200 @@
+package com.github.studeasy.dao.mailOutboxDAO;
+
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.logic.common.OutgoingMail;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Mail Outbox DAO using a MySQL database
+ * A mail is pending (state 0) until it is sent (state 1) or we give up (state 2)
+ */
+@SuppressWarnings("try")
+public class MySQLMailOutboxDAO extends MailOutboxDAO {
+
+    /**
+     * State of a mail waiting to be sent
+     */
+    private static final int PENDING = 0;
+
+    /**
+     * State of a mail sent
+     */
+    private static final int SENT = 1;
+
+    /**
+     * State of a mail we gave up sending
+     */
+    private static final int FAILED = 2;
+
+    /**
+     * The longest error message kept
+     */
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    /**
+     * The template running the queries on the database
+     */
+    private final QueryTemplate TEMPLATE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
+     */
+    public MySQLMailOutboxDAO() {
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
+    }
+
+    /**
+     * Put a mail in the outbox, it will be sent as soon as possible
+     * @param recipient the address of the receiver
+     * @param subject the subject of the mail
+     * @param text the text of the mail
+     * @return the id of the mail in the outbox
+     * @throws Exception if an error occurs
+     */
+    public int enqueue(String recipient, String subject, String text) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.enqueue")) {
+            String request = "INSERT INTO mail_outbox (recipient, subject, body, state) VALUES (?,?,?,?)";
+            // The id of the mail is read on the connection which created it
+            return TEMPLATE.inTransaction(() -> {
+                // We execute the query
+                TEMPLATE.update(request, recipient, subject, text, PENDING);
+                return TEMPLATE.query("SELECT LAST_INSERT_ID()", resultSet -> {
+                    resultSet.next();
+                    return resultSet.getInt(1);
+                });
+            });
+        }
+    }
+
+    public void afterCommit(Runnable action) {
+        TEMPLATE.afterCommit(action);
+    }
+
+    /**
+     * Take the mails due to be sent
+     * They won't be given to anyone else until the lease ends
+     * @param limit the maximum number of mails taken
+     * @param leaseSeconds how long the mails are kept for the caller (in s)
+     * @return the mails to send
+     * @throws Exception if an error occurs
+     */
+    public ArrayList<OutgoingMail> claimDue(int limit, long leaseSeconds) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.claimDue")) {
+            ArrayList<OutgoingMail> mails = new ArrayList<>();
+            String request = "SELECT idMail, recipient, subject, body, attempts FROM mail_outbox " +
+                    "WHERE state = ? AND nextAttemptAt <= NOW() " +
+                    "ORDER BY nextAttemptAt, idMail LIMIT ? " +
+                    "FOR UPDATE SKIP LOCKED";
+            return TEMPLATE.inTransaction(() -> {
+                // We lock the mails due, skipping those another worker is taking
+                TEMPLATE.query(request, resultSet -> {
+                    while (resultSet.next()) {
+                        mails.add(new OutgoingMail(resultSet.getInt(1), resultSet.getString(2),
+                                resultSet.getString(3), resultSet.getString(4), resultSet.getInt(5)));
+                    }
+                    return mails;
+                }, PENDING, limit);
+                if (mails.isEmpty()) {
+                    return mails;
+                }
+                // We push back their next attempt, so nobody else takes them while we send them
+                StringBuilder lease = new StringBuilder("UPDATE mail_outbox SET nextAttemptAt = TIMESTAMPADD(SECOND, ?, NOW()) WHERE idMail IN (");
+                List<Object> params = new ArrayList<>();
+                params.add(leaseSeconds);
+                for (OutgoingMail mail : mails) {
+                    lease.append(params.size() == 1 ? "?" : ",?");
+                    params.add(mail.getIdMail());
+                }
+                lease.append(")");
+                TEMPLATE.update(lease.toString(), params.toArray());
+                return mails;
+            });
+        }
+    }
+
+    /**
+     * Record that a mail was sent
+     * @param mail the mail sent
+     * @throws Exception if an error occurs
+     */
+    public void markSent(OutgoingMail mail) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.markSent")) {
+            String request = "UPDATE mail_outbox SET state = ?, sentAt = NOW() WHERE idMail = ?";
+            // We execute the query
+            TEMPLATE.update(request, SENT, mail.getIdMail());
+        }
+    }
+
+    /**
+     * Record that a mail could not be sent
+     * @param mail the mail not sent
+     * @param error why it could not be sent
+     * @param retryDelaySeconds when to try again (in s)
+     * @param giveUp true if we won't try to send it again
+     * @throws Exception if an error occurs
+     */
+    public void markFailed(OutgoingMail mail, String error, long retryDelaySeconds, boolean giveUp) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.markFailed")) {
+            String request = "UPDATE mail_outbox SET attempts = attempts + 1, lastError = ?, state = ?, " +
+                    "nextAttemptAt = TIMESTAMPADD(SECOND, ?, NOW()) WHERE idMail = ?";
+            if (error != null && error.length() > MAX_ERROR_LENGTH) {
+                error = error.substring(0, MAX_ERROR_LENGTH);
+            }
+            // We execute the query
+            TEMPLATE.update(request, error, giveUp ? FAILED : PENDING, retryDelaySeconds, mail.getIdMail());
+        }
+    }
+
+    /**
+     * Cancel a mail not sent yet
+     * @param idMail the id of the mail
+     * @return false if the mail was sent, or might be being sent
+     * @throws Exception if an error occurs
+     */
+    public boolean cancel(int idMail) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.cancel")) {
+            String lock = "SELECT state, nextAttemptAt <= NOW() FROM mail_outbox WHERE idMail = ? FOR UPDATE";
+            String request = "UPDATE mail_outbox SET state = ?, lastError = ? WHERE idMail = ?";
+            return TEMPLATE.inTransaction(() -> {
+                // We lock the mail, so no worker takes it meanwhile
+                int[] mail = TEMPLATE.query(lock, resultSet ->
+                        resultSet.next() ? new int[]{resultSet.getInt(1), resultSet.getInt(2)} : null, idMail);
+                if (mail == null || mail[0] == FAILED) {
+                    return true;
+                }
+                // A mail not due yet may be in the hands of a worker, it might be sent
+                if (mail[0] == SENT || mail[1] == 0) {
+                    return false;
+                }
+                TEMPLATE.update(request, FAILED, "Cancelled", idMail);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Count the mails waiting to be sent
+     * @return the number of mails in the outbox
+     * @throws Exception if an error occurs
+     */
+    public int countPending() throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLMailOutboxDAO.countPending")) {
+            String request = "SELECT COUNT(*) FROM mail_outbox WHERE state = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }, PENDING);
+        }
+    }
+}
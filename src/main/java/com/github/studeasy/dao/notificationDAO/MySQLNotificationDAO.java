@@ -1,14 +1,12 @@
 package com.github.studeasy.dao.notificationDAO;
 
+import com.github.studeasy.dao.db.QueryTemplate;
 import com.github.studeasy.dao.exceptions.BadCredentialsException;
-import com.github.studeasy.dao.userDAO.UserDAO;
 import com.github.studeasy.logic.common.Notification;
 import com.github.studeasy.logic.common.User;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,19 +15,30 @@ import java.util.List;
  * The notification DAO using a MySQL database
  * Contains all the methods accessing user related data
  */
+@SuppressWarnings("try")
 public class MySQLNotificationDAO extends NotificationDAO{
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * The maximum number of notifications inserted by one INSERT
+     */
+    private static final int NOTIFICATIONS_PER_INSERT = 500;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLNotificationDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -40,21 +49,75 @@ public class MySQLNotificationDAO extends NotificationDAO{
      */
     @Override
     public int getNbNotif(Object user) throws Exception {
-        int nb = 0;
-
-        PreparedStatement preparedStatement;
-        // Will contain the result of the query
-        ResultSet resultSet;
-        String request = "SELECT * FROM notification WHERE ownerNotification = ? AND readNotification = 0";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, ((User)user).getIdUser());
-        // We execute the query
-        resultSet = preparedStatement.executeQuery();
-        // We check if the query retrieved a user
-        while(resultSet.next()) {
-            nb = nb+1;
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.getNbNotif")) {
+            // The database counts the rows, only one value is sent back
+            String request = "SELECT COUNT(*) FROM notification WHERE ownerNotification = ? AND readNotification = 0";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> resultSet.next() ? resultSet.getInt(1) : 0,
+                    ((User)user).getIdUser());
+        }
+    }
+
+    /**
+     * Get the id of the most recent notification of one user
+     *
+     * @param user User
+     * @return the id of the last notification, 0 if the user has none
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public int getLastNotificationId(Object user) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.getLastNotificationId")) {
+            String request = "SELECT MAX(idNotification) FROM notification WHERE ownerNotification = ?";
+            // We execute the query
+            // MAX gives NULL, read as 0, when the user has no notification
+            return TEMPLATE.query(request, resultSet -> resultSet.next() ? resultSet.getInt(1) : 0,
+                    ((User)user).getIdUser());
+        }
+    }
+
+    /**
+     * Get the id of the most recent notification of one user and the number of unread ones
+     * They come from the same query, so a notification arriving meanwhile is either in both or in none
+     *
+     * @param user User
+     * @return the id of the last notification (0 if the user has none), then the number of unread notifications
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public int[] getNotificationState(Object user) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.getNotificationState")) {
+            int idUser = ((User)user).getIdUser();
+            String request = "SELECT MAX(idNotification), SUM(CASE WHEN readNotification = 0 THEN 1 ELSE 0 END) " +
+                    "FROM notification WHERE ownerNotification = ?";
+            // We execute the query
+            // MAX and SUM give NULL, read as 0, when the user has no notification
+            return TEMPLATE.query(request, resultSet -> resultSet.next()
+                    ? new int[]{resultSet.getInt(1), resultSet.getInt(2)} : new int[]{0, 0}, idUser);
+        }
+    }
+
+    /**
+     * Get the ids of the unread notifications of one user received after a given one
+     *
+     * @param user User
+     * @param lastId id of the last notification already known
+     * @return the ids of the new unread notifications, in ascending order
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public ArrayList<Integer> getNewNotificationIds(Object user, int lastId) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.getNewNotificationIds")) {
+            String request = "SELECT idNotification FROM notification WHERE ownerNotification = ? AND readNotification = 0 AND idNotification > ? ORDER BY idNotification";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                ArrayList<Integer> ids = new ArrayList<>();
+                while(resultSet.next()) {
+                    ids.add(resultSet.getInt(1));
+                }
+                return ids;
+            }, ((User)user).getIdUser(), lastId);
         }
-        return nb;
     }
 
     /**
@@ -65,22 +128,22 @@ public class MySQLNotificationDAO extends NotificationDAO{
      */
     @Override
     public ArrayList<Notification> getNotification(Object currentUser) throws Exception{
-        UserDAO uDAO = UserDAO.getInstance();
-        List<Notification> notifications = new ArrayList<>();
-        PreparedStatement preparedStatement;
-        // Will contain the result of the query
-        ResultSet resultSet;
-        String request = "SELECT * FROM notification WHERE ownerNotification = ? ORDER BY idNotification desc";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, ((User)currentUser).getIdUser());
-        // We execute the query
-        resultSet = preparedStatement.executeQuery();
-        // We check if the query retrieved a user
-        while(resultSet.next()) {
-            notifications.add(new Notification(resultSet.getInt(1),resultSet.getString(3), resultSet.getString(4), resultSet.getBoolean(5), uDAO.searchUserById(resultSet.getInt(2)) ));
-        }
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.getNotification")) {
+            User owner = (User)currentUser;
+            List<Notification> notifications = new ArrayList<>();
+            String request = "SELECT idNotification, titleNotification, descriptionNotification, readNotification " +
+                    "FROM notification WHERE ownerNotification = ? ORDER BY idNotification desc";
+            // We execute the query
+            TEMPLATE.query(request, resultSet -> {
+                // We retrieve the notifications, all of them belong to the user
+                while(resultSet.next()) {
+                    notifications.add(new Notification(resultSet.getInt(1),resultSet.getString(2), resultSet.getString(3), resultSet.getBoolean(4), owner));
+                }
+                return notifications;
+            }, owner.getIdUser());
 
-        return (ArrayList<Notification>) notifications;
+            return (ArrayList<Notification>) notifications;
+        }
     }
 
     /**
@@ -90,11 +153,10 @@ public class MySQLNotificationDAO extends NotificationDAO{
      */
     @Override
     public void deleteNotification(int idNotif) throws Exception {
-        PreparedStatement preparedStatement;
-        String request = "DELETE FROM notification WHERE idNotification = ? ";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, idNotif);
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.deleteNotification")) {
+            String request = "DELETE FROM notification WHERE idNotification = ? ";
+            TEMPLATE.update(request, idNotif);
+        }
     }
 
     /**
@@ -105,11 +167,10 @@ public class MySQLNotificationDAO extends NotificationDAO{
      */
     @Override
     public void markAsRead(int idNotif) throws Exception {
-        PreparedStatement preparedStatement;
-        String request = "UPDATE notification SET readNotification=1 WHERE idNotification = ? ";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, idNotif);
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.markAsRead")) {
+            String request = "UPDATE notification SET readNotification=1 WHERE idNotification = ? ";
+            TEMPLATE.update(request, idNotif);
+        }
     }
 
     /**
@@ -122,13 +183,39 @@ public class MySQLNotificationDAO extends NotificationDAO{
      */
     @Override
     public void createNotification(int idOwner, String title, String description) throws Exception {
-        PreparedStatement preparedStatement;
-        String request = "INSERT INTO notification(ownerNotification,titleNotification,descriptionNotification) VALUES(?,?,?)";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1,idOwner);
-        preparedStatement.setString(2,title);
-        preparedStatement.setString(3,description);
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.createNotification")) {
+            String request = "INSERT INTO notification(ownerNotification,titleNotification,descriptionNotification) VALUES(?,?,?)";
+            TEMPLATE.update(request, idOwner, title, description);
+        }
+    }
 
+    /**
+     * Create many notifications at once
+     * The rows are sent in a single INSERT with many VALUES, a chunk at a time
+     *
+     * @param notifications the notifications to create, with their owner, title and description
+     * @throws Exception if an error occurs
+     */
+    @Override
+    public void createNotifications(List<Notification> notifications) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLNotificationDAO.createNotifications")) {
+            for (int start = 0; start < notifications.size(); start += NOTIFICATIONS_PER_INSERT) {
+                List<Notification> chunk = notifications.subList(start,
+                        Math.min(start + NOTIFICATIONS_PER_INSERT, notifications.size()));
+                // We prepare the SQL request with a (?,?,?) for each notification
+                StringBuilder request = new StringBuilder(
+                        "INSERT INTO notification(ownerNotification,titleNotification,descriptionNotification) VALUES");
+                Object[] params = new Object[chunk.size() * 3];
+                for (int i = 0; i < chunk.size(); i++) {
+                    Notification notification = chunk.get(i);
+                    request.append(i == 0 ? "(?,?,?)" : ",(?,?,?)");
+                    params[3 * i] = notification.getUser().getIdUser();
+                    params[3 * i + 1] = notification.getTitle();
+                    params[3 * i + 2] = notification.getDescription();
+                }
+                // We execute the query
+                TEMPLATE.update(request.toString(), params);
+            }
+        }
     }
 }
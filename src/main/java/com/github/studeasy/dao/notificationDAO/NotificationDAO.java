@@ -7,6 +7,7 @@ import com.github.studeasy.logic.factory.Factory;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Interface for the Notification DAO
@@ -40,6 +41,32 @@ public abstract class NotificationDAO {
      */
     public abstract int getNbNotif(Object user) throws Exception;
 
+    /**
+     * Get the id of the most recent notification of one user
+     * @param user User
+     * @return the id of the last notification, 0 if the user has none
+     * @throws Exception if an error occurs
+     */
+    public abstract int getLastNotificationId(Object user) throws Exception;
+
+    /**
+     * Get the id of the most recent notification of one user and the number of unread ones,
+     * read together from the database, never from a cache
+     * @param user User
+     * @return the id of the last notification (0 if the user has none), then the number of unread notifications
+     * @throws Exception if an error occurs
+     */
+    public abstract int[] getNotificationState(Object user) throws Exception;
+
+    /**
+     * Get the ids of the unread notifications of one user received after a given one
+     * @param user User
+     * @param lastId id of the last notification already known
+     * @return the ids of the new unread notifications, in ascending order
+     * @throws Exception if an error occurs
+     */
+    public abstract ArrayList<Integer> getNewNotificationIds(Object user, int lastId) throws Exception;
+
 
     /**
      * All notifications for on user
@@ -70,4 +97,11 @@ public abstract class NotificationDAO {
      * @throws Exception if an error occurs
      */
     public abstract void createNotification(int idOwner, String title, String description) throws Exception;
+
+    /**
+     * Create many notifications at once, for example when an administrator validates many services
+     * @param notifications the notifications to create, with their owner, title and description
+     * @throws Exception if an error occurs
+     */
+    public abstract void createNotifications(List<Notification> notifications) throws Exception;
 }
@@ -0,0 +1,204 @@
+package com.github.studeasy.dao.pointTransactionDAO;
+
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.dao.db.TransactionCallback;
+import com.github.studeasy.dao.exceptions.BadCredentialsException;
+import com.github.studeasy.dao.exceptions.InsufficientPointsException;
+import com.github.studeasy.logic.common.PointBalance;
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The Point Transaction DAO using a MySQL database
+ * The points of a user are kept in the user table, every move is also
+ * appended to the point_transaction table, in the same transaction
+ */
+@SuppressWarnings("try")
+public class MySQLPointTransactionDAO extends PointTransactionDAO {
+
+    /**
+     * Error code of MySQL when a unique key already exists
+     */
+    private static final int DUPLICATE_KEY = 1062;
+
+    /**
+     * The template running the queries on the database
+     */
+    private final QueryTemplate TEMPLATE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
+     */
+    public MySQLPointTransactionDAO() {
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
+    }
+
+    /**
+     * Run some work in a single transaction, the points moved and the changes
+     * made by the other DAOs during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception {
+        return TEMPLATE.inTransaction(work);
+    }
+
+    /**
+     * Move points from a user to another one
+     * The same transfer is only applied once, a retry with the same key does nothing
+     * @param key identifies the transfer, for example the command and what happened to it
+     * @param from the user paying, null if the points are created (a refund, a reward)
+     * @param to the user paid, null if the points are spent
+     * @param amount the number of points moved
+     * @param reason why the points are moved
+     * @return true if the transfer was applied, false if it was already applied
+     * @throws Exception if the user paying doesn't have enough points, or if an error occurs
+     */
+    public boolean transfer(String key, User from, User to, int amount, String reason) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLPointTransactionDAO.transfer")) {
+            if (amount < 0) {
+                throw new IllegalArgumentException("The amount of points moved can't be negative");
+            }
+            // Nothing to move
+            if (amount == 0 || (from == null && to == null)) {
+                return true;
+            }
+            // Each user involved gets a line in the ledger, the one paying has a negative amount
+            List<int[]> moves = new ArrayList<>();
+            if (from != null) {
+                moves.add(new int[]{from.getIdUser(), -amount});
+            }
+            if (to != null) {
+                moves.add(new int[]{to.getIdUser(), amount});
+            }
+            // We always lock the users in the same order, so two transfers between
+            // the same users can't wait for each other
+            moves.sort(Comparator.comparingInt(move -> move[0]));
+            return TEMPLATE.inTransaction(() -> {
+                // The users are locked before the ledger is written: its foreign key would take a
+                // shared lock on them, and two transfers upgrading it to update the points deadlock
+                this.lock(moves);
+                // We record the transfer first, a retry of a transfer already saved stops here
+                if (!this.record(key, reason, moves)) {
+                    return false;
+                }
+                for (int[] move : moves) {
+                    this.move(move[0], move[1]);
+                }
+                return true;
+            });
+        }
+    }
+
+    public PointBalance balance(User user) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLPointTransactionDAO.balance")) {
+            String request = "SELECT u.points, (SELECT MAX(t.idTransaction) FROM point_transaction t WHERE t.fkUser = u.idUser) AS version " +
+                    "FROM user u WHERE u.idUser = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                if (!resultSet.next()) {
+                    throw new BadCredentialsException("No user found");
+                }
+                // A user without any line in the ledger has the version 0
+                return new PointBalance(resultSet.getInt("points"), resultSet.getInt("version"));
+            }, user.getIdUser());
+        }
+    }
+
+    public int lastTransaction(User user) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLPointTransactionDAO.lastTransaction")) {
+            // Only the index (fkUser, idTransaction) is read
+            String request = "SELECT MAX(idTransaction) AS version FROM point_transaction WHERE fkUser = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> resultSet.next() ? resultSet.getInt("version") : 0, user.getIdUser());
+        }
+    }
+
+    /**
+     * Lock the rows of the users of a transfer until the end of the transaction, in the order of their ids
+     * @param moves the users involved, sorted by id
+     * @throws SQLException if an error occurs
+     */
+    private void lock(List<int[]> moves) throws SQLException {
+        StringBuilder request = new StringBuilder("SELECT idUser FROM user WHERE idUser IN (");
+        List<Object> params = new ArrayList<>();
+        for (int[] move : moves) {
+            request.append(params.isEmpty() ? "?" : ", ?");
+            params.add(move[0]);
+        }
+        request.append(") ORDER BY idUser FOR UPDATE");
+        // We execute the query, the rows read are not needed
+        TEMPLATE.query(request.toString(), resultSet -> null, params.toArray());
+    }
+
+    /**
+     * Append the lines of a transfer to the ledger, in a single statement
+     * @param key identifies the transfer
+     * @param reason why the points are moved
+     * @param moves the users involved and the points they receive
+     * @return true if the lines were added, false if the transfer is already in the ledger
+     * @throws SQLException if an error occurs
+     */
+    private boolean record(String key, String reason, List<int[]> moves) throws SQLException {
+        StringBuilder request = new StringBuilder("INSERT INTO point_transaction (transferKey, fkUser, amount, reason) VALUES ");
+        List<Object> params = new ArrayList<>();
+        for (int[] move : moves) {
+            if (!params.isEmpty()) {
+                request.append(", ");
+            }
+            request.append("(?,?,?,?)");
+            params.add(key);
+            params.add(move[0]);
+            params.add(move[1]);
+            params.add(reason);
+        }
+        try {
+            // We execute the query
+            TEMPLATE.update(request.toString(), params.toArray());
+            return true;
+        }
+        catch (SQLException err) {
+            // The transfer was already applied
+            if (err.getErrorCode() == DUPLICATE_KEY) {
+                return false;
+            }
+            throw err;
+        }
+    }
+
+    /**
+     * Update the points of a user
+     * The points are only removed if the user has enough of them
+     * @param idUser the user
+     * @param points the points added, negative if they are removed
+     * @throws InsufficientPointsException if the user doesn't have enough points
+     * @throws SQLException if an error occurs
+     */
+    private void move(int idUser, int points) throws InsufficientPointsException, SQLException {
+        if (points >= 0) {
+            String request = "UPDATE user SET points = points + ? WHERE idUser = ?";
+            TEMPLATE.update(request, points, idUser);
+        }
+        else {
+            // The row of the user stays locked until the end of the transaction
+            String request = "UPDATE user SET points = points - ? WHERE idUser = ? AND points >= ?";
+            if (TEMPLATE.update(request, -points, idUser, -points) == 0) {
+                throw new InsufficientPointsException("Not enough points");
+            }
+        }
+    }
+}
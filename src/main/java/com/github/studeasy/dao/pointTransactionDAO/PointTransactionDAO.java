@@ -0,0 +1,73 @@
+package com.github.studeasy.dao.pointTransactionDAO;
+
+import com.github.studeasy.dao.db.TransactionCallback;
+import com.github.studeasy.logic.common.PointBalance;
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.factory.Factory;
+
+/**
+ * Abstract class for the Point Transaction DAO
+ * Contains the methods needed to move points between users
+ * Every move is recorded in the ledger, which is never modified afterwards
+ */
+public abstract class PointTransactionDAO {
+
+    /**
+     * The singleton of the PointTransactionDAO
+     */
+    private static PointTransactionDAO pointTransactionDAO = null;
+
+    /**
+     * Static method which returns the instance of the PointTransactionDAO,
+     * or ask the factory to create one
+     * @return the instance of MySQLPointTransactionDAO
+     */
+    public static PointTransactionDAO getInstance(){
+        if (pointTransactionDAO == null){
+            Factory factory = Factory.getInstance();
+            pointTransactionDAO = factory.createPointTransactionDAO();
+        }
+        return pointTransactionDAO;
+    }
+
+    /**
+     * Run some work in a single transaction, the points moved and the changes
+     * made by the other DAOs during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public abstract <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception;
+
+    /**
+     * Move points from a user to another one
+     * The same transfer is only applied once, a retry with the same key does nothing
+     * @param key identifies the transfer, for example the command and what happened to it
+     * @param from the user paying, null if the points are created (a refund, a reward)
+     * @param to the user paid, null if the points are spent
+     * @param amount the number of points moved
+     * @param reason why the points are moved
+     * @return true if the transfer was applied, false if it was already applied
+     * @throws Exception if the user paying doesn't have enough points, or if an error occurs
+     */
+    public abstract boolean transfer(String key, User from, User to, int amount, String reason) throws Exception;
+
+    /**
+     * Read the points of a user and the last line of its ledger, together
+     * In a transaction, the points read include the moves made by the transaction
+     * @param user the user
+     * @return the points of the user and their version
+     * @throws Exception if the user doesn't exist, or if an error occurs
+     */
+    public abstract PointBalance balance(User user) throws Exception;
+
+    /**
+     * Read the last line of the ledger of a user, only from the index of the ledger
+     * The points of the user changed if it is not the version known
+     * @param user the user
+     * @return the id of the last line of the user, 0 if there is none
+     * @throws Exception if an error occurs
+     */
+    public abstract int lastTransaction(User user) throws Exception;
+}
@@ -1,48 +1,81 @@
 package com.github.studeasy.dao.serviceDAO;
 
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.db.QueryTemplate;
+import com.github.studeasy.dao.db.TransactionCallback;
+import com.github.studeasy.dao.userDAO.UserCache;
 import com.github.studeasy.logic.common.CategoryTag;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServicePage;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
 import com.github.studeasy.logic.common.User;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.*;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The Service DAO using a MySQL database
  * Contains all the methods accessing service related data
  */
+@SuppressWarnings("try")
 public class MySQLServiceDAO extends ServiceDAO {
 
     /**
-     * The connection to the database
+     * The template running the queries on the database
      */
-    private final Connection DB;
+    private final QueryTemplate TEMPLATE;
 
     /**
-     * Instantiate the connection db
+     * The DAO giving the categories of the services, from memory
+     */
+    private final CategoryDAO CATEGORIES;
+
+    /**
+     * Builds the services from the rows
+     */
+    private final ServiceRowMapper SERVICES;
+
+    /**
+     * The users owning the services, kept for a while
+     */
+    private final UserCache USERS;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLServiceDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.CATEGORIES = CategoryDAO.getInstance();
+        this.SERVICES = new ServiceRowMapper(CATEGORIES);
+        this.USERS = UserCache.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
      * Set to default the category of the service
      */
     public void setDefaultCategory(){
-        // We prepare the SQL request to update the category
-        PreparedStatement preparedStatement;
-        String request = "UPDATE service SET fkCategory = 1 WHERE fkCategory IS NULL";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.setDefaultCategory")) {
+            // We prepare the SQL request to update the category
+            String request = "UPDATE service SET fkCategory = 1 WHERE fkCategory IS NULL";
+            try {
+                // We execute the query
+                TEMPLATE.update(request);
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -52,38 +85,34 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @return the services of the user
      */
     public ArrayList<Service> getMyServices(User currentUser){
-        ArrayList<Service> servicesList = new ArrayList<>();
-        try {
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.getMyServices")) {
+            ArrayList<Service> servicesList = new ArrayList<>();
             // We prepare the SQL request to retrieve the services of the user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM service, categorytag " +
+            String request = "SELECT " + ServiceRowMapper.COLUMNS + " FROM service " +
                              "WHERE ownerService = ? " +
-                             "AND fkCategory = categorytag.idCategory " +
                              "ORDER BY dateCreationService DESC";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, currentUser.getIdUser());
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all the existing services
-            while (resultSet.next()) {
-                // We need to retrieve the category linked to the service
-                CategoryTag categoryS = new CategoryTag(resultSet.getInt(2),resultSet.getString(11),resultSet.getString(12));
-                // We create the service
-                Date dateCreation = resultSet.getTimestamp(6);
-                Service service = new Service(resultSet.getInt(1),resultSet.getString(3),
-                        resultSet.getString(4),resultSet.getInt(5),resultSet.getInt(7),
-                        currentUser,categoryS,resultSet.getInt(8),dateCreation);
-                // And put it with the others
-                servicesList.add(service);
+            try {
+                // We execute the query
+                TEMPLATE.query(request, resultSet -> {
+                    // We retrieve all the existing services
+                    while (resultSet.next()) {
+                        // We create the service, skipped if its category was deleted meanwhile
+                        Service service = SERVICES.map(resultSet);
+                        if (service != null) {
+                            service.setOwner(currentUser);
+                            // And put it with the others
+                            servicesList.add(service);
+                        }
+                    }
+                    return servicesList;
+                }, currentUser.getIdUser());
             }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return servicesList;
         }
-        // Error with the database
-        catch(SQLException err){
-            err.printStackTrace();
-        }
-        return servicesList;
     }
 
     /**
@@ -91,12 +120,45 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @return the pending services
      */
     public ArrayList<Service> getPendingServices() {
-        String request = "SELECT * FROM service, categorytag, user " +
-                    "WHERE stateService = 0 " +
-                    "AND fkCategory = categorytag.idCategory " +
-                    "AND ownerService = user.idUser " +
-                    "ORDER BY dateCreationService ASC";
-        return getServices(request);
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.getPendingServices")) {
+            ArrayList<Service> servicesList = new ArrayList<>();
+            try {
+                this.streamPendingServices(servicesList::addAll);
+            }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return servicesList;
+        }
+    }
+
+    /**
+     * Read all the pending services a chunk at a time, so their number doesn't matter
+     * The owners of each chunk are resolved at once
+     * @param chunks receives the services, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public void streamPendingServices(Consumer<List<Service>> chunks) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.streamPendingServices")) {
+            String request = "SELECT " + ServiceRowMapper.COLUMNS + " FROM service, user " +
+                        "WHERE stateService = 0 " +
+                        "AND ownerService = user.idUser " +
+                        "ORDER BY dateCreationService ASC";
+            // The ids of the owners, in the order of the services of the chunk
+            List<Integer> ownerIds = new ArrayList<>();
+            TEMPLATE.stream(request, resultSet -> {
+                Service service = SERVICES.map(resultSet);
+                if (service != null) {
+                    ownerIds.add(ServiceRowMapper.ownerId(resultSet));
+                }
+                return service;
+            }, services -> {
+                USERS.attach(services, ownerIds, Service::setOwner);
+                ownerIds.clear();
+                chunks.accept(services);
+            });
+        }
     }
 
     /**
@@ -104,51 +166,90 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @return the services
      */
     public ArrayList<Service> getOnlineServices(){
-        String request = "SELECT * FROM service, categorytag, user " +
-                "WHERE stateService = 1 " +
-                "AND fkCategory = categorytag.idCategory " +
-                "AND ownerService = user.idUser " +
-                "ORDER BY dateCreationService DESC";
-        return this.getServices(request);
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.getOnlineServices")) {
+            String request = "SELECT " + ServiceRowMapper.COLUMNS + " FROM service, user " +
+                    "WHERE stateService = 1 " +
+                    "AND ownerService = user.idUser " +
+                    "ORDER BY dateCreationService DESC";
+            return this.getServices(request);
+        }
+    }
+
+    /**
+     * Search a page of the online services matching the criteria
+     * The page starts right after the last service of the previous page (keyset pagination)
+     * @param criteria what the user is looking for, and the order of the services
+     * @param after the last service of the previous page, null for the first page
+     * @param pageSize the maximum number of rows to read
+     * @return the services of the page, with the number of rows read and the last one
+     */
+    public ServicePage searchServices(ServiceSearchCriteria criteria, Service after, int pageSize){
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.searchServices")) {
+            // We build the request with the criteria given only
+            String categoryName = criteria.getCategoryName();
+            List<Integer> categoryIds = null;
+            if (categoryName != null && !categoryName.isBlank()) {
+                // The categories matching are found in memory, no need to join them
+                categoryIds = CATEGORIES.searchCategoryIds(categoryName.trim());
+            }
+            ServiceSearchQuery query = new ServiceSearchQuery(criteria, categoryIds, after, pageSize);
+            return this.getPage(query.getSql(), query.getParams());
+        }
     }
 
     /**
      * Function used to get services through a SQL request
      * @param request the SQL request
+     * @param params the parameters of the request, in order
      * @return a list of services
      */
-    private ArrayList<Service> getServices(String request){
-        ArrayList<Service> servicesList = new ArrayList<>();
+    private ArrayList<Service> getServices(String request, Object... params){
+        return this.getPage(request, params).getServices();
+    }
+
+    /**
+     * Function used to get a page of services through a SQL request
+     * The rows whose category or owner was deleted meanwhile give no service, they are still counted
+     * @param request the SQL request
+     * @param params the parameters of the request, in order
+     * @return the services, with the number of rows read and the last one
+     */
+    private ServicePage getPage(String request, Object... params){
+        // The ids of the owners, in the order of the services
+        List<Integer> ownerIds = new ArrayList<>();
         try {
-            // We prepare the SQL request to retrieve the pending services
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            preparedStatement = DB.prepareStatement(request);
             // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all the existing services
-            while (resultSet.next()) {
-                // We need to retrieve the category linked to the service
-                CategoryTag categoryS = new CategoryTag(resultSet.getInt(2),resultSet.getString(11),resultSet.getString(12));
-                // We also need the user
-                User owner = new User(resultSet.getInt(9),resultSet.getString(15),resultSet.getString(14),
-                        resultSet.getString(18),resultSet.getString(17),resultSet.getInt(16),resultSet.getString(20),
-                        resultSet.getString(19),resultSet.getInt(21),resultSet.getString(22));
-                // We create the service
-                Date dateCreation = resultSet.getTimestamp(6);
-                Service service = new Service(resultSet.getInt(1),resultSet.getString(3),
-                        resultSet.getString(4),resultSet.getInt(5),resultSet.getInt(7),
-                        owner,categoryS,resultSet.getInt(8),dateCreation);
-                // And put it with the others
-                servicesList.add(service);
-            }
+            ServicePage page = TEMPLATE.query(request, resultSet -> {
+                ArrayList<Service> servicesList = new ArrayList<>();
+                int rows = 0;
+                Service lastRow = null;
+                // We retrieve all the existing services
+                while (resultSet.next()) {
+                    rows++;
+                    // We create the service, its owner is resolved once all the services are read
+                    Service service = SERVICES.map(resultSet);
+                    if (service != null) {
+                        // And put it with the others
+                        servicesList.add(service);
+                        ownerIds.add(ServiceRowMapper.ownerId(resultSet));
+                        lastRow = service;
+                    }
+                    else {
+                        // The next page still starts after this row
+                        lastRow = ServiceRowMapper.key(resultSet);
+                    }
+                }
+                return new ServicePage(servicesList, rows, lastRow);
+            }, params);
+            // We retrieve the owners, each one once whatever the number of its services
+            USERS.attach(page.getServices(), ownerIds, Service::setOwner);
+            return page;
         }
         // Error with the database
         catch(SQLException err){
             err.printStackTrace();
         }
-        return servicesList;
+        return new ServicePage(new ArrayList<>(), 0, null);
     }
 
     /**
@@ -156,19 +257,17 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @param service the service to delete
      */
     public void deleteService(Service service){
-        // We prepare the SQL request to delete a service
-        PreparedStatement preparedStatement;
-        String request = "UPDATE service SET stateService = ? WHERE idService = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, -1);
-            preparedStatement.setInt(2, service.getIdService());
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.deleteService")) {
+            // We prepare the SQL request to delete a service
+            String request = "UPDATE service SET stateService = ? WHERE idService = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, -1, service.getIdService());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -178,19 +277,17 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @param service the service to update
      */
     public void updateCategoryService(CategoryTag categoryS, Service service){
-        // We prepare the SQL request to update the service
-        PreparedStatement preparedStatement;
-        String request = "UPDATE service SET fkCategory = ? WHERE idService = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, categoryS.getIdCat());
-            preparedStatement.setInt(2, service.getIdService());
-            // We execute the query
-            preparedStatement.executeUpdate();
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.updateCategoryService")) {
+            // We prepare the SQL request to update the service
+            String request = "UPDATE service SET fkCategory = ? WHERE idService = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, categoryS.getIdCat(), service.getIdService());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 
@@ -199,21 +296,60 @@ public class MySQLServiceDAO extends ServiceDAO {
      * @param service the service to validate
      */
     public void validateService(Service service){
-        // We prepare the SQL request to validate a service
-        PreparedStatement preparedStatement;
-        String request = "UPDATE service SET stateService = 1 WHERE idService = ?";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, service.getIdService());
-            // We execute the query
-            preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.validateService")) {
+            // We prepare the SQL request to validate a service
+            String request = "UPDATE service SET stateService = 1 WHERE idService = ?";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, service.getIdService());
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+    }
+
+    /**
+     * Validate or reject pending services at once
+     * The updates are sent to the database as one batch, the services already reviewed are left as they are
+     * @param services the services to review
+     * @param validate true to validate the services, false to reject them
+     * @return the services which were pending and have been reviewed
+     * @throws SQLException if an error occurs, the caller's transaction must be rolled back
+     */
+    public List<Service> reviewServices(List<Service> services, boolean validate) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.reviewServices")) {
+            // Only a pending service can be reviewed
+            String request = "UPDATE service SET stateService = ? WHERE idService = ? AND stateService = 0";
+            List<Object[]> rows = new ArrayList<>(services.size());
+            for (Service service : services) {
+                rows.add(new Object[]{validate ? 1 : -1, service.getIdService()});
+            }
+            // We execute the batch, it tells which services were still pending
+            int[] modified = TEMPLATE.batchUpdate(request, rows);
+            List<Service> reviewed = new ArrayList<>();
+            for (int i = 0; i < modified.length; i++) {
+                if (modified[i] > 0 || modified[i] == Statement.SUCCESS_NO_INFO) {
+                    reviewed.add(services.get(i));
+                }
+            }
+            return reviewed;
         }
     }
 
+    /**
+     * Run some work in a single transaction, the changes made by the DAOs
+     * during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception {
+        return TEMPLATE.inTransaction(work);
+    }
+
     /**
      * Create a service with those information
      * @param titleS the title of the new service
@@ -225,25 +361,19 @@ public class MySQLServiceDAO extends ServiceDAO {
      */
     public void submitService(String titleS, String descriptionS, CategoryTag category,
                                        int cost, int typeS, User user){
-        // We prepare the SQL request to insert a service
-        PreparedStatement preparedStatement;
-        String request = "INSERT INTO service (titleService,descriptionService," +
-                "costService,typeService,fkCategory, ownerService) VALUES  (?,?,?,?,?,?)";
-        try {
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, titleS);
-            preparedStatement.setString(2, descriptionS);
-            preparedStatement.setInt(3, cost);
-            preparedStatement.setInt(4,typeS);
-            preparedStatement.setInt(5, category.getIdCat());
-            preparedStatement.setInt(6, user.getIdUser());
-            // We execute the query
-            preparedStatement.executeUpdate();
-            // The service is automatically in a pending state
-        }
-        // Error with the database
-        catch (SQLException err) {
-            err.printStackTrace();
+        try (TimedCall call = METRICS.time("dao.MySQLServiceDAO.submitService")) {
+            // We prepare the SQL request to insert a service
+            String request = "INSERT INTO service (titleService,descriptionService," +
+                    "costService,typeService,fkCategory, ownerService) VALUES  (?,?,?,?,?,?)";
+            try {
+                // We execute the query
+                TEMPLATE.update(request, titleS, descriptionS, cost, typeS, category.getIdCat(), user.getIdUser());
+                // The service is automatically in a pending state
+            }
+            // Error with the database
+            catch (SQLException err) {
+                err.printStackTrace();
+            }
         }
     }
 }
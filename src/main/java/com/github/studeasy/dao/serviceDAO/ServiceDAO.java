@@ -1,11 +1,17 @@
 package com.github.studeasy.dao.serviceDAO;
 
+import com.github.studeasy.dao.db.TransactionCallback;
 import com.github.studeasy.logic.common.CategoryTag;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServicePage;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.factory.Factory;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Abstract class for the Service DAO
@@ -44,12 +50,29 @@ public abstract class ServiceDAO {
      */
     public abstract ArrayList<Service> getPendingServices();
 
+    /**
+     * Read all the pending services a chunk at a time, so their number doesn't matter
+     * @param chunks receives the services, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public abstract void streamPendingServices(Consumer<List<Service>> chunks) throws SQLException;
+
     /**
      * Retrieve all the services
      * @return the services
      */
     public abstract ArrayList<Service> getOnlineServices();
 
+    /**
+     * Search a page of the online services matching the criteria
+     * The page starts right after the last service of the previous page (keyset pagination)
+     * @param criteria what the user is looking for, and the order of the services
+     * @param after the last service of the previous page, null for the first page
+     * @param pageSize the maximum number of rows to read
+     * @return the services of the page, with the number of rows read and the last one
+     */
+    public abstract ServicePage searchServices(ServiceSearchCriteria criteria, Service after, int pageSize);
+
     /**
      * Set to default the category of the service
      */
@@ -74,6 +97,26 @@ public abstract class ServiceDAO {
      */
     public abstract void validateService(Service service);
 
+    /**
+     * Validate or reject pending services at once
+     * The services which are not pending anymore, reviewed by someone else meanwhile, are left as they are
+     * @param services the services to review
+     * @param validate true to validate the services, false to reject them
+     * @return the services which were pending and have been reviewed
+     * @throws SQLException if an error occurs, the caller's transaction must be rolled back
+     */
+    public abstract List<Service> reviewServices(List<Service> services, boolean validate) throws SQLException;
+
+    /**
+     * Run some work in a single transaction, the changes made by the DAOs
+     * during the work are all saved, or none of them
+     * @param work the work to do
+     * @param <T> the type of object returned by the work
+     * @return the result of the work
+     * @throws Exception if the work fails, nothing is saved
+     */
+    public abstract <T> T inTransaction(TransactionCallback<T, Exception> work) throws Exception;
+
     /**
      * Create a service with those information
      * @param titleS the title of the new service
@@ -0,0 +1,76 @@
+package com.github.studeasy.dao.serviceDAO;
+
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.db.RowMapper;
+import com.github.studeasy.logic.common.CategoryTag;
+import com.github.studeasy.logic.common.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds a service from the columns of the service table
+ * The category is taken from the categories kept in memory, the owner is left
+ * empty: the caller gives it, most often through the UserCache once all the rows are read
+ */
+public class ServiceRowMapper implements RowMapper<Service> {
+
+    /**
+     * The columns of a service
+     */
+    public static final String COLUMNS = "service.idService, service.fkCategory, service.titleService, " +
+            "service.descriptionService, service.costService, service.dateCreationService, " +
+            "service.typeService, service.stateService, service.ownerService";
+
+    /**
+     * The DAO giving the categories of the services
+     */
+    private final CategoryDAO CATEGORIES;
+
+    /**
+     * Create the mapper
+     * @param categories the DAO giving the categories of the services
+     */
+    public ServiceRowMapper(CategoryDAO categories) {
+        this.CATEGORIES = categories;
+    }
+
+    /**
+     * Build the service of the current row, without its owner
+     * @param resultSet the result, positioned on the row to read
+     * @return the service, or null if its category was deleted meanwhile
+     * @throws SQLException if the row can't be read
+     */
+    public Service map(ResultSet resultSet) throws SQLException {
+        CategoryTag category = CATEGORIES.getCategory(resultSet.getInt("fkCategory"));
+        if (category == null) {
+            return null;
+        }
+        return new Service(resultSet.getInt("idService"), resultSet.getString("titleService"),
+                resultSet.getString("descriptionService"), resultSet.getInt("costService"),
+                resultSet.getInt("typeService"), null, category, resultSet.getInt("stateService"),
+                resultSet.getTimestamp("dateCreationService"));
+    }
+
+    /**
+     * Build only the key of the service of the current row, its id, cost and date
+     * Used to continue a search after a row which gave no service
+     * @param resultSet the result, positioned on the row to read
+     * @return the service, with only its key filled
+     * @throws SQLException if the row can't be read
+     */
+    public static Service key(ResultSet resultSet) throws SQLException {
+        return new Service(resultSet.getInt("idService"), null, null, resultSet.getInt("costService"),
+                0, null, null, 0, resultSet.getTimestamp("dateCreationService"));
+    }
+
+    /**
+     * Retrieve the id of the owner of the service of the current row
+     * @param resultSet the result, positioned on the row to read
+     * @return the id of the owner
+     * @throws SQLException if the row can't be read
+     */
+    public static int ownerId(ResultSet resultSet) throws SQLException {
+        return resultSet.getInt("ownerService");
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.studeasy.dao.serviceDAO;
+
+import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the SQL request searching a page of online services
+ * Only the criteria given are added to the request, each value is passed as a parameter
+ * The pages are retrieved with keyset pagination: a page starts right after the
+ * sort key and the id of the last service of the previous page
+ */
+class ServiceSearchQuery {
+
+    /**
+     * The shortest word indexed by the FULLTEXT index (innodb_ft_min_token_size)
+     */
+    static final int MIN_FULLTEXT_WORD = 3;
+
+    /**
+     * The SQL request
+     */
+    private final StringBuilder SQL;
+
+    /**
+     * The parameters of the request, in order
+     */
+    private final List<Object> PARAMS;
+
+    /**
+     * Build the request
+     * The categories are not joined, they are resolved from the categories kept in memory
+     * The users are only joined to skip the services without owner, they are resolved from the users kept
+     * @param criteria what the user is looking for
+     * @param categoryIds the categories whose name matches the criteria, null if the criteria has no category
+     * @param after the last service of the previous page, null for the first page
+     * @param pageSize the maximum number of services to retrieve
+     */
+    ServiceSearchQuery(ServiceSearchCriteria criteria, List<Integer> categoryIds, Service after, int pageSize) {
+        this.SQL = new StringBuilder("SELECT " + ServiceRowMapper.COLUMNS + " FROM service, user " +
+                "WHERE stateService = 1 " +
+                "AND ownerService = user.idUser");
+        this.PARAMS = new ArrayList<>();
+        String title = criteria.getTitle();
+        if (title != null && !title.isBlank()) {
+            String words = fullTextWords(title);
+            if (words != null) {
+                // We use the FULLTEXT index on the title and the description
+                SQL.append(" AND MATCH(titleService, descriptionService) AGAINST (? IN BOOLEAN MODE)");
+                PARAMS.add(words);
+            }
+            else {
+                // The words are too short to be indexed, we look into the titles
+                SQL.append(" AND titleService LIKE ?");
+                PARAMS.add(contains(title.trim()));
+            }
+        }
+        if (categoryIds != null) {
+            if (categoryIds.isEmpty()) {
+                // No category has this name
+                SQL.append(" AND FALSE");
+            }
+            else {
+                SQL.append(" AND fkCategory IN (");
+                for (int i = 0; i < categoryIds.size(); i++) {
+                    SQL.append(i == 0 ? "?" : ", ?");
+                    PARAMS.add(categoryIds.get(i));
+                }
+                SQL.append(")");
+            }
+        }
+        if (criteria.getTypeService() != null) {
+            SQL.append(" AND typeService = ?");
+            PARAMS.add(criteria.getTypeService());
+        }
+        if (criteria.getMinCost() != null) {
+            SQL.append(" AND costService >= ?");
+            PARAMS.add(criteria.getMinCost());
+        }
+        if (criteria.getMaxCost() != null) {
+            SQL.append(" AND costService <= ?");
+            PARAMS.add(criteria.getMaxCost());
+        }
+        ServiceSearchCriteria.Sort sort = criteria.getSort() == null ? ServiceSearchCriteria.Sort.NEWEST : criteria.getSort();
+        String key;
+        boolean descending;
+        switch (sort) {
+            case OLDEST:
+                key = "dateCreationService";
+                descending = false;
+                break;
+            case CHEAPEST:
+                key = "costService";
+                descending = false;
+                break;
+            case MOST_EXPENSIVE:
+                key = "costService";
+                descending = true;
+                break;
+            default:
+                key = "dateCreationService";
+                descending = true;
+        }
+        if (after != null) {
+            Object keyValue = "costService".equals(key) ? (Object) after.getCost() : new Timestamp(after.getDateCreation().getTime());
+            // The id breaks the ties between services with the same sort key
+            String compare = descending ? " < " : " > ";
+            SQL.append(" AND (").append(key).append(compare).append("?")
+                    .append(" OR (").append(key).append(" = ? AND idService").append(compare).append("?))");
+            PARAMS.add(keyValue);
+            PARAMS.add(keyValue);
+            PARAMS.add(after.getIdService());
+        }
+        String direction = descending ? " DESC" : " ASC";
+        SQL.append(" ORDER BY ").append(key).append(direction).append(", idService").append(direction);
+        SQL.append(" LIMIT ?");
+        PARAMS.add(pageSize);
+    }
+
+    /**
+     * Retrieve the SQL request
+     * @return the request, with a ? for each parameter
+     */
+    String getSql() {
+        return SQL.toString();
+    }
+
+    /**
+     * Retrieve the parameters of the request
+     * @return the parameters, in order
+     */
+    Object[] getParams() {
+        return PARAMS.toArray();
+    }
+
+    /**
+     * Turn the text typed by the user into a boolean FULLTEXT search,
+     * every word long enough to be indexed must start a word of the service
+     * @param text the text typed by the user
+     * @return the search, or null if no word can be searched with the index
+     */
+    static String fullTextWords(String text) {
+        StringBuilder words = new StringBuilder();
+        // We only keep letters and digits, the other characters are operators of the search
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= MIN_FULLTEXT_WORD) {
+                if (words.length() > 0) {
+                    words.append(' ');
+                }
+                words.append('+').append(word).append('*');
+            }
+        }
+        return words.length() == 0 ? null : words.toString();
+    }
+
+    /**
+     * Create the LIKE pattern matching a text containing the value
+     * @param value the value searched
+     * @return the pattern, with the wildcards of the value escaped
+     */
+    static String contains(String value) {
+        String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
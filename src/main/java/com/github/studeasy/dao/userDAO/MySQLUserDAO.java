@@ -1,34 +1,46 @@
 package com.github.studeasy.dao.userDAO;
 
+import com.github.studeasy.dao.db.QueryTemplate;
 import com.github.studeasy.dao.exceptions.BadCredentialsException;
 import com.github.studeasy.logic.common.User;
-import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
  * The user DAO using a MySQL database
  * Contains all the methods accessing user related data
  */
+@SuppressWarnings("try")
 public class MySQLUserDAO extends UserDAO{
 
     /**
-     * The connection to the database
+     * The maximum number of ids given at once to an IN
      */
-    private final Connection DB;
+    private static final int IDS_PER_QUERY = 500;
 
     /**
-     * Instantiate the connection db
+     * The template running the queries on the database
+     */
+    private final QueryTemplate TEMPLATE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Instantiate the template running the queries
      */
     public MySQLUserDAO() {
-        Factory connection = Factory.getInstance();
-        this.DB = connection.getDb();
+        this.TEMPLATE = QueryTemplate.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -39,48 +51,41 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception if the user doesn't exist in the database
      */
     public User searchUser(String email) throws Exception{
-        User currentUser = null;
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM user WHERE emailAddress = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, email);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We check if the query retrieved a user
-            if (!resultSet.next()) {
-                // No, we throw an error
-                throw new BadCredentialsException("No user found");
-            } else {
-                // We create a user according to his role
-                currentUser= new User(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(2),resultSet.getString(6),resultSet.getString(5),resultSet.getInt(4),resultSet.getString(8),resultSet.getString(7),resultSet.getInt(9),resultSet.getString(10));
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.searchUser")) {
+            User currentUser = null;
+            // The password and the salt are only read here, to check the password at login
+            String request = "SELECT " + UserRowMapper.CREDENTIALS_COLUMNS + " FROM user WHERE emailAddress = ?";
+            try {
+                // We execute the query
+                currentUser = TEMPLATE.query(request, resultSet -> {
+                    // We check if the query retrieved a user
+                    if (!resultSet.next()) {
+                        // No, we throw an error
+                        throw new BadCredentialsException("No user found");
+                    }
+                    // We create a user according to their role
+                    return UserRowMapper.WITH_CREDENTIALS.map(resultSet);
+                }, email);
             }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return currentUser;
         }
-        catch(SQLException e){
-            e.printStackTrace();
-        }
-        return currentUser;
     }
 
     public boolean isConfirmed(String email) throws Exception{
-        // We prepare the SQL request to retrieve a user
-        PreparedStatement preparedStatement;
-        // Will contain the result of the query
-        ResultSet resultSet;
-        String request = "SELECT confirm FROM user WHERE emailAddress = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setString(1, email);
-        // We execute the query
-        resultSet = preparedStatement.executeQuery();
-        // We check if the query retrieved a user
-        if (!resultSet.next()) {
-            // No, we throw an error
-            throw new BadCredentialsException("No user found");
-        } else {
-            return (resultSet.getInt(1) == 1);
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.isConfirmed")) {
+            String request = "SELECT confirm FROM user WHERE emailAddress = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                // We check if the query retrieved a user
+                if (!resultSet.next()) {
+                    // No, we throw an error
+                    throw new BadCredentialsException("No user found");
+                }
+                return (resultSet.getInt(1) == 1);
+            }, email);
         }
     }
 
@@ -96,21 +101,12 @@ public class MySQLUserDAO extends UserDAO{
      * @throws SQLException if an error occur
      */
     public void register(String firstName,String lastName,String pseudo,String email,String password, String salt, String key) throws SQLException {
-        // We prepare the SQL request to insert a user
-        PreparedStatement preparedStatement;
-        String request = "INSERT INTO user (firstName,lastName,role,password,emailAddress,pseudo,salt,keyConfirm) VALUES  (?,?,?,?,?,?,?,?)";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setString(1, firstName);
-        preparedStatement.setString(2, lastName);
-        preparedStatement.setInt(3, 1);
-        preparedStatement.setString(4, password);
-        preparedStatement.setString(5, email);
-        preparedStatement.setString(6, pseudo);
-        preparedStatement.setString(7, salt);
-        preparedStatement.setString(8, key);
-        // We execute the query
-        preparedStatement.executeUpdate();
-
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.register")) {
+            // We prepare the SQL request to insert a user
+            String request = "INSERT INTO user (firstName,lastName,role,password,emailAddress,pseudo,salt,keyConfirm) VALUES  (?,?,?,?,?,?,?,?)";
+            // We execute the query
+            TEMPLATE.update(request, firstName, lastName, 1, password, email, pseudo, salt, key);
+        }
     }
 
     /**
@@ -119,12 +115,12 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception if an error occur
      */
     public void deleteUser(int id) throws Exception{
-        // We prepare the SQL request to update a user
-        PreparedStatement preparedStatement;
-        String request = "DELETE FROM user WHERE user.idUser = ? ";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, id);
-        preparedStatement.executeUpdate();
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.deleteUser")) {
+            // We prepare the SQL request to update a user
+            String request = "DELETE FROM user WHERE user.idUser = ? ";
+            TEMPLATE.update(request, id);
+            UserCache.getInstance().invalidate(id);
+        }
     }
 
     /**
@@ -139,29 +135,24 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception if an error occur
      */
     public User update(String firstName, String lastName, String pseudo, String email, String password, String salt) throws Exception {
-        // We prepare the SQL request to insert a user
-        PreparedStatement preparedStatement;
-        String request = "UPDATE user SET firstName= ?, "
-                +" lastName = ? ,"
-                +" role = ?, "
-                + "password = ?, "
-                + "emailAddress = ?,"
-                + "pseudo = ?,"
-                + "salt = ?"
-                + "WHERE emailAddress = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setString(1, firstName);
-        preparedStatement.setString(2, lastName);
-        preparedStatement.setInt(3, 1);
-        preparedStatement.setString(4, password);
-        preparedStatement.setString(5, email);
-        preparedStatement.setString(6, pseudo);
-        preparedStatement.setString(7, salt);
-        preparedStatement.setString(8, email);
-
-        // We execute the query
-        preparedStatement.executeUpdate();
-        return searchUser(email);
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.update")) {
+            // We prepare the SQL request to insert a user
+            String request = "UPDATE user SET firstName= ?, "
+                    +" lastName = ? ,"
+                    +" role = ?, "
+                    + "password = ?, "
+                    + "emailAddress = ?,"
+                    + "pseudo = ?,"
+                    + "salt = ?"
+                    + "WHERE emailAddress = ?";
+            // We execute the query
+            TEMPLATE.update(request, firstName, lastName, 1, password, email, pseudo, salt, email);
+            User updated = searchUser(email);
+            if (updated != null) {
+                UserCache.getInstance().invalidate(updated.getIdUser());
+            }
+            return updated;
+        }
     }
 
     /**
@@ -169,32 +160,30 @@ public class MySQLUserDAO extends UserDAO{
      * @return An ArrayList of all the students in database
      */
     public ArrayList<User> seeAllUsers(){
-        ArrayList<User> users = new ArrayList<>();
-        try {
-            // We prepare the SQL request to retrieve a category
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM user WHERE role=?";
-            preparedStatement = DB.prepareStatement(request);
-            //Indicate that the role of the user must be student
-            preparedStatement.setInt(1, 1);
-
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We retrieve all the existing users
-            while (resultSet.next()) {
-                // We create the user
-                User user = new User(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(2),resultSet.getString(6),resultSet.getString(5),resultSet.getInt(4),resultSet.getString(8),resultSet.getString(7),resultSet.getInt(9), resultSet.getString(10));
-                // And put it with the others
-                users.add(user);
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.seeAllUsers")) {
+            ArrayList<User> users = new ArrayList<>();
+            try {
+                // We execute the query, the role of the user must be student
+                this.streamStudents(users::addAll);
             }
+            // Error with the database
+            catch(SQLException err){
+                err.printStackTrace();
+            }
+            return users;
         }
-        // Error with the database
-        catch(SQLException err){
-            err.printStackTrace();
+    }
+
+    /**
+     * Read all the students a chunk at a time, so their number doesn't matter
+     * @param chunks receives the students, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public void streamStudents(Consumer<List<User>> chunks) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.streamStudents")) {
+            String request = "SELECT " + UserRowMapper.COLUMNS + " FROM user WHERE role=?";
+            TEMPLATE.stream(request, UserRowMapper.PUBLIC, chunks::accept, 1);
         }
-        return users;
     }
 
     /**
@@ -204,39 +193,29 @@ public class MySQLUserDAO extends UserDAO{
      * @return true if the account is confirmed false otherwise
      */
     public boolean confirmAccount(String email,String key) throws Exception{
-
-        // We prepare the SQL request to retrieve a user
-        PreparedStatement preparedStatement;
-        PreparedStatement preparedStatement2;
-        // Will contain the result of the query
-        ResultSet resultSet;
-        String request = "SELECT * FROM user WHERE emailAddress = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setString(1, email);
-        // We execute the query
-        resultSet = preparedStatement.executeQuery();
-        // We check if the query retrieved a user
-        if (!resultSet.next()) {
-            // No, we throw an error
-            throw new BadCredentialsException("No user found");
-        } else {
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.confirmAccount")) {
+            // We prepare the SQL request to retrieve a user
+            String request = "SELECT keyConfirm FROM user WHERE emailAddress = ?";
+            // We execute the query
+            String expectedKey = TEMPLATE.query(request, resultSet -> {
+                // We check if the query retrieved a user
+                if (!resultSet.next()) {
+                    // No, we throw an error
+                    throw new BadCredentialsException("No user found");
+                }
+                return resultSet.getString("keyConfirm");
+            }, email);
             //if the 2 keys corresponds
-            if(resultSet.getString(12).equals(key)){
+            if(expectedKey.equals(key)){
                 //let's confirm the account
                 String request2 = "UPDATE user SET confirm = ?"+" WHERE emailAddress = ?";
-                preparedStatement2 = DB.prepareStatement(request2);
-                preparedStatement2.setInt(1, 1);
-                preparedStatement2.setString(2, email);
-                preparedStatement2.executeUpdate();
+                TEMPLATE.update(request2, 1, email);
                 return true;
 
             }else{
                 return false;
             }
-
         }
-
-
     }
 
 
@@ -252,28 +231,18 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception if an error occurs
      */
     public void submitAddPartner(String email,String password, String firstname, String lastname, String company, String salt) throws Exception{
-        User currentUser = null;
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet;
-            String request = "INSERT INTO user(firstName,lastName,role,password,emailAddress,company,salt,confirm) VALUES(?,?,?,?,?,?,?,?)";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, firstname);
-            preparedStatement.setString(2, lastname);
-            preparedStatement.setInt(3, 2);
-            preparedStatement.setString(4, password);
-            preparedStatement.setString(5, email);
-            preparedStatement.setString(6, company);
-            preparedStatement.setString(7, salt);
-            preparedStatement.setInt(8,1);
-            // We execute the query
-            resultSet = preparedStatement.executeUpdate();
-            //currentUser = searchUser(email);
-        }
-        catch(SQLException e){
-            throw e;
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.submitAddPartner")) {
+            User currentUser = null;
+            try {
+                // We prepare the SQL request to retrieve a user
+                String request = "INSERT INTO user(firstName,lastName,role,password,emailAddress,company,salt,confirm) VALUES(?,?,?,?,?,?,?,?)";
+                // We execute the query
+                TEMPLATE.update(request, firstname, lastname, 2, password, email, company, salt, 1);
+                //currentUser = searchUser(email);
+            }
+            catch(SQLException e){
+                throw e;
+            }
         }
     }
 
@@ -282,36 +251,40 @@ public class MySQLUserDAO extends UserDAO{
      * @return ArrayList containing all the partner
      */
     public ArrayList<User> getAllPartner() throws Exception {
-        List<User> partner = new ArrayList<User>();
-        try {
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM user WHERE role= 2";
-            preparedStatement = DB.prepareStatement(request);
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                partner.add(new User(resultSet.getInt(1), resultSet.getString(3), resultSet.getString(2), resultSet.getString(6), resultSet.getString(5), resultSet.getInt(4), resultSet.getString(8), resultSet.getString(7), resultSet.getInt(9), resultSet.getString(10)));
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.getAllPartner")) {
+            ArrayList<User> partner = new ArrayList<>();
+            try {
+                this.streamPartners(partner::addAll);
+            } catch (Exception e) {
+               throw e;
             }
-        } catch (Exception e) {
-           throw e;
+            return partner;
         }
-        return ((ArrayList<User>) partner);
     }
 
-    public void deletePartner(Object user) throws Exception{
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet;
-            String request = "DELETE  FROM user WHERE emailAddress=?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, ((User) user).getEmailAddress());
-            resultSet = preparedStatement.executeUpdate();
+    /**
+     * Read all the partners a chunk at a time, so their number doesn't matter
+     * @param chunks receives the partners, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public void streamPartners(Consumer<List<User>> chunks) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.streamPartners")) {
+            String request = "SELECT " + UserRowMapper.COLUMNS + " FROM user WHERE role= 2";
+            TEMPLATE.stream(request, UserRowMapper.PUBLIC, chunks::accept);
         }
-        catch (Exception e){
-            throw e;
+    }
+
+    public void deletePartner(Object user) throws Exception{
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.deletePartner")) {
+            try {
+                // We prepare the SQL request to retrieve a user
+                String request = "DELETE  FROM user WHERE emailAddress=?";
+                TEMPLATE.update(request, ((User) user).getEmailAddress());
+                UserCache.getInstance().invalidate(((User) user).getIdUser());
+            }
+            catch (Exception e){
+                throw e;
+            }
         }
     }
 
@@ -327,25 +300,16 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception
      */
     public void submitUpdatePartner(String email,String password, String firstname, String lastname, String company, String salt, Object user) throws Exception{
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet; //firstName,lastName,role,password,emailAddress,company,salt
-            String request = "UPDATE user SET firstName = ?, lastName= ?, password = ?, emailAddress = ?, company = ?, salt =?  WHERE idUser = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, firstname);
-            preparedStatement.setString(2, lastname);
-            preparedStatement.setString(3, password);
-            preparedStatement.setString(4, email);
-            preparedStatement.setString(5, company);
-            preparedStatement.setString(6, salt);
-            preparedStatement.setInt(7, ((User)user).getIdUser());
-
-            resultSet = preparedStatement.executeUpdate();
-        }
-        catch (Exception e){
-            throw e;
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.submitUpdatePartner")) {
+            try {
+                // We prepare the SQL request to retrieve a user
+                String request = "UPDATE user SET firstName = ?, lastName= ?, password = ?, emailAddress = ?, company = ?, salt =?  WHERE idUser = ?";
+                TEMPLATE.update(request, firstname, lastname, password, email, company, salt, ((User)user).getIdUser());
+                UserCache.getInstance().invalidate(((User) user).getIdUser());
+            }
+            catch (Exception e){
+                throw e;
+            }
         }
     }
 
@@ -359,91 +323,97 @@ public class MySQLUserDAO extends UserDAO{
      * @throws Exception
      */
     public void submitUpdatePartnerNoPassword(String email, String firstname, String lastname, String company, Object user) throws Exception{
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            int resultSet; //firstName,lastName,role,password,emailAddress,company,salt
-            String request = "UPDATE user SET firstName = ?, lastName= ?, emailAddress = ?, company = ?  WHERE idUser = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setString(1, firstname);
-            preparedStatement.setString(2, lastname);
-            preparedStatement.setString(3, email);
-            preparedStatement.setString(4, company);
-            preparedStatement.setInt(5, ((User)user).getIdUser());
-
-            resultSet = preparedStatement.executeUpdate();
-        }
-        catch (Exception e){
-            throw e;
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.submitUpdatePartnerNoPassword")) {
+            try {
+                // We prepare the SQL request to retrieve a user
+                String request = "UPDATE user SET firstName = ?, lastName= ?, emailAddress = ?, company = ?  WHERE idUser = ?";
+                TEMPLATE.update(request, firstname, lastname, email, company, ((User)user).getIdUser());
+                UserCache.getInstance().invalidate(((User) user).getIdUser());
+            }
+            catch (Exception e){
+                throw e;
+            }
         }
     }
 
     public User searchUserById(int id) throws Exception{
-        User currentUser = null;
-        try {
-            // We prepare the SQL request to retrieve a user
-            PreparedStatement preparedStatement;
-            // Will contain the result of the query
-            ResultSet resultSet;
-            String request = "SELECT * FROM user WHERE idUser = ?";
-            preparedStatement = DB.prepareStatement(request);
-            preparedStatement.setInt(1, id);
-            // We execute the query
-            resultSet = preparedStatement.executeQuery();
-            // We check if the query retrieved a user
-            if (!resultSet.next()) {
-                // No, we throw an error
-                throw new BadCredentialsException("No user found");
-            } else {
-                // We create a user according to his role
-                currentUser= new User(resultSet.getInt(1),resultSet.getString(3),resultSet.getString(2),resultSet.getString(6),resultSet.getString(5),resultSet.getInt(4),resultSet.getString(8),resultSet.getString(7),resultSet.getInt(9),resultSet.getString(10));
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.searchUserById")) {
+            User currentUser = null;
+            String request = "SELECT " + UserRowMapper.COLUMNS + " FROM user WHERE idUser = ?";
+            try {
+                // We execute the query
+                currentUser = TEMPLATE.query(request, resultSet -> {
+                    // We check if the query retrieved a user
+                    if (!resultSet.next()) {
+                        // No, we throw an error
+                        throw new BadCredentialsException("No user found");
+                    }
+                    // We create a user according to their role
+                    return UserRowMapper.PUBLIC.map(resultSet);
+                }, id);
             }
+            catch(SQLException e){
+                e.printStackTrace();
+            }
+            return currentUser;
         }
-        catch(SQLException e){
-            e.printStackTrace();
-        }
-        return currentUser;
     }
 
-    public void addPoints(int nbPoints,User user) throws Exception{
-        PreparedStatement preparedStatement;
-        ResultSet resultSet;
-        String request = "UPDATE user SET points = points + ? where idUser = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, nbPoints);
-        preparedStatement.setInt(2,user.getIdUser());
-        // We execute the query
-        preparedStatement.executeUpdate();
+    /**
+     * Retrieve at once the users with these ids
+     * The ids are given by chunks, so the request stays short whatever the number of users
+     * @param ids the ids of the users
+     * @return the users found, those which don't exist are missing
+     * @throws SQLException if an error occurs
+     */
+    public List<User> searchUsersById(Collection<Integer> ids) throws SQLException {
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.searchUsersById")) {
+            List<User> users = new ArrayList<>();
+            List<Integer> remaining = new ArrayList<>(ids);
+            for (int start = 0; start < remaining.size(); start += IDS_PER_QUERY) {
+                List<Integer> chunk = remaining.subList(start, Math.min(start + IDS_PER_QUERY, remaining.size()));
+                // We prepare the SQL request with a ? for each id
+                StringBuilder request = new StringBuilder("SELECT " + UserRowMapper.COLUMNS + " FROM user WHERE idUser IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    request.append(i == 0 ? "?" : ", ?");
+                }
+                request.append(")");
+                // We execute the query
+                users.addAll(TEMPLATE.queryList(request.toString(), UserRowMapper.PUBLIC, chunk.toArray()));
+            }
+            return users;
+        }
     }
 
-    public void removePoints(int nbPoints,User user) throws Exception{
-        PreparedStatement preparedStatement;
-        ResultSet resultSet;
-        String request = "UPDATE user SET points = points - ? where idUser = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1, nbPoints);
-        preparedStatement.setInt(2,user.getIdUser());
-        // We execute the query
-        preparedStatement.executeUpdate();
+    public int viewPoints(User user) throws Exception{
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.viewPoints")) {
+            String request = "SELECT points AS pointUser from user where idUser = ?";
+            // We execute the query
+            return TEMPLATE.query(request, resultSet -> {
+                if (!resultSet.next()) {
+                    // No, we throw an error
+                    throw new BadCredentialsException("No user found");
+                }
+                // stock the result of execution
+                return resultSet.getInt("pointUser");
+            }, user.getIdUser());
+        }
     }
 
-    public int viewPoints(User user) throws Exception{
-        int respoints = 0;
-        PreparedStatement preparedStatement;
-        ResultSet resultSet;
-        String request = "SELECT points AS pointUser from user where idUser = ?";
-        preparedStatement = DB.prepareStatement(request);
-        preparedStatement.setInt(1,user.getIdUser());
-        // We execute the query
-        resultSet = preparedStatement.executeQuery();
-        if (!resultSet.next()) {
-            // No, we throw an error
-            throw new BadCredentialsException("No user found");
-        } else {
-            // stock the result of execution
-            respoints = resultSet.getInt("pointUser");
+    /**
+     * Replace the password of a user
+     * @param user the user
+     * @param password the new hashed password
+     * @param salt the salt used to hash the password
+     * @throws Exception if an error occurs
+     */
+    public void updatePassword(User user, String password, String salt) throws Exception {
+        try (TimedCall call = METRICS.time("dao.MySQLUserDAO.updatePassword")) {
+            // We prepare the SQL request to update the password
+            String request = "UPDATE user SET password = ?, salt = ? WHERE idUser = ?";
+            // We execute the query
+            TEMPLATE.update(request, password, salt, user.getIdUser());
+            UserCache.getInstance().invalidate(user.getIdUser());
         }
-        return respoints;
     }
 }
@@ -0,0 +1,183 @@
+package com.github.studeasy.dao.userDAO;
+
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Class singleton, keeping the users shown in the lists (owners of services, of coupons, buyers)
+ * The lists only retrieve the ids of the users, the users are then resolved here: those
+ * kept recently are given back as they are, the others are read at once from the database.
+ * Every list gets its own map of the users it needs, so a user appearing on many rows is
+ * only one object. The users are kept for a short time only, they can change elsewhere
+ */
+public class UserCache {
+
+    /**
+     * Singleton of the UserCache
+     */
+    private static UserCache userCache = null;
+
+    /**
+     * A user kept, with the time it was read
+     */
+    private static class Entry {
+        private final User user;
+        private final long loadedAt;
+
+        private Entry(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Reads the users missing from the database
+     */
+    public interface Loader {
+        List<User> load(Collection<Integer> ids) throws SQLException;
+    }
+
+    /**
+     * Reads the users missing from the database
+     */
+    private final Loader LOADER;
+
+    /**
+     * The users kept by id, the least recently used first
+     */
+    private final LinkedHashMap<Integer, Entry> USERS;
+
+    /**
+     * Delay after which a user is read again (in ms)
+     */
+    private final long ttlMs;
+
+    /**
+     * Create the cache
+     * @param loader reads the users missing from the database
+     * @param maxUsers maximum number of users kept
+     * @param ttlMs delay after which a user is read again (in ms)
+     */
+    public UserCache(Loader loader, int maxUsers, long ttlMs) {
+        this.LOADER = loader;
+        this.ttlMs = ttlMs;
+        int max = Math.max(0, maxUsers);
+        this.USERS = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized UserCache getInstance() {
+        if (userCache == null) {
+            ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+            UserDAO dao = UserDAO.getInstance();
+            userCache = new UserCache(dao::searchUsersById, settings.getInt("USER_CACHE_SIZE", 1000),
+                    settings.getLong("USER_CACHE_TTL_S", 60) * 1000);
+        }
+        return userCache;
+    }
+
+    /**
+     * Retrieve the users needed by a list
+     * @param ids the ids of the users, repeated or not
+     * @return the users by id, the users which don't exist are missing
+     * @throws SQLException if the users missing can't be read
+     */
+    public Map<Integer, User> resolve(Collection<Integer> ids) throws SQLException {
+        Map<Integer, User> users = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Integer id : ids) {
+                if (users.containsKey(id) || missing.contains(id)) {
+                    continue;
+                }
+                Entry entry = USERS.get(id);
+                if (entry != null && now - entry.loadedAt < ttlMs) {
+                    users.put(id, entry.user);
+                }
+                else {
+                    missing.add(id);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            // The users missing are read at once, outside of the lock
+            List<User> loaded = LOADER.load(new ArrayList<>(missing));
+            synchronized (this) {
+                for (User user : loaded) {
+                    users.put(user.getIdUser(), user);
+                    USERS.put(user.getIdUser(), new Entry(user, now));
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Give their user to the rows of a list, read with the ids of the users only
+     * The rows whose user doesn't exist anymore are removed, as a join would have done
+     * @param rows the rows of the list
+     * @param ids the ids of the users, in the order of the rows
+     * @param setter gives its user to a row
+     * @param <T> the type of the rows
+     * @throws SQLException if the users missing can't be read
+     */
+    public <T> void attach(List<T> rows, List<Integer> ids, BiConsumer<T, User> setter) throws SQLException {
+        Map<Integer, User> users = this.resolve(ids);
+        List<T> kept = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            User user = users.get(ids.get(i));
+            if (user != null) {
+                setter.accept(rows.get(i), user);
+                kept.add(rows.get(i));
+            }
+        }
+        rows.clear();
+        rows.addAll(kept);
+    }
+
+    /**
+     * Retrieve one user
+     * @param id the id of the user
+     * @return the user, null if it doesn't exist
+     * @throws SQLException if the user can't be read
+     */
+    public User get(int id) throws SQLException {
+        return this.resolve(List.of(id)).get(id);
+    }
+
+    /**
+     * Forget a user which changed
+     * @param id the id of the user
+     */
+    public synchronized void invalidate(int id) {
+        USERS.remove(id);
+    }
+
+    /**
+     * Forget all the users
+     */
+    public synchronized void clear() {
+        USERS.clear();
+    }
+}
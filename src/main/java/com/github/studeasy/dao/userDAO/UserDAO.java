@@ -5,6 +5,9 @@ import com.github.studeasy.logic.factory.Factory;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Abstract class for the User DAO
@@ -39,22 +42,6 @@ public abstract class UserDAO {
      */
     public abstract User searchUser(String email) throws Exception;
 
-    /***
-     * Method that asking the database to add points to a user
-     * @param nbPoints
-     * @param user
-     * @throws Exception
-     */
-    public abstract void addPoints(int nbPoints,User user) throws Exception;
-
-    /***
-     * Methode that asking the database to remove points from a user
-     * @param nbPoints
-     * @param user
-     * @throws Exception
-     */
-    public abstract void removePoints(int nbPoints,User user) throws Exception;
-
     /***
      * Methode that allows to see points of a user
      * @param user
@@ -102,6 +89,13 @@ public abstract class UserDAO {
      */
     public abstract ArrayList<User> seeAllUsers();
 
+    /**
+     * Read all the students a chunk at a time, so their number doesn't matter
+     * @param chunks receives the students, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public abstract void streamStudents(Consumer<List<User>> chunks) throws SQLException;
+
     /**
      * Method who will confirm the account
      * @param email the email of the user to confirm
@@ -127,6 +121,14 @@ public abstract class UserDAO {
      */
     public abstract User searchUserById(int id) throws Exception;
 
+    /**
+     * Method retrieving at once the users with these ids
+     * @param ids the ids of the users
+     * @return the users found, those which don't exist are missing
+     * @throws SQLException if an error occurs
+     */
+    public abstract List<User> searchUsersById(Collection<Integer> ids) throws SQLException;
+
 
     /**
      * Add a partner to the database
@@ -146,6 +148,13 @@ public abstract class UserDAO {
      */
     public abstract ArrayList<User> getAllPartner() throws Exception;
 
+    /**
+     * Read all the partners a chunk at a time, so their number doesn't matter
+     * @param chunks receives the partners, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public abstract void streamPartners(Consumer<List<User>> chunks) throws SQLException;
+
     /**
      * Delete the partner from the DB
      * @param user The user to be deleted
@@ -175,4 +184,13 @@ public abstract class UserDAO {
      */
     public abstract void submitUpdatePartner(String email,String password, String firstname, String lastname, String company, String salt, Object user) throws Exception;
 
-}
\ No newline at end of file
+
+    /**
+     * Replace the password of a user
+     * @param user the user
+     * @param password the new hashed password
+     * @param salt the salt used to hash the password
+     * @throws Exception if an error occurs
+     */
+    public abstract void updatePassword(User user, String password, String salt) throws Exception;
+}
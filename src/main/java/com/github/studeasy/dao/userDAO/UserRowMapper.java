@@ -0,0 +1,62 @@
+package com.github.studeasy.dao.userDAO;
+
+import com.github.studeasy.dao.db.RowMapper;
+import com.github.studeasy.logic.common.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds a user from the columns of the user table
+ * The users displayed don't need their password and salt, they are only read
+ * to check the password at login
+ */
+public class UserRowMapper implements RowMapper<User> {
+
+    /**
+     * The columns of a user displayed
+     */
+    public static final String COLUMNS = "user.idUser, user.firstName, user.lastName, user.role, " +
+            "user.emailAddress, user.pseudo, user.company, user.points";
+
+    /**
+     * The columns of a user checking their password
+     */
+    public static final String CREDENTIALS_COLUMNS = COLUMNS + ", user.password, user.salt";
+
+    /**
+     * Builds the users displayed, without password and salt
+     */
+    public static final UserRowMapper PUBLIC = new UserRowMapper(false);
+
+    /**
+     * Builds the users with their password and salt
+     */
+    public static final UserRowMapper WITH_CREDENTIALS = new UserRowMapper(true);
+
+    /**
+     * Indicates if the password and the salt are read
+     */
+    private final boolean credentials;
+
+    /**
+     * Create the mapper
+     * @param credentials true if the password and the salt are read
+     */
+    private UserRowMapper(boolean credentials) {
+        this.credentials = credentials;
+    }
+
+    /**
+     * Build the user of the current row
+     * @param resultSet the result, positioned on the row to read
+     * @return the user
+     * @throws SQLException if the row can't be read
+     */
+    public User map(ResultSet resultSet) throws SQLException {
+        return new User(resultSet.getInt("idUser"), resultSet.getString("lastName"), resultSet.getString("firstName"),
+                resultSet.getString("emailAddress"), credentials ? resultSet.getString("password") : null,
+                resultSet.getInt("role"), resultSet.getString("company"), resultSet.getString("pseudo"),
+                resultSet.getInt("points"), credentials ? resultSet.getString("salt") : null);
+    }
+}
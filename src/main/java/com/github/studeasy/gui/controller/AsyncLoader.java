@@ -0,0 +1,361 @@
+package com.github.studeasy.gui.controller;
+
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Class singleton, retrieving the data of the views in the background
+ * A controller groups the calls to the facades it needs in a batch: the batch runs as one
+ * task on a shared pool, while the table or the list of the view shows a skeleton, then
+ * all the results are displayed at once on the JavaFX thread.
+ * When the user leaves a view, the batches still running for it are cancelled and their
+ * results are never displayed.
+ * The time each view waits for its data (view.*) and the time taken to display it on the
+ * JavaFX thread (fx.view.*) are given to the metrics, by controller
+ */
+public class AsyncLoader {
+
+    /**
+     * Singleton of the AsyncLoader
+     */
+    private static AsyncLoader asyncLoader = null;
+
+    /**
+     * Number of lines of the skeleton displayed while loading
+     */
+    private static final int SKELETON_LINES = 5;
+
+    /**
+     * The threads retrieving the data
+     */
+    private final ExecutorService EXECUTOR;
+
+    /**
+     * The batches running
+     */
+    private final Set<Batch> RUNNING;
+
+    /**
+     * Finds the controller creating a batch
+     */
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /**
+     * Create the loader
+     * @param threads number of threads retrieving the data
+     */
+    private AsyncLoader(int threads) {
+        this.EXECUTOR = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "studeasy-view-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.RUNNING = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized AsyncLoader getInstance() {
+        if (asyncLoader == null) {
+            asyncLoader = new AsyncLoader(ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                    .getInt("VIEW_LOADER_THREADS", 2));
+        }
+        return asyncLoader;
+    }
+
+    /**
+     * Create a batch of calls for a view
+     * @param anchor a node of the view, it shows the skeleton if it's a table or a list
+     * @return the batch, to fill then start
+     */
+    public Batch batch(Node anchor) {
+        return new Batch(anchor);
+    }
+
+    /**
+     * Cancel the batches of the views of a scene, when the user leaves them
+     * Must be called from the JavaFX thread, before the new view is displayed
+     * @param leaving the scene displaying the view the user leaves
+     */
+    public void cancel(Scene leaving) {
+        for (Batch batch : RUNNING) {
+            if (batch.ANCHOR.getScene() == leaving) {
+                batch.cancel();
+            }
+        }
+    }
+
+    /**
+     * Stop the threads, when the application is closed
+     */
+    public void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * The result of a call of a batch, available once the batch succeeded
+     * @param <T> the type of the result
+     */
+    public static class Result<T> {
+        private final Callable<T> CALL;
+        private T value;
+
+        private Result(Callable<T> call) {
+            this.CALL = call;
+        }
+
+        /**
+         * Retrieve the result, only in the callback of the batch
+         * @return the result of the call
+         */
+        public T get() {
+            return value;
+        }
+
+        private void run() throws Exception {
+            value = CALL.call();
+        }
+    }
+
+    /**
+     * A call to a facade giving its result a chunk at a time
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    public interface StreamingCall<T> {
+        void run(Consumer<List<T>> chunks) throws Exception;
+    }
+
+    /**
+     * The calls to the facades needed by a view, run one after the other in the background
+     */
+    public class Batch {
+
+        /**
+         * The node of the view the batch belongs to
+         */
+        private final Node ANCHOR;
+
+        /**
+         * The calls of the batch
+         */
+        private final List<Result<?>> CALLS;
+
+        /**
+         * The name of the controller which created the batch, for the metrics
+         */
+        private final String VIEW;
+
+        /**
+         * The task running the calls, null until started
+         */
+        private Task<Void> task;
+
+        /**
+         * The placeholder of the table or the list, replaced by the skeleton while loading
+         */
+        private Node placeholder;
+
+        /**
+         * Indicates if the skeleton is displayed
+         */
+        private boolean loading;
+
+        private Batch(Node anchor) {
+            this.ANCHOR = anchor;
+            this.CALLS = new ArrayList<>();
+            this.VIEW = controller();
+        }
+
+        /**
+         * Add a call to the batch
+         * @param call the call to a facade, run in the background
+         * @param <T> the type of the result
+         * @return the result, available once the batch succeeded
+         */
+        public <T> Result<T> add(Callable<T> call) {
+            Result<T> result = new Result<>(call);
+            CALLS.add(result);
+            return result;
+        }
+
+        /**
+         * Add a call giving its result a chunk at a time
+         * Each chunk is displayed on the JavaFX thread as soon as it comes, until the batch is cancelled
+         * @param call the call to a facade, giving the chunks to the consumer it receives
+         * @param onChunk displays a chunk, on the JavaFX thread
+         * @param <T> the type of the rows
+         */
+        public <T> void stream(StreamingCall<T> call, Consumer<List<T>> onChunk) {
+            this.add(() -> {
+                call.run(chunk -> Platform.runLater(() -> {
+                    if (!task.isCancelled()) {
+                        onChunk.accept(chunk);
+                    }
+                }));
+                return null;
+            });
+        }
+
+        /**
+         * Run the calls in the background
+         * Must be called from the JavaFX thread
+         * @param onSuccess displays all the results, on the JavaFX thread
+         * @param onFailure displays the error, on the JavaFX thread
+         */
+        public void start(Runnable onSuccess, Consumer<Throwable> onFailure) {
+            this.showSkeleton();
+            long started = System.nanoTime();
+            task = new Task<Void>() {
+                @Override
+                protected Void call() throws Exception {
+                    for (Result<?> result : CALLS) {
+                        if (isCancelled()) {
+                            return null;
+                        }
+                        result.run();
+                    }
+                    return null;
+                }
+            };
+            task.setOnSucceeded(event -> {
+                this.finish();
+                this.display(started, false, onSuccess);
+            });
+            task.setOnFailed(event -> {
+                this.finish();
+                this.display(started, true, () -> onFailure.accept(task.getException()));
+            });
+            RUNNING.add(this);
+            EXECUTOR.execute(task);
+        }
+
+        /**
+         * Display the results of the batch, measuring the wait and the display
+         * @param started when the batch started (in ns)
+         * @param failed true if a call of the batch failed
+         * @param display displays the results, on the JavaFX thread
+         */
+        private void display(long started, boolean failed, Runnable display) {
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            long displayed = System.nanoTime();
+            metrics.timer("view." + VIEW).record(displayed - started, failed);
+            try {
+                display.run();
+            } finally {
+                metrics.timer("fx.view." + VIEW).record(System.nanoTime() - displayed, failed);
+            }
+        }
+
+        /**
+         * Cancel the batch, its results won't be displayed
+         * The call running is not interrupted, so the connection it uses stays sane
+         */
+        private void cancel() {
+            if (task != null) {
+                task.cancel(false);
+            }
+            this.finish();
+        }
+
+        /**
+         * The batch is over, the placeholder is given back
+         */
+        private void finish() {
+            RUNNING.remove(this);
+            if (loading) {
+                loading = false;
+                setPlaceholder(placeholder);
+            }
+        }
+
+        /**
+         * Display a skeleton in the table or the list while loading
+         */
+        private void showSkeleton() {
+            if (ANCHOR instanceof TableView) {
+                placeholder = ((TableView<?>) ANCHOR).getPlaceholder();
+            }
+            else if (ANCHOR instanceof ListView) {
+                placeholder = ((ListView<?>) ANCHOR).getPlaceholder();
+            }
+            else {
+                return;
+            }
+            // Another batch of the same table may still be loading, its skeleton must not be kept
+            for (Batch other : RUNNING) {
+                if (other != this && other.ANCHOR == ANCHOR && other.loading) {
+                    placeholder = other.placeholder;
+                }
+            }
+            loading = true;
+            setPlaceholder(skeleton());
+        }
+
+        /**
+         * Change the placeholder of the table or the list
+         * @param node the new placeholder
+         */
+        private void setPlaceholder(Node node) {
+            if (ANCHOR instanceof TableView) {
+                ((TableView<?>) ANCHOR).setPlaceholder(node);
+            }
+            else {
+                ((ListView<?>) ANCHOR).setPlaceholder(node);
+            }
+        }
+    }
+
+    /**
+     * Find the controller creating a batch
+     * @return the name of its class, or of the class calling the loader
+     */
+    private static String controller() {
+        return WALKER.walk(frames -> frames
+                .map(StackWalker.StackFrame::getClassName)
+                .filter(type -> !type.startsWith(AsyncLoader.class.getName()))
+                .map(type -> type.substring(type.lastIndexOf('.') + 1).split("\\$")[0])
+                .findFirst()
+                .orElse("unknown"));
+    }
+
+    /**
+     * Create a skeleton, grey lines telling the user the data is coming
+     * @return the skeleton
+     */
+    private static Node skeleton() {
+        VBox skeleton = new VBox(8);
+        skeleton.setPadding(new Insets(16));
+        for (int i = 0; i < SKELETON_LINES; i++) {
+            Region line = new Region();
+            line.setStyle("-fx-background-color: #e0e0e0; -fx-background-radius: 4;");
+            line.setPrefHeight(14);
+            // The lines get shorter, like text
+            line.setMaxWidth(480 - i * 40);
+            skeleton.getChildren().add(line);
+        }
+        skeleton.getChildren().add(new Label("Loading..."));
+        return skeleton;
+    }
+}
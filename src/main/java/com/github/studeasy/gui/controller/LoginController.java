@@ -5,11 +5,13 @@ import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.UserRouter;
 import com.github.studeasy.logic.facades.FacadeNotification;
 import com.github.studeasy.logic.facades.FacadeUser;
+import com.github.studeasy.logic.security.PasswordHashingService;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.paint.Paint;
@@ -17,6 +19,7 @@ import javafx.scene.paint.Paint;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The controller for the login view
@@ -57,6 +60,12 @@ public class LoginController implements Initializable {
     @FXML
     private Label loginFailLabel;
 
+    /**
+     * The button to log in
+     */
+    @FXML
+    private Button loginB;
+
     /**
      * Instantiate the parent's attributes with
      * a router and a facade used for users
@@ -74,33 +83,76 @@ public class LoginController implements Initializable {
      * @param event the event triggered
      */
     public void login(ActionEvent event){
+        // The password is already being checked, the enter key of the fields also logs in
+        if(loginB.isDisabled()){
+            return;
+        }
         // We retrieve the user inputs
         String email = emailTF.getText();
         String password = passwordTF.getText();
         // Surrounded by a try catch, in case a wrong auth occurs
         try {
             if(FACADE.isConfirmed(email)){
-                // We ask the facade to check
-                FACADE.login(email, password);
-                FACADE_NOTIF.launchTimer();
-                // If it's alright, we're redirected to the right page by the router
-                ((UserRouter)ROUTER).login(event);
+                // We ask the facade to check, the password is hashed in the background
+                loginFailLabel.setText("");
+                // The password is hashed in the background, the user can't log in twice meanwhile
+                loginB.setDisable(true);
+                FACADE.loginAsync(email, password).whenComplete((ok, err) ->
+                        // The view can only be changed from the JavaFX thread
+                        Platform.runLater(() -> {
+                            loginB.setDisable(false);
+                            if(err == null){
+                                this.loggedIn(event);
+                            }
+                            else{
+                                this.loginFailed(PasswordHashingService.unwrap(err));
+                            }
+                        }));
             }else{
                 ((UserRouter)ROUTER).confirmUser(UserRouter.CONFIRM_USER_FXML_PATH,event,email);
             }
 
         }
         catch(BadCredentialsException e){
+            this.loginFailed(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            // Wrong credentials, we show the user
-            loginFailLabel.setAlignment(Pos.CENTER);
-            loginFailLabel.setTextFill(Paint.valueOf("red"));
-            loginFailLabel.setText("Bad credentials, please retry");
+    /**
+     * Called once the credentials of the user are checked
+     * @param event the event triggered by the login button
+     */
+    private void loggedIn(ActionEvent event){
+        try {
+            FACADE_NOTIF.launchTimer();
+            // If it's alright, we're redirected to the right page by the router
+            ((UserRouter)ROUTER).login(event);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Called when the user could not be logged in
+     * @param err why the user could not be logged in
+     */
+    private void loginFailed(Throwable err){
+        loginFailLabel.setAlignment(Pos.CENTER);
+        loginFailLabel.setTextFill(Paint.valueOf("red"));
+        if(err instanceof BadCredentialsException){
+            // Wrong credentials, we show the user
+            loginFailLabel.setText("Bad credentials, please retry");
+        }
+        else if(err instanceof RejectedExecutionException){
+            loginFailLabel.setText(err.getMessage());
+        }
+        else{
+            err.printStackTrace();
+        }
+    }
+
     /**
      * Triggered when the user wants to go to the register page
      * @param event the event triggered
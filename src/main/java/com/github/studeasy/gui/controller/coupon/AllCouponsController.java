@@ -1,5 +1,6 @@
 package com.github.studeasy.gui.controller.coupon;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.CouponRouter;
 import com.github.studeasy.gui.routers.UserRouter;
@@ -27,6 +28,7 @@ import javafx.util.Callback;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.ResourceBundle;
 
 /**
@@ -234,8 +236,8 @@ public class AllCouponsController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         // In case we don't have any coupons
         couponsTV.setPlaceholder(new Label("There is no coupon to display"));
-        // We retrieve all the coupons and put them in an observable list
-        couponsList = FXCollections.observableArrayList(FACADE.getCoupons());
+        // The coupons are put in an observable list once retrieved
+        couponsList = FXCollections.observableArrayList();
 
         // We put the titles of the coupons on the right column
         titleC.setCellValueFactory(
@@ -296,13 +298,6 @@ public class AllCouponsController implements Initializable {
             // The admin can add coupons
             addCouponB.setVisible(true);
         }
-        else{
-            FacadeUser facadeUser = FacadeUser.getInstance();
-            // To see how many points he has
-            int pointsUser = facadeUser.viewPoints();
-            this.pointsUserT.setText(Integer.toString(pointsUser));
-            this.yourPointsL.setVisible(true);
-        }
 
         // Put a listener (double click) on each row to go to the information of a coupon
         couponsTV.setRowFactory( tv -> {
@@ -325,5 +320,21 @@ public class AllCouponsController implements Initializable {
         sortedData.comparatorProperty().bind(couponsTV.comparatorProperty());
         // We add the sorted data in the table
         couponsTV.setItems(sortedData);
+
+        // The coupons and the points are retrieved in the background, then displayed at once
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(couponsTV);
+        AsyncLoader.Result<ArrayList<Coupon>> coupons = batch.add(FACADE::getCoupons);
+        // To see how many points they have
+        AsyncLoader.Result<Integer> points = session.isAdmin() ? null : batch.add(FacadeUser.getInstance()::viewPoints);
+        batch.start(() -> {
+            couponsList.setAll(coupons.get());
+            if(points != null){
+                this.pointsUserT.setText(Integer.toString(points.get()));
+                this.yourPointsL.setVisible(true);
+            }
+        }, err -> {
+            err.printStackTrace();
+            couponsTV.setPlaceholder(new Label("An error occurs, please retry later"));
+        });
     }
 }
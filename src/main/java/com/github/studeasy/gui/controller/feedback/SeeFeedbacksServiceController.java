@@ -1,5 +1,6 @@
 package com.github.studeasy.gui.controller.feedback;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.FeedbackRouter;
 import com.github.studeasy.gui.routers.ServiceRouter;
@@ -26,6 +27,7 @@ import javafx.util.Callback;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.ResourceBundle;
 
 /**
@@ -269,8 +271,8 @@ public class SeeFeedbacksServiceController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         // In case we don't have any feedback
         feedbackManagement.setPlaceholder(new Label("There is currently no feedback to display"));
-        // We retrieve all the categories and put them in an observable list
-        feedbackList = FXCollections.observableArrayList(FACADE.seeAllFeedbacks(service.getIdService()));
+        // The feedbacks are put in an observable list once retrieved
+        feedbackList = FXCollections.observableArrayList();
         // We put the names of the feedbacks on the right column
         titleColumn.setCellValueFactory(
                 new PropertyValueFactory<Feedback,String>("title")
@@ -309,6 +311,18 @@ public class SeeFeedbacksServiceController implements Initializable {
 
         titleLabel.setText("Feedbacks for the service");
 
-        addFeedbackButton.setVisible(FACADE.hasCommand(service.getIdService()) && Session.getInstance().isStudent());
+        // Hidden until we know if the user can leave a feedback
+        addFeedbackButton.setVisible(false);
+        // The feedbacks and the right to leave one are retrieved in the background, then displayed at once
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(feedbackManagement);
+        AsyncLoader.Result<ArrayList<Feedback>> feedbacks = batch.add(() -> FACADE.seeAllFeedbacks(service.getIdService()));
+        AsyncLoader.Result<Boolean> hasCommand = batch.add(() -> Session.getInstance().isStudent() && FACADE.hasCommand(service.getIdService()));
+        batch.start(() -> {
+            feedbackList.setAll(feedbacks.get());
+            addFeedbackButton.setVisible(hasCommand.get());
+        }, err -> {
+            err.printStackTrace();
+            feedbackManagement.setPlaceholder(new Label("An error occurs, please retry later"));
+        });
     }
 }
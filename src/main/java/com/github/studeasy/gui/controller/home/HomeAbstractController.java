@@ -2,7 +2,9 @@ package com.github.studeasy.gui.controller.home;
 
 import com.github.studeasy.gui.controller.notifications.ButtonNotificationController;
 import com.github.studeasy.gui.routers.AbstractRouter;
+import com.github.studeasy.gui.routers.ReusableView;
 import com.github.studeasy.gui.routers.UserRouter;
+import com.github.studeasy.gui.routers.ViewCache;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.facades.FacadeNotification;
 import com.github.studeasy.logic.facades.FacadeUser;
@@ -15,7 +17,7 @@ import javafx.scene.paint.Paint;
 
 import java.io.IOException;
 
-public abstract class HomeAbstractController  {
+public abstract class HomeAbstractController implements ReusableView {
     /**
      * label displayed if an error occur
      */
@@ -56,6 +58,15 @@ public abstract class HomeAbstractController  {
         clocheController.clickNotif(event);
     }
 
+    /**
+     * Called when the home is displayed again
+     * The notifications are given back to the bell of this view
+     */
+    @Override
+    public void refresh() {
+        FACADE_NOTIF.getNumberNotification(clocheController);
+    }
+
     /**
      * Disconnect from the platform and comeback to the login
      * @param event
@@ -64,6 +75,8 @@ public abstract class HomeAbstractController  {
         try{
             Session.getInstance().disconnect();
             FACADE_NOTIF.stopTimer();
+            // The views kept belong to the user leaving
+            ViewCache.getInstance().clear();
             ROUTER.changeView(UserRouter.LOGIN_FXML_PATH,event);
         }catch (Exception e){
             e.printStackTrace();
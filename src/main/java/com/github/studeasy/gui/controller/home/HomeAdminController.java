@@ -63,6 +63,15 @@ public class HomeAdminController extends HomeAbstractController implements Initi
         ((UserRouter)ROUTER).managePartner(event);
     }
 
+    /**
+     * Load the performance dashboard
+     * @param event the action trigerring the change of view
+     * @throws IOException if an error occurs
+     */
+    public void adminDashboard(ActionEvent event) throws IOException {
+        ((UserRouter)ROUTER).adminDashboard(event);
+    }
+
     /**
      * Load the view to manage validate pending job
      * @param event the action trigerring the change of view
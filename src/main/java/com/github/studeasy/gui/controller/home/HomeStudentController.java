@@ -166,8 +166,24 @@ public class HomeStudentController extends HomeAbstractController implements Ini
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        this.displayPoints();
+    }
+
+    /**
+     * Called when the home is displayed again, the points may have changed
+     */
+    @Override
+    public void refresh() {
+        super.refresh();
+        this.displayPoints();
+    }
+
+    /**
+     * Display the points of the student
+     */
+    private void displayPoints() {
         FacadeUser facadeUser = FacadeUser.getInstance();
-        // To see how many points he has
+        // To see how many points they have
         int pointsUser = facadeUser.viewPoints();
         this.pointsUserT.setText(Integer.toString(pointsUser));
     }
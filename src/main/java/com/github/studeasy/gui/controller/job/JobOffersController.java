@@ -1,5 +1,6 @@
 package com.github.studeasy.gui.controller.job;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.JobRouter;
 import com.github.studeasy.gui.routers.UserRouter;
@@ -9,6 +10,7 @@ import com.github.studeasy.logic.common.role.RoleAdmin;
 import com.github.studeasy.logic.common.role.RolePartner;
 import com.github.studeasy.logic.common.role.RoleStudent;
 import com.github.studeasy.logic.facades.FacadeJob;
+import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -33,6 +35,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -82,6 +86,30 @@ public class JobOffersController implements Initializable {
     @FXML
     private ListView<Job> listview;
 
+    /**
+     * To validate the pending jobs selected
+     */
+    @FXML
+    private Button validateSelectedB;
+
+    /**
+     * To reject the pending jobs selected
+     */
+    @FXML
+    private Button rejectSelectedB;
+
+    /**
+     * Shows how many of the jobs selected are reviewed
+     */
+    @FXML
+    private ProgressBar reviewPB;
+
+    /**
+     * Tells the admin the result of the review
+     */
+    @FXML
+    private Label reviewL;
+
     /**
      * All the job
      */
@@ -108,6 +136,64 @@ public class JobOffersController implements Initializable {
         ((UserRouter)ROUTER_USER).backToDashboard(event);
     }
 
+    /**
+     * Validate the pending jobs selected by the admin
+     * @param event The event triggering the method
+     */
+    public void validateSelected(ActionEvent event) {
+        this.reviewSelected(2);
+    }
+
+    /**
+     * Reject the pending jobs selected by the admin
+     * @param event The event triggering the method
+     */
+    public void rejectSelected(ActionEvent event) {
+        this.reviewSelected(1);
+    }
+
+    /**
+     * Submit the same choice for the jobs selected in the background,
+     * the progress bar follows the batches sent to the database
+     * @param choice 1 to reject the jobs, 2 to validate them
+     */
+    private void reviewSelected(int choice) {
+        List<Job> selected = new ArrayList<>(listview.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            reviewL.setText("Select the jobs first");
+            return;
+        }
+        int total = selected.size();
+        this.setReviewing(true);
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(reviewPB);
+        AsyncLoader.Result<Integer> reviewed = batch.add(() -> FACADE.choiceForJobs(selected, choice,
+                done -> Platform.runLater(() -> reviewPB.setProgress((double) done / total))));
+        // The jobs reviewed are not pending anymore
+        AsyncLoader.Result<ArrayList<Job>> pending = batch.add(FACADE::getPendingJob);
+        batch.start(() -> {
+            this.setReviewing(false);
+            reviewL.setText(reviewed.get() + " job(s) " + (choice == 2 ? "validated" : "rejected"));
+            JobList.setAll(pending.get());
+        }, err -> {
+            this.setReviewing(false);
+            reviewL.setText("An error occurs, no job was changed");
+        });
+    }
+
+    /**
+     * Show the progress bar and disable the buttons while reviewing
+     * @param reviewing true while the jobs are reviewed
+     */
+    private void setReviewing(boolean reviewing) {
+        validateSelectedB.setDisable(reviewing);
+        rejectSelectedB.setDisable(reviewing);
+        reviewPB.setProgress(0);
+        reviewPB.setVisible(reviewing);
+        if (reviewing) {
+            reviewL.setText("");
+        }
+    }
+
 
     /**
      * Allows to make custom cells for job
@@ -231,58 +317,50 @@ public class JobOffersController implements Initializable {
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        // The jobs are retrieved in the background, the list shows a skeleton meanwhile
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(listview);
+        AsyncLoader.Result<ArrayList<Job>> jobs = null;
         if(user.getRole() instanceof RoleAdmin){
             label.setText("Job offer pending");
             searchJobTF.setVisible(false);
             searchImage.setOpacity(0);
             listview.setPlaceholder(new Label("No pending job available, please retry later"));
-            try {
-                JobList.addAll(FACADE.getPendingJob());
-                listview.getItems().setAll(JobList);
-                listview.setCellFactory(lv -> new JobListCell());
-                //listview.getSelectionModel().selectedItemProperty().addListener(observable -> System.out.printf("Valeur sélectionnée: %d", listview.getSelectionModel().getSelectedItem().getIdJob()).println());
-            } catch (Exception e) {
-                listview.setPlaceholder(new Label("An error occurs, please retry later"));
-            }
+            listview.setItems(JobList);
+            // The admin can review many pending jobs at once
+            listview.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+            validateSelectedB.setVisible(true);
+            rejectSelectedB.setVisible(true);
+            jobs = batch.add(FACADE::getPendingJob);
         }
         if(user.getRole() instanceof RoleStudent) {
             label.setText("Job offers");
             listview.setPlaceholder(new Label("No job offer available, please retry later"));
-            try{
-                JobList.addAll(FACADE.getAllJobs());
-                listview.getItems().setAll(JobList);
-                listview.setCellFactory(lv -> new JobListCell());
-                //listview.getSelectionModel().selectedItemProperty().addListener(observable -> System.out.printf("Valeur sélectionnée: %d", listview.getSelectionModel().getSelectedItem().getIdJob()).println());
-                FilteredList<Job> filteredJob = new FilteredList<>(JobList, j -> true);
-                searchJobTF.textProperty().addListener((observable,oldValue,newValue) -> this.searchJob(observable,oldValue,newValue,filteredJob));
-                SortedList<Job> sortedData = new SortedList<>(filteredJob);
-                listview.setItems(sortedData);
-            }
-            catch (Exception e){
-                listview.setPlaceholder(new Label("An error occurs, please retry later"));
-            }
-
-
+            this.filterJobs();
+            jobs = batch.add(FACADE::getAllJobs);
         }
 
         if(user.getRole() instanceof RolePartner) {
             label.setText("My Job offers");
             listview.setPlaceholder(new Label("You don't have job offer, you can add one from your dashboard"));
-            try{
-                JobList.addAll(FACADE.getMyJobs(user));
-                listview.getItems().setAll(JobList);
-                listview.setCellFactory(lv -> new JobListCell());
-                //listview.getSelectionModel().selectedItemProperty().addListener(observable -> System.out.printf("Valeur sélectionnée: %d", listview.getSelectionModel().getSelectedItem().getIdJob()).println());
-                FilteredList<Job> filteredJob = new FilteredList<>(JobList, j -> true);
-                searchJobTF.textProperty().addListener((observable,oldValue,newValue) -> this.searchJob(observable,oldValue,newValue,filteredJob));
-                SortedList<Job> sortedData = new SortedList<>(filteredJob);
-                listview.setItems(sortedData);
-            }
-            catch (Exception e){
-                listview.setPlaceholder(new Label("An error occurs, please retry later"));
-            }
-
-
+            this.filterJobs();
+            jobs = batch.add(() -> FACADE.getMyJobs(user));
+        }
+        if(jobs == null){
+            return;
         }
+        listview.setCellFactory(lv -> new JobListCell());
+        AsyncLoader.Result<ArrayList<Job>> retrieved = jobs;
+        batch.start(() -> JobList.setAll(retrieved.get()),
+                err -> listview.setPlaceholder(new Label("An error occurs, please retry later")));
+    }
+
+    /**
+     * Display the jobs through the search text field
+     */
+    private void filterJobs() {
+        FilteredList<Job> filteredJob = new FilteredList<>(JobList, j -> true);
+        searchJobTF.textProperty().addListener((observable,oldValue,newValue) -> this.searchJob(observable,oldValue,newValue,filteredJob));
+        SortedList<Job> sortedData = new SortedList<>(filteredJob);
+        listview.setItems(sortedData);
     }
 }
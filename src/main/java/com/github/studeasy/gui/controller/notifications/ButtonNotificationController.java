@@ -82,10 +82,8 @@ public class ButtonNotificationController implements Initializable {
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        try {
-            FACADE.getNumberNotification(this);
-        } catch (Exception e) {
-            setValueLabel(0);
-        }
+        // Nothing is shown until the engine gives the number of notifications
+        setValueLabel(0);
+        FACADE.getNumberNotification(this);
     }
 }
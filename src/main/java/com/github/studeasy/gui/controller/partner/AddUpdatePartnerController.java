@@ -6,6 +6,8 @@ import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.common.role.RolePartner;
 import com.github.studeasy.logic.facades.FacadeUser;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.security.PasswordHashingService;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -138,27 +140,34 @@ public class AddUpdatePartnerController implements Initializable {
         if(this.addUpdate == 0) {
             // We ask the facade to check
             if (!firstname.isEmpty() && !lastname.isEmpty() && !email.isEmpty() && !company.isEmpty() && !password.isEmpty() && !confirmPassword.isEmpty() && !confirmEmail.isEmpty()) {
-                try {
-                    FACADE.submitAddPartner(email, confirmEmail, password, confirmPassword, firstname, lastname, company);
-                    label.setTextFill(Color.GREEN);
-                    label.setText("Success ! ");
-                    emailTF.setText("");
-                    passwordTF.setText("");
-                    firstnameTF.setText("");
-                    lastnameTF.setText("");
-                    companyTF.setText("");
-                    confirmEmailTF.setText("");
-                    confirmPasswordTF.setText("");
-                } catch (SQLIntegrityConstraintViolationException e) {
-                    label.setTextFill(Color.RED);
-                    label.setText("The email address provided already exists in the system, please retry with another email");
-                } catch (BadInformationException e) {
-                    label.setTextFill(Color.RED);
-                    label.setText(e.getMessage());
-                } catch (Exception e) {
-                    label.setTextFill(Color.RED);
-                    label.setText("An error occurs, please retry");
-                }
+                // The password is hashed in the background
+                FACADE.submitAddPartnerAsync(email, confirmEmail, password, confirmPassword, firstname, lastname, company).whenComplete((ok, err) ->
+                        // The view can only be changed from the JavaFX thread
+                        Platform.runLater(() -> {
+                            try {
+                                if (err != null) {
+                                    throw PasswordHashingService.unwrap(err);
+                                }
+                                label.setTextFill(Color.GREEN);
+                                label.setText("Success ! ");
+                                emailTF.setText("");
+                                passwordTF.setText("");
+                                firstnameTF.setText("");
+                                lastnameTF.setText("");
+                                companyTF.setText("");
+                                confirmEmailTF.setText("");
+                                confirmPasswordTF.setText("");
+                            } catch (SQLIntegrityConstraintViolationException e) {
+                                label.setTextFill(Color.RED);
+                                label.setText("The email address provided already exists in the system, please retry with another email");
+                            } catch (BadInformationException e) {
+                                label.setTextFill(Color.RED);
+                                label.setText(e.getMessage());
+                            } catch (Throwable e) {
+                                label.setTextFill(Color.RED);
+                                label.setText("An error occurs, please retry");
+                            }
+                        }));
             } else {
                 label.setTextFill(Color.RED);
                 label.setText("Please fill all the field");
@@ -166,24 +175,30 @@ public class AddUpdatePartnerController implements Initializable {
         }
         else{
             if (!firstname.isEmpty() && !lastname.isEmpty() && !email.isEmpty() && !company.isEmpty()  && !confirmEmail.isEmpty()) {
-                try {
-                    if (AbstractRouter.confirmationBox("Are you sure you want to update this partner ?",
-                            "Confirmation of the update: " + partner.getFirstname() + " " + partner.getLastname(),
-                            "Stud'Easy - Confirmation")) {
-                        FACADE.submitUpdatePartner(email, confirmEmail, password, confirmPassword, firstname, lastname, company, partner);
-                        label.setTextFill(Color.GREEN);
-                        label.setText("Success ! ");
-                    }
-                }
-                catch (SQLIntegrityConstraintViolationException e) {
-                    label.setTextFill(Color.RED);
-                    label.setText("The email address provided already exists in the system, please retry with another email");
-                } catch (BadInformationException e) {
-                    label.setTextFill(Color.RED);
-                    label.setText(e.getMessage());
-                } catch (Exception e) {
-                    label.setTextFill(Color.RED);
-                    label.setText("An error occurs, please retry");
+                if (AbstractRouter.confirmationBox("Are you sure you want to update this partner ?",
+                        "Confirmation of the update: " + partner.getFirstname() + " " + partner.getLastname(),
+                        "Stud'Easy - Confirmation")) {
+                    // The password is hashed in the background
+                    FACADE.submitUpdatePartnerAsync(email, confirmEmail, password, confirmPassword, firstname, lastname, company, partner).whenComplete((ok, err) ->
+                            // The view can only be changed from the JavaFX thread
+                            Platform.runLater(() -> {
+                                try {
+                                    if (err != null) {
+                                        throw PasswordHashingService.unwrap(err);
+                                    }
+                                    label.setTextFill(Color.GREEN);
+                                    label.setText("Success ! ");
+                                } catch (SQLIntegrityConstraintViolationException e) {
+                                    label.setTextFill(Color.RED);
+                                    label.setText("The email address provided already exists in the system, please retry with another email");
+                                } catch (BadInformationException e) {
+                                    label.setTextFill(Color.RED);
+                                    label.setText(e.getMessage());
+                                } catch (Throwable e) {
+                                    label.setTextFill(Color.RED);
+                                    label.setText("An error occurs, please retry");
+                                }
+                            }));
                 }
 
             }
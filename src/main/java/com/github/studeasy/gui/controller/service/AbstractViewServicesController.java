@@ -1,13 +1,18 @@
 package com.github.studeasy.gui.controller.service;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
+import com.github.studeasy.gui.routers.ReusableView;
 import com.github.studeasy.gui.routers.ServiceRouter;
 import com.github.studeasy.gui.routers.UserRouter;
 import com.github.studeasy.logic.common.CategoryTag;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServicePageCursor;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.facades.FacadeService;
 import com.github.studeasy.logic.facades.FacadeUser;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -16,21 +21,25 @@ import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.List;
 
 /**
  * The abstract class used to display all the services
  * Can be specialized into My services for the student, or
  * to see all the services for the admin or the student
  */
-public abstract class AbstractViewServicesController {
+public abstract class AbstractViewServicesController implements ReusableView {
 
     /**
      * The router used by the controller
@@ -46,7 +55,7 @@ public abstract class AbstractViewServicesController {
      * Table view of the services
      */
     @FXML
-    protected TableView servicesTV;
+    protected TableView<Service> servicesTV;
 
     /**
      * Table column of the titles
@@ -125,6 +134,29 @@ public abstract class AbstractViewServicesController {
      */
     protected ObservableList<Service> servicesList;
 
+    /**
+     * The cursor used to scroll through the online services,
+     * null if we display the pending services or the services of the user
+     */
+    private ServicePageCursor onlineCursor;
+
+    /**
+     * Counts the retrievals of the services, the result of one replaced by a newer one is dropped
+     */
+    private int searches;
+
+    /**
+     * Indicates if the next page of online services is being retrieved,
+     * so scrolling doesn't ask for it again meanwhile
+     */
+    private boolean pageLoading;
+
+    /**
+     * Delays the search of the online services until the user stops typing,
+     * null if we display the pending services or the services of the user
+     */
+    private PauseTransition searchDelay;
+
     /**
      * Indicates what services we should display
      * 0 the pending services
@@ -294,6 +326,11 @@ public abstract class AbstractViewServicesController {
         else{
             this.proposeRequestDisplayServices = -1;
         }
+        // The online services are searched by the database
+        if (searchDelay != null) {
+            searchDelay.playFromStart();
+            return;
+        }
         // We update the data to display according to the text fields
         this.filterTitle(null, null, this.filterTitleTF.getText(), filteredData);
         this.filterCategory(null, null, this.filterCategoryTF.getText(), filteredData);
@@ -315,37 +352,198 @@ public abstract class AbstractViewServicesController {
     }
 
     /**
-     * Function initializing the common columns of the table view
+     * Listen to the vertical scroll bar of the table, to retrieve the next
+     * page of online services when the user gets close to the bottom
      */
-    protected void commonInitialize(){
-        // In case we don't have any services
-        servicesTV.setPlaceholder(new Label("There is no service to display"));
-        // According to the role of the user, we won't display the same things
-        // We retrieve all the services and put them in an observable list
+    private void listenScroll(){
+        for (Node node : servicesTV.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar scrollBar = (ScrollBar) node;
+                scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * 0.9) {
+                        this.loadNextPage();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Retrieve the next page of online services in the background and add it to the table
+     * The filters and the sort of the table are applied to the new services
+     */
+    private void loadNextPage(){
+        if (onlineCursor == null || pageLoading || onlineCursor.isExhausted()) {
+            return;
+        }
+        pageLoading = true;
+        int search = searches;
+        ServicePageCursor cursor = onlineCursor;
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(servicesTV);
+        AsyncLoader.Result<List<Service>> page = batch.add(() -> FACADE_SERVICE.nextOnlineServices(cursor));
+        batch.start(() -> {
+            // A new search replaced the services meanwhile
+            if (search != searches) {
+                return;
+            }
+            pageLoading = false;
+            servicesList.addAll(page.get());
+        }, err -> {
+            if (search == searches) {
+                pageLoading = false;
+            }
+            err.printStackTrace();
+        });
+    }
+
+    /**
+     * Search the online services matching the filters and replace the services displayed
+     * Only the first page is retrieved, the others are retrieved while scrolling
+     */
+    private void searchOnline(){
+        // The pages of the previous search are not retrieved anymore
+        int search = ++searches;
+        onlineCursor = null;
+        pageLoading = false;
+        // Nothing to display if no type of service is selected
+        if (proposeRequestDisplayServices == -1) {
+            servicesList.clear();
+            return;
+        }
+        ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+        criteria.setTitle(filterTitleTF.getText());
+        criteria.setCategoryName(filterCategoryTF.getText());
+        if (proposeRequestDisplayServices != 2) {
+            criteria.setTypeService(proposeRequestDisplayServices);
+        }
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(servicesTV);
+        AsyncLoader.Result<ServicePageCursor> cursor = batch.add(() -> FACADE_SERVICE.searchOnlineServices(criteria));
+        AsyncLoader.Result<List<Service>> services = batch.add(() -> FACADE_SERVICE.nextOnlineServices(cursor.get()));
+        batch.start(() -> {
+            // The user changed the filters again meanwhile
+            if (search != searches) {
+                return;
+            }
+            onlineCursor = cursor.get();
+            servicesList.setAll(services.get());
+        }, err -> {
+            err.printStackTrace();
+            if (search == searches) {
+                servicesTV.setPlaceholder(new Label("An error occurs, please retry later"));
+            }
+        });
+    }
+
+    /**
+     * Display the services again when the view kept is displayed again
+     * The filters of the previous visit are forgotten
+     */
+    @Override
+    public void refresh() {
+        proposedCB.setSelected(true);
+        requestedCB.setSelected(true);
+        this.proposeRequestDisplayServices = 2;
+        filterTitleTF.clear();
+        filterCategoryTF.clear();
+        if (searchDelay != null) {
+            // The services are retrieved right below, no need to search them
+            searchDelay.stop();
+        }
+        this.loadServices();
+    }
+
+    /**
+     * Indicates if we display the online services, retrieved page by page
+     * @return true if we display all the services online
+     */
+    private boolean isOnline(){
+        Session session = Session.getInstance();
+        return !(session.isAdmin() && pendingAllServices == 0) && !(session.isStudent() && pendingAllServices == 0);
+    }
+
+    /**
+     * Retrieve the services and the points of the user in the background,
+     * then display them at once
+     */
+    protected void loadServices(){
         Session session = Session.getInstance();
+        // A search or a page still coming is replaced by these services
+        int search = ++searches;
+        onlineCursor = null;
+        pageLoading = false;
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(servicesTV);
+        // For the online services, we retrieve the most recent ones, the others are retrieved while scrolling
+        AsyncLoader.Result<ServicePageCursor> cursor = this.isOnline() ? batch.add(FACADE_SERVICE::openOnlineServices) : null;
+        AsyncLoader.Result<List<Service>> services = cursor != null
+                ? batch.add(() -> FACADE_SERVICE.nextOnlineServices(cursor.get()))
+                : batch.add(this::retrieveServices);
+        // To see how many points they have
+        AsyncLoader.Result<Integer> points = session.isStudent() ? batch.add(FacadeUser.getInstance()::viewPoints) : null;
+        batch.start(() -> {
+            if(points != null){
+                this.pointsUserT.setText(Integer.toString(points.get()));
+                this.yourPointsL.setVisible(true);
+            }
+            // The user searched meanwhile, the services found are kept
+            if (search != searches) {
+                return;
+            }
+            if(cursor != null){
+                onlineCursor = cursor.get();
+            }
+            servicesList.setAll(services.get());
+        }, err -> {
+            err.printStackTrace();
+            servicesTV.setPlaceholder(new Label("An error occurs, please retry later"));
+        });
+    }
+
+    /**
+     * Retrieve the pending services or the services of the user
+     * Called in the background
+     * @return the services
+     */
+    private List<Service> retrieveServices(){
         // Admin managing the pending services
+        if (Session.getInstance().isAdmin()) {
+            // We only retrieve the pending services
+            return FACADE_SERVICE.getPendingServices();
+        }
+        // We only retrieve the services of the user
+        return FACADE_SERVICE.getMyServices();
+    }
+
+    /**
+     * Display what services are displayed, according to the role of the user
+     */
+    private void displayTitle(){
+        Session session = Session.getInstance();
         if (session.isAdmin() && pendingAllServices == 0) {
             this.pendingAllServicesL.setText("Pending Services");
-            // We only retrieve the pending services
-            servicesList = FXCollections.observableArrayList(FACADE_SERVICE.getPendingServices());
         }
         else if(session.isStudent() && pendingAllServices == 0){
             this.pendingAllServicesL.setText("My Services");
-            // We only retrieve the services of the user
-            servicesList = FXCollections.observableArrayList(FACADE_SERVICE.getMyServices());
         }
-        // We display all the services
         else {
             this.pendingAllServicesL.setText("All Services Online");
-            // We retrieve all the services
-            servicesList = FXCollections.observableArrayList(FACADE_SERVICE.getOnlineServices());
         }
-        if(session.isStudent()){
-            FacadeUser facadeUser = FacadeUser.getInstance();
-            // To see how many points he has
-            int pointsUser = facadeUser.viewPoints();
-            this.pointsUserT.setText(Integer.toString(pointsUser));
-            this.yourPointsL.setVisible(true);
+    }
+
+    /**
+     * Function initializing the common columns of the table view
+     */
+    protected void commonInitialize(){
+        // In case we don't have any services
+        servicesTV.setPlaceholder(new Label("There is no service to display"));
+        // According to the role of the user, we won't display the same things
+        // The services are put in an observable list once retrieved
+        servicesList = FXCollections.observableArrayList();
+        this.displayTitle();
+        if (this.isOnline()) {
+            servicesTV.skinProperty().addListener((observable, oldSkin, newSkin) -> this.listenScroll());
+            // The filters are applied by the database, once the user stops typing
+            searchDelay = new PauseTransition(Duration.millis(300));
+            searchDelay.setOnFinished(event -> this.searchOnline());
         }
         // We put the titles of the services on the right column
         titleColumn.setCellValueFactory(
@@ -405,8 +603,14 @@ public abstract class AbstractViewServicesController {
         // We create a filtered list containing the data
         FilteredList<Service> filteredServices = new FilteredList<>(servicesList, p -> true);
         // We associate the text fields with a function listening to what is entered (to filter data)
-        filterCategoryTF.textProperty().addListener((observable,oldValue,newValue) -> this.filterCategory(observable,oldValue,newValue,filteredServices));
-        filterTitleTF.textProperty().addListener((observable,oldValue,newValue) -> this.filterTitle(observable,oldValue,newValue,filteredServices));
+        if (searchDelay != null) {
+            filterCategoryTF.textProperty().addListener((observable,oldValue,newValue) -> searchDelay.playFromStart());
+            filterTitleTF.textProperty().addListener((observable,oldValue,newValue) -> searchDelay.playFromStart());
+        }
+        else {
+            filterCategoryTF.textProperty().addListener((observable,oldValue,newValue) -> this.filterCategory(observable,oldValue,newValue,filteredServices));
+            filterTitleTF.textProperty().addListener((observable,oldValue,newValue) -> this.filterTitle(observable,oldValue,newValue,filteredServices));
+        }
         // We do the same with the checkboxes to filter the services according to their type
         proposedCB.setOnAction((event) -> this.updateSelection(event,filteredServices));
         requestedCB.setOnAction((event) -> this.updateSelection(event,filteredServices));
@@ -415,5 +619,7 @@ public abstract class AbstractViewServicesController {
         sortedData.comparatorProperty().bind(servicesTV.comparatorProperty());
         // We add the sorted data in the table
         servicesTV.setItems(sortedData);
+        // The services are retrieved in the background, the table shows a skeleton meanwhile
+        this.loadServices();
     }
 }
\ No newline at end of file
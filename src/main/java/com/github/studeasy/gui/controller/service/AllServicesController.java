@@ -1,7 +1,10 @@
 package com.github.studeasy.gui.controller.service;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 
 import javafx.fxml.FXML;
@@ -9,6 +12,8 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -22,6 +27,30 @@ public class AllServicesController extends AbstractViewServicesController implem
     @FXML
     private TableColumn<Service,String> ownerColumn;
 
+    /**
+     * To validate the pending services selected
+     */
+    @FXML
+    private Button validateSelectedB;
+
+    /**
+     * To reject the pending services selected
+     */
+    @FXML
+    private Button rejectSelectedB;
+
+    /**
+     * Shows how many of the services selected are reviewed
+     */
+    @FXML
+    private ProgressBar reviewPB;
+
+    /**
+     * Tells the admin the result of the review
+     */
+    @FXML
+    private Label reviewL;
+
     /**
      * Create the controller with the router, the facade
      * @param pendingAllServices indicates if we manage or if we see services
@@ -47,5 +76,55 @@ public class AllServicesController extends AbstractViewServicesController implem
         });
         // We ask the parent to initialize some part of the table
         this.commonInitialize();
+        // The admin can review many pending services at once
+        if (Session.getInstance().isAdmin() && pendingAllServices == 0) {
+            servicesTV.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+            validateSelectedB.setVisible(true);
+            rejectSelectedB.setVisible(true);
+            validateSelectedB.setOnAction(event -> this.reviewSelected(true));
+            rejectSelectedB.setOnAction(event -> this.reviewSelected(false));
+        }
+    }
+
+    /**
+     * Validate or reject the services selected by the admin in the background,
+     * the progress bar follows the batches sent to the database
+     * @param validate true to validate the services, false to reject them
+     */
+    private void reviewSelected(boolean validate) {
+        List<Service> selected = new ArrayList<>(servicesTV.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            reviewL.setText("Select the services first");
+            return;
+        }
+        int total = selected.size();
+        this.setReviewing(true);
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(reviewPB);
+        AsyncLoader.Result<Integer> reviewed = batch.add(() -> FACADE_SERVICE.reviewServices(selected, validate,
+                done -> Platform.runLater(() -> reviewPB.setProgress((double) done / total))));
+        batch.start(() -> {
+            this.setReviewing(false);
+            reviewL.setText(reviewed.get() + " service(s) " + (validate ? "validated" : "rejected"));
+            // The services reviewed are not pending anymore
+            this.loadServices();
+        }, err -> {
+            err.printStackTrace();
+            this.setReviewing(false);
+            reviewL.setText("An error occurs, no service was changed");
+        });
+    }
+
+    /**
+     * Show the progress bar and disable the buttons while reviewing
+     * @param reviewing true while the services are reviewed
+     */
+    private void setReviewing(boolean reviewing) {
+        validateSelectedB.setDisable(reviewing);
+        rejectSelectedB.setDisable(reviewing);
+        reviewPB.setProgress(0);
+        reviewPB.setVisible(reviewing);
+        if (reviewing) {
+            reviewL.setText("");
+        }
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.github.studeasy.gui.controller.service;
 
+import com.github.studeasy.dao.exceptions.InsufficientPointsException;
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.CommandOfServiceRouter;
 import com.github.studeasy.gui.routers.FeedbackRouter;
+import com.github.studeasy.gui.routers.ReusableView;
 import com.github.studeasy.gui.routers.ServiceRouter;
 import com.github.studeasy.logic.common.*;
 import com.github.studeasy.logic.common.role.RoleStudent;
@@ -28,7 +30,7 @@ import java.util.ResourceBundle;
 /**
  * The controller used to see one service
  */
-public class ViewServiceController implements Initializable {
+public class ViewServiceController implements Initializable, ReusableView {
 
     /**
      * The router used by the controller
@@ -354,6 +356,10 @@ public class ViewServiceController implements Initializable {
             errL.setTextFill(Paint.valueOf("red"));
             errL.setText(errorCommand.getMessage());
         }
+        catch (InsufficientPointsException err){
+            errL.setTextFill(Paint.valueOf("red"));
+            errL.setText("You don't have enough points to buy this service");
+        }
         catch (Exception e){
             errL.setTextFill(Paint.valueOf("red"));
             errL.setText("Service not available");
@@ -369,7 +375,31 @@ public class ViewServiceController implements Initializable {
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        this.refresh();
+    }
+
+    /**
+     * Give another service to the controller, when its view is displayed again
+     * @param service the service to display
+     * @param pendingAllServices to know where the user comes from
+     */
+    public void setService(Service service, int pendingAllServices) {
+        this.service = service;
+        this.pendingAllServices = pendingAllServices;
+    }
 
+    /**
+     * Display the service, the buttons shown for the previous one are hidden first
+     */
+    @Override
+    public void refresh() {
+        deleteB.setVisible(false);
+        updateB.setVisible(false);
+        applyBuyServiceB.setVisible(false);
+        validateB.setVisible(false);
+        viewFeedbacksB.setVisible(false);
+        errL.setText("");
+        this.statusImage.setImage(null);
         // We fulfill all the fields
         this.titleService.setText(this.service.getTitle());
         // We give a better format to the date
@@ -2,34 +2,268 @@ package com.github.studeasy.gui.controller.user;
 
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.UserRouter;
-import com.github.studeasy.logic.facades.FacadeUser;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.metrics.Counter;
+import com.github.studeasy.logic.metrics.FxWatchdog;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.SlowQueryLog;
+import com.github.studeasy.logic.metrics.Timer;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.function.Function;
 
+/**
+ * The performance dashboard of the admin
+ * It shows the metrics of the application: the time of the calls of each DAO method
+ * and facade, the time each screen waits for its data, the time the JavaFX thread is blocked,
+ * the waits for a connection, the last slow queries and the controllers which blocked the
+ * JavaFX thread. It is refreshed while it is displayed
+ */
 public class AdminDashboardController implements Initializable {
 
+    /**
+     * Format of the time of the slow queries
+     */
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("dd/MM HH:mm:ss");
+
+    /**
+     * Prefix of the timers of the stalls of the JavaFX thread
+     */
+    private static final String STALL = "fx.stall.";
+
     /**
      * The router used by the controller
      */
     private final AbstractRouter ROUTER;
 
     /**
-     /**
-     * The facade used by the controller
+     * The metrics displayed
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * Only the metrics whose name contains this text are displayed
+     */
+    @FXML
+    private TextField filterTF;
+
+    /**
+     * The table of the timers
+     */
+    @FXML
+    private TableView<Timer> metricsTable;
+
+    /**
+     * Columns of the timers: name, calls, errors and durations
+     */
+    @FXML
+    private TableColumn<Timer, String> nameColumn;
+    @FXML
+    private TableColumn<Timer, Long> countColumn;
+    @FXML
+    private TableColumn<Timer, Long> errorsColumn;
+    @FXML
+    private TableColumn<Timer, String> averageColumn;
+    @FXML
+    private TableColumn<Timer, String> p50Column;
+    @FXML
+    private TableColumn<Timer, String> p95Column;
+    @FXML
+    private TableColumn<Timer, String> p99Column;
+    @FXML
+    private TableColumn<Timer, String> maxColumn;
+
+    /**
+     * The counters and the gauges
+     */
+    @FXML
+    private TextArea gaugesTA;
+
+    /**
+     * The table of the last slow queries
+     */
+    @FXML
+    private TableView<SlowQueryLog.SlowQuery> slowQueriesTable;
+
+    /**
+     * Columns of the slow queries: time, duration, DAO and facade, SQL
+     */
+    @FXML
+    private TableColumn<SlowQueryLog.SlowQuery, String> timeColumn;
+    @FXML
+    private TableColumn<SlowQueryLog.SlowQuery, String> durationColumn;
+    @FXML
+    private TableColumn<SlowQueryLog.SlowQuery, String> sourceColumn;
+    @FXML
+    private TableColumn<SlowQueryLog.SlowQuery, String> sqlColumn;
+
+    /**
+     * The table of the controllers which blocked the JavaFX thread
+     */
+    @FXML
+    private TableView<Timer> stallsTable;
+
+    /**
+     * Columns of the stalls: controller, number of stalls, longest stall
      */
-    private final FacadeUser FACADE;
+    @FXML
+    private TableColumn<Timer, String> controllerColumn;
+    @FXML
+    private TableColumn<Timer, Long> stallsColumn;
+    @FXML
+    private TableColumn<Timer, String> longestColumn;
+
+    /**
+     * The stack of the last stall of the controller selected
+     */
+    @FXML
+    private TextArea stackTA;
+
+    /**
+     * Refreshes the dashboard while it is displayed
+     */
+    private Timeline refresher;
 
     public AdminDashboardController(){
         this.ROUTER = UserRouter.getInstance();
-        this.FACADE = FacadeUser.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
+
+    /**
+     * Load the view to return to the admin dashboard
+     * @param event The event triggering the function
+     * @throws IOException if an error occurs
+     */
+    public void cancel(ActionEvent event) throws IOException {
+        ((UserRouter)ROUTER).backToDashboard(event);
+    }
+
+    /**
+     * Read the metrics again
+     * @param event The event triggering the function
+     */
+    public void refresh(ActionEvent event) {
+        this.refresh();
+    }
+
+    /**
+     * Forget the metrics measured so far, to measure a new scenario
+     * @param event The event triggering the function
+     */
+    public void reset(ActionEvent event) {
+        if (AbstractRouter.confirmationBox("Are you sure you want to reset the metrics ?",
+                "The metrics measured so far will be lost", "Stud'Easy - Confirmation")) {
+            METRICS.reset();
+            this.refresh();
+        }
+    }
+
+    /**
+     * Read the metrics and display them
+     * They are all in memory, so they are read on the JavaFX thread
+     */
+    private void refresh() {
+        String filter = filterTF.getText() == null ? "" : filterTF.getText().trim().toLowerCase();
+        List<Timer> timers = new ArrayList<>();
+        List<Timer> stalls = new ArrayList<>();
+        for (Timer timer : METRICS.getTimers()) {
+            if (timer.getName().toLowerCase().contains(filter)) {
+                timers.add(timer);
+            }
+            if (timer.getName().startsWith(STALL)) {
+                stalls.add(timer);
+            }
+        }
+        metricsTable.getItems().setAll(timers);
+        // The timers are the same objects, their values changed
+        metricsTable.refresh();
+        // The controllers blocking the thread the most often first
+        stalls.sort((first, second) -> Long.compare(second.getCount(), first.getCount()));
+        Timer selected = stallsTable.getSelectionModel().getSelectedItem();
+        stallsTable.getItems().setAll(stalls);
+        stallsTable.refresh();
+        if (selected != null && stalls.contains(selected)) {
+            stallsTable.getSelectionModel().select(selected);
+        }
+        StringBuilder text = new StringBuilder();
+        for (Counter counter : METRICS.getCounters()) {
+            text.append(counter.getName()).append(": ").append(counter.getCount()).append('\n');
+        }
+        for (Map.Entry<String, Double> gauge : METRICS.getGauges().entrySet()) {
+            text.append(gauge.getKey()).append(": ").append(String.format("%.0f", gauge.getValue())).append('\n');
+        }
+        gaugesTA.setText(text.toString());
+        slowQueriesTable.getItems().setAll(METRICS.getSlowQueries().getLast());
+    }
+
+    /**
+     * Function from the interface Initializable
+     * Make changes to the controller and its view before
+     * the view appears on the client side
+     * @param url
+     * @param resourceBundle
+     */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getName()));
+        countColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCount()));
+        errorsColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getErrors()));
+        millis(averageColumn, Timer::getAverageMillis);
+        millis(p50Column, timer -> timer.getPercentileMillis(50));
+        millis(p95Column, timer -> timer.getPercentileMillis(95));
+        millis(p99Column, timer -> timer.getPercentileMillis(99));
+        millis(maxColumn, Timer::getMaxMillis);
+        timeColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(TIME.format(cell.getValue().getTime())));
+        durationColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(String.format("%.1f", cell.getValue().getMillis())));
+        sourceColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getSource()));
+        sqlColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+                (cell.getValue().isFailed() ? "FAILED " : "") + cell.getValue().getSql().replaceAll("\\s+", " ")));
+        controllerColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getName().substring(STALL.length())));
+        stallsColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCount()));
+        millis(longestColumn, Timer::getMaxMillis);
+        stallsTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            String stack = newValue == null ? null
+                    : FxWatchdog.getInstance().getLastStack(newValue.getName().substring(STALL.length()));
+            stackTA.setText(stack == null ? "" : stack);
+        });
+        filterTF.textProperty().addListener((observable, oldValue, newValue) -> this.refresh());
+        this.refresh();
+        long delay = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE).getLong("METRICS_PANEL_REFRESH_MS", 2000);
+        refresher = new Timeline(new KeyFrame(Duration.millis(Math.max(500, delay)), event -> this.refresh()));
+        refresher.setCycleCount(Animation.INDEFINITE);
+        refresher.play();
+        // The dashboard stops refreshing once the user left it
+        metricsTable.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null) {
+                refresher.stop();
+            }
+        });
     }
 
+    /**
+     * Display a duration in a column
+     * @param column the column
+     * @param value gives the duration of a timer (in ms)
+     */
+    private static void millis(TableColumn<Timer, String> column, Function<Timer, Double> value) {
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(String.format("%.2f", value.apply(cell.getValue()))));
+    }
 }
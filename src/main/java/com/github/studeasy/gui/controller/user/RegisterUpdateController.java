@@ -7,6 +7,8 @@ import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.common.role.RoleStudent;
 import com.github.studeasy.logic.facades.FacadeUser;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.security.PasswordHashingService;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -136,29 +138,38 @@ public class RegisterUpdateController implements Initializable {
         String pseudo = pseudoTF.getText();
         //If all the fields aren't empty
         if(!firstName.isEmpty() && !lastName.isEmpty() && !email.isEmpty() && !pseudo.isEmpty()){
-            try {
-                String key = FACADE.registerUpdate(firstName,lastName,pseudo,email,confirmEmail,password,confirmPassword,0);
-                registerUpdateB.setVisible(false);
-                FACADE.sendMail(email,key);
-                ((UserRouter)ROUTER).confirmUser(UserRouter.CONFIRM_USER_FXML_PATH,event,email);
-
-            }catch (BadInformationException exception){
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText(exception.getMessage());
-
-            }
-            catch (SQLIntegrityConstraintViolationException e){
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText("There is already an account with this email");
-            }
-            catch (Exception e){
-                e.printStackTrace();
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText("Error, Try again later");
-            }
+            // The password is hashed in the background, the user can't register twice meanwhile
+            registerUpdateB.setDisable(true);
+            FACADE.registerAsync(firstName,lastName,pseudo,email,confirmEmail,password,confirmPassword).whenComplete((key, err) ->
+                    // The view can only be changed from the JavaFX thread
+                    Platform.runLater(() -> {
+                        registerUpdateB.setDisable(false);
+                        try {
+                            if(err != null){
+                                throw PasswordHashingService.unwrap(err);
+                            }
+                            registerUpdateB.setVisible(false);
+                            FACADE.sendMail(email,key);
+                            ((UserRouter)ROUTER).confirmUser(UserRouter.CONFIRM_USER_FXML_PATH,event,email);
+
+                        }catch (BadInformationException exception){
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText(exception.getMessage());
+
+                        }
+                        catch (SQLIntegrityConstraintViolationException e){
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText("There is already an account with this email");
+                        }
+                        catch (Throwable e){
+                            e.printStackTrace();
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText("Error, Try again later");
+                        }
+                    }));
         }else{
             registerFailLabel.setAlignment(Pos.CENTER);
             registerFailLabel.setTextFill(Paint.valueOf("red"));
@@ -188,28 +199,39 @@ public class RegisterUpdateController implements Initializable {
         String pseudo = pseudoTF.getText();
         //If all the fields aren't empty
         if(!firstName.isEmpty() && !lastName.isEmpty() && !email.isEmpty() && !pseudo.isEmpty()){
-            try {
-                FACADE.registerUpdate(firstName,lastName,pseudo,email,confirmEmail,password,confirmPassword,1);
-                ROUTER.changeView(UserRouter.PROFILE_USER_FXML_PATH,event);
-
-
-            }catch (BadInformationException exception){
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText(exception.getMessage());
-
-            }
-            catch (SQLIntegrityConstraintViolationException e){
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText("There is already an account with this email");
-            }
-            catch (Exception e){
-                e.printStackTrace();
-                registerFailLabel.setAlignment(Pos.CENTER);
-                registerFailLabel.setTextFill(Paint.valueOf("red"));
-                registerFailLabel.setText("Error, Try again later");
+            // The user confirms on the JavaFX thread, before the password is hashed
+            if(!AbstractRouter.confirmationBox("Are your sure ?","Update your profile","Warning")){
+                return;
             }
+            // The password is hashed in the background, the user can't update twice meanwhile
+            registerUpdateB.setDisable(true);
+            FACADE.updateProfileAsync(firstName,lastName,pseudo,email,confirmEmail,password,confirmPassword).whenComplete((ok, err) ->
+                    // The view can only be changed from the JavaFX thread
+                    Platform.runLater(() -> {
+                        registerUpdateB.setDisable(false);
+                        try {
+                            if(err != null){
+                                throw PasswordHashingService.unwrap(err);
+                            }
+                            ROUTER.changeView(UserRouter.PROFILE_USER_FXML_PATH,event);
+                        }catch (BadInformationException exception){
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText(exception.getMessage());
+
+                        }
+                        catch (SQLIntegrityConstraintViolationException e){
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText("There is already an account with this email");
+                        }
+                        catch (Throwable e){
+                            e.printStackTrace();
+                            registerFailLabel.setAlignment(Pos.CENTER);
+                            registerFailLabel.setTextFill(Paint.valueOf("red"));
+                            registerFailLabel.setText("Error, Try again later");
+                        }
+                    }));
         }else{
             registerFailLabel.setAlignment(Pos.CENTER);
             registerFailLabel.setTextFill(Paint.valueOf("red"));
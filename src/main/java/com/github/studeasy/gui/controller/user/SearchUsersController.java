@@ -1,5 +1,6 @@
 package com.github.studeasy.gui.controller.user;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.gui.routers.UserRouter;
 import com.github.studeasy.logic.common.User;
@@ -143,8 +144,8 @@ public class SearchUsersController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         // In case we don't have any user
         studentManagement.setPlaceholder(new Label("There is currently no category to display"));
-        // We retrieve all the categories and put them in an observable list
-        studentList = FXCollections.observableArrayList(FACADE.seeAllUsers());
+        // The users are put in an observable list once retrieved
+        studentList = FXCollections.observableArrayList();
         // We put the names of the users on the right column
         firstNameColumn.setCellValueFactory(
                 new PropertyValueFactory<User,String>("firstname")
@@ -177,6 +178,13 @@ public class SearchUsersController implements Initializable {
             });
             return row ;
         });
-
+        // The users are retrieved in the background, the table shows a skeleton until the first of them
+        // They are displayed as they come, so a large number of students doesn't wait for the last one
+        AsyncLoader.Batch batch = AsyncLoader.getInstance().batch(studentManagement);
+        batch.stream(FACADE::streamAllUsers, studentList::addAll);
+        batch.start(() -> { }, err -> {
+            err.printStackTrace();
+            studentManagement.setPlaceholder(new Label("An error occurs, please retry later"));
+        });
     }
 }
@@ -1,10 +1,11 @@
 package com.github.studeasy.gui.routers;
 
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.SessionI;
+import com.github.studeasy.logic.facades.FacadeNotification;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.ButtonType;
@@ -77,14 +78,13 @@ public abstract class AbstractRouter {
 
     /**
      * Allows to change the view (the fxml file to display)
+     * The view comes from the cache when it was kept
      * @param pathFXML the path indicating where is the fxml
      * @return the Parent with the FXML loaded
      * @throws IOException if an error occurs while loading the fxml
      */
     public static Parent load(String pathFXML) throws IOException {
-        FXMLLoader loader = new FXMLLoader();
-        Parent p= loader.load(AbstractRouter.class.getClassLoader().getResource(pathFXML));
-        return p;
+        return ViewCache.getInstance().load(pathFXML);
     }
 
     /**
@@ -110,9 +110,15 @@ public abstract class AbstractRouter {
         Node node = (Node)event.getSource();
         // We now retrieve the current window, to update it properly
         dialogStage = (Stage) node.getScene().getWindow();
+        // The data still loading for the view we leave won't be displayed
+        if (dialogStage.getScene().getRoot() != root) {
+            AsyncLoader.getInstance().cancel(dialogStage.getScene());
+        }
         // We load the new fxml and make it visible then
         dialogStage.getScene().setRoot(root);
         dialogStage.show();
+        // The cached views are not initialized again, the navigation itself tells the user is active
+        FacadeNotification.getInstance().userActivity();
     }
 
     /**
@@ -0,0 +1,15 @@
+package com.github.studeasy.gui.routers;
+
+/**
+ * A controller whose view can be kept by the ViewCache and displayed again
+ * Instead of building the view again, the cache gives it its new parameters
+ * and asks it to display fresh data
+ */
+public interface ReusableView {
+
+    /**
+     * Called each time the kept view is displayed again
+     * It must display the current data, as initialize did the first time
+     */
+    void refresh();
+}
@@ -5,7 +5,6 @@ import com.github.studeasy.logic.common.Service;
 import com.github.studeasy.logic.common.Session;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 
 import java.io.IOException;
@@ -70,13 +69,10 @@ public class ServiceRouter extends AbstractRouter{
      * @throws IOException if an error occurs
      */
     public void proposeOrRequestService(String pathFXML, ActionEvent event, int proposeRequest, int origin, Service service) throws IOException {
-        // We load the right FXML
-        FXMLLoader loader = new FXMLLoader(AbstractRouter.class.getClassLoader().getResource(pathFXML));
         // We create the controller with proposeRequest telling if we propose or request
         ProposeAskServiceController proposeAskServiceController = new ProposeAskServiceController(proposeRequest, origin, service);
-        // We link this controller with the FXML
-        loader.setController(proposeAskServiceController);
-        Parent root = loader.load();
+        // The form is always built empty, only the FXML is kept
+        Parent root = ViewCache.getInstance().build(pathFXML, proposeAskServiceController);
         // And we change the view
         this.changeView(event,root);
     }
@@ -90,13 +86,10 @@ public class ServiceRouter extends AbstractRouter{
      * @throws IOException if an error occurs
      */
     public void viewService(String pathFXML, Event event, Service service, int pendingAllServices) throws IOException {
-        // We load the right FXML
-        FXMLLoader loader = new FXMLLoader(AbstractRouter.class.getClassLoader().getResource(pathFXML));
-        // We create the controller with the service
-        ViewServiceController viewServiceController = new ViewServiceController( service, pendingAllServices);
-        // We link this controller with the FXML
-        loader.setController(viewServiceController);
-        Parent root = loader.load();
+        // We create the controller with the service, or give the service to the one kept
+        Parent root = ViewCache.getInstance().load(pathFXML, pathFXML, ViewServiceController.class,
+                () -> new ViewServiceController(service, pendingAllServices),
+                controller -> controller.setService(service, pendingAllServices));
         // And we change the view
         this.changeView(event,root);
     }
@@ -109,22 +102,19 @@ public class ServiceRouter extends AbstractRouter{
      * @throws IOException if an error occurs
      */
     public void viewAllServices(String pathFXML, Event event, int pendingAllServices) throws IOException {
-        // We load the right FXML
-        FXMLLoader loader = new FXMLLoader(AbstractRouter.class.getClassLoader().getResource(pathFXML));
         Session session = Session.getInstance();
-        // We create the controller
-        AbstractViewServicesController abstractViewServicesController;
+        // We create the controller, the pending and the online services are kept apart
+        Parent root;
         if(session.isStudent() && pendingAllServices == 0){
-            // The student wants to see his services
-            abstractViewServicesController = new MyServicesController(pendingAllServices);
+            // The student wants to see their services
+            root = ViewCache.getInstance().load(pathFXML + "#" + pendingAllServices, pathFXML, MyServicesController.class,
+                    () -> new MyServicesController(pendingAllServices), controller -> {});
         }
         else{
             // The user wants to see all the services
-            abstractViewServicesController = new AllServicesController(pendingAllServices);
+            root = ViewCache.getInstance().load(pathFXML + "#" + pendingAllServices, pathFXML, AllServicesController.class,
+                    () -> new AllServicesController(pendingAllServices), controller -> {});
         }
-        // We link this controller with the FXML
-        loader.setController(abstractViewServicesController);
-        Parent root = loader.load();
         // And we change the view
         this.changeView(event,root);
     }
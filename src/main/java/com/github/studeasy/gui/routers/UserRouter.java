@@ -151,6 +151,11 @@ public class UserRouter extends AbstractRouter {
      */
     private final static String MANAGE_PARTNER_FXML_PATH = "views/partner/partnerManagement.fxml";
 
+    /**
+     * Path to the fxml file of the performance dashboard
+     */
+    private final static String ADMIN_DASHBOARD_FXML_PATH = "views/user/adminDashboard.fxml";
+
     /**
      * Function loading the appropriate view for the connecting user
      * @param event the action triggering this method
@@ -200,6 +205,15 @@ public class UserRouter extends AbstractRouter {
     public void managePartner(ActionEvent event) throws IOException{
         adminRestricted(MANAGE_PARTNER_FXML_PATH,event);
     }
+
+    /**
+     * Load the performance dashboard, for the admin only
+     * @param event the event triggering the change of view
+     * @throws IOException if an error occurs
+     */
+    public void adminDashboard(ActionEvent event) throws IOException{
+        adminRestricted(ADMIN_DASHBOARD_FXML_PATH,event);
+    }
     /**
      * Function loading dashboard for each kind of user
      * @param event the action triggering this method
@@ -0,0 +1,364 @@
+package com.github.studeasy.gui.routers;
+
+import com.github.studeasy.logic.common.Session;
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.RollingFile;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Class singleton, keeping the views so the navigation doesn't build them each time
+ * The fxml files are read once and kept in memory. The views whose controller is a
+ * ReusableView are kept too, the most recently used first: when the user comes back
+ * to one of them, the controller receives its new parameters and refreshes its data
+ * instead of building the whole view again.
+ * A view is only given back to the user who built it.
+ * The time of each navigation is measured, the slow ones are printed
+ */
+public class ViewCache {
+
+    /**
+     * Singleton of the ViewCache
+     */
+    private static ViewCache viewCache = null;
+
+    /**
+     * Format of the time of the slow navigations in the file
+     */
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * A view kept, with its controller and the user it was built for
+     */
+    private static class View {
+        private final Parent root;
+        private final Object controller;
+        private final int idUser;
+
+        private View(Parent root, Object controller, int idUser) {
+            this.root = root;
+            this.controller = controller;
+            this.idUser = idUser;
+        }
+    }
+
+    /**
+     * The times measured for the navigations to a view
+     */
+    public static class NavigationStats {
+        private long count;
+        private long reused;
+        private long totalNanos;
+        private long maxNanos;
+
+        private synchronized void add(long nanos, boolean reusedView) {
+            count++;
+            if (reusedView) {
+                reused++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getReused() {
+            return reused;
+        }
+
+        public synchronized double getAverageMs() {
+            return count == 0 ? 0 : totalNanos / 1e6 / count;
+        }
+
+        public synchronized double getMaxMs() {
+            return maxNanos / 1e6;
+        }
+    }
+
+    /**
+     * The content of the fxml files read, by path
+     */
+    private final ConcurrentHashMap<String, byte[]> TEMPLATES;
+
+    /**
+     * The views kept, by key, the least recently used first
+     */
+    private final LinkedHashMap<String, View> VIEWS;
+
+    /**
+     * The times of the navigations, by path
+     */
+    private final ConcurrentHashMap<String, NavigationStats> STATISTICS;
+
+    /**
+     * Maximum number of views kept
+     */
+    private final int maxViews;
+
+    /**
+     * A navigation longer than this is written to the file of the slow navigations (in ns)
+     */
+    private final long slowNanos;
+
+    /**
+     * The file of the slow navigations, null to only time them
+     */
+    private final RollingFile SLOW_FILE;
+
+    /**
+     * Create the cache
+     * @param maxViews maximum number of views kept, 0 to keep none
+     * @param slowMs a navigation longer than this is written to the file of the slow navigations (in ms)
+     * @param slowFile the file of the slow navigations, null to only time them
+     */
+    public ViewCache(int maxViews, long slowMs, RollingFile slowFile) {
+        this.SLOW_FILE = slowFile;
+        this.TEMPLATES = new ConcurrentHashMap<>();
+        this.STATISTICS = new ConcurrentHashMap<>();
+        this.maxViews = Math.max(0, maxViews);
+        this.slowNanos = slowMs * 1000000L;
+        this.VIEWS = new LinkedHashMap<String, View>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+                return size() > ViewCache.this.maxViews;
+            }
+        };
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized ViewCache getInstance() {
+        if (viewCache == null) {
+            ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+            viewCache = new ViewCache(settings.getInt("VIEW_CACHE_SIZE", 8),
+                    settings.getLong("NAVIGATION_SLOW_MS", 200), MetricsRegistry.file("slow-navigations"));
+        }
+        return viewCache;
+    }
+
+    /**
+     * Read fxml files in the background, so the first navigations don't wait for the disk
+     * @param paths the paths of the fxml files
+     */
+    public void preload(Collection<String> paths) {
+        Thread thread = new Thread(() -> {
+            for (String path : paths) {
+                try {
+                    this.template(path);
+                } catch (IOException err) {
+                    err.printStackTrace();
+                }
+            }
+        }, "studeasy-view-preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Retrieve a view whose controller is given by the fxml file
+     * The view is kept if its controller is a ReusableView
+     * @param pathFXML the path to the fxml file
+     * @return the view, refreshed if it was kept
+     * @throws IOException if an error occurs while loading the fxml
+     */
+    public Parent load(String pathFXML) throws IOException {
+        long start = System.nanoTime();
+        View view = this.take(pathFXML, ReusableView.class);
+        if (view != null) {
+            ((ReusableView) view.controller).refresh();
+            this.record(pathFXML, start, true);
+            return view.root;
+        }
+        FXMLLoader loader = this.loader(pathFXML);
+        Parent root = this.build(loader, pathFXML);
+        this.keep(pathFXML, root, loader.getController());
+        this.record(pathFXML, start, false);
+        return root;
+    }
+
+    /**
+     * Retrieve a view whose controller is created by the router
+     * If the view is kept, its controller receives the new parameters instead of being created again
+     * @param key identifies the view kept, the same fxml can be kept for different uses
+     * @param pathFXML the path to the fxml file
+     * @param type the class of the controller
+     * @param create creates the controller with its parameters
+     * @param rebind gives the parameters to a controller kept
+     * @param <C> the type of the controller
+     * @return the view, refreshed if it was kept
+     * @throws IOException if an error occurs while loading the fxml
+     */
+    public <C extends ReusableView> Parent load(String key, String pathFXML, Class<C> type,
+                                                Supplier<C> create, Consumer<C> rebind) throws IOException {
+        long start = System.nanoTime();
+        View view = this.take(key, type);
+        if (view != null) {
+            C controller = type.cast(view.controller);
+            rebind.accept(controller);
+            controller.refresh();
+            this.record(pathFXML, start, true);
+            return view.root;
+        }
+        FXMLLoader loader = this.loader(pathFXML);
+        loader.setController(create.get());
+        Parent root = this.build(loader, pathFXML);
+        this.keep(key, root, loader.getController());
+        this.record(pathFXML, start, false);
+        return root;
+    }
+
+    /**
+     * Build a view which is not kept, with the fxml file read once
+     * @param pathFXML the path to the fxml file
+     * @param controller the controller of the view
+     * @return the view
+     * @throws IOException if an error occurs while loading the fxml
+     */
+    public Parent build(String pathFXML, Object controller) throws IOException {
+        long start = System.nanoTime();
+        FXMLLoader loader = this.loader(pathFXML);
+        loader.setController(controller);
+        Parent root = this.build(loader, pathFXML);
+        this.record(pathFXML, start, false);
+        return root;
+    }
+
+    /**
+     * Forget the views kept, when the user disconnects
+     */
+    public synchronized void clear() {
+        VIEWS.clear();
+    }
+
+    /**
+     * Retrieve the times of the navigations
+     * @return the times, by path of the fxml file
+     */
+    public Map<String, NavigationStats> getStatistics() {
+        return Collections.unmodifiableMap(STATISTICS);
+    }
+
+    /**
+     * Take a view kept for the current user
+     * @param key identifies the view
+     * @param type the class its controller must have
+     * @return the view, null if none is kept
+     */
+    private synchronized View take(String key, Class<?> type) {
+        View view = VIEWS.get(key);
+        if (view == null) {
+            return null;
+        }
+        if (view.idUser != currentUser() || !type.isInstance(view.controller)) {
+            // Built for someone else, or for another controller
+            VIEWS.remove(key);
+            return null;
+        }
+        return view;
+    }
+
+    /**
+     * Keep a view if its controller can refresh it
+     * @param key identifies the view
+     * @param root the view
+     * @param controller the controller of the view
+     */
+    private synchronized void keep(String key, Parent root, Object controller) {
+        if (maxViews > 0 && controller instanceof ReusableView) {
+            VIEWS.put(key, new View(root, controller, currentUser()));
+        }
+    }
+
+    /**
+     * Create a loader for a fxml file
+     * The location is needed for the paths of the css, images and includes
+     * @param pathFXML the path to the fxml file
+     * @return the loader
+     * @throws IOException if the file doesn't exist
+     */
+    private FXMLLoader loader(String pathFXML) throws IOException {
+        URL location = ViewCache.class.getClassLoader().getResource(pathFXML);
+        if (location == null) {
+            throw new IOException("The view " + pathFXML + " doesn't exist");
+        }
+        return new FXMLLoader(location);
+    }
+
+    /**
+     * Build a view from the fxml file in memory
+     * @param loader the loader of the view
+     * @param pathFXML the path to the fxml file
+     * @return the view
+     * @throws IOException if an error occurs while loading the fxml
+     */
+    private Parent build(FXMLLoader loader, String pathFXML) throws IOException {
+        return loader.load(new ByteArrayInputStream(this.template(pathFXML)));
+    }
+
+    /**
+     * Retrieve the content of a fxml file, reading it the first time
+     * @param pathFXML the path to the fxml file
+     * @return the content of the file
+     * @throws IOException if the file can't be read
+     */
+    private byte[] template(String pathFXML) throws IOException {
+        byte[] template = TEMPLATES.get(pathFXML);
+        if (template == null) {
+            try (InputStream in = ViewCache.class.getClassLoader().getResourceAsStream(pathFXML)) {
+                if (in == null) {
+                    throw new IOException("The view " + pathFXML + " doesn't exist");
+                }
+                template = in.readAllBytes();
+            }
+            TEMPLATES.putIfAbsent(pathFXML, template);
+        }
+        return template;
+    }
+
+    /**
+     * Measure a navigation
+     * @param pathFXML the path to the fxml file
+     * @param start when the navigation started (in ns)
+     * @param reused true if the view was kept
+     */
+    private void record(String pathFXML, long start, boolean reused) {
+        long nanos = System.nanoTime() - start;
+        STATISTICS.computeIfAbsent(pathFXML, path -> new NavigationStats()).add(nanos, reused);
+        // The navigations run on the JavaFX thread, the views are frozen meanwhile
+        MetricsRegistry.getInstance().timer("navigation." + pathFXML).record(nanos);
+        if (SLOW_FILE != null && nanos > slowNanos) {
+            SLOW_FILE.write(String.format("%s navigation to %s took %.0f ms%s", TIME.format(LocalDateTime.now()),
+                    pathFXML, nanos / 1e6, reused ? " (view kept)" : ""));
+        }
+    }
+
+    /**
+     * Retrieve the id of the current user
+     * @return the id, -1 if nobody is connected
+     */
+    private static int currentUser() {
+        User user = Session.getInstance().getCurrentUser();
+        return user == null ? -1 : user.getIdUser();
+    }
+}
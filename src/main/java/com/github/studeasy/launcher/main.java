@@ -1,13 +1,24 @@
 package com.github.studeasy.launcher;
 
 import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.gui.controller.AsyncLoader;
 import com.github.studeasy.gui.routers.AbstractRouter;
+import com.github.studeasy.gui.routers.CouponRouter;
+import com.github.studeasy.gui.routers.ServiceRouter;
+import com.github.studeasy.gui.routers.UserRouter;
+import com.github.studeasy.gui.routers.ViewCache;
+import com.github.studeasy.logic.facades.FacadeCoupon;
 import com.github.studeasy.logic.facades.FacadeNotification;
+import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.mail.MailOutbox;
+import com.github.studeasy.logic.metrics.FxWatchdog;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * The main class, launching the application
@@ -25,10 +36,33 @@ public class main extends Application {
         stage.setTitle("Stud'Easy");
         stage.centerOnScreen();
         stage.setResizable(false);
-        stage.setOnCloseRequest( event -> FacadeNotification.getInstance().stopTimer());
+        // The metrics are written regularly to the disk of the user
+        MetricsRegistry.getInstance().start();
+        // The mails are sent in the background
+        MailOutbox.getInstance().start();
+        // The coupons whose mail was not sent in time go back in stock
+        FacadeCoupon.getInstance().launchSettlement();
+        // The views visited the most are read while the user logs in
+        ViewCache.getInstance().preload(Arrays.asList(UserRouter.HOME_STUDENT_FXML_PATH,
+                UserRouter.HOME_ADMIN_FXML_PATH, ServiceRouter.ALL_SERVICES_FXML_PATH,
+                ServiceRouter.MY_SERVICES_FXML_PATH, ServiceRouter.VIEW_SERVICE_FXML_PATH,
+                ServiceRouter.PROPOSE_ASK_SERVICE_FXML_PATH, CouponRouter.COUPON_FXML_PATH));
+        stage.setOnCloseRequest( event -> {
+            FacadeNotification.getInstance().stopTimer();
+            // The mails not sent yet stay in the outbox for the next start
+            MailOutbox.getInstance().stop();
+            FacadeCoupon.getInstance().stopSettlement();
+            AsyncLoader.getInstance().shutdown();
+            FxWatchdog.getInstance().stop();
+            // We release the connections to the database
+            Factory.getInstance().close();
+            MetricsRegistry.getInstance().stop();
+        });
         stage.getIcons().add(new Image("images/logo.png"));
         stage.setScene(new Scene(AbstractRouter.load(AbstractRouter.LOGIN_FXML_PATH)));
         stage.show();
+        // The JavaFX thread is watched, the stalls are given to the metrics
+        FxWatchdog.getInstance().start();
     }
 
     /**
@@ -0,0 +1,86 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class describing a code of a coupon
+ * The codes are generated in advance, then given to the buyers one by one
+ */
+public class CouponCode {
+
+    /**
+     * State of a code generated, not given to any application yet
+     */
+    public static final int AVAILABLE = 0;
+
+    /**
+     * State of a code held in memory by an application, ready to be given
+     */
+    public static final int ALLOCATED = 1;
+
+    /**
+     * State of a code given to a buyer
+     */
+    public static final int ISSUED = 2;
+
+    /**
+     * State of a code used by its buyer on the website of the partner
+     */
+    public static final int REDEEMED = 3;
+
+    /**
+     * State of a code whose purchase was cancelled, it can't be used
+     */
+    public static final int VOID = 4;
+
+    /**
+     * Id of the code
+     */
+    private final int idCode;
+
+    /**
+     * Id of the coupon
+     */
+    private final int idCoupon;
+
+    /**
+     * The code itself
+     */
+    private final String code;
+
+    /**
+     * State of the code
+     */
+    private final int state;
+
+    /**
+     * Id of the partner proposing the coupon, 0 if unknown
+     */
+    private final int idOwner;
+
+    public CouponCode(int idCode, int idCoupon, String code, int state, int idOwner) {
+        this.idCode = idCode;
+        this.idCoupon = idCoupon;
+        this.code = code;
+        this.state = state;
+        this.idOwner = idOwner;
+    }
+
+    public int getIdCode() {
+        return idCode;
+    }
+
+    public int getIdCoupon() {
+        return idCoupon;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public int getIdOwner() {
+        return idOwner;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class describing a coupon bought, held for the buyer until the mail with its code is sent
+ * If the mail is not sent in time, the coupon goes back in stock and the buyer gets back the points
+ */
+public class CouponReservation {
+
+    /**
+     * Id of the reservation
+     */
+    private final int idReservation;
+
+    /**
+     * Id of the coupon reserved
+     */
+    private final int idCoupon;
+
+    /**
+     * Id of the buyer
+     */
+    private final int idUser;
+
+    /**
+     * Points paid by the buyer
+     */
+    private final int value;
+
+    /**
+     * Id of the mail sending the code in the outbox
+     */
+    private final int idMail;
+
+    public CouponReservation(int idReservation, int idCoupon, int idUser, int value, int idMail) {
+        this.idReservation = idReservation;
+        this.idCoupon = idCoupon;
+        this.idUser = idUser;
+        this.value = value;
+        this.idMail = idMail;
+    }
+
+    public int getIdReservation() {
+        return idReservation;
+    }
+
+    public int getIdCoupon() {
+        return idCoupon;
+    }
+
+    public int getIdUser() {
+        return idUser;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getIdMail() {
+        return idMail;
+    }
+}
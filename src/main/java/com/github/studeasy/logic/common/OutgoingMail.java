@@ -0,0 +1,60 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class describing a mail waiting in the outbox to be sent
+ */
+public class OutgoingMail {
+
+    /**
+     * Id of the mail in the outbox
+     */
+    private final int idMail;
+
+    /**
+     * Address of the receiver
+     */
+    private final String recipient;
+
+    /**
+     * Subject of the mail
+     */
+    private final String subject;
+
+    /**
+     * Text of the mail
+     */
+    private final String text;
+
+    /**
+     * Number of times we already failed to send the mail
+     */
+    private final int attempts;
+
+    public OutgoingMail(int idMail, String recipient, String subject, String text, int attempts) {
+        this.idMail = idMail;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.text = text;
+        this.attempts = attempts;
+    }
+
+    public int getIdMail() {
+        return idMail;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class describing the points of a user, as read at a given version of the ledger
+ * The version is the last line of the ledger of the user: the points only change with a new line
+ */
+public class PointBalance {
+
+    /**
+     * Points available for the user
+     */
+    private final int points;
+
+    /**
+     * Id of the last line of the ledger of the user, 0 if there is none
+     */
+    private final int version;
+
+    public PointBalance(int points, int version) {
+        this.points = points;
+        this.version = version;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.studeasy.logic.common;
+
+import java.util.ArrayList;
+
+/**
+ * Class holding a page of the online services, as retrieved by the search
+ * Some rows read may not give a service (its category or its owner was deleted meanwhile),
+ * so the page also remembers how many rows were read and the last one, the cursor follows them
+ */
+public class ServicePage {
+
+    /**
+     * The services of the page, in the order of the search
+     */
+    private final ArrayList<Service> SERVICES;
+
+    /**
+     * The number of rows read, with the ones not giving a service
+     */
+    private final int ROWS;
+
+    /**
+     * The last row read, only its key (id, cost and date) is sure to be filled, null if no row was read
+     */
+    private final Service LAST_ROW;
+
+    /**
+     * Create a page
+     * @param services the services of the page, in the order of the search
+     * @param rows the number of rows read, with the ones not giving a service
+     * @param lastRow the last row read, null if no row was read
+     */
+    public ServicePage(ArrayList<Service> services, int rows, Service lastRow) {
+        this.SERVICES = services;
+        this.ROWS = rows;
+        this.LAST_ROW = lastRow;
+    }
+
+    public ArrayList<Service> getServices() {
+        return SERVICES;
+    }
+
+    public int getRows() {
+        return ROWS;
+    }
+
+    public Service getLastRow() {
+        return LAST_ROW;
+    }
+}
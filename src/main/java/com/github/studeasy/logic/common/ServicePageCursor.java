@@ -0,0 +1,75 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class keeping the position reached while scrolling through the online services
+ * It remembers the search of the user and the last service retrieved,
+ * the next page starts right after it
+ */
+public class ServicePageCursor {
+
+    /**
+     * What the user is looking for
+     */
+    private final ServiceSearchCriteria CRITERIA;
+
+    /**
+     * The maximum number of services retrieved with each page
+     */
+    private final int PAGE_SIZE;
+
+    /**
+     * The last row retrieved, null if no page was retrieved
+     */
+    private Service lastService;
+
+    /**
+     * True once a page of fewer rows than the page size was retrieved
+     */
+    private boolean exhausted;
+
+    /**
+     * Create a cursor positioned before the first service matching the criteria
+     * @param criteria what the user is looking for
+     * @param pageSize the maximum number of services retrieved with each page
+     */
+    public ServicePageCursor(ServiceSearchCriteria criteria, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        this.CRITERIA = criteria;
+        this.PAGE_SIZE = pageSize;
+        this.lastService = null;
+        this.exhausted = false;
+    }
+
+    /**
+     * Move the cursor after the page just retrieved
+     * The rows read are counted, not the services: a row not giving a service doesn't end the search
+     * @param page the page, with the number of rows read and the last one
+     */
+    public void advance(ServicePage page) {
+        // Fewer rows than asked means there is nothing more to retrieve
+        if (page.getRows() < PAGE_SIZE) {
+            this.exhausted = true;
+        }
+        if (page.getLastRow() != null) {
+            this.lastService = page.getLastRow();
+        }
+    }
+
+    public ServiceSearchCriteria getCriteria() {
+        return CRITERIA;
+    }
+
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    public Service getLastService() {
+        return lastService;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
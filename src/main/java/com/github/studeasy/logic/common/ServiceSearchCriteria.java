@@ -0,0 +1,117 @@
+package com.github.studeasy.logic.common;
+
+/**
+ * Class describing what the user is looking for in the online services
+ * Every criteria left null is not used to filter the services
+ */
+public class ServiceSearchCriteria {
+
+    /**
+     * The orders in which the services can be listed
+     */
+    public enum Sort {
+        /**
+         * From the most recent service to the oldest
+         */
+        NEWEST,
+        /**
+         * From the oldest service to the most recent
+         */
+        OLDEST,
+        /**
+         * From the cheapest service to the most expensive
+         */
+        CHEAPEST,
+        /**
+         * From the most expensive service to the cheapest
+         */
+        MOST_EXPENSIVE
+    }
+
+    /**
+     * Text searched in the title (or the description) of the services
+     */
+    private String title;
+
+    /**
+     * Text searched in the name of the category of the services
+     */
+    private String categoryName;
+
+    /**
+     * The type of the services
+     * 0 the proposed services
+     * 1 the requested services
+     */
+    private Integer typeService;
+
+    /**
+     * The minimum cost of the services, included
+     */
+    private Integer minCost;
+
+    /**
+     * The maximum cost of the services, included
+     */
+    private Integer maxCost;
+
+    /**
+     * The order in which the services are listed
+     */
+    private Sort sort;
+
+    /**
+     * Create criteria matching all the online services, the most recent first
+     */
+    public ServiceSearchCriteria() {
+        this.sort = Sort.NEWEST;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public Integer getTypeService() {
+        return typeService;
+    }
+
+    public void setTypeService(Integer typeService) {
+        this.typeService = typeService;
+    }
+
+    public Integer getMinCost() {
+        return minCost;
+    }
+
+    public void setMinCost(Integer minCost) {
+        this.minCost = minCost;
+    }
+
+    public Integer getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(Integer maxCost) {
+        this.maxCost = maxCost;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.studeasy.logic.common.role;
 
 import com.github.studeasy.logic.common.CommandOfService;
+import com.github.studeasy.logic.common.PointBalance;
 import com.github.studeasy.logic.common.Service;
 
 import java.util.ArrayList;
@@ -21,6 +22,16 @@ public class RoleStudent extends Role{
      */
     private int points;
 
+    /**
+     * Last line of the ledger included in the points, -1 if unknown
+     */
+    private int pointsVersion;
+
+    /**
+     * When the points were last compared to the database (in ms)
+     */
+    private long pointsCheckedAt;
+
     /**
      * List of services provided by the student
      */
@@ -34,17 +45,59 @@ public class RoleStudent extends Role{
     public RoleStudent(String pseudo, int points) {
         super();
         this.points=points;
+        this.pointsVersion = -1;
         this.pseudo = pseudo;
         this.services = new ArrayList<Service>();
         this.servicesbuy = new ArrayList<CommandOfService>();
     }
 
-    public int getPoints() {
+    public synchronized int getPoints() {
         return points;
     }
 
-    public void setPoints(int points) {
+    /**
+     * Change the points, their version is unknown so they are read again at the next check
+     * @param points the points of the student
+     */
+    public synchronized void setPoints(int points) {
         this.points = points;
+        this.pointsVersion = -1;
+    }
+
+    /**
+     * Keep the points read from the database
+     * @param balance the points and their version
+     * @param now when they were read (in ms)
+     */
+    public synchronized void setBalance(PointBalance balance, long now) {
+        this.points = balance.getPoints();
+        this.pointsVersion = balance.getVersion();
+        this.pointsCheckedAt = now;
+    }
+
+    /**
+     * The points were compared to the database and didn't change
+     * @param now when they were compared (in ms)
+     */
+    public synchronized void balanceChecked(long now) {
+        this.pointsCheckedAt = now;
+    }
+
+    /**
+     * @return the last line of the ledger included in the points, -1 if unknown
+     */
+    public synchronized int getPointsVersion() {
+        return pointsVersion;
+    }
+
+    /**
+     * Indicates if the points can be displayed without asking the database
+     * @param now the current time (in ms)
+     * @param maxAge how long the points are trusted after a check (in ms)
+     * @return true if their version is known and they were checked recently
+     */
+    public synchronized boolean isBalanceFresh(long now, long maxAge) {
+        return pointsVersion >= 0 && now - pointsCheckedAt < maxAge;
     }
 
     public String getPseudo() {
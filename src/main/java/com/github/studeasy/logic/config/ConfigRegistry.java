@@ -0,0 +1,210 @@
+package com.github.studeasy.logic.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class singleton, reading the settings of the application
+ * Each properties file is read once and kept as a snapshot. The files are looked for in the
+ * folder given by -Dstudeasy.config.dir, then in the environment folder of the classpath,
+ * so the settings can be changed in production without rebuilding the jar.
+ * A file on disk is checked for changes at most every few seconds and read again when it changed.
+ * A system property studeasy.KEY overrides the setting KEY of every file
+ */
+public class ConfigRegistry {
+
+    /**
+     * The settings of the database (environment/database.properties)
+     */
+    public static final String DATABASE = "database";
+
+    /**
+     * The settings of the mail server (environment/email.properties)
+     */
+    public static final String EMAIL = "email";
+
+    /**
+     * The sizes, delays and thread counts of the application (environment/performance.properties)
+     */
+    public static final String PERFORMANCE = "performance";
+
+    /**
+     * Prefix of the system properties overriding a setting
+     */
+    private static final String SYSTEM_PREFIX = "studeasy.";
+
+    /**
+     * Singleton of the ConfigRegistry
+     */
+    private static ConfigRegistry configRegistry = null;
+
+    /**
+     * A file read, with what we need to know if it changed
+     */
+    private static class Entry {
+        private final ConfigSnapshot snapshot;
+        private final Path file;
+        private final long lastModified;
+        private final long checkedAt;
+
+        private Entry(ConfigSnapshot snapshot, Path file, long lastModified, long checkedAt) {
+            this.snapshot = snapshot;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * The folder overriding the files of the classpath, null if none
+     */
+    private final Path OVERRIDE_DIR;
+
+    /**
+     * Minimum delay between two checks of a file (in ms)
+     */
+    private final long checkIntervalMs;
+
+    /**
+     * The files read, by name
+     */
+    private final ConcurrentHashMap<String, Entry> ENTRIES;
+
+    /**
+     * Create the registry
+     * @param overrideDir the folder overriding the files of the classpath, null if none
+     * @param checkIntervalMs minimum delay between two checks of a file (in ms)
+     */
+    public ConfigRegistry(Path overrideDir, long checkIntervalMs) {
+        this.OVERRIDE_DIR = overrideDir;
+        this.checkIntervalMs = Math.max(0, checkIntervalMs);
+        this.ENTRIES = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized ConfigRegistry getInstance() {
+        if (configRegistry == null) {
+            String dir = System.getProperty(SYSTEM_PREFIX + "config.dir");
+            configRegistry = new ConfigRegistry(dir == null ? null : Paths.get(dir), 5000);
+        }
+        return configRegistry;
+    }
+
+    /**
+     * Retrieve the settings of a file
+     * @param name the name of the file, without .properties
+     * @return the settings, empty if the file doesn't exist
+     */
+    public ConfigSnapshot get(String name) {
+        Entry entry = ENTRIES.get(name);
+        long now = System.currentTimeMillis();
+        if (entry != null && (entry.file == null || now - entry.checkedAt < checkIntervalMs)) {
+            return entry.snapshot;
+        }
+        // Only one thread reads the file again, the others get the new snapshot
+        return ENTRIES.compute(name, (key, current) -> refresh(key, current, now)).snapshot;
+    }
+
+    /**
+     * Retrieve the settings of a file which must exist
+     * @param name the name of the file, without .properties
+     * @return the settings
+     * @throws NullPointerException if the file doesn't exist
+     */
+    public ConfigSnapshot require(String name) {
+        ConfigSnapshot snapshot = get(name);
+        if (!snapshot.isPresent()) {
+            throw new NullPointerException("You must specify a " + name + ".properties file");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read a file, unless it didn't change since the last time
+     * @param name the name of the file
+     * @param current what we know of the file, null if it was never read
+     * @param now the current time (in ms)
+     * @return what we know of the file now
+     */
+    private Entry refresh(String name, Entry current, long now) {
+        if (current != null && current.file != null && now - current.checkedAt < checkIntervalMs) {
+            // Another thread checked it meanwhile
+            return current;
+        }
+        String fileName = name + ".properties";
+        Path file = null;
+        URL resource = null;
+        if (OVERRIDE_DIR != null && Files.isRegularFile(OVERRIDE_DIR.resolve(fileName))) {
+            file = OVERRIDE_DIR.resolve(fileName);
+        }
+        else {
+            resource = ConfigRegistry.class.getClassLoader().getResource("environment/" + fileName);
+            // A file of the classpath can change too when it is not inside a jar
+            if (resource != null && "file".equals(resource.getProtocol())) {
+                try {
+                    file = Paths.get(resource.toURI());
+                } catch (URISyntaxException err) {
+                    file = null;
+                }
+            }
+        }
+        long lastModified = lastModified(file);
+        if (current != null && current.file != null && current.file.equals(file) && current.lastModified == lastModified) {
+            return new Entry(current.snapshot, file, lastModified, now);
+        }
+        Properties properties = new Properties();
+        boolean present = file != null || resource != null;
+        if (present) {
+            try (InputStream in = file != null ? Files.newInputStream(file) : resource.openStream()) {
+                properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException err) {
+                err.printStackTrace();
+                // We keep the settings we had
+                if (current != null) {
+                    return new Entry(current.snapshot, file, current.lastModified, now);
+                }
+            }
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, properties.getProperty(key));
+        }
+        // The system properties win over the files
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(SYSTEM_PREFIX) && !key.equals(SYSTEM_PREFIX + "config.dir")) {
+                values.put(key.substring(SYSTEM_PREFIX.length()), System.getProperty(key));
+            }
+        }
+        return new Entry(new ConfigSnapshot(values, present), file, lastModified, now);
+    }
+
+    /**
+     * Retrieve when a file was last modified
+     * @param file the file, null if it isn't on the disk
+     * @return the time (in ms), 0 if unknown
+     */
+    private static long lastModified(Path file) {
+        if (file == null) {
+            return 0;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException err) {
+            return 0;
+        }
+    }
+}
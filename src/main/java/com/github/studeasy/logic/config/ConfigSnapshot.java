@@ -0,0 +1,123 @@
+package com.github.studeasy.logic.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Class holding the settings of one properties file, as they were when it was read
+ * A snapshot never changes, a new one is created when the file changes
+ */
+public class ConfigSnapshot {
+
+    /**
+     * The settings, by key
+     */
+    private final Map<String, String> VALUES;
+
+    /**
+     * False if the file was not found
+     */
+    private final boolean present;
+
+    /**
+     * Create a snapshot
+     * @param values the settings, by key
+     * @param present false if the file was not found
+     */
+    public ConfigSnapshot(Map<String, String> values, boolean present) {
+        this.VALUES = Collections.unmodifiableMap(new HashMap<>(values));
+        this.present = present;
+    }
+
+    /**
+     * @return false if the file was not found, every setting then takes its default value
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    /**
+     * Retrieve a setting
+     * @param key the key of the setting
+     * @return the value, null if it is not set
+     */
+    public String getString(String key) {
+        return VALUES.get(key);
+    }
+
+    /**
+     * Retrieve a setting
+     * @param key the key of the setting
+     * @param defaultValue the value if it is not set
+     * @return the value
+     */
+    public String getString(String key, String defaultValue) {
+        String value = VALUES.get(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Retrieve a whole number setting
+     * @param key the key of the setting
+     * @param defaultValue the value if it is not set, or not a number
+     * @return the value
+     */
+    public int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Retrieve a whole number setting
+     * @param key the key of the setting
+     * @param defaultValue the value if it is not set, or not a number
+     * @return the value
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException err) {
+            System.err.println("The setting " + key + " is not a number, " + defaultValue + " is used");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Retrieve a decimal setting
+     * @param key the key of the setting
+     * @param defaultValue the value if it is not set, or not a number
+     * @return the value
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException err) {
+            System.err.println("The setting " + key + " is not a number, " + defaultValue + " is used");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Copy the settings, for the code expecting Properties
+     * @return a copy of the settings
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.putAll(VALUES);
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot" + VALUES.keySet();
+    }
+}
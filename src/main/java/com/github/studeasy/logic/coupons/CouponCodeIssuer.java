@@ -0,0 +1,173 @@
+package com.github.studeasy.logic.coupons;
+
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
+import com.github.studeasy.logic.common.CouponCode;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class singleton, giving the codes of the coupons to the buyers
+ * The codes are generated by batches and saved in the database, where a unique index
+ * rejects any collision. Each coupon then has a block of codes taken in advance,
+ * the buyers take their code from it without any lock, the database is only
+ * called when a block is empty
+ */
+public class CouponCodeIssuer {
+
+    /**
+     * Singleton of the CouponCodeIssuer
+     */
+    private static CouponCodeIssuer couponCodeIssuer = null;
+
+    /**
+     * The characters of a code, without those looking alike (0/O, 1/I)
+     */
+    static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    /**
+     * Number of characters of a code
+     */
+    static final int CODE_LENGTH = 10;
+
+    /**
+     * Number of batches generated before giving up filling a block
+     */
+    private static final int MAX_GENERATIONS = 3;
+
+    /**
+     * The DAO keeping the codes
+     */
+    private final CouponCodeDAO DAO;
+
+    /**
+     * Generates the codes, they must not be guessed
+     */
+    private final Random RANDOM;
+
+    /**
+     * The codes taken in advance, for each coupon
+     */
+    private final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<CouponCode>> BLOCKS;
+
+    /**
+     * Number of codes taken from the database at once
+     */
+    private final int blockSize;
+
+    /**
+     * Number of codes generated at once
+     */
+    private final int batchSize;
+
+    /**
+     * Create the issuer
+     * @param dao the DAO keeping the codes
+     * @param random generates the codes
+     * @param blockSize number of codes taken from the database at once
+     * @param batchSize number of codes generated at once
+     */
+    public CouponCodeIssuer(CouponCodeDAO dao, Random random, int blockSize, int batchSize) {
+        this.DAO = dao;
+        this.RANDOM = random;
+        this.BLOCKS = new ConcurrentHashMap<>();
+        this.blockSize = Math.max(1, blockSize);
+        this.batchSize = Math.max(this.blockSize, batchSize);
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized CouponCodeIssuer getInstance() {
+        if (couponCodeIssuer == null) {
+            ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+            couponCodeIssuer = new CouponCodeIssuer(CouponCodeDAO.getInstance(), new SecureRandom(),
+                    settings.getInt("COUPON_CODE_BLOCK_SIZE", 20), settings.getInt("COUPON_CODE_BATCH_SIZE", 200));
+        }
+        return couponCodeIssuer;
+    }
+
+    /**
+     * Take the next code of a coupon
+     * The code must be given back if it is not issued
+     * @param idCoupon the id of the coupon
+     * @return a code nobody else received
+     * @throws Exception if no code can be taken from the database
+     */
+    public CouponCode next(int idCoupon) throws Exception {
+        ConcurrentLinkedQueue<CouponCode> block = BLOCKS.computeIfAbsent(idCoupon, id -> new ConcurrentLinkedQueue<>());
+        CouponCode code = block.poll();
+        while (code == null) {
+            this.refill(idCoupon, block);
+            code = block.poll();
+        }
+        return code;
+    }
+
+    /**
+     * Give back a code not issued, it will be given to the next buyer
+     * @param code the code not issued
+     */
+    public void giveBack(CouponCode code) {
+        BLOCKS.computeIfAbsent(code.getIdCoupon(), id -> new ConcurrentLinkedQueue<>()).offer(code);
+    }
+
+    /**
+     * Fill the block of a coupon with codes from the database, generating new ones if needed
+     * @param idCoupon the id of the coupon
+     * @param block the block of the coupon
+     * @throws Exception if no code can be taken from the database
+     */
+    private void refill(int idCoupon, ConcurrentLinkedQueue<CouponCode> block) throws Exception {
+        // Only one buyer of the coupon fills its block, the others wait for it
+        synchronized (block) {
+            if (!block.isEmpty()) {
+                return;
+            }
+            ArrayList<CouponCode> codes = DAO.allocateCodes(idCoupon, blockSize);
+            for (int i = 0; codes.isEmpty(); i++) {
+                if (i == MAX_GENERATIONS) {
+                    throw new Exception("No code available for the coupon " + idCoupon);
+                }
+                DAO.insertCodes(idCoupon, this.generateCodes(batchSize));
+                codes = DAO.allocateCodes(idCoupon, blockSize);
+            }
+            block.addAll(codes);
+        }
+    }
+
+    /**
+     * Generate a batch of different codes
+     * @param count the number of codes
+     * @return the codes
+     */
+    List<String> generateCodes(int count) {
+        Set<String> codes = new LinkedHashSet<>();
+        while (codes.size() < count) {
+            codes.add(generateCode(RANDOM));
+        }
+        return new ArrayList<>(codes);
+    }
+
+    /**
+     * Generate a code
+     * @param random generates the characters
+     * @return the code
+     */
+    static String generateCode(Random random) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            code[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(code);
+    }
+}
@@ -3,6 +3,8 @@ package com.github.studeasy.logic.facades;
 import com.github.studeasy.dao.categoryDAO.CategoryDAO;
 import com.github.studeasy.logic.common.CategoryTag;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.util.ArrayList;
 
@@ -10,6 +12,7 @@ import java.util.ArrayList;
  * The category facade
  * It contains the methods category related
  */
+@SuppressWarnings("try")
 public class FacadeCategory {
 
     /**
@@ -22,6 +25,11 @@ public class FacadeCategory {
      */
     private final CategoryDAO DAO;
 
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeCategory
      * Instantiate the factory
@@ -29,6 +37,7 @@ public class FacadeCategory {
     private FacadeCategory() {
         // We retrieve the FacadeDAO
         this.DAO = CategoryDAO.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -47,8 +56,10 @@ public class FacadeCategory {
      * @return all the categories of the database
      */
     public ArrayList<CategoryTag> seeAllCategories(){
-        // We ask the DAO to retrieve the categories
-        return DAO.seeAllCategories();
+        try (TimedCall call = METRICS.time("facade.FacadeCategory.seeAllCategories")) {
+            // We ask the DAO to retrieve the categories
+            return DAO.seeAllCategories();
+        }
     }
 
     /**
@@ -56,8 +67,10 @@ public class FacadeCategory {
      * @param categoryToDelete the category to delete
      */
     public void deleteCategory(CategoryTag categoryToDelete){
-        // We ask the DAO to delete the category
-        DAO.deleteCategory(categoryToDelete);
+        try (TimedCall call = METRICS.time("facade.FacadeCategory.deleteCategory")) {
+            // We ask the DAO to delete the category
+            DAO.deleteCategory(categoryToDelete);
+        }
     }
 
     /**
@@ -92,18 +105,20 @@ public class FacadeCategory {
      * @throws BadInformationException occurs when bad information are provided
      */
     public void submitAddCategory(String nameCat, String descriptionCat) throws BadInformationException{
-        // We check if we can add the category
-        if(changesCategoryAllowed(nameCat,descriptionCat)){
-            // We search for a category with the same name
-            CategoryTag existingCat = DAO.searchCategory(nameCat);
-            // If it doesn't exist, we can create the new category
-            if(existingCat == null){
-                // We create the category
-                DAO.submitAddCategory(nameCat,descriptionCat);
-            }
-            // Already exists
-            else {
-                throw new BadInformationException("A category with this name already exists");
+        try (TimedCall call = METRICS.time("facade.FacadeCategory.submitAddCategory")) {
+            // We check if we can add the category
+            if(changesCategoryAllowed(nameCat,descriptionCat)){
+                // We search for a category with the same name
+                CategoryTag existingCat = DAO.searchCategory(nameCat);
+                // If it doesn't exist, we can create the new category
+                if(existingCat == null){
+                    // We create the category
+                    DAO.submitAddCategory(nameCat,descriptionCat);
+                }
+                // Already exists
+                else {
+                    throw new BadInformationException("A category with this name already exists");
+                }
             }
         }
     }
@@ -116,18 +131,20 @@ public class FacadeCategory {
      * @throws BadInformationException occurs when bad information are provided
      */
     public void submitUpdateCategory(String nameCat, String descriptionCat, CategoryTag categoryToUpdate) throws BadInformationException{
-        // We check if we can update with those name and description
-        if(changesCategoryAllowed(nameCat,descriptionCat)){
-            // We search if there is a category with the same name
-            CategoryTag existingCat = DAO.searchCategory(nameCat);
-            // If it doesn't exist, or if it is the same name as the updated category
-            if(existingCat == null || existingCat.getName().equals(categoryToUpdate.getName())){
-                // We update the category
-                DAO.submitUpdateCategory(nameCat, descriptionCat, categoryToUpdate);
-            }
-            // Already exists
-            else {
-                throw new BadInformationException("A category with this name already exists");
+        try (TimedCall call = METRICS.time("facade.FacadeCategory.submitUpdateCategory")) {
+            // We check if we can update with those name and description
+            if(changesCategoryAllowed(nameCat,descriptionCat)){
+                // We search if there is a category with the same name
+                CategoryTag existingCat = DAO.searchCategory(nameCat);
+                // If it doesn't exist, or if it is the same name as the updated category
+                if(existingCat == null || existingCat.getName().equals(categoryToUpdate.getName())){
+                    // We update the category
+                    DAO.submitUpdateCategory(nameCat, descriptionCat, categoryToUpdate);
+                }
+                // Already exists
+                else {
+                    throw new BadInformationException("A category with this name already exists");
+                }
             }
         }
     }
@@ -1,12 +1,14 @@
 package com.github.studeasy.logic.facades;
 
 import com.github.studeasy.dao.commandOfServiceDAO.CommandOfServiceDAO;
-import com.github.studeasy.dao.userDAO.UserDAO;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
 import com.github.studeasy.logic.common.CommandOfService;
 import com.github.studeasy.logic.common.Service;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.facades.exceptions.ErrorCommand;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.util.ArrayList;
 
@@ -14,6 +16,7 @@ import java.util.ArrayList;
  * The Facade User for the CommandOfServiceDAO
  * It contains methods that allow to create,update,delete a command
  */
+@SuppressWarnings("try")
 public class FacadeCommandOfService {
 
     /**
@@ -27,9 +30,14 @@ public class FacadeCommandOfService {
     private final CommandOfServiceDAO DAO;
 
     /**
-     * The DAO connected to the database
+     * The DAO moving the points between the users
      */
-    private final UserDAO userDAO;
+    private final PointTransactionDAO LEDGER;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
 
     /**
      * Constructor of singleton FacadeCommandOfService
@@ -38,7 +46,8 @@ public class FacadeCommandOfService {
     private FacadeCommandOfService() {
         // We retrieve the UserDao
         this.DAO = CommandOfServiceDAO.getInstance();
-        this.userDAO = UserDAO.getInstance();
+        this.LEDGER = PointTransactionDAO.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -57,11 +66,13 @@ public class FacadeCommandOfService {
      * @return ArrayList of CommandOfService the list of command from the user
      */
     public ArrayList<CommandOfService> getMyCommand() throws Exception {
-        // We retrieve the current user
-        Session sessionUser = Session.getInstance();
-        User currentUser = sessionUser.getCurrentUser();
-        // We ask the DAO to retrieve the services of the user
-        return DAO.getServiceBought(currentUser);
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.getMyCommand")) {
+            // We retrieve the current user
+            Session sessionUser = Session.getInstance();
+            User currentUser = sessionUser.getCurrentUser();
+            // We ask the DAO to retrieve the services of the user
+            return DAO.getServiceBought(currentUser);
+        }
     }
 
     /***
@@ -70,11 +81,13 @@ public class FacadeCommandOfService {
      * @throws Exception
      */
     public ArrayList<CommandOfService> getMyCommandPending() throws Exception {
-        // We retrieve the current user
-        Session sessionUser = Session.getInstance();
-        User currentUser = sessionUser.getCurrentUser();
-        // We ask the DAO to retrieve the services of the user
-        return DAO.getMyServicePending(currentUser);
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.getMyCommandPending")) {
+            // We retrieve the current user
+            Session sessionUser = Session.getInstance();
+            User currentUser = sessionUser.getCurrentUser();
+            // We ask the DAO to retrieve the services of the user
+            return DAO.getMyServicePending(currentUser);
+        }
     }
 
     /**
@@ -83,29 +96,36 @@ public class FacadeCommandOfService {
      * @throws Exception
      */
     public void acceptTransaction(CommandOfService c) throws Exception {
-        Session session = Session.getInstance();
-        User currentUser = session.getCurrentUser();
-        // We pay with the points
-        Service s = c.getService();
-        User u = c.getOwner();
-        if(s.getTypeService() == 1){
-            // We pay the user helping
-            userDAO.removePoints(s.getCost(),currentUser);
-            userDAO.addPoints(s.getCost(),u);
-        }
-        else{
-            // We pay the owner of the service
-            userDAO.addPoints(s.getCost(),s.getOwner());
-        }
-        DAO.acceptTransaction(c);
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
-        String title = "Transaction accepted!";
-        String desc = "Your command for: "+s.getTitle()+" has been accepted.\n" +
-                "The points have been exchanged";
-        try {
-            facadeNotification.createNotification(c.getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.acceptTransaction")) {
+            Session session = Session.getInstance();
+            User currentUser = session.getCurrentUser();
+            // We pay with the points
+            Service s = c.getService();
+            User u = c.getOwner();
+            // We pay the user helping, or the owner of the service (the buyer already paid)
+            User payer = s.getTypeService() == 1 ? currentUser : null;
+            User payee = s.getTypeService() == 1 ? u : s.getOwner();
+            // The command is accepted and the points are exchanged together, or not at all
+            boolean accepted = LEDGER.inTransaction(() -> {
+                if (!DAO.acceptTransaction(c)) {
+                    return false;
+                }
+                LEDGER.transfer("command:" + c.getIdCommand() + ":accept", payer, payee, s.getCost(), "Command accepted");
+                FacadeUser.getInstance().updateBalance(payer, payee);
+                return true;
+            });
+            if (!accepted) {
+                throw new ErrorCommand("This command was already accepted or declined.");
+            }
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String title = "Transaction accepted!";
+            String desc = "Your command for: "+s.getTitle()+" has been accepted.\n" +
+                    "The points have been exchanged";
+            try {
+                facadeNotification.createNotification(c.getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -115,20 +135,31 @@ public class FacadeCommandOfService {
      * @throws Exception
      */
     public void declineTransaction(CommandOfService c) throws Exception {
-        // We give back the points to the user
-        Service s = c.getService();
-        User u = c.getOwner();
-        if(s.getTypeService() == 0){
-            userDAO.addPoints(s.getCost(),u);
-        }
-        DAO.declineTransaction(c);
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
-        String title = "Transaction declined!";
-        String desc = "Your command for: "+s.getTitle()+" has been declined.\n";
-        try {
-            facadeNotification.createNotification(u.getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.declineTransaction")) {
+            // We give back the points to the user
+            Service s = c.getService();
+            User u = c.getOwner();
+            User refunded = s.getTypeService() == 0 ? u : null;
+            // The command is deleted and the points are given back together, or not at all
+            boolean declined = LEDGER.inTransaction(() -> {
+                if (!DAO.declineTransaction(c)) {
+                    return false;
+                }
+                LEDGER.transfer("command:" + c.getIdCommand() + ":decline", null, refunded, s.getCost(), "Command declined");
+                FacadeUser.getInstance().updateBalance(refunded);
+                return true;
+            });
+            if (!declined) {
+                throw new ErrorCommand("This command was already accepted or declined.");
+            }
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String title = "Transaction declined!";
+            String desc = "Your command for: "+s.getTitle()+" has been declined.\n";
+            try {
+                facadeNotification.createNotification(u.getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -139,32 +170,42 @@ public class FacadeCommandOfService {
      * @throws Exception
      */
     public void buyorapplyService(Service s, User u) throws Exception{
-        // We check if there is already an existing command
-        if(DAO.commandPending(s,u) == null){
-            // We retrieve the points if it's a proposed service
-            if(s.getTypeService() == 0){
-                userDAO.removePoints(s.getCost(),u);
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.buyorapplyService")) {
+            // The command is created and paid together, or not at all
+            // It is not created if there is already an existing command
+            boolean created = LEDGER.inTransaction(() -> {
+                int idCommand = DAO.applyorbuyForService(s,u);
+                if (idCommand < 0) {
+                    return false;
+                }
+                // We retrieve the points if it's a proposed service
+                if (s.getTypeService() == 0) {
+                    LEDGER.transfer("command:" + idCommand + ":buy", u, null, s.getCost(), "Service bought");
+                    FacadeUser.getInstance().updateBalance(u);
+                }
+                return true;
+            });
+            if(created){
+                FacadeNotification facadeNotification = FacadeNotification.getInstance();
+                String title = "Command pending!";
+                String desc = "Your command for: "+s.getTitle()+" is now pending.\n" +
+                        "You will receive a notification telling you if the owner accepted " +
+                        "or not the transaction.";
+                try {
+                    facadeNotification.createNotification(u.getIdUser(),title,desc);
+                    title = "You have a command pending to check!";
+                    desc = "A command for: "+s.getTitle()+" is now pending.\n" +
+                            "You can accept or decline it.";
+                    facadeNotification.createNotification(s.getOwner().getIdUser(),title,desc);
+
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
             }
-            DAO.applyorbuyForService(s,u);
-            FacadeNotification facadeNotification = FacadeNotification.getInstance();
-            String title = "Command pending!";
-            String desc = "Your command for: "+s.getTitle()+" is now pending.\n" +
-                    "You will receive a notification telling you if the owner accepted " +
-                    "or not the transaction.";
-            try {
-                facadeNotification.createNotification(u.getIdUser(),title,desc);
-                title = "You have a command pending to check!";
-                desc = "A command for: "+s.getTitle()+" is now pending.\n" +
-                        "You can accept or decline it.";
-                facadeNotification.createNotification(s.getOwner().getIdUser(),title,desc);
-
-            } catch (Exception e) {
-                e.printStackTrace();
+            else{
+                throw new ErrorCommand("You already have a pending command for this service.");
             }
         }
-        else{
-            throw new ErrorCommand("You already have a pending command for this service.");
-        }
     }
 
     /**
@@ -173,7 +214,9 @@ public class FacadeCommandOfService {
      * @throws Exception
      */
     public void addFeedback(CommandOfService c) throws Exception {
-        DAO.addFeedback(c);
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.addFeedback")) {
+            DAO.addFeedback(c);
+        }
     }
 
     /**
@@ -181,10 +224,17 @@ public class FacadeCommandOfService {
      * @param service the service concerned
      */
     public void deleteAllCommands(Service service) throws Exception {
-        ArrayList<CommandOfService> allCommands = DAO.getPendingCommandsOfOneService(service);
-        for(CommandOfService command : allCommands) {
-            this.declineTransaction(command);
-        }
+        try (TimedCall call = METRICS.time("facade.FacadeCommandOfService.deleteAllCommands")) {
+            ArrayList<CommandOfService> allCommands = DAO.getPendingCommandsOfOneService(service);
+            for(CommandOfService command : allCommands) {
+                try {
+                    this.declineTransaction(command);
+                }
+                catch (ErrorCommand err) {
+                    // The command was accepted or declined in the meantime, nothing to give back
+                }
+            }
 
+        }
     }
 }
@@ -1,22 +1,36 @@
 package com.github.studeasy.logic.facades;
 
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
 import com.github.studeasy.dao.couponDAO.CouponDAO;
+import com.github.studeasy.dao.exceptions.InsufficientPointsException;
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
 import com.github.studeasy.dao.userDAO.UserDAO;
 import com.github.studeasy.logic.common.Coupon;
+import com.github.studeasy.logic.common.CouponCode;
+import com.github.studeasy.logic.common.CouponReservation;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.common.role.RolePartner;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.coupons.CouponCodeIssuer;
 import com.github.studeasy.logic.facades.exceptions.ErrorBuyCoupon;
-import com.github.studeasy.logic.utils.KeyGen;
-import com.github.studeasy.logic.utils.Mail;
+import com.github.studeasy.logic.facades.exceptions.ErrorCouponCode;
+import com.github.studeasy.logic.mail.MailOutbox;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The coupon facade
  * It contains the methods coupon related
  */
+@SuppressWarnings("try")
 public class FacadeCoupon {
 
     /**
@@ -34,6 +48,46 @@ public class FacadeCoupon {
      */
     private final UserDAO userDAO;
 
+    /**
+     * The ledger moving the points
+     */
+    private final PointTransactionDAO LEDGER;
+
+    /**
+     * The outbox sending the mails with the codes
+     */
+    private final MailOutbox MAIL_OUTBOX;
+
+    /**
+     * The DAO keeping the mails waiting to be sent
+     */
+    private final MailOutboxDAO MAIL_OUTBOX_DAO;
+
+    /**
+     * Gives the codes of the coupons
+     */
+    private final CouponCodeIssuer CODES;
+
+    /**
+     * The DAO keeping the codes of the coupons
+     */
+    private final CouponCodeDAO CODE_DAO;
+
+    /**
+     * The settings, read again when they change
+     */
+    private final ConfigRegistry CONFIG;
+
+    /**
+     * The thread settling the reservations, null when stopped
+     */
+    private ScheduledExecutorService settlement;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeCoupon
      * Instantiate the factory
@@ -42,6 +96,13 @@ public class FacadeCoupon {
         // We retrieve the CouponDAO
         this.couponDAO = CouponDAO.getInstance();
         this.userDAO = UserDAO.getInstance();
+        this.LEDGER = PointTransactionDAO.getInstance();
+        this.MAIL_OUTBOX = MailOutbox.getInstance();
+        this.MAIL_OUTBOX_DAO = MailOutboxDAO.getInstance();
+        this.CODES = CouponCodeIssuer.getInstance();
+        this.CODE_DAO = CouponCodeDAO.getInstance();
+        this.CONFIG = ConfigRegistry.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -66,14 +127,16 @@ public class FacadeCoupon {
      * @throws BadInformationException if we can't add the coupon
      */
     public void updateCoupon(String titleCoupon, String descriptionCoupon, User owner, int quantityCoupons, int costCoupon, Coupon coupon) throws BadInformationException{
-        // We check if the title and the description have correct sizes
-        if((titleCoupon.length() >= 2 && titleCoupon.length() <= 25) && descriptionCoupon.length() <= 500){
-            // We ask the DAO to update the coupon
-            couponDAO.updateCoupon(titleCoupon,descriptionCoupon,owner,quantityCoupons,costCoupon,coupon);
-        }
-        else{
-            // We tell the user what's wrong
-            throw new BadInformationException("The title and description do not have a correct length");
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.updateCoupon")) {
+            // We check if the title and the description have correct sizes
+            if((titleCoupon.length() >= 2 && titleCoupon.length() <= 25) && descriptionCoupon.length() <= 500){
+                // We ask the DAO to update the coupon
+                couponDAO.updateCoupon(titleCoupon,descriptionCoupon,owner,quantityCoupons,costCoupon,coupon);
+            }
+            else{
+                // We tell the user what's wrong
+                throw new BadInformationException("The title and description do not have a correct length");
+            }
         }
     }
 
@@ -87,14 +150,16 @@ public class FacadeCoupon {
      * @throws BadInformationException if we can't add the coupon
      */
     public void addCoupon(String titleCoupon, String descriptionCoupon, User owner, int quantityCoupons, int costCoupon) throws BadInformationException {
-        // We check if the title and the description have correct sizes
-        if((titleCoupon.length() >= 2 && titleCoupon.length() <= 25) && descriptionCoupon.length() <= 500){
-            // We ask the DAO to create the coupon
-            couponDAO.addCoupon(titleCoupon,descriptionCoupon,owner,quantityCoupons,costCoupon);
-        }
-        else{
-            // We tell the user what's wrong
-            throw new BadInformationException("The title and description do not have a correct length");
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.addCoupon")) {
+            // We check if the title and the description have correct sizes
+            if((titleCoupon.length() >= 2 && titleCoupon.length() <= 25) && descriptionCoupon.length() <= 500){
+                // We ask the DAO to create the coupon
+                couponDAO.addCoupon(titleCoupon,descriptionCoupon,owner,quantityCoupons,costCoupon);
+            }
+            else{
+                // We tell the user what's wrong
+                throw new BadInformationException("The title and description do not have a correct length");
+            }
         }
     }
 
@@ -103,57 +168,191 @@ public class FacadeCoupon {
      * @param couponToDelete the coupon to delete
      */
     public void deleteCoupon(Coupon couponToDelete){
-        // We ask the DAO to delete the coupon
-        couponDAO.deleteCoupon(couponToDelete);
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.deleteCoupon")) {
+            // We ask the DAO to delete the coupon
+            couponDAO.deleteCoupon(couponToDelete);
+        }
     }
 
     /**
      * Used to buy a coupon
-     * We decrease the amount of points of the user,
-     * We decrease the quantity of coupons,
-     * We send an email containing the code of the coupon
+     * We take a code generated in advance for the coupon,
+     * in one transaction, we put the mail containing the code in the outbox,
+     * we reserve the coupon and its code for the user until the mail is sent,
+     * we decrease the amount of points of the user,
+     * and we decrease the quantity of coupons
      * @param coupon the coupon bought
      * @throws ErrorBuyCoupon when an error occurs
      */
     public void buyCoupon(Coupon coupon) throws Exception {
-        Session session = Session.getInstance();
-        User currentUser = session.getCurrentUser();
-        try {
-            // First, the user spends his points
-            userDAO.removePoints(coupon.getValue(),currentUser);
-        } catch (Exception err) {
-            throw new ErrorBuyCoupon("An error occurred, you might not have enough points");
-        }
-        try{
-            // Now we decrease the quantity of the coupon
-            couponDAO.decreaseQuantityCoupon(coupon);
-        }
-        catch (Exception err){
-            // Transaction aborted, we give back the credits to the user
-            userDAO.addPoints(coupon.getValue(),currentUser);
-            throw new ErrorBuyCoupon("An error occurred, the coupon might not be available anymore");
-        }
-        try{
-            // We now send the mail with the coupon to the user
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.buyCoupon")) {
+            Session session = Session.getInstance();
+            User currentUser = session.getCurrentUser();
+            CouponCode code;
+            try {
+                // We take a code generated in advance for this coupon
+                code = CODES.next(coupon.getId());
+            }
+            catch (Exception err) {
+                err.printStackTrace();
+                throw new ErrorBuyCoupon("An error occurred, no code is available for this coupon");
+            }
+            // How long the coupon is held for the buyer while the mail with its code is not sent (in s)
+            long reservationTtl = CONFIG.get(ConfigRegistry.PERFORMANCE).getLong("COUPON_RESERVATION_TTL_S", 24 * 3600);
             String subject = "Here is your coupon !";
             User owner = coupon.getOwner();
             String company = ((RolePartner) owner.getRole()).getCompany();
             String object = "Thank you, "+currentUser.getFirstname()+", for your purchase !\n\n" +
-                    "Here is the coupon you just bought : \n\n\t"+KeyGen.generateKey()+"\n\n" +
+                    "Here is the coupon you just bought : \n\n\t"+code.getCode()+"\n\n" +
                     "You can now use your coupon on "+company+"'s website.";
-            Mail.sendMail(subject,object,currentUser.getEmailAddress());
+            boolean bought = false;
+            try {
+                LEDGER.inTransaction(() -> {
+                    // The mail is only sent if the purchase is committed
+                    int idMail = MAIL_OUTBOX.enqueue(subject, object, currentUser.getEmailAddress());
+                    int idReservation = couponDAO.createReservation(coupon, currentUser, idMail, reservationTtl);
+                    if (!CODE_DAO.issueCode(code, idReservation)) {
+                        throw new ErrorBuyCoupon("An error occurred, the code of the coupon was already given");
+                    }
+                    // The user spends the points, the transaction is rolled back if there are not enough
+                    LEDGER.transfer("coupon-reservation:" + idReservation, currentUser, null, coupon.getValue(), "Coupon bought");
+                    // The stock is the most wanted row, we lock it last so it is held for the shortest time
+                    if (!couponDAO.decreaseQuantityCoupon(coupon)) {
+                        throw new ErrorBuyCoupon("The coupon is not available anymore");
+                    }
+                    // The points of the buyer are updated in the session, not read again with the whole user
+                    FacadeUser.getInstance().updateBalance(currentUser);
+                    return idReservation;
+                });
+                bought = true;
+            }
+            catch (InsufficientPointsException err) {
+                throw new ErrorBuyCoupon("You don't have enough points to buy this coupon");
+            }
+            catch (ErrorBuyCoupon err) {
+                throw err;
+            }
+            catch (Exception err) {
+                err.printStackTrace();
+                throw new ErrorBuyCoupon("An error occurred, the coupon was not bought");
+            }
+            finally {
+                // The code was not given, the next buyer gets it
+                if (!bought) {
+                    CODES.giveBack(code);
+                }
+            }
         }
-        catch(Exception err){
-            // Transaction aborted, we give back the credits to the user
-            userDAO.addPoints(coupon.getValue(),currentUser);
-            // We increase back the quantity of the coupon
-            couponDAO.increaseQuantityCoupon(coupon);
-            throw new ErrorBuyCoupon("An error occurred, we were not able to send you the email");
+    }
+
+    /**
+     * Settle the reservations of coupons
+     * The reservations whose mail was sent are confirmed,
+     * the coupons whose mail was not sent in time go back in stock and the buyers get back their points
+     * @return the number of reservations released
+     * @throws Exception if an error occurs
+     */
+    public int settleReservations() throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.settleReservations")) {
+            couponDAO.confirmDeliveredReservations();
+            int released = 0;
+            int batchSize = CONFIG.get(ConfigRegistry.PERFORMANCE).getInt("COUPON_SETTLE_BATCH_SIZE", 100);
+            for (CouponReservation reservation : couponDAO.getExpiredReservations(batchSize)) {
+                User buyer = userDAO.searchUserById(reservation.getIdUser());
+                boolean done = LEDGER.inTransaction(() -> {
+                    // The mail might have been sent after all, the reservation is confirmed on the next run
+                    if (!MAIL_OUTBOX_DAO.cancel(reservation.getIdMail())) {
+                        return false;
+                    }
+                    if (!couponDAO.releaseReservation(reservation)) {
+                        return false;
+                    }
+                    // The code never reached the buyer, it can't be used
+                    CODE_DAO.voidCodes(reservation.getIdReservation());
+                    // The buyer gets back the points paid
+                    if (buyer != null) {
+                        LEDGER.transfer("coupon-reservation:" + reservation.getIdReservation() + ":release",
+                                null, buyer, reservation.getValue(), "Coupon not delivered");
+                    }
+                    return true;
+                });
+                if (done) {
+                    released++;
+                }
+            }
+            return released;
         }
-        finally {
-            // We update the current user (in case its points changed)
-            User u = userDAO.searchUser(currentUser.getEmailAddress());
-            session.setCurrentUser(u);
+    }
+
+    /**
+     * Start settling the reservations of coupons in the background
+     */
+    public synchronized void launchSettlement() {
+        if (settlement != null) {
+            return;
+        }
+        long delaySeconds = CONFIG.get(ConfigRegistry.PERFORMANCE).getLong("COUPON_SETTLE_DELAY_S", 300);
+        // The thread must not prevent the application from exiting
+        settlement = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "studeasy-coupon-reservations");
+            t.setDaemon(true);
+            return t;
+        });
+        settlement.scheduleWithFixedDelay(() -> {
+            try {
+                settleReservations();
+            } catch (Exception err) {
+                err.printStackTrace();
+            }
+        }, delaySeconds, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop settling the reservations of coupons
+     */
+    public synchronized void stopSettlement() {
+        if (settlement != null) {
+            settlement.shutdownNow();
+            settlement = null;
+        }
+    }
+
+    /**
+     * Check a code given to a buyer
+     * @param code the code typed
+     * @return the code with its coupon and its state, null if it doesn't exist
+     * @throws Exception if an error occurs
+     */
+    public CouponCode checkCode(String code) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.checkCode")) {
+            if (code == null || code.isBlank()) {
+                return null;
+            }
+            // The codes are only made of capital letters and digits
+            return CODE_DAO.searchCode(code.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Used by a partner when a buyer uses a code on the partner's website
+     * @param code the code typed
+     * @throws ErrorCouponCode if the code can't be used
+     * @throws Exception if an error occurs
+     */
+    public void redeemCode(String code) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.redeemCode")) {
+            User currentUser = Session.getInstance().getCurrentUser();
+            CouponCode couponCode = this.checkCode(code);
+            // A partner can only check the codes of their own coupons
+            if (couponCode == null || couponCode.getIdOwner() != currentUser.getIdUser()) {
+                throw new ErrorCouponCode("This code doesn't exist");
+            }
+            if (couponCode.getState() == CouponCode.REDEEMED) {
+                throw new ErrorCouponCode("This code was already used");
+            }
+            if (couponCode.getState() != CouponCode.ISSUED || !CODE_DAO.redeemCode(couponCode)) {
+                throw new ErrorCouponCode("This code can't be used");
+            }
         }
     }
 
@@ -162,7 +361,9 @@ public class FacadeCoupon {
      * @return all the coupons
      */
     public ArrayList<Coupon> getCoupons() {
-        // We ask the DAO to retrieve the coupons
-        return couponDAO.getCoupons();
+        try (TimedCall call = METRICS.time("facade.FacadeCoupon.getCoupons")) {
+            // We ask the DAO to retrieve the coupons
+            return couponDAO.getCoupons();
+        }
     }
 }
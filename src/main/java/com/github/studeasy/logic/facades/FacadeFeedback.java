@@ -4,10 +4,13 @@ import com.github.studeasy.dao.feedbackDAO.FeedbackDAO;
 import com.github.studeasy.logic.common.Feedback;
 import com.github.studeasy.logic.common.Notification;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+@SuppressWarnings("try")
 public class FacadeFeedback {
 
     /**
@@ -20,6 +23,11 @@ public class FacadeFeedback {
      */
     private final FeedbackDAO DAO;
 
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeFeedback
      * Instantiate the factory
@@ -27,6 +35,7 @@ public class FacadeFeedback {
     private FacadeFeedback() {
         // We retrieve the UserDao
         this.DAO = FeedbackDAO.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -46,7 +55,9 @@ public class FacadeFeedback {
      * @return true if the student has bought the service else false
      */
     public boolean hasCommand(int idService) {
-        return DAO.hasCommand(idService);
+        try (TimedCall call = METRICS.time("facade.FacadeFeedback.hasCommand")) {
+            return DAO.hasCommand(idService);
+        }
     }
 
     /**
@@ -55,8 +66,10 @@ public class FacadeFeedback {
      * @return All the feedbacks in an ArrayList
      */
     public ArrayList<Feedback> seeAllFeedbacks(int idService) {
-        //we ask to the DAO to retrieve all the users
-        return DAO.seeAllFeedbacks(idService);
+        try (TimedCall call = METRICS.time("facade.FacadeFeedback.seeAllFeedbacks")) {
+            //we ask to the DAO to retrieve all the users
+            return DAO.seeAllFeedbacks(idService);
+        }
     }
 
     /**
@@ -64,7 +77,9 @@ public class FacadeFeedback {
      * @param feedbackToDelete the feedback to delete
      */
     public void deleteFeedback(Feedback feedbackToDelete) throws SQLException {
-        DAO.deleteFeedback(feedbackToDelete.getIdFeedback());
+        try (TimedCall call = METRICS.time("facade.FacadeFeedback.deleteFeedback")) {
+            DAO.deleteFeedback(feedbackToDelete.getIdFeedback());
+        }
     }
 
     /**
@@ -76,17 +91,19 @@ public class FacadeFeedback {
      * @throws Exception if an error occur
      */
     public void leaveFeedback(String title, String comment, int rate, Service service) throws Exception {
-        DAO.leaveFeedback(title,  comment, rate, service.getIdService());
-        // We send a notification to the user
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
+        try (TimedCall call = METRICS.time("facade.FacadeFeedback.leaveFeedback")) {
+            DAO.leaveFeedback(title,  comment, rate, service.getIdService());
+            // We send a notification to the user
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
 
-        String titleN = "New feedback on your service "+service.getTitle();
-        String desc = "Someone just left a feedback on your service: "+service.getTitle();
-        try {
-            facadeNotification.createNotification(service.getOwner().getIdUser(),titleN,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            String titleN = "New feedback on your service "+service.getTitle();
+            String desc = "Someone just left a feedback on your service: "+service.getTitle();
+            try {
+                facadeNotification.createNotification(service.getOwner().getIdUser(),titleN,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
 
+        }
     }
 }
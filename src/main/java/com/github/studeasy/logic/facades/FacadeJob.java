@@ -2,19 +2,27 @@ package com.github.studeasy.logic.facades;
 
 import com.github.studeasy.dao.jobDAO.JobDAO;
 import com.github.studeasy.logic.common.Job;
+import com.github.studeasy.logic.common.Notification;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.config.ConfigRegistry;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
-import com.github.studeasy.logic.utils.regexUtils;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+import com.github.studeasy.logic.validation.Forms;
+import com.github.studeasy.logic.validation.ValidationResult;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 
 /**
  * The Facade User for the JobDAO
  * It contains methods that allow to create,update,delete,... Job
  */
+@SuppressWarnings("try")
 public class FacadeJob {
 
     /**
@@ -27,6 +35,11 @@ public class FacadeJob {
      */
     private final JobDAO DAO;
 
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeUser
      * Instantiate the factory
@@ -34,6 +47,7 @@ public class FacadeJob {
     private FacadeJob() {
         // We retrieve the UserDao
         this.DAO = JobDAO.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -60,27 +74,24 @@ public class FacadeJob {
      * @throws Exception
      */
     public void addJob(String title, String location, String role, String duration, String mail, String phone, LocalDate localDate, String description) throws Exception {
-        Session sessionUser = Session.getInstance();
-        User currentUser = sessionUser.getCurrentUser();
-        if(regexUtils.matches_mail(mail)) {
-            if(regexUtils.matches_phone(phone)) {
-                DAO.addJob(title, location, role, duration, mail, phone, localDate, description, currentUser);
-                FacadeNotification facadeNotification = FacadeNotification.getInstance();
-                String titleN = "Job pending!";
-                String desc = "Your job offer: "+title+" is now waiting for an administrator validation.\n";
-                try {
-                    facadeNotification.createNotification(currentUser.getIdUser(),titleN,desc);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        try (TimedCall call = METRICS.time("facade.FacadeJob.addJob")) {
+            Session sessionUser = Session.getInstance();
+            User currentUser = sessionUser.getCurrentUser();
+            // We check the contact of the offer at once
+            ValidationResult result = Forms.JOB.validate(Forms.job(mail, phone));
+            if(!result.isValid()){
+                throw new BadInformationException(result.getFirstMessage());
             }
-            else{
-                throw new BadInformationException("Phone number is not valid, please retry");
+            DAO.addJob(title, location, role, duration, mail, phone, localDate, description, currentUser);
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String titleN = "Job pending!";
+            String desc = "Your job offer: "+title+" is now waiting for an administrator validation.\n";
+            try {
+                facadeNotification.createNotification(currentUser.getIdUser(),titleN,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
         }
-        else{
-            throw new BadInformationException("Mail not valid, please retry");
-        }
     }
 
     /**
@@ -89,7 +100,9 @@ public class FacadeJob {
      * @throws Exception if an error occurs
      */
     public ArrayList<Job> getPendingJob() throws Exception {
-        return DAO.getPendingJob();
+        try (TimedCall call = METRICS.time("facade.FacadeJob.getPendingJob")) {
+            return DAO.getPendingJob();
+        }
     }
 
     /**
@@ -99,27 +112,68 @@ public class FacadeJob {
      * @throws Exception if an error occurs
      */
     public void choiceForJob(Object job,int choice) throws Exception{
-        DAO.choiceForJob((Job)job,choice);
-        String title = "";
-        String desc = "";
-        switch(choice){
-            case 1:
-                // We reject
-                title = "Job rejected!";
-                desc = "Your job: "+((Job) job).getTitle()+" has been rejected.";
-                break;
-            case 2:
-                // We accept
-                title = "Job online!";
-                desc = "Your job: "+((Job) job).getTitle()+" has been validated and can be seen online !";
-                break;
+        try (TimedCall call = METRICS.time("facade.FacadeJob.choiceForJob")) {
+            DAO.choiceForJob((Job)job,choice);
+            String title = "";
+            String desc = "";
+            switch(choice){
+                case 1:
+                    // We reject
+                    title = "Job rejected!";
+                    desc = "Your job: "+((Job) job).getTitle()+" has been rejected.";
+                    break;
+                case 2:
+                    // We accept
+                    title = "Job online!";
+                    desc = "Your job: "+((Job) job).getTitle()+" has been validated and can be seen online !";
+                    break;
+            }
+
+            try {
+                FacadeNotification facadeNotification = FacadeNotification.getInstance();
+                facadeNotification.createNotification(((Job) job).getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
+    }
+
 
-        try {
+    /**
+     * Submit the same admin choice for many pending jobs at once
+     * The jobs are updated a batch at a time and their owners notified, all in one transaction:
+     * if anything fails, no job is reviewed and no notification sent.
+     * The jobs reviewed meanwhile by another administrator are skipped
+     * @param jobs the jobs selected by the administrator
+     * @param choice 1 to reject the jobs, 2 to validate them
+     * @param progress receives the number of jobs done so far, after each batch
+     * @return the number of jobs reviewed
+     * @throws Exception if an error occurs, nothing is changed
+     */
+    public int choiceForJobs(List<Job> jobs, int choice, IntConsumer progress) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeJob.choiceForJobs")) {
+            int batchSize = Math.max(1, ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                    .getInt("BULK_REVIEW_BATCH_SIZE", 100));
             FacadeNotification facadeNotification = FacadeNotification.getInstance();
-            facadeNotification.createNotification(((Job) job).getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return DAO.inTransaction(() -> {
+                int reviewed = 0;
+                for (int start = 0; start < jobs.size(); start += batchSize) {
+                    List<Job> batch = jobs.subList(start, Math.min(start + batchSize, jobs.size()));
+                    // Only the owners of the jobs actually reviewed are notified
+                    List<Notification> notifications = new ArrayList<>();
+                    for (Job job : DAO.choiceForJobs(batch, choice)) {
+                        String title = choice == 2 ? "Job online!" : "Job rejected!";
+                        String desc = choice == 2
+                                ? "Your job: "+job.getTitle()+" has been validated and can be seen online !"
+                                : "Your job: "+job.getTitle()+" has been rejected.";
+                        notifications.add(new Notification(0, title, desc, false, job.getOwner()));
+                    }
+                    facadeNotification.createNotifications(notifications);
+                    reviewed += notifications.size();
+                    progress.accept(start + batch.size());
+                }
+                return reviewed;
+            });
         }
     }
 
@@ -130,7 +184,9 @@ public class FacadeJob {
      * @throws Exception if an error occurs
      */
     public ArrayList<Job> getAllJobs() throws Exception {
-        return DAO.getAllJobs();
+        try (TimedCall call = METRICS.time("facade.FacadeJob.getAllJobs")) {
+            return DAO.getAllJobs();
+        }
     }
 
     /**
@@ -139,7 +195,9 @@ public class FacadeJob {
      * @throws Exception if an error occurs
      */
     public ArrayList<Job> getMyJobs(Object user) throws Exception {
-        return DAO.getMyJobs((User) user);
+        try (TimedCall call = METRICS.time("facade.FacadeJob.getMyJobs")) {
+            return DAO.getMyJobs((User) user);
+        }
     }
 
     /**
@@ -147,28 +205,27 @@ public class FacadeJob {
      * @param job Job to delete
      */
     public void deleteJob(Object job) throws Exception {
-        DAO.deleteJob((Job)job);
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
-        String title = "Job deleted!";
-        String desc = "Your job offer: "+((Job) job).getTitle()+" has been deleted.";
-        try {
-            facadeNotification.createNotification(((Job) job).getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+        try (TimedCall call = METRICS.time("facade.FacadeJob.deleteJob")) {
+            DAO.deleteJob((Job)job);
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String title = "Job deleted!";
+            String desc = "Your job offer: "+((Job) job).getTitle()+" has been deleted.";
+            try {
+                facadeNotification.createNotification(((Job) job).getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
     public void updateJob(String title, String location, String role, String duration, String mail, String phone, LocalDate localDate, String description, int idJob) throws Exception{
-        if(regexUtils.matches_mail(mail)) {
-            if(regexUtils.matches_phone(phone)) {
-                DAO.updateJob(title, location, role, duration, mail, phone, localDate, description, idJob);
+        try (TimedCall call = METRICS.time("facade.FacadeJob.updateJob")) {
+            // We check the contact of the offer at once
+            ValidationResult result = Forms.JOB.validate(Forms.job(mail, phone));
+            if(!result.isValid()){
+                throw new BadInformationException(result.getFirstMessage());
             }
-            else{
-                throw new BadInformationException("Phone number is not valid, please retry");
-            }
-        }
-        else{
-            throw new BadInformationException("Mail not valid, please retry");
+            DAO.updateJob(title, location, role, duration, mail, phone, localDate, description, idJob);
         }
     }
 }
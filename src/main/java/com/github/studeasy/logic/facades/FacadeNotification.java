@@ -5,16 +5,21 @@ import com.github.studeasy.gui.controller.notifications.ButtonNotificationContro
 import com.github.studeasy.logic.common.Notification;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+import com.github.studeasy.logic.notifications.NotificationDeliveryEngine;
 import javafx.application.Platform;
 
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
 
 /**
  * The Facade Notification for the NotificationDAO
  * It contains methods that allow to add,display,update notifications
  */
+@SuppressWarnings("try")
 public class FacadeNotification {
 
     /**
@@ -28,9 +33,14 @@ public class FacadeNotification {
     private final NotificationDAO DAO;
 
     /**
-     * Timer for the thread
+     * The engine keeping the number of unread notifications up to date
      */
-    private Timer timer;
+    private final NotificationDeliveryEngine ENGINE;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
 
     /**
      * Constructor of singleton FacadeNotification
@@ -39,6 +49,13 @@ public class FacadeNotification {
     private FacadeNotification() {
         // We retrieve the NotificationDao
         this.DAO = NotificationDAO.getInstance();
+        // Polls every 2 seconds while the user is active, up to every 30 seconds when idle
+        ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+        this.ENGINE = new NotificationDeliveryEngine(DAO, Platform::runLater,
+                settings.getLong("NOTIFICATION_POLL_MIN_MS", 2 * 1000),
+                settings.getLong("NOTIFICATION_POLL_MAX_MS", 30 * 1000),
+                settings.getDouble("NOTIFICATION_POLL_BACKOFF", 1.5));
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -52,46 +69,34 @@ public class FacadeNotification {
         return facadeNotification;
     }
 
-    public void getNumberNotification(ButtonNotificationController instance) throws Exception {
-        Session session = Session.getInstance();
-        User currentUser = session.getCurrentUser();
-
-
-        TimerTask task = new TimerTask() {
-
-            @Override
-            public void run() {
-                try {
-                    Platform.runLater(() -> {
-                        int i = 0;
-                        try {
-                            i = DAO.getNbNotif(currentUser);
-                            instance.setValueLabel(i);
-                        }
-                        catch (Exception e) {
-                            instance.setValueLabel(0);
-                        }
-                    });
-
-
-                }
-                catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+    /**
+     * Register the component displaying the number of notifications of the current user
+     * It replaces the previous one, and is only updated when the number changes
+     * @param instance the component displaying the number
+     */
+    public void getNumberNotification(ButtonNotificationController instance) {
+        ENGINE.setListener(instance::setValueLabel);
+    }
 
-        };
-        timer.schedule(task, 0, 2 * 1000);
+    /**
+     * Tell the notifications the user is active, they are checked right away and at the normal pace again
+     */
+    public void userActivity(){
+        ENGINE.userActivity();
     }
 
+    /**
+     * Stop watching the notifications, when the user disconnects
+     */
     public void stopTimer(){
-        if (timer != null) {
-            timer.cancel();
-        }
-
+        ENGINE.stop();
     }
+
+    /**
+     * Start watching the notifications of the user who just connected
+     */
     public void launchTimer(){
-        timer = new Timer();
+        ENGINE.start(Session.getInstance().getCurrentUser());
     }
 
     /**
@@ -100,8 +105,10 @@ public class FacadeNotification {
      * @throws Exception if an error occurs
      */
     public ArrayList<Notification> getNotification() throws Exception{
-        User currentUser  = Session.getInstance().getCurrentUser();
-        return DAO.getNotification(currentUser);
+        try (TimedCall call = METRICS.time("facade.FacadeNotification.getNotification")) {
+            User currentUser  = Session.getInstance().getCurrentUser();
+            return DAO.getNotification(currentUser);
+        }
     }
 
     /**
@@ -110,7 +117,10 @@ public class FacadeNotification {
      * @throws Exception if an error occurs
      */
     public void deleteNotification(int idNotif) throws Exception {
-        DAO.deleteNotification(idNotif);
+        try (TimedCall call = METRICS.time("facade.FacadeNotification.deleteNotification")) {
+            DAO.deleteNotification(idNotif);
+            ENGINE.requestResync();
+        }
     }
 
     /**
@@ -119,7 +129,10 @@ public class FacadeNotification {
      * @throws Exception if an error occurs
      */
     public void markAsRead(int idNotif) throws Exception{
-        DAO.markAsRead(idNotif);
+        try (TimedCall call = METRICS.time("facade.FacadeNotification.markAsRead")) {
+            DAO.markAsRead(idNotif);
+            ENGINE.requestResync();
+        }
     }
 
     /**
@@ -130,6 +143,21 @@ public class FacadeNotification {
      * @throws Exception if an error occurs
      */
     public void createNotification(int idOwner, String title, String description) throws Exception{
-        DAO.createNotification(idOwner, title, description);
+        try (TimedCall call = METRICS.time("facade.FacadeNotification.createNotification")) {
+            DAO.createNotification(idOwner, title, description);
+        }
+    }
+
+    /**
+     * Call the DAO to create many notifications at once
+     * @param notifications the notifications, with their owner, title and description
+     * @throws Exception if an error occurs
+     */
+    public void createNotifications(List<Notification> notifications) throws Exception{
+        try (TimedCall call = METRICS.time("facade.FacadeNotification.createNotifications")) {
+            if (!notifications.isEmpty()) {
+                DAO.createNotifications(notifications);
+            }
+        }
     }
 }
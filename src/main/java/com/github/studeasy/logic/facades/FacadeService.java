@@ -2,17 +2,27 @@ package com.github.studeasy.logic.facades;
 
 import com.github.studeasy.dao.serviceDAO.ServiceDAO;
 import com.github.studeasy.logic.common.CategoryTag;
+import com.github.studeasy.logic.common.Notification;
 import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServicePage;
+import com.github.studeasy.logic.common.ServicePageCursor;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.config.ConfigRegistry;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * The Facade Service for the ServiceDAO
  * It contains methods service related
  */
+@SuppressWarnings("try")
 public class FacadeService {
 
     /**
@@ -20,11 +30,22 @@ public class FacadeService {
      */
     private static FacadeService facadeService = null;
 
+
     /**
      * The DAO connected to the database
      */
     private final ServiceDAO DAO;
 
+    /**
+     * The settings, read again when they change
+     */
+    private final ConfigRegistry CONFIG;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeCategory
      * Instantiate the factory
@@ -32,6 +53,8 @@ public class FacadeService {
     private FacadeService() {
         // We retrieve the ServiceDAO
         this.DAO = ServiceDAO.getInstance();
+        this.CONFIG = ConfigRegistry.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -50,11 +73,13 @@ public class FacadeService {
      * @return the services of the userin the session
      */
     public ArrayList<Service> getMyServices(){
-        // We retrieve the current user
-        Session sessionUser = Session.getInstance();
-        User currentUser = sessionUser.getCurrentUser();
-        // We ask the DAO to retrieve the services of the user
-        return DAO.getMyServices(currentUser);
+        try (TimedCall call = METRICS.time("facade.FacadeService.getMyServices")) {
+            // We retrieve the current user
+            Session sessionUser = Session.getInstance();
+            User currentUser = sessionUser.getCurrentUser();
+            // We ask the DAO to retrieve the services of the user
+            return DAO.getMyServices(currentUser);
+        }
     }
 
     /**
@@ -62,8 +87,10 @@ public class FacadeService {
      * @return the pending services
      */
     public ArrayList<Service> getPendingServices() {
-        // We ask the DAO to retrieve the pending services
-        return DAO.getPendingServices();
+        try (TimedCall call = METRICS.time("facade.FacadeService.getPendingServices")) {
+            // We ask the DAO to retrieve the pending services
+            return DAO.getPendingServices();
+        }
     }
 
     /**
@@ -71,8 +98,46 @@ public class FacadeService {
      * @return the services
      */
     public ArrayList<Service> getOnlineServices() {
-        // We ask the DAO to retrieve all the services
-        return DAO.getOnlineServices();
+        try (TimedCall call = METRICS.time("facade.FacadeService.getOnlineServices")) {
+            // We ask the DAO to retrieve all the services
+            return DAO.getOnlineServices();
+        }
+    }
+
+    /**
+     * Create a cursor to scroll through the online services page by page
+     * @return a cursor positioned before the most recent service
+     */
+    public ServicePageCursor openOnlineServices() {
+        return searchOnlineServices(new ServiceSearchCriteria());
+    }
+
+    /**
+     * Create a cursor to scroll through the online services matching the criteria page by page
+     * @param criteria what the user is looking for
+     * @return a cursor positioned before the first service matching the criteria
+     */
+    public ServicePageCursor searchOnlineServices(ServiceSearchCriteria criteria) {
+        // The number of online services retrieved with each page
+        int pageSize = CONFIG.get(ConfigRegistry.PERFORMANCE).getInt("SERVICES_PAGE_SIZE", 50);
+        return new ServicePageCursor(criteria, pageSize);
+    }
+
+    /**
+     * Retrieve the next page of online services and move the cursor after it
+     * @param cursor the cursor of the user
+     * @return the services of the page, empty if all of them were already retrieved
+     */
+    public ArrayList<Service> nextOnlineServices(ServicePageCursor cursor) {
+        try (TimedCall call = METRICS.time("facade.FacadeService.nextOnlineServices")) {
+            if (cursor.isExhausted()) {
+                return new ArrayList<>();
+            }
+            // We ask the DAO the services matching the search, following the last one retrieved
+            ServicePage page = DAO.searchServices(cursor.getCriteria(), cursor.getLastService(), cursor.getPageSize());
+            cursor.advance(page);
+            return page.getServices();
+        }
     }
 
     /**
@@ -80,21 +145,23 @@ public class FacadeService {
      * @param service the service to delete
      */
     public void deleteService(Service service) throws Exception {
-        //get the facade to decline all the commands pending
-        FacadeCommandOfService facadeCommandOfService = FacadeCommandOfService.getInstance();
-        facadeCommandOfService.deleteAllCommands(service);
+        try (TimedCall call = METRICS.time("facade.FacadeService.deleteService")) {
+            //get the facade to decline all the commands pending
+            FacadeCommandOfService facadeCommandOfService = FacadeCommandOfService.getInstance();
+            facadeCommandOfService.deleteAllCommands(service);
 
-        // We ask the DAO to delete it
-        this.DAO.deleteService(service);
-        // We send a notification to the user
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            // We ask the DAO to delete it
+            this.DAO.deleteService(service);
+            // We send a notification to the user
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
 
-        String title = "Service deleted!";
-        String desc = "Your service: "+service.getTitle()+" has been deleted.";
-        try {
-            facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+            String title = "Service deleted!";
+            String desc = "Your service: "+service.getTitle()+" has been deleted.";
+            try {
+                facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -104,16 +171,18 @@ public class FacadeService {
      * @param service the service to update
      */
     public void updateCategoryService(CategoryTag categoryS, Service service) {
-        // We ask the DAO to update the service
-        this.DAO.updateCategoryService(categoryS,service);
-        // We send a notification to the user
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
-        String title = "Service updated!";
-        String desc = "Your service: "+service.getTitle()+" has been updated with success!";
-        try {
-            facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
+        try (TimedCall call = METRICS.time("facade.FacadeService.updateCategoryService")) {
+            // We ask the DAO to update the service
+            this.DAO.updateCategoryService(categoryS,service);
+            // We send a notification to the user
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String title = "Service updated!";
+            String desc = "Your service: "+service.getTitle()+" has been updated with success!";
+            try {
+                facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -122,18 +191,77 @@ public class FacadeService {
      * @param service the service to validate
      */
     public void validateService(Service service){
-        // We ask the DAO to validate the service
-        this.DAO.validateService(service);
-        // We send a notification to the user
-        FacadeNotification facadeNotification = FacadeNotification.getInstance();
+        try (TimedCall call = METRICS.time("facade.FacadeService.validateService")) {
+            // We ask the DAO to validate the service
+            this.DAO.validateService(service);
+            // We send a notification to the user
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            String title = "Service online!";
+            String desc = "Congratulations,\nYour service: "+service.getTitle()+" has been validated by an administrator!\n"
+                    + "You can now find it online with all the services.";
+            try {
+                facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Validate or reject many pending services at once
+     * The services are updated a batch at a time and their owners notified, all in one transaction:
+     * if anything fails, no service is reviewed and no notification sent.
+     * The services reviewed meanwhile by another administrator are skipped
+     * @param services the services selected by the administrator
+     * @param validate true to validate the services, false to reject them
+     * @param progress receives the number of services done so far, after each batch
+     * @return the number of services reviewed
+     * @throws Exception if an error occurs, nothing is changed
+     */
+    public int reviewServices(List<Service> services, boolean validate, IntConsumer progress) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeService.reviewServices")) {
+            int batchSize = Math.max(1, CONFIG.get(ConfigRegistry.PERFORMANCE).getInt("BULK_REVIEW_BATCH_SIZE", 100));
+            FacadeNotification facadeNotification = FacadeNotification.getInstance();
+            return DAO.inTransaction(() -> {
+                int reviewed = 0;
+                for (int start = 0; start < services.size(); start += batchSize) {
+                    List<Service> batch = services.subList(start, Math.min(start + batchSize, services.size()));
+                    // Only the owners of the services actually reviewed are notified
+                    List<Notification> notifications = new ArrayList<>();
+                    for (Service service : DAO.reviewServices(batch, validate)) {
+                        notifications.add(validate ? validatedNotification(service) : rejectedNotification(service));
+                    }
+                    facadeNotification.createNotifications(notifications);
+                    reviewed += notifications.size();
+                    progress.accept(start + batch.size());
+                }
+                return reviewed;
+            });
+        }
+    }
+
+    /**
+     * Build the notification telling the owner their service is online
+     * @param service the service validated
+     * @return the notification
+     */
+    private static Notification validatedNotification(Service service) {
         String title = "Service online!";
         String desc = "Congratulations,\nYour service: "+service.getTitle()+" has been validated by an administrator!\n"
                 + "You can now find it online with all the services.";
-        try {
-            facadeNotification.createNotification(service.getOwner().getIdUser(),title,desc);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        return new Notification(0, title, desc, false, service.getOwner());
+    }
+
+    /**
+     * Build the notification telling the owner their service was rejected
+     * A pending service has no command yet, nothing else must be cancelled
+     * @param service the service rejected
+     * @return the notification
+     */
+    private static Notification rejectedNotification(Service service) {
+        String title = "Service deleted!";
+        String desc = "Your service: "+service.getTitle()+" has been deleted.";
+        return new Notification(0, title, desc, false, service.getOwner());
     }
 
     /**
@@ -146,26 +274,28 @@ public class FacadeService {
      * @throws BadInformationException if the service is not conform
      */
     public void submitService(String titleS, String descriptionS, CategoryTag category, int cost, int typeS) throws BadInformationException {
-        // We check if the title and the description fit
-        if((titleS.length() >= 2 && titleS.length() <= 25) && descriptionS.length() <= 500){
-            // We retrieve the user creating the service
-            Session sessionUser = Session.getInstance();
-            User currentUser = sessionUser.getCurrentUser();
-            // We ask the DAO to create the service
-            DAO.submitService(titleS,descriptionS,category,cost,typeS,currentUser);
-            // We send a notification to the user
-            FacadeNotification facadeNotification = FacadeNotification.getInstance();
-            String title = "Service pending!";
-            String desc = "Your service: "+titleS+" is now waiting for an administrator validation.\n";
-            try {
-                facadeNotification.createNotification(currentUser.getIdUser(),title,desc);
-            } catch (Exception e) {
-                e.printStackTrace();
+        try (TimedCall call = METRICS.time("facade.FacadeService.submitService")) {
+            // We check if the title and the description fit
+            if((titleS.length() >= 2 && titleS.length() <= 25) && descriptionS.length() <= 500){
+                // We retrieve the user creating the service
+                Session sessionUser = Session.getInstance();
+                User currentUser = sessionUser.getCurrentUser();
+                // We ask the DAO to create the service
+                DAO.submitService(titleS,descriptionS,category,cost,typeS,currentUser);
+                // We send a notification to the user
+                FacadeNotification facadeNotification = FacadeNotification.getInstance();
+                String title = "Service pending!";
+                String desc = "Your service: "+titleS+" is now waiting for an administrator validation.\n";
+                try {
+                    facadeNotification.createNotification(currentUser.getIdUser(),title,desc);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            else{
+                // We tell the user what's wrong
+                throw new BadInformationException("The title and description do not have a correct length");
             }
-        }
-        else{
-            // We tell the user what's wrong
-            throw new BadInformationException("The title and description do not have a correct length");
         }
     }
 }
\ No newline at end of file
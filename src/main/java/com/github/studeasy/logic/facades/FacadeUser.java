@@ -1,16 +1,25 @@
 package com.github.studeasy.logic.facades;
 
 import com.github.studeasy.dao.exceptions.BadCredentialsException;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
 import com.github.studeasy.dao.userDAO.UserDAO;
-import com.github.studeasy.gui.routers.AbstractRouter;
 import com.github.studeasy.logic.common.Session;
 import com.github.studeasy.logic.common.User;
 import com.github.studeasy.logic.common.role.RoleStudent;
+import com.github.studeasy.logic.config.ConfigRegistry;
 import com.github.studeasy.logic.facades.exceptions.BadInformationException;
+import com.github.studeasy.logic.metrics.MetricsRegistry;
+import com.github.studeasy.logic.metrics.TimedCall;
+import com.github.studeasy.logic.security.PasswordHashingService;
 import com.github.studeasy.logic.utils.PasswordUtils;
-import com.github.studeasy.logic.utils.regexUtils;
+import com.github.studeasy.logic.validation.Forms;
+import com.github.studeasy.logic.validation.ValidationResult;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import com.github.studeasy.logic.utils.KeyGen;
 import com.github.studeasy.logic.utils.Mail;
 
@@ -18,6 +27,7 @@ import com.github.studeasy.logic.utils.Mail;
  * The Facade User for the UserDAO
  * It contains methods that allow a user to login
  */
+@SuppressWarnings("try")
 public class FacadeUser {
 
     /**
@@ -30,6 +40,21 @@ public class FacadeUser {
      */
     private final UserDAO DAO;
 
+    /**
+     * The ledger of the points
+     */
+    private final PointTransactionDAO LEDGER;
+
+    /**
+     * The threads hashing the passwords
+     */
+    private final PasswordHashingService HASHER;
+
+    /**
+     * The timers of the calls
+     */
+    private final MetricsRegistry METRICS;
+
     /**
      * Constructor of singleton FacadeUser
      * Instantiate the factory
@@ -37,6 +62,9 @@ public class FacadeUser {
     private FacadeUser() {
         // We retrieve the UserDao
         this.DAO = UserDAO.getInstance();
+        this.LEDGER = PointTransactionDAO.getInstance();
+        this.HASHER = PasswordHashingService.getInstance();
+        this.METRICS = MetricsRegistry.getInstance();
     }
 
     /**
@@ -58,14 +86,51 @@ public class FacadeUser {
      * @throws Exception if the password or the email is wrong
      */
     public void  login(String email, String password) throws Exception {
-        User u;
-        Session sessionUser = Session.getInstance();
-        u = DAO.searchUser(email);
-        if(PasswordUtils.verifyUserPassword(password, u.getPassword(), u.getSalt())) { //change with hash password comparison
-            sessionUser.setCurrentUser(u);
+        try (TimedCall call = METRICS.time("facade.FacadeUser.login")) {
+            User u;
+            Session sessionUser = Session.getInstance();
+            u = DAO.searchUser(email);
+            if(PasswordUtils.verifyUserPassword(password, u.getPassword(), u.getSalt())) {
+                // The password is right, we hash it again if it was stored with older settings
+                if(PasswordUtils.needsRehash(u.getPassword())){
+                    this.upgradePassword(u, password);
+                }
+                sessionUser.setCurrentUser(u);
+            }
+            else{
+                throw new BadCredentialsException("Bad Password");
+            }
         }
-        else{
-            throw new BadCredentialsException("Bad Password");
+    }
+
+    /**
+     * Log the user in on the threads hashing the passwords, so the view stays responsive
+     * @param email the mail of the user
+     * @param password the password of the user
+     * @return completed once the user is logged in, failed with BadCredentialsException if the password is wrong
+     */
+    public CompletableFuture<Void> loginAsync(String email, String password) {
+        return HASHER.submit(() -> {
+            login(email, password);
+            return null;
+        });
+    }
+
+    /**
+     * Hash the password of the user with the current settings and save it
+     * The user stays logged in even if it fails, the old hash still works
+     * @param u the user
+     * @param password the password of the user, already checked
+     */
+    private void upgradePassword(User u, String password) {
+        try {
+            String salt = PasswordUtils.getSalt(30);
+            String securePassword = PasswordUtils.generateSecurePassword(password, salt);
+            DAO.updatePassword(u, securePassword, salt);
+            u.setPassword(securePassword);
+            u.setSalt(salt);
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 
@@ -76,12 +141,15 @@ public class FacadeUser {
      * @throws Exception if an error occur
      */
     public boolean isConfirmed(String email) throws Exception{
-        return (DAO.isConfirmed(email));
+        try (TimedCall call = METRICS.time("facade.FacadeUser.isConfirmed")) {
+            return (DAO.isConfirmed(email));
+        }
     }
 
     /**
      * Function registerUpdate will register/update user information in the system.
      * Some information, as the password strength etc..., will be checked before registration
+     * The update must be confirmed by the user before, the password is hashed right away
      * @param firstName the first name of the user
      * @param lastName the last name of the user
      * @param email the email of the user
@@ -91,54 +159,79 @@ public class FacadeUser {
      * @throws BadInformationException if ane error occur
      */
     public String registerUpdate(String firstName,String lastName,String pseudo, String email, String confirmEmail,String password,String confirmPassword, int action) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeUser.registerUpdate")) {
 
-        String salt;
-        //Minimum eight characters, at least one letter, one number and one special character
-        if(password.equals(confirmPassword)){
-            if(email.equals(confirmEmail)){
-                if(true){ //regexUtils.matches_password(password)
-                    if (regexUtils.matches_mail(email)) { //regexUtils.matches_mail(email)
-                        //if it's a register
-                        if(action == 0){
-                            salt = PasswordUtils.getSalt(30);
-                            password = PasswordUtils.generateSecurePassword(password, salt);
-                            String key = KeyGen.generateKey();
-                            DAO.register(firstName, lastName, pseudo, email, password, salt,key);
-                            return key;
-                        }
-                        //if it's an update of the profile
-                        else{
-                            if(AbstractRouter.confirmationBox("Are your sure ?","Update your profile","Warning")){
-                                salt = PasswordUtils.getSalt(30);
-                                password = PasswordUtils.generateSecurePassword(password, salt);
-                                User u = DAO.update(firstName, lastName, pseudo, email, password, salt);
-                                Session.getInstance().setCurrentUser(u);
-                            }
-                        }
-
-                    } else {
-                        throw new BadInformationException("Bad information, The password is not enough strong");
-                    }
-                }else{
-                    throw new BadInformationException("Bad information, The password is not enough strong");
-                }
-            }else {
-                throw new BadInformationException("Bad information, Emails doesn't correspond");
+            String salt;
+            // We check the whole form at once
+            ValidationResult result = Forms.REGISTRATION.validate(Forms.account(email, confirmEmail, password, confirmPassword));
+            if(!result.isValid()){
+                throw new BadInformationException(result.getFirstMessage());
+            }
+            //if it's a register
+            if(action == 0){
+                salt = PasswordUtils.getSalt(30);
+                password = PasswordUtils.generateSecurePassword(password, salt);
+                String key = KeyGen.generateKey();
+                DAO.register(firstName, lastName, pseudo, email, password, salt,key);
+                return key;
+            }
+            //if it's an update of the profile
+            else{
+                salt = PasswordUtils.getSalt(30);
+                password = PasswordUtils.generateSecurePassword(password, salt);
+                User u = DAO.update(firstName, lastName, pseudo, email, password, salt);
+                Session.getInstance().setCurrentUser(u);
             }
-        }else {
-            throw new BadInformationException("Bad information, Passwords doesn't correspond");
+            return null;
         }
-        return null;
+    }
+
+    /**
+     * Update the profile of the current user on the threads hashing the passwords, so the view stays responsive
+     * The update must be confirmed by the user before
+     * @param firstName the first name of the user
+     * @param lastName the last name of the user
+     * @param pseudo the pseudo of the user
+     * @param email the email of the user
+     * @param confirmEmail confirm the email
+     * @param password the password of the user
+     * @param confirmPassword confirm the password
+     * @return completed once the profile is updated, failed with BadInformationException if the information is wrong
+     */
+    public CompletableFuture<Void> updateProfileAsync(String firstName,String lastName,String pseudo, String email, String confirmEmail,String password,String confirmPassword) {
+        return HASHER.submit(() -> {
+            registerUpdate(firstName, lastName, pseudo, email, confirmEmail, password, confirmPassword, 1);
+            return null;
+        });
+    }
+
+    /**
+     * Register a user on the threads hashing the passwords, so the view stays responsive
+     * @param firstName the first name of the user
+     * @param lastName the last name of the user
+     * @param pseudo the pseudo of the user
+     * @param email the email of the user
+     * @param confirmEmail confirm the email
+     * @param password the password of the user
+     * @param confirmPassword confirm the password
+     * @return the key to confirm the account, failed with BadInformationException if the information is wrong
+     */
+    public CompletableFuture<String> registerAsync(String firstName,String lastName,String pseudo, String email, String confirmEmail,String password,String confirmPassword) {
+        return HASHER.submit(() -> registerUpdate(firstName, lastName, pseudo, email, confirmEmail, password, confirmPassword, 0));
     }
 
     public void sendMail(String email, String key) throws Exception{
-        Mail.sendMail("Stud'Easy Validation","Hi, Here is your key to confirm your account:\n"+ key,email);
+        try (TimedCall call = METRICS.time("facade.FacadeUser.sendMail")) {
+            Mail.sendMail("Stud'Easy Validation","Hi, Here is your key to confirm your account:\n"+ key,email);
+        }
     }
 
 
     public void deleteAccount(int id) throws Exception {
-        Session.getInstance().disconnect();
-        DAO.deleteUser(id);
+        try (TimedCall call = METRICS.time("facade.FacadeUser.deleteAccount")) {
+            Session.getInstance().disconnect();
+            DAO.deleteUser(id);
+        }
     }
 
 
@@ -147,8 +240,23 @@ public class FacadeUser {
      * @return an ArrayList of all the users
      */
     public ArrayList<User> seeAllUsers() {
-        //we ask to the DAO to retrieve all the users
-        return DAO.seeAllUsers();
+        try (TimedCall call = METRICS.time("facade.FacadeUser.seeAllUsers")) {
+            //we ask to the DAO to retrieve all the users
+            return DAO.seeAllUsers();
+        }
+    }
+
+    /**
+     * Method which will read all the users a chunk at a time,
+     * so they can be displayed while the others are still read
+     * @param chunks receives the users, a chunk at a time
+     * @throws SQLException if an error occurs
+     */
+    public void streamAllUsers(Consumer<List<User>> chunks) throws SQLException {
+        try (TimedCall call = METRICS.time("facade.FacadeUser.streamAllUsers")) {
+            //we ask to the DAO to read the users as they come
+            DAO.streamStudents(chunks);
+        }
     }
 
     /**
@@ -158,7 +266,9 @@ public class FacadeUser {
      * @return true if the account is confirmed false otherwise
      */
     public boolean confirmAccount(String email,String key) throws Exception {
-        return(DAO.confirmAccount(email,key));
+        try (TimedCall call = METRICS.time("facade.FacadeUser.confirmAccount")) {
+            return(DAO.confirmAccount(email,key));
+        }
     }
 
     /**
@@ -173,31 +283,37 @@ public class FacadeUser {
      * @throws Exception
      */
     public void submitAddPartner(String email, String confirmEmail,String password, String confirmPassword, String firstname, String lastname, String company) throws Exception {
-        String salt;
-        try {
-            if(email.equals(confirmEmail) &&  password.equals(confirmPassword)) {
-                if(regexUtils.matches_mail(email)) {
-                    if(regexUtils.matches_password(password)) {
-                        salt = PasswordUtils.getSalt(30);
-                        password = PasswordUtils.generateSecurePassword(password, salt);
-                        DAO.submitAddPartner(email, password, firstname, lastname, company, salt);
-                    }
-                    else{
-                        throw new BadInformationException("Password not enough strong ! Please retry");
-                    }
-                }
-                else{
-                    throw new BadInformationException("Email not strong enough ! Please retry");
-                }
-            }
-            else{
-                throw new BadInformationException("The provided information doesn't match ! Please retry");
+        try (TimedCall call = METRICS.time("facade.FacadeUser.submitAddPartner")) {
+            String salt;
+            // We check the whole form at once
+            ValidationResult result = Forms.PARTNER.validate(Forms.account(email, confirmEmail, password, confirmPassword));
+            if(!result.isValid()){
+                throw new BadInformationException(result.getFirstMessage());
             }
-        } catch (Exception e) {
-            throw e;
+            salt = PasswordUtils.getSalt(30);
+            password = PasswordUtils.generateSecurePassword(password, salt);
+            DAO.submitAddPartner(email, password, firstname, lastname, company, salt);
         }
     }
 
+    /**
+     * Add a partner on the threads hashing the passwords, so the view stays responsive
+     * @param email
+     * @param confirmEmail
+     * @param password
+     * @param confirmPassword
+     * @param firstname
+     * @param lastname
+     * @param company
+     * @return completed once the partner is added, failed with BadInformationException if the information is wrong
+     */
+    public CompletableFuture<Void> submitAddPartnerAsync(String email, String confirmEmail,String password, String confirmPassword, String firstname, String lastname, String company) {
+        return HASHER.submit(() -> {
+            submitAddPartner(email, confirmEmail, password, confirmPassword, firstname, lastname, company);
+            return null;
+        });
+    }
+
     /**
      * Checks if the logs are the same and call the DAO to update a partner
      * @param email
@@ -211,41 +327,43 @@ public class FacadeUser {
      * @throws Exception
      */
     public void submitUpdatePartner(String email, String confirmEmail,String password, String confirmPassword, String firstname, String lastname, String company, Object user) throws Exception {
-        String salt;
-        try{
-            if(email.equals(confirmEmail) &&  password.equals(confirmPassword)){
-                if(!password.equals("")) {
-                    if (regexUtils.matches_mail(email)) {
-                        if (regexUtils.matches_password(password)) {
-                            salt = PasswordUtils.getSalt(30);
-                            password = PasswordUtils.generateSecurePassword(password, salt);
-                            DAO.submitUpdatePartner(email, password, firstname, lastname, company, salt,(User) user);
-                        }
-                        else{
-                            throw new BadInformationException("Password not enough strong ! Please retry");
-                        }
-                    }
-                    else{
-                        throw new BadInformationException("Email not strong enough ! Please retry");
-                    }
-                }
-                else{
-                    if (regexUtils.matches_mail(email)) {
-                        DAO.submitUpdatePartnerNoPassword(email, firstname, lastname, company, (User) user);
-
-                    }
-                    else{
-                        throw new BadInformationException("Email not strong enough ! Please retry");
-                    }
-                }
+        try (TimedCall call = METRICS.time("facade.FacadeUser.submitUpdatePartner")) {
+            String salt;
+            // We check the whole form at once
+            ValidationResult result = Forms.PARTNER_UPDATE.validate(Forms.account(email, confirmEmail, password, confirmPassword));
+            if(!result.isValid()){
+                throw new BadInformationException(result.getFirstMessage());
+            }
+            if(!password.equals("")) {
+                salt = PasswordUtils.getSalt(30);
+                password = PasswordUtils.generateSecurePassword(password, salt);
+                DAO.submitUpdatePartner(email, password, firstname, lastname, company, salt,(User) user);
             }
             else{
-                throw new BadInformationException("The provided information doesn't match ! Please retry");
+                // An empty password keeps the current one
+                DAO.submitUpdatePartnerNoPassword(email, firstname, lastname, company, (User) user);
             }
         }
-        catch (Exception e){
-            throw e;
-        }
+    }
+
+    /**
+     * Update a partner on the threads hashing the passwords, so the view stays responsive
+     * The update must be confirmed by the admin before
+     * @param email
+     * @param confirmEmail
+     * @param password
+     * @param confirmPassword
+     * @param firstname
+     * @param lastname
+     * @param company
+     * @param user
+     * @return completed once the partner is updated, failed with BadInformationException if the information is wrong
+     */
+    public CompletableFuture<Void> submitUpdatePartnerAsync(String email, String confirmEmail,String password, String confirmPassword, String firstname, String lastname, String company, Object user) {
+        return HASHER.submit(() -> {
+            submitUpdatePartner(email, confirmEmail, password, confirmPassword, firstname, lastname, company, user);
+            return null;
+        });
     }
 
     /**
@@ -253,60 +371,72 @@ public class FacadeUser {
      * @return ArrayList of all partner
      */
     public ArrayList<User> getAllPartner() throws Exception {
-        return DAO.getAllPartner();
+        try (TimedCall call = METRICS.time("facade.FacadeUser.getAllPartner")) {
+            return DAO.getAllPartner();
+        }
     }
 
     /**
      * Delete a partner
      */
     public void deletePartner(Object user) throws Exception {
-        DAO.deletePartner((User) user);
-    }
-
-    /***
-     * Add points for a user
-     * @param nbPoints
-     * @param user
-     * @throws Exception
-     */
-
-    public void addPoints(int nbPoints,User user) throws Exception {
-        Session sessionUser = Session.getInstance();
-        if(user.equals(sessionUser.getCurrentUser())){
-            DAO.addPoints(nbPoints, user);
+        try (TimedCall call = METRICS.time("facade.FacadeUser.deletePartner")) {
+            DAO.deletePartner((User) user);
         }
-        else throw new Exception("Permission deny");
     }
 
     /***
-     * Remove points of a user
-     * @param nbPoints
-     * @param user
-     * @throws Exception
+     * View number of points for the current user
+     * The points are kept in the session: they are displayed without asking the database
+     * if they were checked recently, else only the last line of the ledger is compared,
+     * the points are read again if it changed (a command accepted by someone else, a refund)
+     * @return points
      */
-    public void removePoints(int nbPoints,User user) throws Exception{
-        Session sessionUser = Session.getInstance();
-        if(user.equals(sessionUser.getCurrentUser())){
-            DAO.removePoints(nbPoints, user);
+    public int viewPoints() {
+        try (TimedCall call = METRICS.time("facade.FacadeUser.viewPoints")) {
+            Session sessionUser = Session.getInstance();
+            User currentUser = sessionUser.getCurrentUser();
+            RoleStudent role = (RoleStudent)currentUser.getRole();
+            long now = System.currentTimeMillis();
+            // How long the points are trusted after a check (in ms), read live
+            long maxAge = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE).getLong("POINTS_CHECK_INTERVAL_MS", 30000);
+            if (role.isBalanceFresh(now, maxAge)) {
+                return role.getPoints();
+            }
+            try {
+                int version = role.getPointsVersion();
+                if (version >= 0 && LEDGER.lastTransaction(currentUser) == version) {
+                    role.balanceChecked(now);
+                }
+                else {
+                    role.setBalance(LEDGER.balance(currentUser), now);
+                }
+            } catch (Exception e) {
+                // We display the last points known
+                e.printStackTrace();
+            }
+            return role.getPoints();
         }
-        else throw new Exception("Permission deny");
     }
 
-    /***
-     * View number of points for a user
-     * @return points
+    /**
+     * Update the points kept in the session after a move of points
+     * Called at the end of the transaction of the move, the points read match the version of the ledger
+     * @param moved the users whose points were moved, null ones are ignored
+     * @throws Exception if an error occurs
      */
-    public int viewPoints() {
-        Session sessionUser = Session.getInstance();
-        User currentUser = sessionUser.getCurrentUser();
-        int points= 0;
-        try {
-            points = DAO.viewPoints(currentUser);
-            ((RoleStudent)currentUser.getRole()).setPoints(points);
-            sessionUser.setCurrentUser(currentUser);
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void updateBalance(User... moved) throws Exception {
+        try (TimedCall call = METRICS.time("facade.FacadeUser.updateBalance")) {
+            User currentUser = Session.getInstance().getCurrentUser();
+            if (currentUser == null || !(currentUser.getRole() instanceof RoleStudent)) {
+                return;
+            }
+            for (User user : moved) {
+                if (user != null && user.getIdUser() == currentUser.getIdUser()) {
+                    ((RoleStudent)currentUser.getRole()).setBalance(LEDGER.balance(currentUser), System.currentTimeMillis());
+                    return;
+                }
+            }
         }
-        return points;
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.github.studeasy.logic.facades.exceptions;
+
+public class ErrorCouponCode extends Exception{
+
+    /**
+     * Create the exception with a message to display
+     * @param message the message to display
+     */
+    public ErrorCouponCode(String message) {
+        super(message);
+    }
+}
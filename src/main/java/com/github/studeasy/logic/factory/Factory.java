@@ -1,8 +1,11 @@
 package com.github.studeasy.logic.factory;
 
 import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
 import com.github.studeasy.dao.couponDAO.CouponDAO;
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
 import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
 import com.github.studeasy.dao.serviceDAO.ServiceDAO;
 import com.github.studeasy.dao.jobDAO.JobDAO;
 import com.github.studeasy.dao.feedbackDAO.FeedbackDAO;
@@ -10,6 +13,7 @@ import com.github.studeasy.dao.commandOfServiceDAO.CommandOfServiceDAO;
 import com.github.studeasy.dao.userDAO.UserDAO;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 /**
  * Abstract Factory class which contains all the Factories
@@ -25,7 +29,7 @@ public abstract class Factory {
      * Static method which returns the instance of the MySQLFactory
      * @return the instance of MySQLFactory
      */
-    public static Factory getInstance(){
+    public static synchronized Factory getInstance(){
         if(factory == null){
             factory = new MySQLFactory();
         }
@@ -33,10 +37,26 @@ public abstract class Factory {
     }
 
     /**
-     * To get the connection to the database
-     * @return the connection to the database
+     * Replace the factory, for example to run the DAOs on an embedded database in the tests
+     * The DAOs already created use the new factory for their next queries
+     * @param instance the new factory
      */
-    public abstract Connection getDb();
+    public static synchronized void setInstance(Factory instance){
+        factory = instance;
+    }
+
+    /**
+     * Borrow a connection to the database
+     * It must be closed once the work is done, to give it back
+     * @return a connection to the database
+     * @throws SQLException if no connection is available
+     */
+    public abstract Connection getDb() throws SQLException;
+
+    /**
+     * Release all the connections to the database
+     */
+    public abstract void close();
 
     /**
      * Method that will create a UserDAO
@@ -86,4 +106,22 @@ public abstract class Factory {
      * @return the NotificationDAO
      */
     public abstract NotificationDAO createNotificationDAO();
-}
\ No newline at end of file
+
+    /**
+     * Method that will create a PointTransactionDAO
+     * @return the PointTransactionDAO
+     */
+    public abstract PointTransactionDAO createPointTransactionDAO();
+
+    /**
+     * Method that will create a MailOutboxDAO
+     * @return the MailOutboxDAO
+     */
+    public abstract MailOutboxDAO createMailOutboxDAO();
+
+    /**
+     * Method that will create a CouponCodeDAO
+     * @return the CouponCodeDAO
+     */
+    public abstract CouponCodeDAO createCouponCodeDAO();
+}
@@ -1,14 +1,21 @@
 package com.github.studeasy.logic.factory;
 
+import com.github.studeasy.dao.categoryDAO.CachedCategoryDAO;
 import com.github.studeasy.dao.categoryDAO.CategoryDAO;
 import com.github.studeasy.dao.categoryDAO.MySQLCategoryDAO;
 import com.github.studeasy.dao.commandOfServiceDAO.CommandOfServiceDAO;
 import com.github.studeasy.dao.commandOfServiceDAO.MySQLCommandOfServiceDAO;
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
+import com.github.studeasy.dao.couponCodeDAO.MySQLCouponCodeDAO;
 import com.github.studeasy.dao.couponDAO.CouponDAO;
 import com.github.studeasy.dao.couponDAO.MySQLCouponDAO;
 import com.github.studeasy.dao.db.MySQLConnectionUtil;
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
+import com.github.studeasy.dao.mailOutboxDAO.MySQLMailOutboxDAO;
 import com.github.studeasy.dao.notificationDAO.MySQLNotificationDAO;
 import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.dao.pointTransactionDAO.MySQLPointTransactionDAO;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
 import com.github.studeasy.dao.serviceDAO.MySQLServiceDAO;
 import com.github.studeasy.dao.serviceDAO.ServiceDAO;
 import com.github.studeasy.dao.jobDAO.JobDAO;
@@ -17,6 +24,7 @@ import com.github.studeasy.dao.feedbackDAO.FeedbackDAO;
 import com.github.studeasy.dao.feedbackDAO.MySQLFeedbackDAO;
 import com.github.studeasy.dao.userDAO.MySQLUserDAO;
 import com.github.studeasy.dao.userDAO.UserDAO;
+import com.github.studeasy.logic.config.ConfigRegistry;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -26,40 +34,27 @@ import java.sql.SQLException;
  */
 public class MySQLFactory extends Factory {
 
-    /**
-     * The connection to the database
-     */
-    private Connection db;
-
     /**
      * Default constructor of a MySQLFactory
+     * The connections are only opened when a DAO first needs one
      */
-    public MySQLFactory() {
-        this.openConnection();
-    }
-
-    /**
-     * Create the connection to the database
-     */
-    private void openConnection() {
-        MySQLConnectionUtil connection = MySQLConnectionUtil.getInstance();
-        this.db = connection.getDb();
-    }
+    public MySQLFactory() {}
 
     /**
-     * Close the connection
-     * @throws SQLException if an error occur
+     * Borrow a connection from the pool of the database
+     * It must be closed once the work is done, to give it back to the pool
+     * @return a connection to the database
+     * @throws SQLException if no connection is available
      */
-    private void closeConnection() throws SQLException {
-        this.db.close();
+    public Connection getDb() throws SQLException {
+        return MySQLConnectionUtil.getInstance().getDb();
     }
 
     /**
-     * To get the connection to the database
-     * @return the connection to the database
+     * Close all the connections of the pool
      */
-    public Connection getDb() {
-        return db;
+    public void close() {
+        MySQLConnectionUtil.getInstance().close();
     }
 
     /**
@@ -95,12 +90,13 @@ public class MySQLFactory extends Factory {
     }
 
     /**
-     * Method which will create a MySQLCategoryDAO
-     * @return the MySQLCategoryDAO
+     * Method which will create a MySQLCategoryDAO, whose categories are kept in memory
+     * @return the MySQLCategoryDAO behind its cache
      */
     @Override
     public CategoryDAO createCategoryDAO() {
-        return new MySQLCategoryDAO();
+        long ttlSeconds = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE).getLong("CATEGORY_CACHE_TTL_S", 300);
+        return new CachedCategoryDAO(new MySQLCategoryDAO(), ttlSeconds * 1000);
     }
 
     /**
@@ -129,4 +125,31 @@ public class MySQLFactory extends Factory {
     public NotificationDAO createNotificationDAO() {
         return new MySQLNotificationDAO();
     }
-}
\ No newline at end of file
+
+    /**
+     * Method that will create a PointTransactionDAO
+     * @return the PointTransactionDAO
+     */
+    @Override
+    public PointTransactionDAO createPointTransactionDAO() {
+        return new MySQLPointTransactionDAO();
+    }
+
+    /**
+     * Method that will create a MailOutboxDAO
+     * @return the MailOutboxDAO
+     */
+    @Override
+    public MailOutboxDAO createMailOutboxDAO() {
+        return new MySQLMailOutboxDAO();
+    }
+
+    /**
+     * Method that will create a CouponCodeDAO
+     * @return the CouponCodeDAO
+     */
+    @Override
+    public CouponCodeDAO createCouponCodeDAO() {
+        return new MySQLCouponCodeDAO();
+    }
+}
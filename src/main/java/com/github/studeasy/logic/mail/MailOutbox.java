@@ -0,0 +1,339 @@
+package com.github.studeasy.logic.mail;
+
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
+import com.github.studeasy.logic.common.OutgoingMail;
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+import com.github.studeasy.logic.utils.Mail;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Class singleton, sending the mails in the background
+ * The mails are saved in the outbox first, so none is lost if the application stops,
+ * then a pool of workers takes them by batches and sends each batch on a single
+ * connection to the mail server. A mail not sent is tried again later, waiting
+ * twice as long after each failure
+ */
+public class MailOutbox {
+
+    /**
+     * Singleton of the MailOutbox
+     */
+    private static MailOutbox mailOutbox = null;
+
+    /**
+     * How long a worker keeps the mails it took before another one can take them (in s)
+     */
+    private static final long LEASE_SECONDS = 300;
+
+    /**
+     * The DAO keeping the mails waiting to be sent
+     */
+    private final MailOutboxDAO DAO;
+
+    /**
+     * Creates a sender for each batch of mails
+     */
+    private final Supplier<MailSender> SENDERS;
+
+    /**
+     * Number of workers sending the mails
+     */
+    private final int workers;
+
+    /**
+     * Maximum number of mails sent on one connection before taking the next batch
+     */
+    private final int batchSize;
+
+    /**
+     * Delay between two checks of the outbox (in ms)
+     */
+    private final long pollDelayMs;
+
+    /**
+     * Delay before trying again a mail which failed once (in s)
+     */
+    private final long baseRetrySeconds;
+
+    /**
+     * Longest delay before trying again a mail (in s)
+     */
+    private final long maxRetrySeconds;
+
+    /**
+     * Number of failures after which we give up sending a mail
+     */
+    private final int maxAttempts;
+
+    /**
+     * The threads sending the mails, null when stopped
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Number of mails waiting in the outbox, at the end of the last batch
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    /**
+     * Statistics of the sending
+     */
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder abandonedCount = new LongAdder();
+    private final LongAdder totalSendNanos = new LongAdder();
+    private final LongAccumulator maxSendNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Create the outbox
+     * @param dao the DAO keeping the mails waiting to be sent
+     * @param senders creates a sender for each batch of mails
+     * @param workers number of workers sending the mails
+     * @param batchSize maximum number of mails sent on one connection
+     * @param pollDelayMs delay between two checks of the outbox (in ms)
+     * @param baseRetrySeconds delay before trying again a mail which failed once (in s)
+     * @param maxRetrySeconds longest delay before trying again a mail (in s)
+     * @param maxAttempts number of failures after which we give up sending a mail
+     */
+    public MailOutbox(MailOutboxDAO dao, Supplier<MailSender> senders, int workers, int batchSize,
+                      long pollDelayMs, long baseRetrySeconds, long maxRetrySeconds, int maxAttempts) {
+        this.DAO = dao;
+        this.SENDERS = senders;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.pollDelayMs = pollDelayMs;
+        this.baseRetrySeconds = Math.max(1, baseRetrySeconds);
+        this.maxRetrySeconds = Math.max(this.baseRetrySeconds, maxRetrySeconds);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized MailOutbox getInstance() {
+        if (mailOutbox == null) {
+            ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+            mailOutbox = new MailOutbox(MailOutboxDAO.getInstance(),
+                    () -> new SmtpMailSender(Mail.SESSION, Mail.ADDRESS),
+                    settings.getInt("MAIL_WORKERS", 2),
+                    settings.getInt("MAIL_BATCH_SIZE", 20),
+                    settings.getLong("MAIL_POLL_DELAY_MS", 30_000),
+                    settings.getLong("MAIL_RETRY_BASE_S", 30),
+                    settings.getLong("MAIL_RETRY_MAX_S", 3600),
+                    settings.getInt("MAIL_MAX_ATTEMPTS", 8));
+        }
+        return mailOutbox;
+    }
+
+    /**
+     * Start the workers sending the mails
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        // The workers must not prevent the application from exiting
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(workers, r -> {
+            Thread t = new Thread(r, "studeasy-mail-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.scheduleWithFixedDelay(this::drainSafely, 0, pollDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the workers, the mails not sent stay in the outbox
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Put a mail in the outbox, it is sent in the background
+     * @param subject the subject of the mail
+     * @param text the text of the mail
+     * @param recipient the address of the receiver
+     * @return the id of the mail in the outbox
+     * @throws Exception if the mail can't be saved in the outbox
+     */
+    public int enqueue(String subject, String text, String recipient) throws Exception {
+        int idMail = DAO.enqueue(recipient, subject, text);
+        // In a transaction, the workers can't read the mail before the commit and a rollback removes it
+        DAO.afterCommit(() -> {
+            queueDepth.incrementAndGet();
+            // We don't wait for the next check of the outbox
+            this.wakeUp();
+        });
+        return idMail;
+    }
+
+    /**
+     * Ask a worker to check the outbox now
+     * Used once a transaction which put mails in the outbox is committed
+     */
+    public synchronized void wakeUp() {
+        if (executor != null) {
+            executor.execute(this::drainSafely);
+        }
+    }
+
+    /**
+     * Send the mails due, logging the errors instead of stopping the worker
+     */
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (Exception err) {
+            err.printStackTrace();
+        }
+    }
+
+    /**
+     * Send the mails due, batch by batch, each batch on a single connection
+     * @return the number of mails sent
+     * @throws Exception if the outbox can't be read
+     */
+    int drain() throws Exception {
+        int sent = 0;
+        MailSender sender = SENDERS.get();
+        try {
+            ArrayList<OutgoingMail> batch = DAO.claimDue(batchSize, LEASE_SECONDS);
+            if (batch.isEmpty()) {
+                return sent;
+            }
+            // We connect once for all the batches
+            try {
+                sender.connect();
+            } catch (Exception err) {
+                // The server can't be reached, the batch is tried again later
+                for (OutgoingMail mail : batch) {
+                    this.failed(mail, err);
+                }
+                return sent;
+            }
+            while (!batch.isEmpty()) {
+                int sentBefore = sent;
+                for (OutgoingMail mail : batch) {
+                    long start = System.nanoTime();
+                    try {
+                        sender.send(mail);
+                    } catch (Exception err) {
+                        this.failed(mail, err);
+                        continue;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    totalSendNanos.add(elapsed);
+                    maxSendNanos.accumulate(elapsed);
+                    sentCount.increment();
+                    sent++;
+                    DAO.markSent(mail);
+                }
+                // A batch not full means the outbox is empty
+                // If nothing could be sent, the server has a problem, we wait for the next check
+                if (batch.size() < batchSize || sent == sentBefore) {
+                    break;
+                }
+                batch = DAO.claimDue(batchSize, LEASE_SECONDS);
+            }
+            return sent;
+        } finally {
+            sender.disconnect();
+            queueDepth.set(DAO.countPending());
+        }
+    }
+
+    /**
+     * Plan the next attempt of a mail not sent, or give up after too many failures
+     * @param mail the mail not sent
+     * @param err why it was not sent
+     * @throws Exception if the outbox can't be updated
+     */
+    private void failed(OutgoingMail mail, Exception err) throws Exception {
+        failedCount.increment();
+        boolean giveUp = mail.getAttempts() + 1 >= maxAttempts;
+        if (giveUp) {
+            abandonedCount.increment();
+        }
+        DAO.markFailed(mail, err.toString(), retryDelaySeconds(mail.getAttempts()), giveUp);
+    }
+
+    /**
+     * Compute the delay before the next attempt of a mail
+     * @param attempts the number of failures before this one
+     * @return the delay (in s)
+     */
+    long retryDelaySeconds(int attempts) {
+        // We double the delay after each failure, up to the longest delay
+        long delay = baseRetrySeconds;
+        for (int i = 0; i < attempts && delay < maxRetrySeconds; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, maxRetrySeconds);
+    }
+
+    /**
+     * @return the number of mails waiting in the outbox
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the number of mails sent since the start of the application
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * @return the number of failed attempts to send a mail
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return the number of mails we gave up sending
+     */
+    public long getAbandonedCount() {
+        return abandonedCount.sum();
+    }
+
+    /**
+     * @return the average time to send a mail (in ms)
+     */
+    public double getAverageSendMillis() {
+        long count = sentCount.sum();
+        return count == 0 ? 0 : totalSendNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * @return the longest time to send a mail (in ms)
+     */
+    public double getMaxSendMillis() {
+        return maxSendNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MailOutbox[queued=%d, sent=%d, failed=%d, abandoned=%d, avgSend=%.2fms, maxSend=%.2fms]",
+                getQueueDepth(), getSentCount(), getFailedCount(), getAbandonedCount(),
+                getAverageSendMillis(), getMaxSendMillis());
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.studeasy.logic.mail;
+
+import com.github.studeasy.logic.common.OutgoingMail;
+
+/**
+ * Sends the mails of the outbox
+ * A worker connects once, sends a batch of mails, then disconnects
+ */
+public interface MailSender {
+
+    /**
+     * Open the connection to the mail server
+     * @throws Exception if the server can't be reached
+     */
+    void connect() throws Exception;
+
+    /**
+     * Send a mail on the open connection
+     * @param mail the mail to send
+     * @throws Exception if the mail can't be sent
+     */
+    void send(OutgoingMail mail) throws Exception;
+
+    /**
+     * Close the connection to the mail server, if it is open
+     */
+    void disconnect();
+}
@@ -0,0 +1,83 @@
+package com.github.studeasy.logic.mail;
+
+import com.github.studeasy.logic.common.OutgoingMail;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Sends the mails through a SMTP server
+ * The same connection to the server is used for all the mails of a batch
+ */
+public class SmtpMailSender implements MailSender {
+
+    /**
+     * The mail session, knowing the server and the credentials
+     */
+    private final Session SESSION;
+
+    /**
+     * The address sending the mails
+     */
+    private final String FROM;
+
+    /**
+     * The connection to the server, null when disconnected
+     */
+    private Transport transport;
+
+    /**
+     * Create the sender
+     * @param session the mail session, knowing the server and the credentials
+     * @param from the address sending the mails
+     */
+    public SmtpMailSender(Session session, String from) {
+        this.SESSION = session;
+        this.FROM = from;
+    }
+
+    /**
+     * Open the connection to the SMTP server
+     * @throws MessagingException if the server can't be reached
+     */
+    public void connect() throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            transport = SESSION.getTransport("smtp");
+            transport.connect();
+        }
+    }
+
+    /**
+     * Send a mail on the open connection
+     * @param mail the mail to send
+     * @throws MessagingException if the mail can't be sent
+     */
+    public void send(OutgoingMail mail) throws MessagingException {
+        connect();
+        Message message = new MimeMessage(SESSION);
+        message.setFrom(new InternetAddress(FROM));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(mail.getRecipient()));
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getText());
+        message.saveChanges();
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    /**
+     * Close the connection to the SMTP server, if it is open
+     */
+    public void disconnect() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException err) {
+                err.printStackTrace();
+            }
+            transport = null;
+        }
+    }
+}
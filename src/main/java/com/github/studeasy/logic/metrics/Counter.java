@@ -0,0 +1,61 @@
+package com.github.studeasy.logic.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of times something happened
+ */
+public class Counter {
+
+    /**
+     * The name of what is counted
+     */
+    private final String NAME;
+
+    /**
+     * The number of times it happened
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Create a counter
+     * @param name the name of what is counted
+     */
+    Counter(String name) {
+        this.NAME = name;
+    }
+
+    /**
+     * Count one more time
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Count several times
+     * @param n the number of times
+     */
+    public void add(long n) {
+        count.add(n);
+    }
+
+    /**
+     * @return the name of what is counted
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return the number of times it happened
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-60s %8d", NAME, getCount());
+    }
+}
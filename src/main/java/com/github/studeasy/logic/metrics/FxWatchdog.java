@@ -0,0 +1,263 @@
+package com.github.studeasy.logic.metrics;
+
+import com.github.studeasy.logic.config.ConfigRegistry;
+import javafx.application.Platform;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Class singleton, watching the JavaFX thread
+ * A heartbeat is regularly given to the JavaFX thread; when it waits longer than a threshold,
+ * the thread is blocked: its stack is written to a rolling file (fx-stalls) and kept for the
+ * admin panel. Once the heartbeat runs, the stall is given to the metrics as fx.stall.* by
+ * controller, the first controller found in the stack (or the first class of the application).
+ * The delay of every heartbeat is given as fx.latency
+ */
+public class FxWatchdog {
+
+    /**
+     * Singleton of the FxWatchdog
+     */
+    private static FxWatchdog fxWatchdog = null;
+
+    /**
+     * The package of the application
+     */
+    private static final String PACKAGE = "com.github.studeasy.";
+
+    /**
+     * The package of the controllers of the views
+     */
+    private static final String CONTROLLER_PACKAGE = "com.github.studeasy.gui.controller.";
+
+    /**
+     * Number of frames of the stack written for a stall
+     */
+    private static final int STACK_DEPTH = 40;
+
+    /**
+     * Format of the time of the stalls in the file
+     */
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * The metrics receiving the stalls
+     */
+    private final MetricsRegistry METRICS;
+
+    /**
+     * The file of the stalls, null to keep them in memory only
+     */
+    private final RollingFile FILE;
+
+    /**
+     * Gives a heartbeat to the JavaFX thread
+     */
+    private final Consumer<Runnable> POST;
+
+    /**
+     * Gives the duration from which the thread is blocked, read live (in ms)
+     */
+    private final LongSupplier THRESHOLD_MS;
+
+    /**
+     * The stack of the last stall of each controller
+     */
+    private final ConcurrentHashMap<String, String> LAST_STACKS;
+
+    /**
+     * The thread watched, the JavaFX thread
+     */
+    private volatile Thread watched;
+
+    /**
+     * When the heartbeat waiting was given (in ns), 0 if it ran
+     */
+    private volatile long posted;
+
+    /**
+     * When the last heartbeat ran (in ns)
+     */
+    private volatile long beat;
+
+    /**
+     * When the stall in progress started (in ns), 0 if none
+     * Only read and written by the sampling thread
+     */
+    private long stalledSince;
+
+    /**
+     * The controller of the stall in progress
+     */
+    private String stalledIn;
+
+    /**
+     * Gives the heartbeats, null until started
+     */
+    private ScheduledExecutorService sampler;
+
+    /**
+     * Create the watchdog
+     * @param metrics the metrics receiving the stalls
+     * @param file the file of the stalls, null to keep them in memory only
+     * @param post gives a runnable to the thread watched
+     * @param thresholdMs gives the duration from which the thread is blocked (in ms), 0 or less to detect none
+     */
+    public FxWatchdog(MetricsRegistry metrics, RollingFile file, Consumer<Runnable> post, LongSupplier thresholdMs) {
+        this.METRICS = metrics;
+        this.FILE = file;
+        this.POST = post;
+        this.THRESHOLD_MS = thresholdMs;
+        this.LAST_STACKS = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized FxWatchdog getInstance() {
+        if (fxWatchdog == null) {
+            // The threshold is read live, so it can be lowered while looking for a problem
+            fxWatchdog = new FxWatchdog(MetricsRegistry.getInstance(), MetricsRegistry.file("fx-stalls"),
+                    Platform::runLater, () -> ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                    .getLong("FX_STALL_MS", 250));
+        }
+        return fxWatchdog;
+    }
+
+    /**
+     * Watch the current thread, giving it a heartbeat regularly
+     * Must be called from the JavaFX thread
+     */
+    public synchronized void start() {
+        long period = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE).getLong("FX_WATCHDOG_SAMPLE_MS", 100);
+        if (sampler != null || period <= 0) {
+            return;
+        }
+        this.watch(Thread.currentThread());
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "studeasy-fx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::sample, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop watching, when the application is closed
+     */
+    public synchronized void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Retrieve the stack of the last stall of a controller
+     * @param controller the name of the controller
+     * @return the stack, null if it never blocked the thread
+     */
+    public String getLastStack(String controller) {
+        return LAST_STACKS.get(controller);
+    }
+
+    /**
+     * Change the thread watched
+     * @param thread the thread receiving the heartbeats
+     */
+    void watch(Thread thread) {
+        this.watched = thread;
+    }
+
+    /**
+     * Check the heartbeat given before, give a new one once it ran
+     * Only called by the sampling thread
+     */
+    void sample() {
+        long waiting = posted;
+        if (waiting == 0) {
+            if (stalledSince != 0) {
+                // The thread runs again, the stall is over
+                long nanos = beat - stalledSince;
+                METRICS.timer("fx.stall." + stalledIn).record(nanos);
+                if (FILE != null) {
+                    FILE.write(String.format("%s %s blocked the JavaFX thread for %.0f ms",
+                            TIME.format(LocalDateTime.now()), stalledIn, nanos / 1e6));
+                }
+                stalledSince = 0;
+            }
+            posted = System.nanoTime();
+            POST.accept(this::heartbeat);
+            return;
+        }
+        long threshold = THRESHOLD_MS.getAsLong();
+        if (stalledSince != 0 || threshold <= 0 || System.nanoTime() - waiting < threshold * 1000000L) {
+            return;
+        }
+        // The stack is taken once, while the thread is still blocked
+        Thread thread = watched;
+        StackTraceElement[] stack = thread == null ? new StackTraceElement[0] : thread.getStackTrace();
+        stalledSince = waiting;
+        stalledIn = controller(stack);
+        StringBuilder text = new StringBuilder(TIME.format(LocalDateTime.now())).append(' ')
+                .append(stalledIn).append(" blocks the JavaFX thread for more than ").append(threshold).append(" ms");
+        for (int i = 0; i < Math.min(STACK_DEPTH, stack.length); i++) {
+            text.append(System.lineSeparator()).append("\tat ").append(stack[i]);
+        }
+        if (stack.length > STACK_DEPTH) {
+            text.append(System.lineSeparator()).append("\t...");
+        }
+        LAST_STACKS.put(stalledIn, text.toString());
+        METRICS.counter("fx.stalls").increment();
+        if (FILE != null) {
+            FILE.write(text.toString());
+        }
+    }
+
+    /**
+     * The heartbeat, run by the thread watched
+     */
+    private void heartbeat() {
+        long now = System.nanoTime();
+        METRICS.timer("fx.latency").record(now - posted);
+        beat = now;
+        posted = 0;
+    }
+
+    /**
+     * Find who blocks the thread
+     * @param stack the stack of the thread, the current frame first
+     * @return the name of the first controller in the stack, else of the first class of the
+     * application (outside the metrics), else "other"
+     */
+    static String controller(StackTraceElement[] stack) {
+        String first = null;
+        for (StackTraceElement frame : stack) {
+            String type = frame.getClassName();
+            if (type.startsWith(CONTROLLER_PACKAGE)) {
+                return simpleName(type);
+            }
+            if (first == null && type.startsWith(PACKAGE) && !type.startsWith(FxWatchdog.class.getPackageName())) {
+                first = simpleName(type);
+            }
+        }
+        return first == null ? "other" : first;
+    }
+
+    /**
+     * Remove the package and the inner classes of a class name
+     * @param type the full name of the class
+     * @return its simple name
+     */
+    private static String simpleName(String type) {
+        return type.substring(type.lastIndexOf('.') + 1).split("\\$")[0];
+    }
+}
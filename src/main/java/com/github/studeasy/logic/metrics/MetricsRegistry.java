@@ -0,0 +1,272 @@
+package com.github.studeasy.logic.metrics;
+
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Class singleton, holding the timers, counters and gauges of the application
+ * The names say where they come from: dao.* and facade.* for the calls of each DAO method and
+ * facade entry point, timed once per call, pool.* for the connections, view.* and
+ * navigation.* for the screens, fx.* for the time the JavaFX thread was blocked.
+ * Once started, a snapshot is written regularly to a rolling file; the admin panel reads them live
+ */
+public class MetricsRegistry {
+
+    /**
+     * Singleton of the MetricsRegistry
+     */
+    private static MetricsRegistry metricsRegistry = null;
+
+    /**
+     * The name of the JavaFX thread
+     */
+    private static final String FX_THREAD = "JavaFX Application Thread";
+
+    /**
+     * Format of the time of the snapshots in the file
+     */
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * The timers, by name
+     */
+    private final ConcurrentHashMap<String, Timer> TIMERS;
+
+    /**
+     * The counters, by name
+     */
+    private final ConcurrentHashMap<String, Counter> COUNTERS;
+
+    /**
+     * The gauges, by name, read when displayed
+     */
+    private final ConcurrentHashMap<String, DoubleSupplier> GAUGES;
+
+    /**
+     * The innermost call timed on each thread
+     */
+    private final ThreadLocal<TimedCall> CALLS = new ThreadLocal<>();
+
+    /**
+     * The statements slower than the threshold
+     */
+    private final SlowQueryLog SLOW_QUERIES;
+
+    /**
+     * The file of the snapshots, null to keep the metrics in memory only
+     */
+    private final RollingFile FILE;
+
+    /**
+     * Writes the snapshots, null until started
+     */
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Create the registry
+     * @param slowQueries the log of the slow statements
+     * @param file the file of the snapshots, null to keep the metrics in memory only
+     */
+    public MetricsRegistry(SlowQueryLog slowQueries, RollingFile file) {
+        this.TIMERS = new ConcurrentHashMap<>();
+        this.COUNTERS = new ConcurrentHashMap<>();
+        this.GAUGES = new ConcurrentHashMap<>();
+        this.SLOW_QUERIES = slowQueries;
+        this.FILE = file;
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (metricsRegistry == null) {
+            // The threshold is read live, so it can be lowered while looking for a problem
+            SlowQueryLog slowQueries = new SlowQueryLog(() -> ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                    .getLong("SLOW_QUERY_MS", 500), ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                    .getInt("SLOW_QUERIES_KEPT", 100), file("slow-queries"));
+            metricsRegistry = new MetricsRegistry(slowQueries, file("metrics"));
+        }
+        return metricsRegistry;
+    }
+
+    /**
+     * Create a rolling file in the folder of the metrics
+     * @param name the name of the files
+     * @return the file, opened at the first line written
+     */
+    public static RollingFile file(String name) {
+        ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+        Path dir = Paths.get(settings.getString("METRICS_DIR",
+                Paths.get(System.getProperty("user.home"), ".studeasy", "metrics").toString()));
+        return new RollingFile(dir, name, settings.getInt("METRICS_FILE_MAX_KB", 1024) * 1024,
+                settings.getInt("METRICS_FILE_COUNT", 5));
+    }
+
+    /**
+     * Indicates if the current thread is the JavaFX thread
+     * Compared by name, so the layers below the views don't need the toolkit
+     * @return true if the thread displays the views
+     */
+    public static boolean isFxThread() {
+        return FX_THREAD.equals(Thread.currentThread().getName());
+    }
+
+    /**
+     * Retrieve a timer, created at the first call
+     * @param name the name of what is timed
+     * @return the timer
+     */
+    public Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Start timing a call of a method, recorded once when it is closed
+     * @param name the name of the method
+     * @return the call, to close in a try-with-resources around the body of the method
+     */
+    public TimedCall time(String name) {
+        return new TimedCall(timer(name), CALLS);
+    }
+
+    /**
+     * Find who is running on the current thread
+     * @return the innermost call timed and the outermost one running it, "other" if there isn't
+     */
+    public String getCaller() {
+        TimedCall call = CALLS.get();
+        return call == null ? "other" : call.describe();
+    }
+
+    /**
+     * Retrieve a counter, created at the first call
+     * @param name the name of what is counted
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Add a gauge, replacing the one with the same name
+     * @param name the name of what is measured
+     * @param value gives the current value
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /**
+     * Retrieve the timers
+     * @return the timers, the most time consuming first
+     */
+    public List<Timer> getTimers() {
+        List<Timer> timers = new ArrayList<>(TIMERS.values());
+        timers.sort(Comparator.comparingLong(Timer::getTotalNanos).reversed());
+        return timers;
+    }
+
+    /**
+     * Retrieve the counters
+     * @return the counters, by name
+     */
+    public List<Counter> getCounters() {
+        List<Counter> counters = new ArrayList<>(COUNTERS.values());
+        counters.sort(Comparator.comparing(Counter::getName));
+        return counters;
+    }
+
+    /**
+     * Read the gauges
+     * @return the current value of each gauge, by name
+     */
+    public Map<String, Double> getGauges() {
+        Map<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, DoubleSupplier> gauge : GAUGES.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().getAsDouble());
+        }
+        return values;
+    }
+
+    /**
+     * Retrieve the log of the statements slower than the threshold
+     * @return the log
+     */
+    public SlowQueryLog getSlowQueries() {
+        return SLOW_QUERIES;
+    }
+
+    /**
+     * Forget the timers, the counters and the slow statements, the gauges stay
+     */
+    public void reset() {
+        TIMERS.clear();
+        COUNTERS.clear();
+        SLOW_QUERIES.clear();
+    }
+
+    /**
+     * Build a snapshot of all the metrics
+     * @return the snapshot, one metric per line
+     */
+    public String snapshot() {
+        StringBuilder text = new StringBuilder("=== ").append(TIME.format(LocalDateTime.now())).append(" ===");
+        for (Timer timer : getTimers()) {
+            text.append(System.lineSeparator()).append(timer);
+        }
+        for (Counter counter : getCounters()) {
+            text.append(System.lineSeparator()).append(counter);
+        }
+        for (Map.Entry<String, Double> gauge : getGauges().entrySet()) {
+            text.append(System.lineSeparator()).append(String.format("%-60s %10.2f", gauge.getKey(), gauge.getValue()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write a snapshot to the file regularly
+     */
+    public synchronized void start() {
+        if (reporter != null || FILE == null) {
+            return;
+        }
+        long interval = Math.max(1, ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+                .getLong("METRICS_REPORT_INTERVAL_S", 60));
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "studeasy-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleWithFixedDelay(() -> FILE.write(snapshot()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop writing the snapshots, the last one is written now
+     */
+    public synchronized void stop() {
+        if (reporter == null) {
+            return;
+        }
+        reporter.shutdownNow();
+        reporter = null;
+        FILE.write(snapshot());
+        FILE.close();
+        SLOW_QUERIES.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.studeasy.logic.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A text file on the disk of the user, replaced by a new one when it is too big
+ * The files are name0.log (the current one), name1.log, ... up to the number of files kept.
+ * The file is only opened at the first line written; if it can't be, the lines are dropped
+ */
+public class RollingFile {
+
+    /**
+     * The folder of the files
+     */
+    private final Path DIRECTORY;
+
+    /**
+     * The name of the files, without the number and the extension
+     */
+    private final String NAME;
+
+    /**
+     * Size of a file before the next one is started (in bytes)
+     */
+    private final int maxBytes;
+
+    /**
+     * Number of files kept
+     */
+    private final int files;
+
+    /**
+     * Writes the lines and rolls the files, null until the first line
+     */
+    private FileHandler handler;
+
+    /**
+     * Indicates the file couldn't be opened, the lines are dropped
+     */
+    private boolean broken;
+
+    /**
+     * Create the file
+     * @param directory the folder of the files, created if needed
+     * @param name the name of the files
+     * @param maxBytes size of a file before the next one is started (in bytes)
+     * @param files number of files kept
+     */
+    public RollingFile(Path directory, String name, int maxBytes, int files) {
+        this.DIRECTORY = directory;
+        this.NAME = name;
+        this.maxBytes = Math.max(1024, maxBytes);
+        this.files = Math.max(1, files);
+    }
+
+    /**
+     * Write some lines at the end of the file
+     * @param text the lines
+     */
+    public synchronized void write(String text) {
+        if (broken) {
+            return;
+        }
+        if (handler == null) {
+            try {
+                Files.createDirectories(DIRECTORY);
+                handler = new FileHandler(DIRECTORY.resolve(NAME + "%g.log").toString(), maxBytes, files, true);
+                handler.setFormatter(new Formatter() {
+                    @Override
+                    public String format(LogRecord record) {
+                        return record.getMessage() + System.lineSeparator();
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                // The application works without its metrics, we only say it once
+                e.printStackTrace();
+                broken = true;
+                return;
+            }
+        }
+        handler.publish(new LogRecord(Level.INFO, text));
+        handler.flush();
+    }
+
+    /**
+     * Close the file, it is opened again by the next line
+     */
+    public synchronized void close() {
+        if (handler != null) {
+            handler.close();
+            handler = null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.studeasy.logic.metrics;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The statements of the database slower than a threshold
+ * The last ones are kept for the admin panel and all of them are written to a rolling file.
+ * Only the SQL is written, never the parameters: they may hold passwords or emails
+ */
+public class SlowQueryLog {
+
+    /**
+     * Format of the time of the statements in the file
+     */
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * A slow statement
+     */
+    public static class SlowQuery {
+        private final LocalDateTime time;
+        private final double millis;
+        private final String source;
+        private final String thread;
+        private final boolean failed;
+        private final String sql;
+
+        private SlowQuery(LocalDateTime time, double millis, String source, String thread, boolean failed, String sql) {
+            this.time = time;
+            this.millis = millis;
+            this.source = source;
+            this.thread = thread;
+            this.failed = failed;
+            this.sql = sql;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return the DAO method and the facade which ran the statement
+         */
+        public String getSource() {
+            return source;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %9.1f ms %s [%s] %s%s", TIME.format(time), millis, source, thread,
+                    failed ? "FAILED " : "", sql.replaceAll("\\s+", " "));
+        }
+    }
+
+    /**
+     * The last slow statements, the oldest first
+     */
+    private final ArrayDeque<SlowQuery> LAST;
+
+    /**
+     * Number of slow statements kept in memory
+     */
+    private final int kept;
+
+    /**
+     * Gives the threshold, read live (in ms)
+     */
+    private final LongSupplier THRESHOLD_MS;
+
+    /**
+     * The file of the slow statements, null to keep them in memory only
+     */
+    private final RollingFile FILE;
+
+    /**
+     * Create the log
+     * @param thresholdMs gives the duration from which a statement is slow (in ms), 0 or less to log none
+     * @param kept number of slow statements kept in memory
+     * @param file the file of the slow statements, null to keep them in memory only
+     */
+    public SlowQueryLog(LongSupplier thresholdMs, int kept, RollingFile file) {
+        this.THRESHOLD_MS = thresholdMs;
+        this.kept = Math.max(1, kept);
+        this.LAST = new ArrayDeque<>(this.kept);
+        this.FILE = file;
+    }
+
+    /**
+     * Log a statement if it was slow
+     * @param sql the statement, with a ? for each parameter
+     * @param nanos how long it took (in ns)
+     * @param source the DAO method and the facade which ran it
+     * @param failed true if the statement failed
+     * @return true if the statement was slow
+     */
+    public boolean record(String sql, long nanos, String source, boolean failed) {
+        return this.record(sql, nanos, () -> source, failed);
+    }
+
+    /**
+     * Log a statement if it was slow
+     * @param sql the statement, with a ? for each parameter
+     * @param nanos how long it took (in ns)
+     * @param source gives the DAO method and the facade which ran it, only asked if the statement was slow
+     * @param failed true if the statement failed
+     * @return true if the statement was slow
+     */
+    public boolean record(String sql, long nanos, Supplier<String> source, boolean failed) {
+        long threshold = THRESHOLD_MS.getAsLong();
+        if (threshold <= 0 || nanos < threshold * 1000000L) {
+            return false;
+        }
+        SlowQuery query = new SlowQuery(LocalDateTime.now(), nanos / 1e6, source.get(),
+                Thread.currentThread().getName(), failed, sql);
+        synchronized (this) {
+            if (LAST.size() == kept) {
+                LAST.removeFirst();
+            }
+            LAST.addLast(query);
+        }
+        if (FILE != null) {
+            FILE.write(query.toString());
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve the last slow statements
+     * @return the statements, the most recent first
+     */
+    public synchronized List<SlowQuery> getLast() {
+        List<SlowQuery> queries = new ArrayList<>(LAST);
+        Collections.reverse(queries);
+        return queries;
+    }
+
+    /**
+     * Forget the slow statements kept in memory
+     */
+    public synchronized void clear() {
+        LAST.clear();
+    }
+
+    /**
+     * Close the file, when the application stops
+     */
+    public void close() {
+        if (FILE != null) {
+            FILE.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.studeasy.logic.metrics;
+
+/**
+ * A call of a DAO method or of a facade entry point, being timed
+ * It is opened in a try-with-resources around the body of the method and recorded once, when closed.
+ * The body never uses the call, so the classes timing their methods suppress the "try" warning.
+ * The calls running on a thread are chained, so a slow statement knows who ran it without reading the stack
+ */
+public class TimedCall implements AutoCloseable {
+
+    /**
+     * The timer of the method
+     */
+    private final Timer TIMER;
+
+    /**
+     * The calls running on each thread, the innermost one
+     */
+    private final ThreadLocal<TimedCall> CURRENT;
+
+    /**
+     * The call running this one, null if there isn't
+     */
+    private final TimedCall PARENT;
+
+    /**
+     * When the call started (in ns)
+     */
+    private final long START;
+
+    /**
+     * Start timing a call on the current thread
+     * @param timer the timer of the method
+     * @param current the calls running on each thread
+     */
+    TimedCall(Timer timer, ThreadLocal<TimedCall> current) {
+        this.TIMER = timer;
+        this.CURRENT = current;
+        this.PARENT = current.get();
+        current.set(this);
+        this.START = System.nanoTime();
+    }
+
+    /**
+     * Describe who is running a statement
+     * @return the name of this call, followed by the outermost call running it if it's another one
+     */
+    String describe() {
+        TimedCall outermost = this;
+        while (outermost.PARENT != null) {
+            outermost = outermost.PARENT;
+        }
+        return outermost == this ? TIMER.getName() : TIMER.getName() + " < " + outermost.TIMER.getName();
+    }
+
+    /**
+     * Record the call and give the thread back to the call running it
+     */
+    @Override
+    public void close() {
+        TIMER.record(System.nanoTime() - START);
+        if (PARENT == null) {
+            CURRENT.remove();
+        }
+        else {
+            CURRENT.set(PARENT);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.studeasy.logic.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of calls and histogram of the durations of something timed
+ * The durations are counted in buckets growing by a quarter of a power of two, from 1 µs
+ * to several days: recording is a few atomic additions, and a percentile is known within 25%
+ */
+public class Timer {
+
+    /**
+     * Number of buckets for each power of two
+     */
+    private static final int SUB_BUCKETS = 4;
+
+    /**
+     * Number of buckets, enough for 2^40 µs
+     */
+    private static final int BUCKETS = SUB_BUCKETS + 40 * SUB_BUCKETS;
+
+    /**
+     * The name of what is timed
+     */
+    private final String NAME;
+
+    /**
+     * Number of durations in each bucket
+     */
+    private final AtomicLongArray BUCKET_COUNTS = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of calls, failures, total and longest duration
+     */
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Create a timer
+     * @param name the name of what is timed
+     */
+    Timer(String name) {
+        this.NAME = name;
+    }
+
+    /**
+     * Record a call which succeeded
+     * @param nanos how long it took (in ns)
+     */
+    public void record(long nanos) {
+        this.record(nanos, false);
+    }
+
+    /**
+     * Record a call
+     * @param nanos how long it took (in ns)
+     * @param failed true if the call failed
+     */
+    public void record(long nanos, boolean failed) {
+        long duration = Math.max(0, nanos);
+        count.increment();
+        totalNanos.add(duration);
+        maxNanos.accumulate(duration);
+        if (failed) {
+            errors.increment();
+        }
+        BUCKET_COUNTS.incrementAndGet(bucket(duration / 1000));
+    }
+
+    /**
+     * Find the bucket of a duration
+     * @param micros the duration (in µs)
+     * @return the index of its bucket
+     */
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        // The power of two, then the quarter inside it
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >> (exponent - 2)) - SUB_BUCKETS;
+        return Math.min(BUCKETS - 1, SUB_BUCKETS + (exponent - 2) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * Find the end of a bucket, the durations of the bucket are shorter
+     * @param index the index of the bucket
+     * @return the end of the bucket (in µs)
+     */
+    static long bucketEnd(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + 2;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+    }
+
+    /**
+     * @return the name of what is timed
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return the number of calls
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the number of calls which failed
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return the time spent in the calls (in ns)
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return the average duration (in ms)
+     */
+    public double getAverageMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the longest duration (in ms)
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Retrieve a percentile of the durations
+     * @param percentile the percentile, between 0 and 100
+     * @return the end of the bucket holding the percentile, never more than the longest duration (in ms)
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = BUCKET_COUNTS.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(bucketEnd(i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-60s %8d calls %5d err %9.2f avg %9.2f p50 %9.2f p95 %9.2f p99 %9.2f max (ms)",
+                NAME, getCount(), getErrors(), getAverageMillis(), getPercentileMillis(50),
+                getPercentileMillis(95), getPercentileMillis(99), getMaxMillis());
+    }
+}
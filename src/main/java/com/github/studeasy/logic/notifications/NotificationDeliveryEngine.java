@@ -0,0 +1,281 @@
+package com.github.studeasy.logic.notifications;
+
+import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.logic.common.User;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine keeping the number of unread notifications of the user up to date
+ * The database is polled on a background thread, only asking for the notifications
+ * newer than the last one seen. When nothing happens the polls are spaced out,
+ * and the listener is only called, on the UI thread, when the number changes
+ */
+public class NotificationDeliveryEngine {
+
+    /**
+     * Value meaning no number has been delivered yet
+     */
+    private static final int NOTHING_DELIVERED = -1;
+
+    /**
+     * The DAO used to poll the notifications
+     */
+    private final NotificationDAO DAO;
+
+    /**
+     * Executor running the updates of the listener on the UI thread
+     */
+    private final Executor UI_EXECUTOR;
+
+    /**
+     * Delay between two polls when the user is active (in ms)
+     */
+    private final long baseDelayMs;
+
+    /**
+     * Longest delay between two polls when the user is idle (in ms)
+     */
+    private final long maxDelayMs;
+
+    /**
+     * Factor applied to the delay after each poll without news
+     */
+    private final double backoffFactor;
+
+    /**
+     * The thread polling the database
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * The next poll planned
+     */
+    private ScheduledFuture<?> nextPoll;
+
+    /**
+     * The user whose notifications are polled
+     */
+    private volatile User user;
+
+    /**
+     * The component displaying the number of notifications
+     */
+    private volatile NotificationListener listener;
+
+    /**
+     * Id of the most recent notification seen
+     */
+    private int lastSeenId = 0;
+
+    /**
+     * Number of unread notifications known by the engine
+     */
+    private int unread = 0;
+
+    /**
+     * Current delay between two polls (in ms)
+     */
+    private long currentDelayMs;
+
+    /**
+     * True when the count must be computed again from scratch at the next poll
+     */
+    private final AtomicBoolean resyncNeeded = new AtomicBoolean(true);
+
+    /**
+     * Last number given to the listener
+     */
+    private final AtomicInteger delivered = new AtomicInteger(NOTHING_DELIVERED);
+
+    /**
+     * Number waiting to be given to the listener
+     */
+    private final AtomicInteger pending = new AtomicInteger(NOTHING_DELIVERED);
+
+    /**
+     * True while an update of the listener is waiting on the UI thread
+     */
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+
+    /**
+     * Create the engine
+     * @param dao the DAO used to poll the notifications
+     * @param uiExecutor executor running the updates of the listener on the UI thread
+     * @param baseDelayMs delay between two polls when the user is active (in ms)
+     * @param maxDelayMs longest delay between two polls when the user is idle (in ms)
+     * @param backoffFactor factor applied to the delay after each poll without news
+     */
+    public NotificationDeliveryEngine(NotificationDAO dao, Executor uiExecutor, long baseDelayMs,
+                                      long maxDelayMs, double backoffFactor) {
+        this.DAO = dao;
+        this.UI_EXECUTOR = uiExecutor;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = Math.max(baseDelayMs, maxDelayMs);
+        this.backoffFactor = Math.max(1, backoffFactor);
+        this.currentDelayMs = baseDelayMs;
+    }
+
+    /**
+     * Start polling the notifications of the user
+     * @param user the user connected
+     */
+    public synchronized void start(User user) {
+        stop();
+        this.user = user;
+        this.lastSeenId = 0;
+        this.unread = 0;
+        this.currentDelayMs = baseDelayMs;
+        this.resyncNeeded.set(true);
+        this.delivered.set(NOTHING_DELIVERED);
+        // The polling thread must not prevent the application from exiting
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "studeasy-notifications");
+            t.setDaemon(true);
+            return t;
+        });
+        schedule(0);
+    }
+
+    /**
+     * Stop polling and forget the user and the listener
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        nextPoll = null;
+        user = null;
+        listener = null;
+    }
+
+    /**
+     * Set the component displaying the number of notifications
+     * It is given the current number right away if it is known
+     * @param listener the new listener, replacing the previous one
+     */
+    public void setListener(NotificationListener listener) {
+        this.listener = listener;
+        int known = delivered.get();
+        if (known != NOTHING_DELIVERED) {
+            // The new component has never displayed anything
+            delivered.set(NOTHING_DELIVERED);
+            publish(known);
+        }
+        userActivity();
+    }
+
+    /**
+     * Tell the engine the user is active, the next poll happens right away
+     * and the polls get back to their normal pace
+     */
+    public synchronized void userActivity() {
+        currentDelayMs = baseDelayMs;
+        schedule(0);
+    }
+
+    /**
+     * Ask for the count to be computed again from the database,
+     * used when notifications are read or deleted
+     */
+    public void requestResync() {
+        resyncNeeded.set(true);
+        userActivity();
+    }
+
+    /**
+     * Plan the next poll, replacing the one already planned
+     * @param delayMs the delay before the poll (in ms)
+     */
+    private synchronized void schedule(long delayMs) {
+        if (scheduler == null) {
+            return;
+        }
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+        }
+        nextPoll = scheduler.schedule(this::pollAndReschedule, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Poll the database, then plan the next poll
+     */
+    private void pollAndReschedule() {
+        boolean news = poll();
+        synchronized (this) {
+            if (news) {
+                currentDelayMs = baseDelayMs;
+            } else {
+                // Nothing happened, we space out the polls
+                currentDelayMs = Math.min(maxDelayMs, (long) (currentDelayMs * backoffFactor));
+            }
+            schedule(currentDelayMs);
+        }
+    }
+
+    /**
+     * Ask the database for the notifications received since the last poll
+     * @return true if the number of unread notifications changed
+     */
+    boolean poll() {
+        User current = user;
+        if (current == null) {
+            return false;
+        }
+        try {
+            int before = unread;
+            if (resyncNeeded.getAndSet(false)) {
+                // We count everything again, the last id and the count in the same query
+                int[] state = DAO.getNotificationState(current);
+                lastSeenId = state[0];
+                unread = state[1];
+            } else {
+                // We only look at the notifications arrived since the last poll
+                ArrayList<Integer> newIds = DAO.getNewNotificationIds(current, lastSeenId);
+                if (!newIds.isEmpty()) {
+                    lastSeenId = newIds.get(newIds.size() - 1);
+                    unread += newIds.size();
+                }
+            }
+            publish(unread);
+            return unread != before;
+        } catch (Exception e) {
+            // We will try again from scratch at the next poll
+            resyncNeeded.set(true);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Give the number to the listener on the UI thread if it changed
+     * Several numbers published before the UI thread runs are merged into one update
+     * @param value the number of unread notifications
+     */
+    private void publish(int value) {
+        pending.set(value);
+        if (value != delivered.get() && deliveryScheduled.compareAndSet(false, true)) {
+            UI_EXECUTOR.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Run on the UI thread, give the latest number to the listener
+     */
+    private void deliver() {
+        deliveryScheduled.set(false);
+        int value = pending.get();
+        NotificationListener current = listener;
+        if (current != null && delivered.getAndSet(value) != value) {
+            current.onUnreadCountChanged(value);
+        }
+    }
+}
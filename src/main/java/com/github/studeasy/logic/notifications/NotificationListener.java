@@ -0,0 +1,14 @@
+package com.github.studeasy.logic.notifications;
+
+/**
+ * Interface of the components displaying the number of unread notifications
+ * The delivery engine only calls it when the number changes
+ */
+public interface NotificationListener {
+
+    /**
+     * Called on the UI thread when the number of unread notifications changed
+     * @param unread the new number of unread notifications
+     */
+    void onUnreadCountChanged(int unread);
+}
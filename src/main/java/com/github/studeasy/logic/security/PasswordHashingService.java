@@ -0,0 +1,123 @@
+package com.github.studeasy.logic.security;
+
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+import com.github.studeasy.logic.utils.PasswordUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class singleton, hashing the passwords away from the JavaFX thread
+ * A hash costs a lot of CPU on purpose, so the work runs on a small pool of threads
+ * with a bounded queue: when too many hashes are waiting, new ones are refused
+ * instead of piling up
+ */
+public class PasswordHashingService {
+
+    /**
+     * Singleton of the PasswordHashingService
+     */
+    private static PasswordHashingService passwordHashingService = null;
+
+    /**
+     * The threads hashing the passwords
+     */
+    private final ThreadPoolExecutor EXECUTOR;
+
+    /**
+     * Create the service
+     * @param threads number of threads hashing the passwords
+     * @param queueCapacity number of hashes which can wait for a thread
+     */
+    public PasswordHashingService(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.EXECUTOR = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            // The threads must not prevent the application from exiting
+            Thread t = new Thread(r, "studeasy-hash-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Retrieve the singleton of the class
+     * @return the singleton of the class
+     */
+    public static synchronized PasswordHashingService getInstance() {
+        if (passwordHashingService == null) {
+            ConfigSnapshot settings = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE);
+            // By default, we leave half of the cores to the interface and the database
+            int threads = settings.getInt("HASH_THREADS", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            passwordHashingService = new PasswordHashingService(threads, settings.getInt("HASH_QUEUE_CAPACITY", 32));
+        }
+        return passwordHashingService;
+    }
+
+    /**
+     * Run some work needing a hash on the threads of the service
+     * @param work the work to run
+     * @param <T> the type of the result
+     * @return the result, failed with the exception of the work if it fails
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    result.complete(work.call());
+                } catch (Throwable err) {
+                    result.completeExceptionally(err);
+                }
+            });
+        } catch (RejectedExecutionException err) {
+            result.completeExceptionally(new RejectedExecutionException("Too many passwords are being checked, please retry", err));
+        }
+        return result;
+    }
+
+    /**
+     * Hash a password with the current settings
+     * @param password the password
+     * @param salt the salt of the user
+     * @return the hash to store
+     */
+    public CompletableFuture<String> hash(String password, String salt) {
+        return submit(() -> PasswordUtils.generateSecurePassword(password, salt));
+    }
+
+    /**
+     * Check a password against the stored hash
+     * @param password the password typed
+     * @param securedPassword the hash stored
+     * @param salt the salt of the user
+     * @return true if the password is right
+     */
+    public CompletableFuture<Boolean> verify(String password, String securedPassword, String salt) {
+        return submit(() -> PasswordUtils.verifyUserPassword(password, securedPassword, salt));
+    }
+
+    /**
+     * Retrieve the exception which made some work fail
+     * @param err the exception given by a future
+     * @return the exception thrown by the work
+     */
+    public static Throwable unwrap(Throwable err) {
+        return err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+    }
+
+    /**
+     * Stop the threads, the hashes waiting are dropped
+     */
+    public void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
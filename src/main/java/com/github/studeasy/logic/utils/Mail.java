@@ -1,22 +1,26 @@
 package com.github.studeasy.logic.utils;
 
+import com.github.studeasy.logic.config.ConfigRegistry;
+import com.github.studeasy.logic.config.ConfigSnapshot;
+import com.github.studeasy.logic.mail.MailOutbox;
+
 import javax.mail.*;
-import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeMessage;
 import java.util.Properties;
 
 public class Mail {
     
-    public static final String ADDRESS = PropertiesEnv.getEmailProperties().getProperty("EMAIL");
-    public static final String PASSWORD = PropertiesEnv.getEmailProperties().getProperty("PWD");
+    private static final ConfigSnapshot SETTINGS = ConfigRegistry.getInstance().require(ConfigRegistry.EMAIL);
+    public static final String ADDRESS = SETTINGS.getString("EMAIL");
+    public static final String PASSWORD = SETTINGS.getString("PWD");
     public static final Session SESSION = creerSession();
 
     private static Session creerSession () {
+        // The server can be changed in email.properties, for example to a local fake SMTP server
         Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable","true");
-        props.put("mail.smtp.host","smtp.gmail.com");
-        props.put("mail.smtp.port","587");
+        props.put("mail.smtp.auth", SETTINGS.getString("SMTP_AUTH", "true"));
+        props.put("mail.smtp.starttls.enable", SETTINGS.getString("SMTP_STARTTLS", "true"));
+        props.put("mail.smtp.host", SETTINGS.getString("SMTP_HOST", "smtp.gmail.com"));
+        props.put("mail.smtp.port", SETTINGS.getString("SMTP_PORT", "587"));
         Session session = Session.getInstance(props,
                 new javax.mail.Authenticator() {
                     protected PasswordAuthentication getPasswordAuthentication() {
@@ -26,14 +30,15 @@ public class Mail {
         return session;
     }
 
+    /**
+     * Send a mail in the background
+     * The mail is saved in the outbox and sent as soon as possible, with retries
+     * @param subject the subject of the mail
+     * @param text the text of the mail
+     * @param adrReceiver the address of the receiver
+     * @throws Exception if the mail can't be saved in the outbox
+     */
     public static void sendMail (String subject, String text, String adrReceiver) throws Exception{
-
-        Message message = new MimeMessage(SESSION);
-        message.setFrom(new InternetAddress(ADDRESS));
-        message.setRecipients(Message.RecipientType.TO,
-                InternetAddress.parse(adrReceiver));
-        message.setSubject(subject);
-        message.setText(text);
-        Transport.send(message);
+        MailOutbox.getInstance().enqueue(subject, text, adrReceiver);
     }
 }
@@ -1,5 +1,9 @@
 package com.github.studeasy.logic.utils;
 
+import com.github.studeasy.logic.config.ConfigRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
@@ -9,12 +13,31 @@ import java.util.Random;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 
+/**
+ * Hashes the passwords with PBKDF2
+ * A hash is stored as algorithm$iterations$hash, so the cost can be raised later:
+ * the old hashes are still checked with their own settings and replaced at the next login.
+ * The hashes stored before this format are PBKDF2WithHmacSHA1 with 10 000 iterations
+ */
 public class PasswordUtils {
 
     private static final Random RANDOM = new SecureRandom();
     private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
-    private static final int ITERATIONS = 10000;
     private static final int KEY_LENGTH = 256;
+    private static final String SEPARATOR = "$";
+
+    /**
+     * The settings of the hashes stored without algorithm nor iterations
+     */
+    static final String LEGACY_ALGORITHM = "PBKDF2WithHmacSHA1";
+    static final int LEGACY_ITERATIONS = 10000;
+
+    /**
+     * The settings of the new hashes, the iterations can be changed with PASSWORD_ITERATIONS
+     */
+    public static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    public static final int ITERATIONS = ConfigRegistry.getInstance().get(ConfigRegistry.PERFORMANCE)
+            .getInt("PASSWORD_ITERATIONS", 310000);
 
     public static String getSalt(int length) {
         StringBuilder returnValue = new StringBuilder(length);
@@ -23,11 +46,16 @@ public class PasswordUtils {
         }
         return new String(returnValue);
     }
+
     public static byte[] hash(char[] password, byte[] salt) {
-        PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, KEY_LENGTH);
+        return hash(password, salt, ALGORITHM, ITERATIONS);
+    }
+
+    public static byte[] hash(char[] password, byte[] salt, String algorithm, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, KEY_LENGTH);
         Arrays.fill(password, Character.MIN_VALUE);
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+            SecretKeyFactory skf = SecretKeyFactory.getInstance(algorithm);
             return skf.generateSecret(spec).getEncoded();
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new AssertionError("Error while hashing a password: " + e.getMessage(), e);
@@ -35,25 +63,67 @@ public class PasswordUtils {
             spec.clearPassword();
         }
     }
-    public static String generateSecurePassword(String password, String salt) {
-        String returnValue = null;
-        byte[] securePassword = hash(password.toCharArray(), salt.getBytes());
-        returnValue = Base64.getEncoder().encodeToString(securePassword);
 
-        return returnValue;
+    /**
+     * Hash a password with the current settings
+     * @param password the password
+     * @param salt the salt of the user
+     * @return the hash to store, with its settings
+     */
+    public static String generateSecurePassword(String password, String salt) {
+        byte[] securePassword = hash(password.toCharArray(), salt.getBytes(), ALGORITHM, ITERATIONS);
+        return ALGORITHM + SEPARATOR + ITERATIONS + SEPARATOR + Base64.getEncoder().encodeToString(securePassword);
     }
 
+    /**
+     * Check a password against the stored hash, with the settings of the stored hash
+     * @param providedPassword the password typed
+     * @param securedPassword the hash stored
+     * @param salt the salt of the user
+     * @return true if the password is right
+     */
     public static boolean verifyUserPassword(String providedPassword,
                                              String securedPassword, String salt)
     {
-        boolean returnValue = false;
-
-        // Generate New secure password with the same salt
-        String newSecurePassword = generateSecurePassword(providedPassword, salt);
+        if (securedPassword == null) {
+            return false;
+        }
+        String algorithm = LEGACY_ALGORITHM;
+        int iterations = LEGACY_ITERATIONS;
+        String expected = securedPassword;
+        String[] parts = securedPassword.split("\\" + SEPARATOR);
+        if (parts.length == 3) {
+            algorithm = parts[0];
+            try {
+                iterations = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            expected = parts[2];
+        }
+        // Generate New secure password with the same salt and settings
+        String newSecurePassword = Base64.getEncoder().encodeToString(
+                hash(providedPassword.toCharArray(), salt.getBytes(), algorithm, iterations));
 
-        // Check if two passwords are equal
-        returnValue = newSecurePassword.equalsIgnoreCase(securedPassword);
+        // Check if two passwords are equal, in a time not depending on where they differ
+        return MessageDigest.isEqual(newSecurePassword.getBytes(StandardCharsets.US_ASCII),
+                expected.getBytes(StandardCharsets.US_ASCII));
+    }
 
-        return returnValue;
+    /**
+     * Check if a stored hash is weaker than the current settings
+     * @param securedPassword the hash stored
+     * @return true if the password should be hashed again
+     */
+    public static boolean needsRehash(String securedPassword) {
+        String[] parts = securedPassword.split("\\" + SEPARATOR);
+        if (parts.length != 3 || !ALGORITHM.equals(parts[0])) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
     }
 }
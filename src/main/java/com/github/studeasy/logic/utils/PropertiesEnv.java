@@ -1,47 +1,21 @@
 package com.github.studeasy.logic.utils;
 
-import com.mysql.cj.MysqlConnection;
+import com.github.studeasy.logic.config.ConfigRegistry;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.Properties;
 
+/**
+ * Gives the settings as Properties, read once by the ConfigRegistry
+ */
 public class PropertiesEnv {
 
     public static Properties getDatabaseProperties()
     {
-        Properties p = new Properties();
-        try (InputStream in = MysqlConnection.class.getClassLoader().getResourceAsStream("environment/database.properties"))
-        {
-            if (in == null)
-            {
-                throw new NullPointerException("You must specify a database.properties file");
-            }
-            p.load(new InputStreamReader(in));
-        }
-        catch ( IOException e)
-        {
-            e.printStackTrace();
-        }
-        return p;
+        return ConfigRegistry.getInstance().require(ConfigRegistry.DATABASE).toProperties();
     }
 
     public static Properties getEmailProperties()
     {
-        Properties p = new Properties();
-        try (InputStream in = MysqlConnection.class.getClassLoader().getResourceAsStream("environment/email.properties"))
-        {
-            if (in == null)
-            {
-                throw new NullPointerException("You must specify a email.properties file");
-            }
-            p.load(new InputStreamReader(in));
-        }
-        catch ( IOException e)
-        {
-            e.printStackTrace();
-        }
-        return p;
+        return ConfigRegistry.getInstance().require(ConfigRegistry.EMAIL).toProperties();
     }
 }
@@ -1,9 +1,11 @@
 package com.github.studeasy.logic.utils;
 import java.util.regex.*;
-public class regexUtils {
 
-    private static Pattern pattern;
-    private static Matcher matcher;
+/**
+ * The patterns are compiled once, a Pattern can be shared between threads,
+ * each call uses its own Matcher
+ */
+public class regexUtils {
 
     /**
      * Regex for mail
@@ -25,21 +27,19 @@ public class regexUtils {
 
     private static final String phone_regex = "^(\\+\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$";
 
+    public static final Pattern EMAIL = Pattern.compile(email_regex);
+    public static final Pattern PASSWORD = Pattern.compile(password_regex);
+    public static final Pattern PHONE = Pattern.compile(phone_regex);
+
     public static boolean matches_mail(String input){
-        pattern = Pattern.compile(email_regex);
-        matcher = pattern.matcher(input);
-        return matcher.find();
+        return EMAIL.matcher(input).find();
     }
 
     public static boolean matches_password(String input){
-        pattern = Pattern.compile(password_regex);
-        matcher = pattern.matcher(input);
-        return matcher.find();
+        return PASSWORD.matcher(input).find();
     }
 
     public static boolean matches_phone(String input){
-        pattern = Pattern.compile(phone_regex);
-        matcher = pattern.matcher(input);
-        return matcher.find();
+        return PHONE.matcher(input).find();
     }
-}
\ No newline at end of file
+}
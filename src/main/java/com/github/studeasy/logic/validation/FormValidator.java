@@ -0,0 +1,173 @@
+package com.github.studeasy.logic.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Class checking a form against a list of rules
+ * A validator is built once and never changes, so the same one can check
+ * many forms at once, from any thread. All the rules are checked in one pass,
+ * every error is reported and not only the first one
+ */
+public class FormValidator {
+
+    /**
+     * A rule on a form
+     */
+    private interface Rule {
+        /**
+         * Check the rule
+         * @param form the values of the form, by field
+         * @return the error, null if the rule is followed
+         */
+        ValidationResult.FieldError check(Map<String, String> form);
+    }
+
+    /**
+     * The rules, in the order they are checked
+     */
+    private final List<Rule> RULES;
+
+    /**
+     * Create the validator
+     * @param rules the rules, in the order they are checked
+     */
+    private FormValidator(List<Rule> rules) {
+        this.RULES = Collections.unmodifiableList(new ArrayList<>(rules));
+    }
+
+    /**
+     * Start describing the rules of a form
+     * @return a builder of validator
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Check a form
+     * @param form the values of the form, by field (a missing field is empty)
+     * @return the errors found
+     */
+    public ValidationResult validate(Map<String, String> form) {
+        List<ValidationResult.FieldError> errors = new ArrayList<>();
+        for (Rule rule : RULES) {
+            ValidationResult.FieldError error = rule.check(form);
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+        return new ValidationResult(errors);
+    }
+
+    /**
+     * Check many forms, in parallel
+     * @param forms the forms
+     * @return the result of each form, in the same order
+     */
+    public List<ValidationResult> validateAll(List<Map<String, String>> forms) {
+        return forms.parallelStream().map(this::validate).collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieve the value of a field
+     * @param form the values of the form
+     * @param field the name of the field
+     * @return the value, empty if the field is missing
+     */
+    private static String value(Map<String, String> form, String field) {
+        String value = form.get(field);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Class describing the rules of a form, one after the other
+     */
+    public static class Builder {
+
+        /**
+         * The rules described
+         */
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder() {}
+
+        /**
+         * The field must not be empty
+         * @param field the name of the field
+         * @param message the message if it is empty
+         * @return the builder
+         */
+        public Builder required(String field, String message) {
+            rules.add(form -> value(form, field).isEmpty() ? new ValidationResult.FieldError(field, message) : null);
+            return this;
+        }
+
+        /**
+         * The field must contain the pattern
+         * @param field the name of the field
+         * @param pattern the pattern, compiled once
+         * @param message the message if it doesn't
+         * @return the builder
+         */
+        public Builder matches(String field, Pattern pattern, String message) {
+            rules.add(form -> pattern.matcher(value(form, field)).find() ? null : new ValidationResult.FieldError(field, message));
+            return this;
+        }
+
+        /**
+         * The field must be empty or contain the pattern
+         * @param field the name of the field
+         * @param pattern the pattern, compiled once
+         * @param message the message if it doesn't
+         * @return the builder
+         */
+        public Builder matchesIfPresent(String field, Pattern pattern, String message) {
+            rules.add(form -> {
+                String value = value(form, field);
+                return value.isEmpty() || pattern.matcher(value).find() ? null : new ValidationResult.FieldError(field, message);
+            });
+            return this;
+        }
+
+        /**
+         * The length of the field must be between min and max, included
+         * @param field the name of the field
+         * @param min the minimum length
+         * @param max the maximum length
+         * @param message the message if it isn't
+         * @return the builder
+         */
+        public Builder length(String field, int min, int max, String message) {
+            rules.add(form -> {
+                int length = value(form, field).length();
+                return length < min || length > max ? new ValidationResult.FieldError(field, message) : null;
+            });
+            return this;
+        }
+
+        /**
+         * The fields must have the same value
+         * @param field the name of the field
+         * @param confirmField the name of the field confirming it
+         * @param message the message if they differ
+         * @return the builder
+         */
+        public Builder same(String field, String confirmField, String message) {
+            rules.add(form -> value(form, field).equals(value(form, confirmField)) ? null : new ValidationResult.FieldError(confirmField, message));
+            return this;
+        }
+
+        /**
+         * Create the validator
+         * @return the validator, which can be shared
+         */
+        public FormValidator build() {
+            return new FormValidator(rules);
+        }
+    }
+}
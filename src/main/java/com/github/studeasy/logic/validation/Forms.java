@@ -0,0 +1,83 @@
+package com.github.studeasy.logic.validation;
+
+import com.github.studeasy.logic.utils.regexUtils;
+
+import java.util.Map;
+
+/**
+ * The validators of the forms of the application, built once
+ * The messages are the ones shown to the user
+ */
+public class Forms {
+
+    /**
+     * Names of the fields
+     */
+    public static final String EMAIL = "email";
+    public static final String CONFIRM_EMAIL = "confirmEmail";
+    public static final String PASSWORD = "password";
+    public static final String CONFIRM_PASSWORD = "confirmPassword";
+    public static final String PHONE = "phone";
+
+    /**
+     * The registration of a student
+     * The strength of the password is not checked, as before
+     */
+    public static final FormValidator REGISTRATION = FormValidator.builder()
+            .same(PASSWORD, CONFIRM_PASSWORD, "Bad information, Passwords doesn't correspond")
+            .same(EMAIL, CONFIRM_EMAIL, "Bad information, Emails doesn't correspond")
+            .matches(EMAIL, regexUtils.EMAIL, "Bad information, The email is not valid")
+            .build();
+
+    /**
+     * The creation of a partner by an administrator
+     */
+    public static final FormValidator PARTNER = FormValidator.builder()
+            .same(EMAIL, CONFIRM_EMAIL, "The provided information doesn't match ! Please retry")
+            .same(PASSWORD, CONFIRM_PASSWORD, "The provided information doesn't match ! Please retry")
+            .matches(EMAIL, regexUtils.EMAIL, "Email not strong enough ! Please retry")
+            .matches(PASSWORD, regexUtils.PASSWORD, "Password not enough strong ! Please retry")
+            .build();
+
+    /**
+     * The update of a partner, an empty password keeps the current one
+     */
+    public static final FormValidator PARTNER_UPDATE = FormValidator.builder()
+            .same(EMAIL, CONFIRM_EMAIL, "The provided information doesn't match ! Please retry")
+            .same(PASSWORD, CONFIRM_PASSWORD, "The provided information doesn't match ! Please retry")
+            .matches(EMAIL, regexUtils.EMAIL, "Email not strong enough ! Please retry")
+            .matchesIfPresent(PASSWORD, regexUtils.PASSWORD, "Password not enough strong ! Please retry")
+            .build();
+
+    /**
+     * The contact of a job offer
+     */
+    public static final FormValidator JOB = FormValidator.builder()
+            .matches(EMAIL, regexUtils.EMAIL, "Mail not valid, please retry")
+            .matches(PHONE, regexUtils.PHONE, "Phone number is not valid, please retry")
+            .build();
+
+    private Forms() {}
+
+    /**
+     * Create the values of an account form
+     * @param email the email
+     * @param confirmEmail the email typed again
+     * @param password the password
+     * @param confirmPassword the password typed again
+     * @return the values, by field
+     */
+    public static Map<String, String> account(String email, String confirmEmail, String password, String confirmPassword) {
+        return Map.of(EMAIL, email, CONFIRM_EMAIL, confirmEmail, PASSWORD, password, CONFIRM_PASSWORD, confirmPassword);
+    }
+
+    /**
+     * Create the values of the contact of a job offer
+     * @param email the email
+     * @param phone the phone number
+     * @return the values, by field
+     */
+    public static Map<String, String> job(String email, String phone) {
+        return Map.of(EMAIL, email, PHONE, phone);
+    }
+}
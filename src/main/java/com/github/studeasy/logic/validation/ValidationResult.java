@@ -0,0 +1,92 @@
+package com.github.studeasy.logic.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class describing the result of the validation of a form
+ * It holds every error found, in the order of the rules
+ */
+public class ValidationResult {
+
+    /**
+     * An error on a field of the form
+     */
+    public static class FieldError {
+
+        /**
+         * Name of the field
+         */
+        private final String field;
+
+        /**
+         * Message to display to the user
+         */
+        private final String message;
+
+        public FieldError(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return field + ": " + message;
+        }
+    }
+
+    /**
+     * The errors found
+     */
+    private final List<FieldError> errors;
+
+    public ValidationResult(List<FieldError> errors) {
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return true if no error was found
+     */
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public List<FieldError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Retrieve the message of the first error, the one shown when only one can be shown
+     * @return the message, null if the form is valid
+     */
+    public String getFirstMessage() {
+        return errors.isEmpty() ? null : errors.get(0).getMessage();
+    }
+
+    /**
+     * Check if a field has an error
+     * @param field the name of the field
+     * @return true if the field has at least one error
+     */
+    public boolean hasError(String field) {
+        for (FieldError error : errors) {
+            if (error.getField().equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "valid" : errors.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.studeasy.dao.categoryDAO;
+
+import com.github.studeasy.logic.common.CategoryTag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestCachedCategoryDAO {
+
+    //Mock the DAO reading the database
+    @Mock
+    private CategoryDAO categoryDAO;
+
+    private CachedCategoryDAO cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new CachedCategoryDAO(categoryDAO, 60000);
+        when(categoryDAO.seeAllCategories()).thenReturn(new ArrayList<>(Arrays.asList(
+                new CategoryTag(1, "Other", "Default"),
+                new CategoryTag(2, "Maths", "Lessons"),
+                new CategoryTag(3, "Math games", "Games"))));
+    }
+
+    @Test
+    public void TestReadOnce() {
+        assertEquals(3, cache.seeAllCategories().size());
+        assertEquals("Maths", cache.getCategory(2).getName());
+        //the names are compared whatever the case, like the database
+        assertEquals(2, cache.searchCategory("MATHS").getIdCat());
+        assertNull(cache.searchCategory("Sport"));
+        assertEquals(Arrays.asList(2, 3), cache.searchCategoryIds("math"));
+        verify(categoryDAO, times(1)).seeAllCategories();
+        verify(categoryDAO, never()).searchCategory(anyString());
+    }
+
+    @Test
+    public void TestChangesForgetTheCategories() {
+        cache.seeAllCategories();
+        cache.submitAddCategory("Sport", "Sessions");
+        verify(categoryDAO).submitAddCategory("Sport", "Sessions");
+        cache.seeAllCategories();
+        cache.deleteCategory(cache.getCategory(3));
+        cache.seeAllCategories();
+        verify(categoryDAO, times(3)).seeAllCategories();
+    }
+
+    @Test
+    public void TestUnknownCategoryReadFromTheDatabase() {
+        when(categoryDAO.getCategory(4)).thenReturn(new CategoryTag(4, "Sport", "Sessions"));
+        assertEquals("Sport", cache.getCategory(4).getName());
+        //it was added elsewhere, the others are read again
+        cache.getCategory(1);
+        verify(categoryDAO, times(2)).seeAllCategories();
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.studeasy.dao.db;
+
+import com.github.studeasy.logic.factory.Factory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestQueryTemplate {
+
+    //Mock the access to the database
+    @Mock
+    private Factory factory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private QueryTemplate template;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        template = new QueryTemplate(factory, 2);
+        when(factory.getDb()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT id FROM t")).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        //5 rows: 1, 2, 3, 4, 5
+        when(resultSet.next()).thenReturn(true, true, true, true, true, false);
+        when(resultSet.getInt(1)).thenReturn(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void TestRowsGivenByChunks() throws Exception {
+        List<List<Integer>> chunks = new ArrayList<>();
+        int count = template.stream("SELECT id FROM t", rs -> rs.getInt(1), chunks::add);
+        assertEquals(5, count);
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5)), chunks);
+        //the rows are read from a cursor, the resources are given back
+        verify(statement).setFetchSize(2);
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+    }
+
+    @Test
+    public void TestRowsSkippedByTheMapper() throws Exception {
+        List<Integer> rows = new ArrayList<>();
+        int count = template.stream("SELECT id FROM t", rs -> {
+            int id = rs.getInt(1);
+            return id % 2 == 0 ? null : id;
+        }, rows::addAll);
+        assertEquals(3, count);
+        assertEquals(Arrays.asList(1, 3, 5), rows);
+    }
+
+    @Test
+    public void TestHandlerUsesTheConnectionOfTheStream() throws Exception {
+        PreparedStatement names = mock(PreparedStatement.class);
+        ResultSet namesResult = mock(ResultSet.class);
+        when(connection.prepareStatement("SELECT name FROM u")).thenReturn(names);
+        when(names.executeQuery()).thenReturn(namesResult);
+
+        template.stream("SELECT id FROM t", rs -> rs.getInt(1),
+                chunk -> template.query("SELECT name FROM u", result -> null));
+        //one query for each chunk, all of them on the connection of the stream
+        verify(names, times(3)).executeQuery();
+        verify(factory, times(1)).getDb();
+
+        //the next query borrows its own connection again
+        template.query("SELECT name FROM u", result -> null);
+        verify(factory, times(2)).getDb();
+    }
+}
@@ -0,0 +1,307 @@
+package com.github.studeasy.dao.embedded;
+
+import com.github.studeasy.dao.db.QueryStatistics;
+import com.github.studeasy.dao.db.QueryTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs the scenarios of the DAOs on the embedded database, and measures their throughput and
+ * their latency. The plans of all the requests read are then asked to H2, the requests reading
+ * a whole table are reported: a query losing its index shows up here before reaching MySQL.
+ * Run with ./gradlew daoBenchmark, the volumes seeded and the number of iterations are
+ * given with the system properties studeasy.seed.* and studeasy.benchmark.*
+ */
+public class DaoBenchmark {
+
+    /**
+     * The volumes seeded when no system property is given
+     */
+    public static final DataSeeder.Volumes DEFAULT_VOLUMES = new DataSeeder.Volumes(10000, 50000, 100000, 200000);
+
+    /**
+     * The measures of one scenario
+     */
+    public static class Result {
+        private final String name;
+        private final boolean skipped;
+        private final int iterations;
+        private final long errors;
+        private final double opsPerSecond;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        private Result(String name, boolean skipped, int iterations, long errors, long[] nanos, long totalNanos) {
+            this.name = name;
+            this.skipped = skipped;
+            this.iterations = iterations;
+            this.errors = errors;
+            Arrays.sort(nanos);
+            this.opsPerSecond = totalNanos == 0 ? 0 : iterations * 1e9 / totalNanos;
+            this.p50Millis = percentile(nanos, 0.50);
+            this.p95Millis = percentile(nanos, 0.95);
+            this.p99Millis = percentile(nanos, 0.99);
+            this.maxMillis = nanos.length == 0 ? 0 : nanos[nanos.length - 1] / 1e6;
+        }
+
+        private static double percentile(long[] sorted, double rank) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(rank * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return true if the scenario only runs on MySQL and was not run
+         */
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the number of calls which failed, or whose requests failed
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    /**
+     * The database the scenarios run on
+     */
+    private final EmbeddedDatabase DATABASE;
+
+    /**
+     * Number of calls of each scenario before measuring
+     */
+    private final int warmup;
+
+    /**
+     * Number of calls of each scenario measured, divided by BULK_DIVISOR for those reading a whole table
+     */
+    private final int iterations;
+
+    /**
+     * The scenarios reading a whole table are run this many times less
+     */
+    private static final int BULK_DIVISOR = 20;
+
+    /**
+     * Create the benchmark
+     * @param database the database the scenarios run on, installed in the Factory
+     * @param warmup number of calls of each scenario before measuring
+     * @param iterations number of calls of each scenario measured
+     */
+    public DaoBenchmark(EmbeddedDatabase database, int warmup, int iterations) {
+        this.DATABASE = database;
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Run the scenarios one after the other
+     * The statistics of the requests are reset first, so they only hold the requests of the scenarios
+     * @param scenarios the scenarios
+     * @return the measures of each scenario, in the same order
+     */
+    public List<Result> run(List<DaoScenarios.Scenario> scenarios) {
+        QueryStatistics statistics = QueryTemplate.getInstance().getStatistics();
+        statistics.reset();
+        List<Result> results = new ArrayList<>();
+        // The same calls each time, to compare two runs
+        Random random = new Random(7);
+        for (DaoScenarios.Scenario scenario : scenarios) {
+            if (scenario.isMySQLOnly()) {
+                results.add(new Result(scenario.getName(), true, 0, 0, new long[0], 0));
+                continue;
+            }
+            int measured = scenario.isBulk() ? Math.max(1, iterations / BULK_DIVISOR) : iterations;
+            int warming = scenario.isBulk() ? Math.min(1, warmup) : warmup;
+            for (int i = 0; i < warming; i++) {
+                call(scenario, random);
+            }
+            long errorsBefore = errors(statistics);
+            long failures = 0;
+            long[] nanos = new long[measured];
+            long total = 0;
+            for (int i = 0; i < measured; i++) {
+                long start = System.nanoTime();
+                if (!call(scenario, random)) {
+                    failures++;
+                }
+                nanos[i] = System.nanoTime() - start;
+                total += nanos[i];
+            }
+            results.add(new Result(scenario.getName(), false, measured,
+                    failures + errors(statistics) - errorsBefore, nanos, total));
+        }
+        return results;
+    }
+
+    /**
+     * Run a scenario once
+     * @return false if the scenario threw an exception
+     */
+    private static boolean call(DaoScenarios.Scenario scenario, Random random) {
+        try {
+            scenario.run(random);
+            return true;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Count the requests which failed, most DAOs only print their errors
+     */
+    private static long errors(QueryStatistics statistics) {
+        long errors = 0;
+        for (QueryStatistics.Entry entry : statistics.getEntries()) {
+            errors += entry.getErrors();
+        }
+        return errors;
+    }
+
+    /**
+     * Ask H2 the plans of the requests read by the scenarios
+     * @return the plans reading a whole table, by request
+     * @throws SQLException if a plan can't be retrieved
+     */
+    public Map<String, String> tableScans() throws SQLException {
+        Map<String, String> scans = new LinkedHashMap<>();
+        for (QueryStatistics.Entry entry : QueryTemplate.getInstance().getStatistics().getEntries()) {
+            String sql = entry.getSql().trim();
+            if (!sql.toUpperCase(Locale.ROOT).startsWith("SELECT") || entry.getErrors() == entry.getCount()) {
+                continue;
+            }
+            String plan = DATABASE.explain(sql);
+            if (plan.contains("tableScan")) {
+                scans.put(sql, plan);
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Print the measures as a table
+     * @param results the measures
+     * @param out where to print
+     */
+    public static void print(List<Result> results, PrintStream out) {
+        out.printf("%-42s %8s %10s %9s %9s %9s %9s %7s%n", "Scenario", "Calls", "Ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "Errors");
+        for (Result result : results) {
+            if (result.isSkipped()) {
+                out.printf("%-42s %s%n", result.getName(), "skipped, MySQL only");
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-42s %8d %10.1f %9.3f %9.3f %9.3f %9.3f %7d%n", result.getName(), result.getIterations(),
+                    result.getOpsPerSecond(), result.getP50Millis(), result.getP95Millis(), result.getP99Millis(),
+                    result.getMaxMillis(), result.getErrors());
+        }
+    }
+
+    /**
+     * Write the measures and the table scans as JSON, to compare the runs
+     * @param results the measures
+     * @param scans the plans reading a whole table
+     * @param volumes the volumes seeded
+     * @param file the file written
+     * @throws IOException if the file can't be written
+     */
+    public static void write(List<Result> results, Map<String, String> scans, DataSeeder.Volumes volumes, Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"volumes\": {");
+        json.append(String.format(Locale.ROOT, "\"users\": %d, \"services\": %d, \"commands\": %d, \"notifications\": %d},%n",
+                volumes.getUsers(), volumes.getServices(), volumes.getCommands(), volumes.getNotifications()));
+        json.append("  \"scenarios\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(String.format(Locale.ROOT, "    {\"name\": \"%s\", \"skipped\": %b, \"iterations\": %d, \"errors\": %d, "
+                            + "\"opsPerSecond\": %.1f, \"p50Millis\": %.3f, \"p95Millis\": %.3f, \"p99Millis\": %.3f, \"maxMillis\": %.3f}",
+                    result.getName(), result.isSkipped(), result.getIterations(), result.getErrors(), result.getOpsPerSecond(),
+                    result.getP50Millis(), result.getP95Millis(), result.getP99Millis(), result.getMaxMillis()));
+            json.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ],\n  \"tableScans\": [\n");
+        int i = 0;
+        for (String sql : scans.keySet()) {
+            json.append("    \"").append(sql.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"");
+            json.append(++i < scans.size() ? ",\n" : "\n");
+        }
+        json.append("  ]\n}\n");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json.toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        DataSeeder.Volumes volumes = DataSeeder.Volumes.fromSystemProperties(DEFAULT_VOLUMES);
+        try (EmbeddedDatabase database = new EmbeddedDatabase("studeasy-benchmark", 4)) {
+            for (String skipped : database.getSkipped()) {
+                System.out.println("Not created on H2: " + skipped.replaceAll("\\s+", " "));
+            }
+            System.out.println("Seeding " + volumes);
+            DataSeeder.SeededData data = new DataSeeder(42).seed(database, volumes);
+            database.install();
+            DaoBenchmark benchmark = new DaoBenchmark(database, Integer.getInteger("studeasy.benchmark.warmup", 50),
+                    Integer.getInteger("studeasy.benchmark.iterations", 500));
+            List<Result> results = benchmark.run(new DaoScenarios(data).getScenarios());
+            print(results, System.out);
+            Map<String, String> scans = benchmark.tableScans();
+            for (Map.Entry<String, String> scan : scans.entrySet()) {
+                System.out.println("Reads a whole table: " + scan.getKey());
+                System.out.println("    " + scan.getValue().replaceAll("\\s+", " "));
+            }
+            String output = System.getProperty("studeasy.benchmark.output");
+            if (output != null) {
+                write(results, scans, volumes, Paths.get(output));
+            }
+        }
+        // The pools of the application keep their threads
+        System.exit(0);
+    }
+}
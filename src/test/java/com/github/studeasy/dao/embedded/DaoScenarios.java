@@ -0,0 +1,346 @@
+package com.github.studeasy.dao.embedded;
+
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.commandOfServiceDAO.CommandOfServiceDAO;
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
+import com.github.studeasy.dao.couponDAO.CouponDAO;
+import com.github.studeasy.dao.feedbackDAO.FeedbackDAO;
+import com.github.studeasy.dao.jobDAO.JobDAO;
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
+import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
+import com.github.studeasy.dao.serviceDAO.ServiceDAO;
+import com.github.studeasy.dao.userDAO.UserDAO;
+import com.github.studeasy.logic.common.CategoryTag;
+import com.github.studeasy.logic.common.Coupon;
+import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServicePage;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
+import com.github.studeasy.logic.common.Session;
+import com.github.studeasy.logic.common.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The calls made to the DAOs by the views of Stud'Easy, one scenario for each
+ * The DAOs are the ones given by Factory, so the scenarios run on whatever database
+ * it points to. The rows used are picked at random among the data seeded
+ */
+public class DaoScenarios {
+
+    /**
+     * A call to a DAO, timed by the benchmark
+     */
+    @FunctionalInterface
+    public interface Call {
+        void run(Random random) throws Exception;
+    }
+
+    /**
+     * A scenario of the benchmark
+     */
+    public static class Scenario {
+        private final String name;
+        private final boolean bulk;
+        private final boolean mysqlOnly;
+        private final Call call;
+
+        private Scenario(String name, boolean bulk, boolean mysqlOnly, Call call) {
+            this.name = name;
+            this.bulk = bulk;
+            this.mysqlOnly = mysqlOnly;
+            this.call = call;
+        }
+
+        /**
+         * @return the name of the scenario, the DAO then the method
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return true if the scenario reads a whole table, it is run less often
+         */
+        public boolean isBulk() {
+            return bulk;
+        }
+
+        /**
+         * @return true if the scenario uses SQL only MySQL knows, it fails on H2
+         */
+        public boolean isMySQLOnly() {
+            return mysqlOnly;
+        }
+
+        public void run(Random random) throws Exception {
+            call.run(random);
+        }
+    }
+
+    /**
+     * The scenarios
+     */
+    private final List<Scenario> SCENARIOS;
+
+    /**
+     * The data seeded
+     */
+    private final DataSeeder.SeededData DATA;
+
+    /**
+     * Makes the keys and the texts written by the scenarios unique
+     */
+    private final AtomicInteger SEQUENCE;
+
+    /**
+     * Create the scenarios
+     * @param data the data seeded, the scenarios pick their rows in it
+     */
+    public DaoScenarios(DataSeeder.SeededData data) {
+        this.DATA = data;
+        this.SCENARIOS = new ArrayList<>();
+        this.SEQUENCE = new AtomicInteger();
+        this.users();
+        this.categories();
+        this.services();
+        this.commands();
+        this.feedbacks();
+        this.notifications();
+        this.jobs();
+        this.coupons();
+        this.points();
+        this.mails();
+    }
+
+    /**
+     * Retrieve the scenarios
+     * @return the scenarios, grouped by DAO
+     */
+    public List<Scenario> getScenarios() {
+        return Collections.unmodifiableList(SCENARIOS);
+    }
+
+    private void add(String name, Call call) {
+        SCENARIOS.add(new Scenario(name, false, false, call));
+    }
+
+    private void addBulk(String name, Call call) {
+        SCENARIOS.add(new Scenario(name, true, false, call));
+    }
+
+    private void addMySQLOnly(String name, Call call) {
+        SCENARIOS.add(new Scenario(name, false, true, call));
+    }
+
+    private void users() {
+        UserDAO dao = UserDAO.getInstance();
+        // The login
+        add("user.searchUser", random -> dao.searchUser(email(student(random))));
+        add("user.searchUserById", random -> dao.searchUserById(student(random)));
+        add("user.searchUsersById", random -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                ids.add(1 + random.nextInt(DATA.getVolumes().getUsers()));
+            }
+            dao.searchUsersById(ids);
+        });
+        add("user.viewPoints", random -> dao.viewPoints(user(student(random))));
+        // The points are only given through the ledger
+        PointTransactionDAO ledger = PointTransactionDAO.getInstance();
+        add("user.addPoints", random -> ledger.transfer("benchmark:" + SEQUENCE.incrementAndGet(),
+                null, user(student(random)), 1, "Benchmark"));
+        add("user.register", random -> {
+            int n = SEQUENCE.incrementAndGet();
+            dao.register("First", "Last", "new" + n, "new" + n + "@studeasy.test", "pbkdf2$1$new", "salt", "key" + n);
+        });
+        addBulk("user.streamStudents", random -> dao.streamStudents(chunk -> { }));
+        addBulk("user.getAllPartner", random -> dao.getAllPartner());
+    }
+
+    private void categories() {
+        CategoryDAO dao = CategoryDAO.getInstance();
+        add("category.seeAllCategories", random -> dao.seeAllCategories());
+        add("category.searchCategoryIds", random -> dao.searchCategoryIds("gory 1"));
+    }
+
+    private void services() {
+        ServiceDAO dao = ServiceDAO.getInstance();
+        add("service.searchServices.firstPage", random -> dao.searchServices(new ServiceSearchCriteria(), null, 50));
+        add("service.searchServices.nextPages", random -> {
+            // We browse as the user scrolling down the list
+            Service after = null;
+            for (int page = 0; page < 5; page++) {
+                ServicePage services = dao.searchServices(new ServiceSearchCriteria(), after, 50);
+                if (services.getLastRow() == null) {
+                    break;
+                }
+                after = services.getLastRow();
+            }
+        });
+        add("service.searchServices.cheapest", random -> {
+            ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+            criteria.setSort(ServiceSearchCriteria.Sort.CHEAPEST);
+            criteria.setMaxCost(20);
+            dao.searchServices(criteria, null, 50);
+        });
+        add("service.searchServices.category", random -> {
+            ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+            criteria.setCategoryName("Category " + (2 + random.nextInt(DataSeeder.CATEGORIES - 1)));
+            dao.searchServices(criteria, null, 50);
+        });
+        add("service.searchServices.shortTitle", random -> {
+            ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+            criteria.setTitle("Se");
+            dao.searchServices(criteria, null, 50);
+        });
+        // The words long enough are looked for in the FULLTEXT index
+        addMySQLOnly("service.searchServices.fullText", random -> {
+            ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+            criteria.setTitle("Description service");
+            dao.searchServices(criteria, null, 50);
+        });
+        add("service.getMyServices", random -> dao.getMyServices(user(student(random))));
+        add("service.submitService", random -> dao.submitService("Service " + SEQUENCE.incrementAndGet(),
+                "Submitted by the benchmark", category(random), 10, 0, user(student(random))));
+        add("service.reviewServices", random -> {
+            List<Service> services = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                services.add(service(1 + random.nextInt(DATA.getVolumes().getServices())));
+            }
+            dao.inTransaction(() -> dao.reviewServices(services, true));
+        });
+        addBulk("service.getPendingServices", random -> dao.getPendingServices());
+        addBulk("service.getOnlineServices", random -> dao.getOnlineServices());
+    }
+
+    private void commands() {
+        CommandOfServiceDAO dao = CommandOfServiceDAO.getInstance();
+        add("command.getServiceBought", random -> dao.getServiceBought(user(student(random))));
+        add("command.getMyServicePending", random -> dao.getMyServicePending(user(student(random))));
+        add("command.getPendingCommandsOfOneService", random -> dao.getPendingCommandsOfOneService(service(randomService(random))));
+        add("command.commandPending", random -> dao.commandPending(service(randomService(random)), user(student(random))));
+        add("command.applyorbuyForService", random -> dao.applyorbuyForService(service(randomService(random)), user(student(random))));
+    }
+
+    private void feedbacks() {
+        FeedbackDAO dao = FeedbackDAO.getInstance();
+        add("feedback.seeAllFeedbacks", random -> dao.seeAllFeedbacks(randomService(random)));
+        add("feedback.hasCommand", random -> {
+            // The DAO asks the session who is connected
+            Session.getInstance().setCurrentUser(user(student(random)));
+            dao.hasCommand(randomService(random));
+        });
+    }
+
+    private void notifications() {
+        NotificationDAO dao = NotificationDAO.getInstance();
+        // The counter of the menu, then the poll of the NotificationDeliveryEngine
+        add("notification.getNbNotif", random -> dao.getNbNotif(user(anyUser(random))));
+        add("notification.getNotificationState", random -> dao.getNotificationState(user(anyUser(random))));
+        add("notification.getNewNotificationIds", random -> {
+            User user = user(anyUser(random));
+            dao.getNewNotificationIds(user, Math.max(0, dao.getLastNotificationId(user) - 10));
+        });
+        add("notification.getNotification", random -> dao.getNotification(user(anyUser(random))));
+        add("notification.createNotification", random -> dao.createNotification(anyUser(random), "Benchmark", "Created by the benchmark"));
+    }
+
+    private void jobs() {
+        JobDAO dao = JobDAO.getInstance();
+        add("job.getMyJobs", random -> dao.getMyJobs(user(partner(random))));
+        add("job.addJob", random -> dao.addJob("Job " + SEQUENCE.incrementAndGet(), "Lille", "Intern", "2 months",
+                "job@studeasy.test", "0600000000", LocalDate.now(), "Added by the benchmark", user(partner(random))));
+        addBulk("job.getPendingJob", random -> dao.getPendingJob());
+        addBulk("job.getAllJobs", random -> dao.getAllJobs());
+    }
+
+    private void coupons() {
+        CouponDAO dao = CouponDAO.getInstance();
+        CouponCodeDAO codes = CouponCodeDAO.getInstance();
+        MailOutboxDAO mails = MailOutboxDAO.getInstance();
+        addBulk("coupon.getCoupons", random -> dao.getCoupons());
+        add("coupon.createReservation", random -> {
+            int idMail = mails.enqueue("user@studeasy.test", "Your coupon", "The code of your coupon");
+            dao.createReservation(coupon(random), user(student(random)), idMail, 600);
+        });
+        add("coupon.getExpiredReservations", random -> dao.getExpiredReservations(100));
+        // UPDATE ... JOIN
+        addMySQLOnly("coupon.confirmDeliveredReservations", random -> dao.confirmDeliveredReservations());
+        add("couponCode.insertCodes", random -> {
+            List<String> batch = new ArrayList<>();
+            int first = SEQUENCE.getAndAdd(100);
+            for (int i = 0; i < 100; i++) {
+                batch.add("CODE-" + (first + i));
+            }
+            codes.insertCodes(coupon(random).getId(), batch);
+        });
+        add("couponCode.searchCode", random -> codes.searchCode("CODE-" + random.nextInt(Math.max(1, SEQUENCE.get()))));
+        // SELECT ... FOR UPDATE SKIP LOCKED
+        addMySQLOnly("couponCode.allocateCodes", random -> codes.allocateCodes(coupon(random).getId(), 1));
+    }
+
+    private void points() {
+        PointTransactionDAO dao = PointTransactionDAO.getInstance();
+        add("points.transfer", random -> dao.transfer("benchmark:" + SEQUENCE.incrementAndGet(),
+                user(student(random)), user(student(random)), 1, "Benchmark"));
+        // The points kept in the session
+        add("points.balance", random -> dao.balance(user(student(random))));
+        add("points.lastTransaction", random -> dao.lastTransaction(user(student(random))));
+    }
+
+    private void mails() {
+        MailOutboxDAO dao = MailOutboxDAO.getInstance();
+        add("mail.enqueue", random -> dao.enqueue("user@studeasy.test", "Benchmark", "Sent by the benchmark"));
+        add("mail.countPending", random -> dao.countPending());
+        // SELECT ... FOR UPDATE SKIP LOCKED
+        addMySQLOnly("mail.claimDue", random -> dao.claimDue(10, 60));
+    }
+
+    private int student(Random random) {
+        return DATA.getStudents()[random.nextInt(DATA.getStudents().length)];
+    }
+
+    private int partner(Random random) {
+        return DATA.getPartners()[random.nextInt(DATA.getPartners().length)];
+    }
+
+    private int anyUser(Random random) {
+        return 1 + random.nextInt(DATA.getVolumes().getUsers());
+    }
+
+    private int randomService(Random random) {
+        return 1 + random.nextInt(DATA.getVolumes().getServices());
+    }
+
+    private static String email(int idUser) {
+        return "user" + idUser + "@studeasy.test";
+    }
+
+    /**
+     * A user as the session holds it, the DAOs only read its id
+     */
+    private static User user(int idUser) {
+        return new User(idUser, "Last" + idUser, "First" + idUser, email(idUser), null, 1, null,
+                "pseudo" + idUser, DataSeeder.POINTS, null);
+    }
+
+    private static Service service(int idService) {
+        return new Service(idService, "Service " + idService, "Description of the service " + idService, 10, 0,
+                null, null, 0, new Date());
+    }
+
+    private static CategoryTag category(Random random) {
+        return new CategoryTag(1 + random.nextInt(DataSeeder.CATEGORIES), null, null);
+    }
+
+    private Coupon coupon(Random random) {
+        return new Coupon(1 + random.nextInt(DATA.getCoupons()), null, null, 10, 1000, null);
+    }
+}
@@ -0,0 +1,306 @@
+package com.github.studeasy.dao.embedded;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the embedded database with generated data, in the proportions of Stud'Easy:
+ * a partner for twenty students, most of the services online, most of the notifications read.
+ * The rows are inserted by batches on one connection, the DAOs are not used.
+ * The ids are given in order by the database, so user i has the id i
+ */
+public class DataSeeder {
+
+    /**
+     * Number of rows sent in one batch
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Number of categories, 'Other' included
+     */
+    public static final int CATEGORIES = 10;
+
+    /**
+     * One user out of PARTNER_EVERY is a partner
+     */
+    private static final int PARTNER_EVERY = 20;
+
+    /**
+     * The points every user starts with
+     */
+    public static final int POINTS = 100000;
+
+    /**
+     * The number of rows of each table
+     */
+    public static class Volumes {
+        private final int users;
+        private final int services;
+        private final int commands;
+        private final int notifications;
+
+        /**
+         * Create the volumes
+         * @param users number of users, the first one is the administrator
+         * @param services number of services
+         * @param commands number of commands of services
+         * @param notifications number of notifications
+         */
+        public Volumes(int users, int services, int commands, int notifications) {
+            this.users = Math.max(users, PARTNER_EVERY);
+            this.services = Math.max(services, 1);
+            this.commands = commands;
+            this.notifications = notifications;
+        }
+
+        /**
+         * Read the volumes from the system properties studeasy.seed.users, .services,
+         * .commands and .notifications
+         * @param defaults the volumes of the properties not given
+         * @return the volumes
+         */
+        public static Volumes fromSystemProperties(Volumes defaults) {
+            return new Volumes(Integer.getInteger("studeasy.seed.users", defaults.users),
+                    Integer.getInteger("studeasy.seed.services", defaults.services),
+                    Integer.getInteger("studeasy.seed.commands", defaults.commands),
+                    Integer.getInteger("studeasy.seed.notifications", defaults.notifications));
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public int getServices() {
+            return services;
+        }
+
+        public int getCommands() {
+            return commands;
+        }
+
+        public int getNotifications() {
+            return notifications;
+        }
+
+        @Override
+        public String toString() {
+            return users + " users, " + services + " services, " + commands + " commands, "
+                    + notifications + " notifications";
+        }
+    }
+
+    /**
+     * What was inserted, for the scenarios to pick existing rows
+     */
+    public static class SeededData {
+        private final Volumes volumes;
+        private final int[] students;
+        private final int[] partners;
+        private final int jobs;
+        private final int coupons;
+
+        private SeededData(Volumes volumes, int[] students, int[] partners, int jobs, int coupons) {
+            this.volumes = volumes;
+            this.students = students;
+            this.partners = partners;
+            this.jobs = jobs;
+            this.coupons = coupons;
+        }
+
+        public Volumes getVolumes() {
+            return volumes;
+        }
+
+        /**
+         * @return the ids of the students
+         */
+        public int[] getStudents() {
+            return students;
+        }
+
+        /**
+         * @return the ids of the partners
+         */
+        public int[] getPartners() {
+            return partners;
+        }
+
+        public int getJobs() {
+            return jobs;
+        }
+
+        public int getCoupons() {
+            return coupons;
+        }
+    }
+
+    /**
+     * The generator of the data, always the same for the same seed
+     */
+    private final Random RANDOM;
+
+    /**
+     * Create a seeder
+     * @param seed the seed of the generator
+     */
+    public DataSeeder(long seed) {
+        this.RANDOM = new Random(seed);
+    }
+
+    /**
+     * Fill an empty database
+     * @param database the database, with its schema
+     * @param volumes the number of rows of each table
+     * @return what was inserted
+     * @throws SQLException if the rows can't be inserted
+     */
+    public SeededData seed(EmbeddedDatabase database, Volumes volumes) throws SQLException {
+        try (Connection connection = database.getDb()) {
+            this.seedCategories(connection);
+            List<Integer> students = new ArrayList<>();
+            List<Integer> partners = new ArrayList<>();
+            this.seedUsers(connection, volumes.getUsers(), students, partners);
+            int[] studentIds = students.stream().mapToInt(Integer::intValue).toArray();
+            int[] partnerIds = partners.stream().mapToInt(Integer::intValue).toArray();
+            this.seedServices(connection, volumes.getServices(), studentIds);
+            this.seedCommands(connection, volumes.getCommands(), volumes.getServices(), studentIds);
+            this.seedNotifications(connection, volumes.getNotifications(), volumes.getUsers());
+            int jobs = Math.max(1, volumes.getServices() / 10);
+            this.seedJobs(connection, jobs, partnerIds);
+            int coupons = Math.max(1, volumes.getUsers() / 100);
+            this.seedCoupons(connection, coupons, partnerIds);
+            return new SeededData(volumes, studentIds, partnerIds, jobs, coupons);
+        }
+    }
+
+    private void seedCategories(Connection connection) throws SQLException {
+        // 'Other' is created by the schema
+        try (Batch batch = new Batch(connection, "INSERT INTO categorytag (nameCategory, descriptionCategory) VALUES (?, ?)")) {
+            for (int i = 2; i <= CATEGORIES; i++) {
+                batch.add("Category " + i, "Generated category " + i);
+            }
+        }
+    }
+
+    private void seedUsers(Connection connection, int users, List<Integer> students, List<Integer> partners) throws SQLException {
+        try (Batch batch = new Batch(connection, "INSERT INTO user (firstName, lastName, role, password, emailAddress, " +
+                "pseudo, company, points, salt, confirm) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1)")) {
+            for (int id = 1; id <= users; id++) {
+                int role = id == 1 ? 0 : id % PARTNER_EVERY == 0 ? 2 : 1;
+                if (role == 1) {
+                    students.add(id);
+                }
+                else if (role == 2) {
+                    partners.add(id);
+                }
+                batch.add("First" + id, "Last" + id, role, "pbkdf2$1$" + id, "user" + id + "@studeasy.test",
+                        role == 1 ? "pseudo" + id : null, role == 2 ? "Company " + id : null,
+                        role == 1 ? POINTS : 0, "salt" + id);
+            }
+        }
+    }
+
+    private void seedServices(Connection connection, int services, int[] students) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (Batch batch = new Batch(connection, "INSERT INTO service (fkCategory, titleService, descriptionService, " +
+                "costService, dateCreationService, typeService, stateService, ownerService) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= services; id++) {
+                // One service out of ten waits for the administrator
+                int state = RANDOM.nextInt(10) == 0 ? 0 : 1;
+                batch.add(1 + RANDOM.nextInt(CATEGORIES), "Service " + id, "Description of the service " + id,
+                        1 + RANDOM.nextInt(100), new Timestamp(now - RANDOM.nextInt(365 * 24 * 60) * 60000L),
+                        RANDOM.nextInt(2), state, pick(students));
+            }
+        }
+    }
+
+    private void seedCommands(Connection connection, int commands, int services, int[] students) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (Batch batch = new Batch(connection, "INSERT INTO command (fkUser, titleFeedback, commentFeedback, " +
+                "rateFeedback, date, fkService, state) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= commands; id++) {
+                int state = RANDOM.nextInt(3);
+                boolean feedback = state == 1 && RANDOM.nextBoolean();
+                batch.add(pick(students), feedback ? "Feedback " + id : null, feedback ? "Comment " + id : null,
+                        feedback ? 1 + RANDOM.nextInt(5) : null, new Timestamp(now - RANDOM.nextInt(1000000) * 1000L),
+                        1 + RANDOM.nextInt(services), state);
+            }
+        }
+    }
+
+    private void seedNotifications(Connection connection, int notifications, int users) throws SQLException {
+        try (Batch batch = new Batch(connection, "INSERT INTO notification (ownerNotification, titleNotification, " +
+                "descriptionNotification, readNotification) VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= notifications; id++) {
+                // Three notifications out of four are read
+                batch.add(1 + RANDOM.nextInt(users), "Notification " + id, "Description of the notification " + id,
+                        RANDOM.nextInt(4) != 0);
+            }
+        }
+    }
+
+    private void seedJobs(Connection connection, int jobs, int[] partners) throws SQLException {
+        try (Batch batch = new Batch(connection, "INSERT INTO job (ownerJob, titleJob, localisationJob, roleJob, startJob, " +
+                "durationJob, descriptionJob, contactMailJob, contactPhoneJob, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= jobs; id++) {
+                batch.add(pick(partners), "Job " + id, "Lille", "Intern", "2021-06-01", "2 months",
+                        "Description of the job " + id, "job" + id + "@studeasy.test", "0600000000",
+                        RANDOM.nextInt(4) == 0 ? "pending" : "validated");
+            }
+        }
+    }
+
+    private void seedCoupons(Connection connection, int coupons, int[] partners) throws SQLException {
+        try (Batch batch = new Batch(connection, "INSERT INTO coupon (ownerCoupon, titleCoupon, descriptionCoupon, " +
+                "valueCoupon, quantityCoupon) VALUES (?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= coupons; id++) {
+                batch.add(pick(partners), "Coupon " + id, "Description of the coupon " + id, 1 + RANDOM.nextInt(50), 1000);
+            }
+        }
+    }
+
+    private int pick(int[] ids) {
+        return ids[RANDOM.nextInt(ids.length)];
+    }
+
+    /**
+     * The rows of one table, sent by batches
+     */
+    private static class Batch implements AutoCloseable {
+        private final PreparedStatement statement;
+        private int pending;
+
+        private Batch(Connection connection, String sql) throws SQLException {
+            this.statement = connection.prepareStatement(sql);
+        }
+
+        private void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+            finally {
+                statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.studeasy.dao.embedded;
+
+import com.github.studeasy.dao.categoryDAO.CachedCategoryDAO;
+import com.github.studeasy.dao.categoryDAO.CategoryDAO;
+import com.github.studeasy.dao.db.MySQLConnectionPool;
+import com.github.studeasy.dao.userDAO.UserCache;
+import com.github.studeasy.logic.factory.Factory;
+import com.github.studeasy.logic.factory.MySQLFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An H2 database in memory, in MySQL mode, standing in for the database of Stud'Easy
+ * The tables are created from the base schema of the tests, then the migrations of
+ * database/migrations are applied in order. Once installed, the DAOs given by Factory
+ * run their queries on it, through the same pool as in production
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    /**
+     * The schema before the migrations, in the resources of the tests
+     */
+    private static final String BASE_SCHEMA = "/h2/base_schema.sql";
+
+    /**
+     * The migrations, from the root of the project
+     */
+    private static final Path MIGRATIONS = Paths.get("database", "migrations");
+
+    /**
+     * The statements of the migrations H2 doesn't know, they only exist on MySQL
+     */
+    private static final String[] MYSQL_ONLY = {"FULLTEXT"};
+
+    /**
+     * The pool of connections to the database
+     */
+    private final MySQLConnectionPool POOL;
+
+    /**
+     * The statements of the migrations skipped
+     */
+    private final List<String> SKIPPED;
+
+    /**
+     * The factory used before this database was installed
+     */
+    private Factory previous;
+
+    /**
+     * Create the database and its tables
+     * @param name the name of the database, two databases with the same name are the same
+     * @param poolSize the maximum number of connections
+     * @throws SQLException if the schema can't be created
+     * @throws IOException if the schema can't be read
+     */
+    public EmbeddedDatabase(String name, int poolSize) throws SQLException, IOException {
+        Properties settings = new Properties();
+        settings.setProperty(MySQLConnectionPool.MIN_SIZE, "1");
+        settings.setProperty(MySQLConnectionPool.MAX_SIZE, String.valueOf(poolSize));
+        this.POOL = new MySQLConnectionPool("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "", settings);
+        this.SKIPPED = new ArrayList<>();
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(BASE_SCHEMA)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + BASE_SCHEMA);
+            }
+            this.execute(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        List<Path> migrations;
+        try (Stream<Path> files = Files.list(MIGRATIONS)) {
+            migrations = files.filter(path -> path.toString().endsWith(".sql")).sorted().collect(Collectors.toList());
+        }
+        for (Path migration : migrations) {
+            this.execute(Files.readString(migration));
+        }
+    }
+
+    /**
+     * Run a script, its statements separated by semicolons
+     * @param script the script
+     * @throws SQLException if a statement fails
+     */
+    private void execute(String script) throws SQLException {
+        // We remove the comments, they may contain semicolons
+        String sql = script.replaceAll("(?m)^\\s*--.*$", "");
+        try (Connection connection = this.getDb(); Statement statement = connection.createStatement()) {
+            for (String part : sql.split(";")) {
+                String query = part.trim();
+                if (query.isEmpty()) {
+                    continue;
+                }
+                if (isMySQLOnly(query)) {
+                    SKIPPED.add(query);
+                    continue;
+                }
+                statement.execute(query);
+            }
+        }
+    }
+
+    /**
+     * Indicates if a statement only exists on MySQL
+     * @param query the statement
+     * @return true if H2 can't run it
+     */
+    private static boolean isMySQLOnly(String query) {
+        for (String keyword : MYSQL_ONLY) {
+            if (query.toUpperCase().contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Borrow a connection to the database
+     * @return a connection, to close once the work is done
+     * @throws SQLException if no connection is available
+     */
+    public Connection getDb() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    /**
+     * Retrieve the statements of the migrations skipped because H2 doesn't know them
+     * @return the statements skipped
+     */
+    public List<String> getSkipped() {
+        return SKIPPED;
+    }
+
+    /**
+     * Make the DAOs use this database
+     * The users and the categories kept in memory come from the previous database, they are forgotten
+     */
+    public synchronized void install() {
+        if (previous == null) {
+            previous = Factory.getInstance();
+        }
+        Factory.setInstance(new EmbeddedFactory());
+        forgetCaches();
+    }
+
+    /**
+     * Retrieve the plan of a request, as H2 runs it
+     * The parameters are left empty, only the indexes chosen matter
+     * @param sql the request, with a ? for each parameter
+     * @return the plan
+     * @throws SQLException if the request can't be explained
+     */
+    public String explain(String sql) throws SQLException {
+        try (Connection connection = this.getDb();
+             PreparedStatement analyze = connection.prepareStatement("ANALYZE");
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            // The statistics are read again, the plan doesn't depend on when H2 last updated them
+            analyze.execute();
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * Give the DAOs back to the previous factory and drop the database
+     */
+    @Override
+    public synchronized void close() {
+        if (previous != null) {
+            Factory.setInstance(previous);
+            previous = null;
+            forgetCaches();
+        }
+        try (Connection connection = this.getDb(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+        POOL.shutdown();
+    }
+
+    /**
+     * Forget what the DAOs keep in memory, it was read from another database
+     */
+    private static void forgetCaches() {
+        UserCache.getInstance().clear();
+        CategoryDAO categories = CategoryDAO.getInstance();
+        if (categories instanceof CachedCategoryDAO) {
+            ((CachedCategoryDAO) categories).invalidate();
+        }
+    }
+
+    /**
+     * The MySQL DAOs, borrowing their connections from the embedded database
+     */
+    private class EmbeddedFactory extends MySQLFactory {
+
+        @Override
+        public Connection getDb() throws SQLException {
+            return POOL.getConnection();
+        }
+
+        @Override
+        public void close() {
+            // The database is closed with its EmbeddedDatabase
+        }
+    }
+}
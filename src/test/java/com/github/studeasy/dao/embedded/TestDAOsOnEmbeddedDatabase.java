@@ -0,0 +1,77 @@
+package com.github.studeasy.dao.embedded;
+
+import com.github.studeasy.dao.db.QueryStatistics;
+import com.github.studeasy.dao.db.QueryTemplate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDAOsOnEmbeddedDatabase {
+
+    private static EmbeddedDatabase database;
+
+    private static List<DaoBenchmark.Result> results;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        database = new EmbeddedDatabase("studeasy-test", 2);
+        //a few rows of each table, enough for the plans to use the indexes
+        DataSeeder.SeededData data = new DataSeeder(42).seed(database, new DataSeeder.Volumes(200, 500, 1000, 2000));
+        database.install();
+        results = new DaoBenchmark(database, 0, 3).run(new DaoScenarios(data).getScenarios());
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void TestOnlyTheFullTextIndexIsNotCreated() {
+        assertEquals(1, database.getSkipped().size());
+        assertTrue(database.getSkipped().get(0).contains("FULLTEXT"));
+    }
+
+    @Test
+    public void TestEveryScenarioRunsWithoutError() {
+        List<String> failed = new ArrayList<>();
+        for (DaoBenchmark.Result result : results) {
+            if (!result.isSkipped() && result.getErrors() > 0) {
+                failed.add(result.getName());
+            }
+        }
+        assertEquals(new ArrayList<>(), failed);
+    }
+
+    @Test
+    public void TestUnreadNotificationsUseTheOwnerIndex() throws Exception {
+        String plan = database.explain(sql("FROM notification WHERE ownerNotification = ? AND readNotification = 0"));
+        assertTrue(plan.contains("idx_notification_owner_read"), plan);
+    }
+
+    @Test
+    public void TestOnlineServicesUseTheKeysetIndex() throws Exception {
+        String plan = database.explain(sql("ORDER BY dateCreationService DESC"));
+        assertTrue(plan.contains("idx_service_state_date_id"), plan);
+    }
+
+    /**
+     * Retrieve a request read by the scenarios
+     * @param part a part of the request
+     * @return the first request containing it
+     */
+    private static String sql(String part) {
+        for (QueryStatistics.Entry entry : QueryTemplate.getInstance().getStatistics().getEntries()) {
+            if (entry.getSql().contains(part)) {
+                return entry.getSql();
+            }
+        }
+        fail("No request contains " + part);
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.studeasy.dao.serviceDAO;
+
+import com.github.studeasy.logic.common.Service;
+import com.github.studeasy.logic.common.ServiceSearchCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestServiceSearchQuery {
+
+    @Test
+    public void TestOnlyGivenCriteria() {
+        ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+        criteria.setTypeService(1);
+        criteria.setMaxCost(20);
+        ServiceSearchQuery query = new ServiceSearchQuery(criteria, null, null, 50);
+
+        String sql = query.getSql();
+        assertTrue(sql.contains("AND typeService = ? AND costService <= ?"));
+        assertFalse(sql.contains("MATCH"));
+        assertFalse(sql.contains("costService >= ?"));
+        assertTrue(sql.endsWith("ORDER BY dateCreationService DESC, idService DESC LIMIT ?"));
+        assertArrayEquals(new Object[]{1, 20, 50}, query.getParams());
+    }
+
+    @Test
+    public void TestTitleSearch() {
+        ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+        //the operators typed by the user are removed, the short words are not indexed
+        criteria.setTitle("math +help* in");
+        ServiceSearchQuery query = new ServiceSearchQuery(criteria, null, null, 10);
+        assertTrue(query.getSql().contains("MATCH(titleService, descriptionService) AGAINST (? IN BOOLEAN MODE)"));
+        assertEquals("+math* +help*", query.getParams()[0]);
+
+        //too short for the index, we look into the titles
+        criteria.setTitle("5%");
+        query = new ServiceSearchQuery(criteria, null, null, 10);
+        assertTrue(query.getSql().contains("titleService LIKE ?"));
+        assertEquals("%5\\%%", query.getParams()[0]);
+    }
+
+    @Test
+    public void TestKeysetAfterLastService() {
+        ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+        criteria.setSort(ServiceSearchCriteria.Sort.CHEAPEST);
+        Service last = new Service(7, "title", "description", 15, 0, null, null, 1, new Date(0));
+        ServiceSearchQuery query = new ServiceSearchQuery(criteria, null, last, 10);
+        assertTrue(query.getSql().endsWith("AND (costService > ? OR (costService = ? AND idService > ?)) "
+                + "ORDER BY costService ASC, idService ASC LIMIT ?"));
+        assertArrayEquals(new Object[]{15, 15, 7, 10}, query.getParams());
+
+        criteria.setSort(ServiceSearchCriteria.Sort.NEWEST);
+        query = new ServiceSearchQuery(criteria, null, last, 10);
+        assertTrue(query.getSql().contains("(dateCreationService < ? OR (dateCreationService = ? AND idService < ?))"));
+        assertEquals(new Timestamp(0), query.getParams()[0]);
+    }
+
+    @Test
+    public void TestCategoriesResolvedBeforehand() {
+        ServiceSearchCriteria criteria = new ServiceSearchCriteria();
+        ServiceSearchQuery query = new ServiceSearchQuery(criteria, Arrays.asList(2, 3), null, 10);
+        assertFalse(query.getSql().contains("categorytag"));
+        assertTrue(query.getSql().contains("AND fkCategory IN (?, ?)"));
+        assertArrayEquals(new Object[]{2, 3, 10}, query.getParams());
+
+        //no category has this name, nothing is found
+        query = new ServiceSearchQuery(criteria, new ArrayList<>(), null, 10);
+        assertTrue(query.getSql().contains("AND FALSE"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.studeasy.dao.userDAO;
+
+import com.github.studeasy.logic.common.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestUserCache {
+
+    //Mock the reading of the users in the database
+    @Mock
+    private UserCache.Loader loader;
+
+    private UserCache cache;
+
+    private static User user(int id) {
+        return new User(id, "Last" + id, "First" + id, "user" + id + "@mail.com", "pwd", 1, null, "pseudo" + id, 0, "salt");
+    }
+
+    @BeforeEach
+    public void setUp() {
+        cache = new UserCache(loader, 2, 60000);
+    }
+
+    @Test
+    public void TestUsersReadOnceAndShared() throws Exception {
+        when(loader.load(anyCollection())).thenReturn(Arrays.asList(user(1), user(2)));
+        Map<Integer, User> users = cache.resolve(Arrays.asList(1, 2, 1, 1));
+        assertEquals(2, users.size());
+        //the ids repeated are asked once
+        verify(loader).load(Arrays.asList(1, 2));
+        //the users kept are not read again, and are the same objects
+        assertSame(users.get(1), cache.get(1));
+        verifyNoMoreInteractions(loader);
+    }
+
+    @Test
+    public void TestAttachRemovesTheRowsWithoutUser() throws Exception {
+        when(loader.load(anyCollection())).thenReturn(Arrays.asList(user(1)));
+        List<String> rows = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        List<User> owners = new ArrayList<>();
+        cache.attach(rows, Arrays.asList(1, 3, 1), (row, owner) -> owners.add(owner));
+        //the user 3 doesn't exist anymore, like in a join its row is removed
+        assertEquals(Arrays.asList("a", "c"), rows);
+        assertEquals(2, owners.size());
+        assertSame(owners.get(0), owners.get(1));
+    }
+
+    @Test
+    public void TestInvalidateAndBound() throws Exception {
+        when(loader.load(anyCollection())).thenAnswer(call -> {
+            List<User> users = new ArrayList<>();
+            for (Object id : (Iterable<?>) call.getArgument(0)) {
+                users.add(user((Integer) id));
+            }
+            return users;
+        });
+        cache.get(1);
+        cache.invalidate(1);
+        cache.get(1);
+        verify(loader, times(2)).load(Arrays.asList(1));
+        //only 2 users are kept, the least recently used is forgotten
+        cache.get(2);
+        cache.get(3);
+        cache.get(1);
+        verify(loader, times(3)).load(Arrays.asList(1));
+    }
+}
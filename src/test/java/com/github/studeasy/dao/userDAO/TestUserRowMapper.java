@@ -0,0 +1,56 @@
+package com.github.studeasy.dao.userDAO;
+
+import com.github.studeasy.logic.common.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.ResultSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestUserRowMapper {
+
+    //Mock the row read from the database
+    @Mock
+    private ResultSet resultSet;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, Object> row = Map.of("idUser", 7, "lastName", "Doe", "firstName", "Jane",
+                "emailAddress", "jane.doe@mail.com", "role", 1, "pseudo", "jdoe", "points", 12,
+                "password", "hash", "salt", "salt");
+        when(resultSet.getString(anyString())).thenAnswer(call -> (String) row.get(call.getArgument(0)));
+        when(resultSet.getInt(anyString())).thenAnswer(call -> (Integer) row.get(call.getArgument(0)));
+    }
+
+    @Test
+    public void TestColumnsReadByName() throws Exception {
+        User user = UserRowMapper.PUBLIC.map(resultSet);
+        assertEquals(7, user.getIdUser());
+        assertEquals("Doe", user.getLastname());
+        assertEquals("Jane", user.getFirstname());
+        assertEquals("jane.doe@mail.com", user.getEmailAddress());
+        //the users displayed never read the password nor the salt
+        assertNull(user.getPassword());
+        assertNull(user.getSalt());
+        verify(resultSet, never()).getString("password");
+        verify(resultSet, never()).getString("salt");
+    }
+
+    @Test
+    public void TestCredentialsReadForTheLogin() throws Exception {
+        User user = UserRowMapper.WITH_CREDENTIALS.map(resultSet);
+        assertEquals("hash", user.getPassword());
+        assertEquals("salt", user.getSalt());
+        //the columns are projected, nothing else is selected
+        assertFalse(UserRowMapper.COLUMNS.contains("password"));
+        assertTrue(UserRowMapper.CREDENTIALS_COLUMNS.endsWith("user.password, user.salt"));
+    }
+}
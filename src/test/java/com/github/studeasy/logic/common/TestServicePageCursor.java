@@ -0,0 +1,33 @@
+package com.github.studeasy.logic.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestServicePageCursor {
+
+    private static Service service(int id) {
+        return new Service(id, "Title", "Description", 10, 0, null, null, 1, new Timestamp(1000L * id));
+    }
+
+    @Test
+    public void TestRowsWithoutServiceDontEndTheSearch() {
+        ServicePageCursor cursor = new ServicePageCursor(new ServiceSearchCriteria(), 3);
+        Service kept = service(3);
+        Service dropped = service(1);
+
+        //3 rows read, the last one gave no service
+        cursor.advance(new ServicePage(new ArrayList<>(Arrays.asList(service(5), kept)), 3, dropped));
+        assertFalse(cursor.isExhausted());
+        //the next page starts after the last row, not the last service
+        assertSame(dropped, cursor.getLastService());
+
+        cursor.advance(new ServicePage(new ArrayList<>(), 0, null));
+        assertTrue(cursor.isExhausted());
+        assertSame(dropped, cursor.getLastService());
+    }
+}
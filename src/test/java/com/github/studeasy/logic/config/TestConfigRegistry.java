@@ -0,0 +1,48 @@
+package com.github.studeasy.logic.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConfigRegistry {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void TestReadOnceAndReloadWhenChanged() throws Exception {
+        Path file = dir.resolve("tuning.properties");
+        Files.writeString(file, "PAGE_SIZE=10\nRATIO=oops\n");
+        //every access checks the file
+        ConfigRegistry registry = new ConfigRegistry(dir, 0);
+
+        ConfigSnapshot first = registry.get("tuning");
+        assertTrue(first.isPresent());
+        assertEquals(10, first.getInt("PAGE_SIZE", 50));
+        //a wrong value takes the default value
+        assertEquals(1.5, first.getDouble("RATIO", 1.5));
+        //the file didn't change, the snapshot is kept
+        assertSame(first, registry.get("tuning"));
+
+        Files.writeString(file, "PAGE_SIZE=20\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+
+        assertEquals(20, registry.get("tuning").getInt("PAGE_SIZE", 50));
+        //the old snapshot never changes
+        assertEquals(10, first.getInt("PAGE_SIZE", 50));
+    }
+
+    @Test
+    public void TestMissingFile() {
+        ConfigRegistry registry = new ConfigRegistry(dir, 0);
+
+        assertFalse(registry.get("nothing").isPresent());
+        assertEquals(7, registry.get("nothing").getInt("ANY", 7));
+        assertThrows(NullPointerException.class, () -> registry.require("nothing"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.studeasy.logic.coupons;
+
+import com.github.studeasy.dao.couponCodeDAO.CouponCodeDAO;
+import com.github.studeasy.logic.common.CouponCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestCouponCodeIssuer {
+
+    //Mock the DAO
+    @Mock
+    private CouponCodeDAO couponCodeDAO;
+
+    private CouponCodeIssuer issuer;
+
+    @BeforeEach
+    public void setUp() {
+        //blocks of 2 codes, batches of 5 codes
+        issuer = new CouponCodeIssuer(couponCodeDAO, new Random(42), 2, 5);
+    }
+
+    private CouponCode code(int id) {
+        return new CouponCode(id, 7, "CODE" + id, CouponCode.ALLOCATED, 0);
+    }
+
+    @Test
+    public void TestCodesAreDifferentAndReadable() {
+        List<String> codes = issuer.generateCodes(1000);
+        assertEquals(1000, new HashSet<>(codes).size());
+        for (String code : codes) {
+            assertEquals(CouponCodeIssuer.CODE_LENGTH, code.length());
+            assertTrue(code.chars().allMatch(c -> CouponCodeIssuer.ALPHABET.indexOf(c) >= 0));
+        }
+    }
+
+    @Test
+    public void TestOneQueryPerBlock() throws Exception {
+        when(couponCodeDAO.allocateCodes(7, 2))
+                .thenReturn(new ArrayList<>(Arrays.asList(code(1), code(2))))
+                .thenReturn(new ArrayList<>(Arrays.asList(code(3), code(4))));
+
+        assertEquals(1, issuer.next(7).getIdCode());
+        assertEquals(2, issuer.next(7).getIdCode());
+        assertEquals(3, issuer.next(7).getIdCode());
+
+        //the second block was only taken when the first one was empty
+        verify(couponCodeDAO, times(2)).allocateCodes(7, 2);
+        verify(couponCodeDAO, never()).insertCodes(anyInt(), anyList());
+    }
+
+    @Test
+    public void TestGenerateWhenNoCodeLeft() throws Exception {
+        when(couponCodeDAO.allocateCodes(7, 2))
+                .thenReturn(new ArrayList<>())
+                .thenReturn(new ArrayList<>(Arrays.asList(code(1), code(2))));
+
+        CouponCode first = issuer.next(7);
+        assertEquals(1, first.getIdCode());
+        verify(couponCodeDAO).insertCodes(eq(7), argThat(codes -> codes.size() == 5));
+
+        //a code given back is given to the next buyer
+        issuer.giveBack(first);
+        assertEquals(2, issuer.next(7).getIdCode());
+        assertEquals(1, issuer.next(7).getIdCode());
+        verify(couponCodeDAO, times(2)).allocateCodes(7, 2);
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.studeasy.logic.facades;
+
+import com.github.studeasy.dao.pointTransactionDAO.PointTransactionDAO;
+import com.github.studeasy.logic.common.PointBalance;
+import com.github.studeasy.logic.common.Session;
+import com.github.studeasy.logic.common.User;
+import com.github.studeasy.logic.common.role.RoleStudent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestFacadeUserPoints {
+
+    //Mock the ledger
+    @Mock
+    private PointTransactionDAO ledger;
+
+    private FacadeUser facade;
+
+    private Object previousLedger;
+
+    private User student;
+
+    @BeforeEach
+    public void setUp() {
+        facade = FacadeUser.getInstance();
+        previousLedger = ReflectionTestUtils.getField(facade, "LEDGER");
+        ReflectionTestUtils.setField(facade, "LEDGER", ledger);
+        student = new User(7, "Doe", "John", "john@studeasy.test", null, 1, null, "john", 50, null);
+        Session.getInstance().setCurrentUser(student);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.setField(facade, "LEDGER", previousLedger);
+        Session.getInstance().disconnect();
+    }
+
+    @Test
+    public void TestPointsReadOnceThenKept() throws Exception {
+        when(ledger.balance(student)).thenReturn(new PointBalance(40, 3));
+
+        //the version of the points of the login is unknown
+        assertEquals(40, facade.viewPoints());
+        //checked recently, the database is not asked
+        assertEquals(40, facade.viewPoints());
+        assertEquals(40, facade.viewPoints());
+        verify(ledger, times(1)).balance(student);
+        verify(ledger, never()).lastTransaction(student);
+    }
+
+    @Test
+    public void TestOnlyTheVersionIsCheckedOnceOld() throws Exception {
+        RoleStudent role = (RoleStudent) student.getRole();
+        //checked long ago
+        role.setBalance(new PointBalance(40, 3), 0);
+        when(ledger.lastTransaction(student)).thenReturn(3);
+
+        assertEquals(40, facade.viewPoints());
+        verify(ledger, never()).balance(student);
+
+        //someone else moved points of the student
+        role.setBalance(new PointBalance(40, 3), 0);
+        when(ledger.lastTransaction(student)).thenReturn(5);
+        when(ledger.balance(student)).thenReturn(new PointBalance(70, 5));
+
+        assertEquals(70, facade.viewPoints());
+        assertEquals(5, role.getPointsVersion());
+    }
+
+    @Test
+    public void TestBalanceUpdatedOnlyForTheCurrentUser() throws Exception {
+        User other = new User(8, "Roe", "Jane", "jane@studeasy.test", null, 1, null, "jane", 10, null);
+        when(ledger.balance(student)).thenReturn(new PointBalance(30, 9));
+
+        facade.updateBalance(other, null);
+        verify(ledger, never()).balance(any());
+
+        facade.updateBalance(null, student);
+        assertEquals(30, facade.viewPoints());
+        verify(ledger, times(1)).balance(student);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.studeasy.logic.mail;
+
+import com.github.studeasy.dao.mailOutboxDAO.MailOutboxDAO;
+import com.github.studeasy.logic.common.OutgoingMail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestMailOutbox {
+
+    //Mock the DAO
+    @Mock
+    private MailOutboxDAO mailOutboxDAO;
+
+    //Fake mail server, keeping the mails instead of sending them
+    private FakeMailSink sink;
+
+    private MailOutbox outbox;
+
+    @BeforeEach
+    public void setUp() {
+        sink = new FakeMailSink();
+        //batches of 2 mails, retried after 30s, 60s, 120s... up to 100s, 3 attempts
+        outbox = new MailOutbox(mailOutboxDAO, () -> sink, 1, 2, 1000, 30, 100, 3);
+    }
+
+    @Test
+    public void TestBatchesOnOneConnection() throws Exception {
+        OutgoingMail m1 = new OutgoingMail(1, "a@b.c", "s", "t", 0);
+        OutgoingMail m2 = new OutgoingMail(2, "a@b.c", "s", "t", 0);
+        OutgoingMail m3 = new OutgoingMail(3, "a@b.c", "s", "t", 0);
+        when(mailOutboxDAO.claimDue(eq(2), anyLong()))
+                .thenReturn(new ArrayList<>(Arrays.asList(m1, m2)))
+                .thenReturn(new ArrayList<>(Arrays.asList(m3)));
+
+        assertEquals(3, outbox.drain());
+
+        //a single connection for all the batches
+        assertEquals(1, sink.connections);
+        assertEquals(Arrays.asList(1, 2, 3), sink.received);
+        verify(mailOutboxDAO, times(3)).markSent(any());
+        assertEquals(3, outbox.getSentCount());
+    }
+
+    @Test
+    public void TestRetryWithBackoff() throws Exception {
+        OutgoingMail first = new OutgoingMail(1, "a@b.c", "s", "t", 0);
+        OutgoingMail last = new OutgoingMail(2, "a@b.c", "s", "t", 2);
+        when(mailOutboxDAO.claimDue(eq(2), anyLong())).thenReturn(new ArrayList<>(Arrays.asList(first, last)));
+        sink.failing = true;
+
+        assertEquals(0, outbox.drain());
+
+        //the first failure waits 30s, the third one gives up
+        verify(mailOutboxDAO).markFailed(eq(first), anyString(), eq(30L), eq(false));
+        verify(mailOutboxDAO).markFailed(eq(last), anyString(), eq(100L), eq(true));
+        verify(mailOutboxDAO, never()).markSent(any());
+        assertEquals(1, outbox.getAbandonedCount());
+        assertEquals(60, outbox.retryDelaySeconds(1));
+        assertEquals(100, outbox.retryDelaySeconds(40));
+    }
+
+    /**
+     * Mail server used by the tests
+     */
+    private static class FakeMailSink implements MailSender {
+
+        private int connections = 0;
+
+        private boolean failing = false;
+
+        private final ArrayList<Integer> received = new ArrayList<>();
+
+        public void connect() {
+            connections++;
+        }
+
+        public void send(OutgoingMail mail) throws Exception {
+            if (failing) {
+                throw new Exception("Server unavailable");
+            }
+            received.add(mail.getIdMail());
+        }
+
+        public void disconnect() {
+        }
+    }
+
+    @Test
+    public void TestDepthCountedAfterCommit() throws Exception {
+        when(mailOutboxDAO.enqueue(anyString(), anyString(), anyString())).thenReturn(4);
+        //the DAO keeps the action until the transaction is committed
+        ArrayList<Runnable> afterCommit = new ArrayList<>();
+        doAnswer(invocation -> afterCommit.add(invocation.getArgument(0))).when(mailOutboxDAO).afterCommit(any());
+
+        assertEquals(4, outbox.enqueue("s", "t", "a@b.c"));
+        assertEquals(0, outbox.getQueueDepth());
+
+        afterCommit.get(0).run();
+        assertEquals(1, outbox.getQueueDepth());
+    }
+}
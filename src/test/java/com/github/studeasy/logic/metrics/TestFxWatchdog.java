@@ -0,0 +1,58 @@
+package com.github.studeasy.logic.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFxWatchdog {
+
+    @Test
+    public void TestStallRecordedOnceTheThreadRuns() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(new SlowQueryLog(() -> 0, 10, null), null);
+        //the heartbeats are kept instead of being given to the JavaFX thread
+        List<Runnable> heartbeats = new ArrayList<>();
+        FxWatchdog watchdog = new FxWatchdog(registry, null, heartbeats::add, () -> 5);
+        watchdog.watch(Thread.currentThread());
+
+        watchdog.sample();
+        assertEquals(1, heartbeats.size());
+        //the heartbeat is waiting, no other one is given
+        Thread.sleep(20);
+        watchdog.sample();
+        watchdog.sample();
+        assertEquals(1, heartbeats.size());
+        assertEquals(1, registry.counter("fx.stalls").getCount());
+        //the stack of the thread blocked is kept
+        assertTrue(watchdog.getLastStack("other").contains("TestFxWatchdog"));
+
+        heartbeats.get(0).run();
+        watchdog.sample();
+        assertEquals(2, heartbeats.size());
+        Timer stall = registry.timer("fx.stall.other");
+        assertEquals(1, stall.getCount());
+        assertTrue(stall.getMaxMillis() >= 20);
+        assertEquals(1, registry.timer("fx.latency").getCount());
+    }
+
+    @Test
+    public void TestStallGivenToTheController() {
+        StackTraceElement[] stack = {
+                new StackTraceElement("java.net.SocketInputStream", "read", null, 1),
+                new StackTraceElement("com.github.studeasy.dao.userDAO.MySQLUserDAO", "viewPoints", null, 1),
+                new StackTraceElement("com.github.studeasy.logic.facades.FacadeUser", "viewPoints", null, 1),
+                new StackTraceElement("com.github.studeasy.gui.controller.home.HomeStudentController", "initialize", null, 1),
+                new StackTraceElement("javafx.fxml.FXMLLoader", "load", null, 1)
+        };
+        assertEquals("HomeStudentController", FxWatchdog.controller(stack));
+        //without a controller, the first class of the application
+        StackTraceElement[] timer = {
+                new StackTraceElement("com.github.studeasy.logic.facades.FacadeNotification$1", "lambda$run$0", null, 1),
+                new StackTraceElement("com.sun.javafx.application.PlatformImpl", "lambda$runLater$10", null, 1)
+        };
+        assertEquals("FacadeNotification", FxWatchdog.controller(timer));
+        assertEquals("other", FxWatchdog.controller(new StackTraceElement[0]));
+    }
+}
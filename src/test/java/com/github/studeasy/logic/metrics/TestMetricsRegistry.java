@@ -0,0 +1,101 @@
+package com.github.studeasy.logic.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMetricsRegistry {
+
+    @Test
+    public void TestPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry(new SlowQueryLog(() -> 0, 10, null), null);
+        Timer timer = registry.timer("dao.MySQLUserDAO.getUser");
+        assertSame(timer, registry.timer("dao.MySQLUserDAO.getUser"));
+
+        //1 to 100 ms
+        for (int i = 1; i <= 100; i++) {
+            timer.record(i * 1000000L, i == 100);
+        }
+        assertEquals(100, timer.getCount());
+        assertEquals(1, timer.getErrors());
+        assertEquals(50.5, timer.getAverageMillis(), 0.01);
+        assertEquals(100, timer.getMaxMillis(), 0.01);
+        //a bucket is at most a fifth longer than its start
+        assertEquals(50, timer.getPercentileMillis(50), 50 * 0.2);
+        assertEquals(95, timer.getPercentileMillis(95), 95 * 0.2);
+        assertEquals(100, timer.getPercentileMillis(100), 0.01);
+    }
+
+    @Test
+    public void TestBuckets() {
+        for (long micros = 0; micros < 100000; micros += 7) {
+            int bucket = Timer.bucket(micros);
+            //a bucket starts where the previous one ends
+            assertTrue(micros < Timer.bucketEnd(bucket));
+            assertTrue(bucket == 0 || micros >= Timer.bucketEnd(bucket - 1));
+        }
+    }
+
+    @Test
+    public void TestSlowQueries() {
+        AtomicLong threshold = new AtomicLong(10);
+        SlowQueryLog log = new SlowQueryLog(threshold::get, 2, null);
+
+        assertFalse(log.record("SELECT 1", 5000000L, "dao.other", false));
+        assertTrue(log.record("SELECT 2", 10000000L, "dao.other", false));
+        assertTrue(log.record("SELECT 3", 20000000L, "dao.other", true));
+        assertTrue(log.record("SELECT 4", 30000000L, "dao.other", false));
+
+        //only the last ones are kept, the most recent first
+        List<SlowQueryLog.SlowQuery> last = log.getLast();
+        assertEquals(2, last.size());
+        assertEquals("SELECT 4", last.get(0).getSql());
+        assertTrue(last.get(1).isFailed());
+
+        //the threshold is read for each statement
+        threshold.set(0);
+        assertFalse(log.record("SELECT 5", 90000000L, "dao.other", false));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void TestTimedCalls() {
+        MetricsRegistry registry = new MetricsRegistry(new SlowQueryLog(() -> 1, 10, null), null);
+        assertEquals("other", registry.getCaller());
+
+        try (TimedCall facade = registry.time("facade.FacadeUser.login")) {
+            assertEquals("facade.FacadeUser.login", registry.getCaller());
+            //a facade calling a DAO twice
+            for (int i = 0; i < 2; i++) {
+                try (TimedCall dao = registry.time("dao.MySQLUserDAO.searchUser")) {
+                    assertEquals("dao.MySQLUserDAO.searchUser < facade.FacadeUser.login", registry.getCaller());
+                }
+            }
+            assertEquals("facade.FacadeUser.login", registry.getCaller());
+        }
+
+        //each call is recorded once, whatever the number of statements it ran
+        assertEquals(1, registry.timer("facade.FacadeUser.login").getCount());
+        assertEquals(2, registry.timer("dao.MySQLUserDAO.searchUser").getCount());
+        assertEquals("other", registry.getCaller());
+    }
+
+    @Test
+    public void TestResetKeepsGauges() {
+        MetricsRegistry registry = new MetricsRegistry(new SlowQueryLog(() -> 1, 10, null), null);
+        registry.timer("pool.wait").record(2000000L);
+        registry.counter("pool.timeouts").increment();
+        registry.gauge("pool.active", () -> 3);
+        registry.getSlowQueries().record("SELECT 1", 2000000L, "dao.other", false);
+
+        registry.reset();
+
+        assertTrue(registry.getTimers().isEmpty());
+        assertTrue(registry.getCounters().isEmpty());
+        assertTrue(registry.getSlowQueries().getLast().isEmpty());
+        assertEquals(3, registry.getGauges().get("pool.active"));
+    }
+}
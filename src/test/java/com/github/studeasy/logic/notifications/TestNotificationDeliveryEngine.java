@@ -0,0 +1,85 @@
+package com.github.studeasy.logic.notifications;
+
+import com.github.studeasy.dao.notificationDAO.NotificationDAO;
+import com.github.studeasy.logic.common.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestNotificationDeliveryEngine {
+
+    //Mock the DAO
+    @Mock
+    private NotificationDAO notificationDAO;
+
+    @Mock
+    private User user;
+
+    //Values received by the listener
+    private ArrayList<Integer> received;
+
+    private NotificationDeliveryEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        received = new ArrayList<>();
+        //the UI updates are run right away
+        engine = new NotificationDeliveryEngine(notificationDAO, Runnable::run, 2000, 30000, 1.5);
+        //we set the user without starting the polling thread
+        ReflectionTestUtils.setField(engine, "user", user);
+        engine.setListener(received::add);
+    }
+
+    @Test
+    public void TestIncrementalPoll() throws Exception {
+        when(notificationDAO.getNotificationState(any())).thenReturn(new int[]{10, 2});
+        when(notificationDAO.getNewNotificationIds(any(), eq(10))).thenReturn(new ArrayList<>(Arrays.asList(11, 12)));
+        when(notificationDAO.getNewNotificationIds(any(), eq(12))).thenReturn(new ArrayList<>());
+
+        //first poll counts everything
+        assertTrue(engine.poll());
+        //then only the new notifications are fetched
+        assertTrue(engine.poll());
+        assertFalse(engine.poll());
+
+        verify(notificationDAO, times(1)).getNotificationState(any());
+        assertEquals(Arrays.asList(2, 4), received);
+    }
+
+    @Test
+    public void TestResyncAfterRead() throws Exception {
+        when(notificationDAO.getNotificationState(any())).thenReturn(new int[]{5, 3}, new int[]{5, 2});
+
+        engine.poll();
+        engine.requestResync();
+        engine.poll();
+
+        verify(notificationDAO, never()).getNewNotificationIds(any(), anyInt());
+        assertEquals(Arrays.asList(3, 2), received);
+    }
+
+    @Test
+    public void TestOnlyChangesArePushed() throws Exception {
+        when(notificationDAO.getNotificationState(any())).thenReturn(new int[]{5, 1});
+        when(notificationDAO.getNewNotificationIds(any(), anyInt())).thenReturn(new ArrayList<>());
+
+        engine.poll();
+        engine.poll();
+        engine.poll();
+
+        assertEquals(Arrays.asList(1), received);
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.studeasy.logic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPasswordUtils {
+
+    @Test
+    public void TestHashCarriesItsSettings() {
+        String salt = PasswordUtils.getSalt(30);
+        String stored = PasswordUtils.generateSecurePassword("Secret1!", salt);
+
+        assertTrue(stored.startsWith(PasswordUtils.ALGORITHM + "$" + PasswordUtils.ITERATIONS + "$"));
+        assertTrue(PasswordUtils.verifyUserPassword("Secret1!", stored, salt));
+        assertFalse(PasswordUtils.verifyUserPassword("Secret2!", stored, salt));
+        assertFalse(PasswordUtils.needsRehash(stored));
+    }
+
+    @Test
+    public void TestLegacyHashStillWorksAndIsUpgraded() {
+        String salt = PasswordUtils.getSalt(30);
+        //a hash stored before the settings were saved with it
+        String legacy = Base64.getEncoder().encodeToString(PasswordUtils.hash("Secret1!".toCharArray(), salt.getBytes(),
+                PasswordUtils.LEGACY_ALGORITHM, PasswordUtils.LEGACY_ITERATIONS));
+
+        assertTrue(PasswordUtils.verifyUserPassword("Secret1!", legacy, salt));
+        assertFalse(PasswordUtils.verifyUserPassword("Secret2!", legacy, salt));
+        assertTrue(PasswordUtils.needsRehash(legacy));
+        //a hash cheaper than the current settings is upgraded too
+        assertTrue(PasswordUtils.needsRehash(PasswordUtils.ALGORITHM + "$1000$abc="));
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.studeasy.logic.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFormValidator {
+
+    @Test
+    public void TestAllErrorsInOnePass() {
+        ValidationResult result = Forms.PARTNER.validate(Forms.account("bad", "other", "weak", "weak"));
+
+        assertFalse(result.isValid());
+        //the first message is the one the user saw before
+        assertEquals("The provided information doesn't match ! Please retry", result.getFirstMessage());
+        assertTrue(result.hasError(Forms.CONFIRM_EMAIL));
+        assertTrue(result.hasError(Forms.EMAIL));
+        assertTrue(result.hasError(Forms.PASSWORD));
+        assertEquals(3, result.getErrors().size());
+    }
+
+    @Test
+    public void TestValidForms() {
+        assertTrue(Forms.PARTNER.validate(Forms.account("a@b.com", "a@b.com", "Secret1@", "Secret1@")).isValid());
+        //an empty password keeps the current one
+        assertTrue(Forms.PARTNER_UPDATE.validate(Forms.account("a@b.com", "a@b.com", "", "")).isValid());
+        assertTrue(Forms.JOB.validate(Forms.job("a@b.com", "514-555-1234")).isValid());
+        assertEquals("Phone number is not valid, please retry", Forms.JOB.validate(Forms.job("a@b.com", "12")).getFirstMessage());
+    }
+
+    @Test
+    public void TestBulkKeepsTheOrder() {
+        List<Map<String, String>> forms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            forms.add(Forms.job(i % 2 == 0 ? "a" + i + "@b.com" : "nope", "514-555-1234"));
+        }
+
+        List<ValidationResult> results = Forms.JOB.validateAll(forms);
+
+        assertEquals(1000, results.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0, results.get(i).isValid());
+        }
+    }
+}
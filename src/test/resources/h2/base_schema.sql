@@ -0,0 +1,94 @@
+-- The tables of Stud'Easy before the migrations of database/migrations,
+-- as the DAOs read and write them. Used by the tests to create the schema
+-- in an embedded database; the migrations are then applied on top of it.
+CREATE TABLE user (
+    idUser INT NOT NULL AUTO_INCREMENT,
+    firstName VARCHAR(45) NOT NULL,
+    lastName VARCHAR(45) NOT NULL,
+    role INT NOT NULL,
+    password VARCHAR(128) NOT NULL,
+    emailAddress VARCHAR(255) NOT NULL,
+    pseudo VARCHAR(45) NULL,
+    company VARCHAR(45) NULL,
+    points INT NOT NULL DEFAULT 0,
+    salt VARCHAR(64) NULL,
+    keyConfirm VARCHAR(64) NULL,
+    confirm INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (idUser),
+    UNIQUE KEY uk_user_email (emailAddress)
+);
+
+CREATE TABLE categorytag (
+    idCategory INT NOT NULL AUTO_INCREMENT,
+    nameCategory VARCHAR(45) NOT NULL,
+    descriptionCategory VARCHAR(255) NULL,
+    PRIMARY KEY (idCategory)
+);
+
+INSERT INTO categorytag (nameCategory, descriptionCategory) VALUES ('Other', 'The services without category');
+
+CREATE TABLE service (
+    idService INT NOT NULL AUTO_INCREMENT,
+    fkCategory INT NULL,
+    titleService VARCHAR(45) NOT NULL,
+    descriptionService VARCHAR(500) NULL,
+    costService INT NOT NULL,
+    dateCreationService TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    typeService INT NOT NULL,
+    stateService INT NOT NULL DEFAULT 0,
+    ownerService INT NOT NULL,
+    PRIMARY KEY (idService),
+    CONSTRAINT fk_service_category FOREIGN KEY (fkCategory) REFERENCES categorytag (idCategory) ON DELETE SET NULL,
+    CONSTRAINT fk_service_owner FOREIGN KEY (ownerService) REFERENCES user (idUser) ON DELETE CASCADE
+);
+
+CREATE TABLE command (
+    idCommand INT NOT NULL AUTO_INCREMENT,
+    fkUser INT NOT NULL,
+    titleFeedback VARCHAR(45) NULL,
+    commentFeedback VARCHAR(500) NULL,
+    rateFeedback INT NULL,
+    date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fkService INT NOT NULL,
+    state INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (idCommand),
+    CONSTRAINT fk_command_user FOREIGN KEY (fkUser) REFERENCES user (idUser) ON DELETE CASCADE,
+    CONSTRAINT fk_command_service FOREIGN KEY (fkService) REFERENCES service (idService) ON DELETE CASCADE
+);
+
+CREATE TABLE job (
+    idJob INT NOT NULL AUTO_INCREMENT,
+    ownerJob INT NOT NULL,
+    titleJob VARCHAR(45) NOT NULL,
+    localisationJob VARCHAR(45) NULL,
+    roleJob VARCHAR(45) NULL,
+    startJob VARCHAR(45) NULL,
+    durationJob VARCHAR(45) NULL,
+    descriptionJob VARCHAR(500) NULL,
+    contactMailJob VARCHAR(255) NULL,
+    contactPhoneJob VARCHAR(45) NULL,
+    status VARCHAR(45) NOT NULL DEFAULT 'pending',
+    PRIMARY KEY (idJob),
+    CONSTRAINT fk_job_owner FOREIGN KEY (ownerJob) REFERENCES user (idUser) ON DELETE CASCADE
+);
+
+CREATE TABLE notification (
+    idNotification INT NOT NULL AUTO_INCREMENT,
+    ownerNotification INT NOT NULL,
+    titleNotification VARCHAR(45) NOT NULL,
+    descriptionNotification VARCHAR(500) NULL,
+    readNotification TINYINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (idNotification),
+    CONSTRAINT fk_notification_owner FOREIGN KEY (ownerNotification) REFERENCES user (idUser) ON DELETE CASCADE
+);
+
+CREATE TABLE coupon (
+    idCoupon INT NOT NULL AUTO_INCREMENT,
+    ownerCoupon INT NOT NULL,
+    titleCoupon VARCHAR(45) NOT NULL,
+    descriptionCoupon VARCHAR(500) NULL,
+    valueCoupon INT NOT NULL,
+    quantityCoupon INT NOT NULL,
+    PRIMARY KEY (idCoupon),
+    CONSTRAINT fk_coupon_owner FOREIGN KEY (ownerCoupon) REFERENCES user (idUser) ON DELETE CASCADE
+);